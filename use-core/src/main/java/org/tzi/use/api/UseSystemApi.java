@@ -25,6 +25,7 @@ import org.tzi.use.config.Options.WarningType;
 import org.tzi.use.main.Session;
 import org.tzi.use.parser.ocl.OCLCompiler;
 import org.tzi.use.uml.mm.*;
+import org.tzi.use.uml.ocl.expr.BatchEvaluator;
 import org.tzi.use.uml.ocl.expr.Evaluator;
 import org.tzi.use.uml.ocl.expr.Expression;
 import org.tzi.use.uml.ocl.expr.MultiplicityViolationException;
@@ -614,6 +615,63 @@ public abstract class UseSystemApi {
 	 * @return The evaluated USE value.
 	 */
 	public Value evaluate(String expression) throws UseApiException {
+		Expression expr = compileExpression(expression);
+		
+		Evaluator evaluator = new Evaluator(false);
+		Value val;
+		
+		try {
+			val = evaluator.eval(expr, system.state(), system.varBindings(),
+					NullPrintWriter.getInstance());
+		} catch (MultiplicityViolationException e) {
+			throw new UseApiException("Evaluation failed due to a multiplicity violation!", e);
+		}
+		
+		return val;
+	}
+	
+	/**
+	 * Evaluates the OCL expressions <code>expressions</code>
+	 * on the current system state and returns the results in the same order.
+	 * Common subexpressions without variables, e.g., <code>allInstances()</code>,
+	 * are evaluated only once for all expressions.
+	 * @param expressions The OCL expressions to evaluate.
+	 * @return The evaluated USE values.
+	 * @see BatchEvaluator
+	 */
+	public List<Value> evaluate(List<String> expressions) throws UseApiException {
+		return evaluate(expressions, 1);
+	}
+	
+	/**
+	 * Evaluates the OCL expressions <code>expressions</code>
+	 * on the current system state using up to <code>numThreads</code> threads
+	 * and returns the results in the same order.
+	 * Common subexpressions without variables, e.g., <code>allInstances()</code>,
+	 * are evaluated only once for all expressions.
+	 * @param expressions The OCL expressions to evaluate.
+	 * @param numThreads The maximum number of threads used for the evaluation.
+	 * @return The evaluated USE values.
+	 * @see BatchEvaluator
+	 */
+	public List<Value> evaluate(List<String> expressions, int numThreads) throws UseApiException {
+		List<Expression> exprs = new ArrayList<Expression>(expressions.size());
+		for (String expression : expressions) {
+			exprs.add(compileExpression(expression));
+		}
+		
+		try {
+			return new BatchEvaluator(exprs).eval(system.state(), system.varBindings(), numThreads);
+		} catch (MultiplicityViolationException e) {
+			throw new UseApiException("Evaluation failed due to a multiplicity violation!", e);
+		}
+	}
+	
+	/**
+	 * Compiles the OCL expression <code>expression</code>
+	 * in the context of the current variables.
+	 */
+	private Expression compileExpression(String expression) throws UseApiException {
 		StringWriter errBuffer = new StringWriter();
 		PrintWriter errorPrinter = new PrintWriter(errBuffer, true);
 		
@@ -635,17 +693,7 @@ public abstract class UseSystemApi {
 					+ errBuffer.toString());
 		}
 		
-		Evaluator evaluator = new Evaluator(false);
-		Value val;
-		
-		try {
-			val = evaluator.eval(expr, system.state(), system.varBindings(),
-					NullPrintWriter.getInstance());
-		} catch (MultiplicityViolationException e) {
-			throw new UseApiException("Evaluation failed due to a multiplicity violation!", e);
-		}
-		
-		return val;
+		return expr;
 	}
 	
 	/**
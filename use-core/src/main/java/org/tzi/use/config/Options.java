@@ -64,6 +64,13 @@ public class Options {
     private static final String EVAL_NUMTHREADS_P = "use.eval.numthreads";
     public static int EVAL_NUMTHREADS = 1;
     
+    /**
+     * Name of the property giving the number of parallel threads to use for
+     * executing the test cases of a test suite.
+     */
+    private static final String TESTSUITE_NUMTHREADS_P = "use.testsuite.numthreads";
+    public static int TESTSUITE_NUMTHREADS = 1;
+    
     private static final String DEFAULT_WIDTH_P = "use.gui.main.defaultWidth";
     public static int DEFAULT_WIDTH = 800;
     private static final String DEFAULT_HEIGHT_P = "use.gui.main.defaultHeight";
@@ -136,6 +143,40 @@ public class Options {
 
     public static boolean explicitVariableDeclarations = true;
     
+    /**
+     * If <code>true</code>, OCL expressions are compiled into
+     * evaluation trees with resolved variables before they are evaluated.
+     * Only used for evaluations without tracing or evaluation trees.
+     * @see org.tzi.use.uml.ocl.expr.compiled.ExpressionCompiler
+     */
+    public static boolean compileExpressions = false;
+
+    /**
+     * If <code>true</code>, new systems store the raised events
+     * in their statement results, e.g., for the sequence diagram.
+     * Enabled when the GUI is started.
+     * @see org.tzi.use.uml.sys.MSystem#setRecordEvents(boolean)
+     */
+    public static boolean recordEvents = false;
+
+    /**
+     * The port used by <code>-server</code> without an explicit port.
+     */
+    public static final int DEFAULT_SERVER_PORT = 1777;
+
+    /**
+     * The port of the headless server started instead of the shell
+     * or <code>-1</code>, if no server is started.
+     * @see org.tzi.use.main.server.UseServer
+     */
+    public static int serverPort = -1;
+    
+    /**
+     * If not <code>null</code>, the timings of executed test suites
+     * are written to this file (tab separated).
+     */
+    public static Path testSuiteTimingsFile = null;
+    
     private static boolean checkTransitions = true;
     
     /**
@@ -234,6 +275,8 @@ public class Options {
         System.out.println("options:");
         System.out.println("  -c            compile only");
         System.out.println("  -cp           compile and print specification");
+		System.out.println("  -compileOCL   compile OCL expressions before evaluation");
+		System.out.println("                (folds constant and loop-invariant subexpressions)");
 		System.out.println("  -disableCollectShorthand");
 		System.out.println("                flag use of OCL shorthand notation as error");
 		System.out.println("  -oclAnyCollectionsChecks:W");
@@ -249,6 +292,10 @@ public class Options {
 		System.out.println("  -q            reads spec_file, executes cmd_file, and checks constraints");
 		System.out.println("                exit code is 1 if constraints fail, otherwise 0");
 		System.out.println("  -qv           like -q but with verbose output of constraint check");
+		System.out.println("  -server[=port]");
+		System.out.println("                serve the system to network clients (default port 1777)");
+		System.out.println("  -testTimings=file");
+		System.out.println("                write the timings of test suites to file");
         System.out.println("  -v            print verbose messages");
 		System.out.println("  -vt           print verbose messages with time info");
         System.out.println("  -V            print version info and exit");
@@ -302,6 +349,8 @@ public class Options {
                 } else if (arg.equals("cp") ) {
                     Options.compileOnly = true;
                     Options.compileAndPrint = true;
+                } else if (arg.equals("compileOCL")) {
+                	Options.compileExpressions = true;
                 } else if (arg.equals("disableCollectShorthand")) {
                 	Options.disableCollectShorthand = true;
                 } else if (arg.equals("nogui")) {
@@ -324,6 +373,24 @@ public class Options {
                     Options.quiet = true;
                     Options.quietAndVerboseConstraintCheck = true;
                     Options.doGUI = false;
+                } else if (arg.equals("server")) {
+                    Options.serverPort = DEFAULT_SERVER_PORT;
+                    Options.doGUI = false;
+                } else if (arg.startsWith("server=")) {
+                    try {
+                        Options.serverPort = Integer.parseInt(arg.substring("server=".length()));
+                    } catch (NumberFormatException e) {
+                        System.err.println("Invalid server port " + StringUtil.inQuotes(arg.substring("server=".length())) + ".");
+                        System.exit(1);
+                    }
+                    Options.doGUI = false;
+                } else if (arg.startsWith("testTimings=")) {
+                	try {
+                		testSuiteTimingsFile = Paths.get(arg.substring("testTimings=".length()));
+                	} catch (InvalidPathException e) {
+                		System.err.println("Invalid path " + StringUtil.inQuotes(arg.substring("testTimings=".length())) + " for test timings specified.");
+                		System.exit(1);
+                	}
                 } else if (arg.equals("t")) { 
                 	Options.testMode = true;
                 } else if (arg.equals("v")) {
@@ -475,6 +542,9 @@ public class Options {
 		EVAL_NUMTHREADS = props.getRangeIntProperty(EVAL_NUMTHREADS_P,
 				EVAL_NUMTHREADS, 1, Integer.MAX_VALUE);
 		
+		TESTSUITE_NUMTHREADS = props.getRangeIntProperty(TESTSUITE_NUMTHREADS_P,
+				TESTSUITE_NUMTHREADS, 1, Integer.MAX_VALUE);
+		
 		DEFAULT_WIDTH = props.getRangeIntProperty(DEFAULT_WIDTH_P,
 				DEFAULT_WIDTH, 1, Integer.MAX_VALUE);
 		DEFAULT_HEIGHT = props.getRangeIntProperty(DEFAULT_HEIGHT_P,
@@ -62,11 +62,11 @@ public class GEvalBarrier extends GEvalInstruction implements IGCaller {
             	collector.addBarrierBlock();
             	collector.setBlocked(true);
             }
-            instr.getStatistic().registerResult(valid, System.nanoTime() - start);
+            collector.barrierStatistic(instr).registerResult(valid, System.nanoTime() - start);
             
             caller.feedback( conf, val, collector );
         } catch (MultiplicityViolationException e) {
-            instr.getStatistic().registerException();
+            collector.barrierStatistic(instr).registerException();
         	collector.invalid(e.getMessage());
         }
 	}
@@ -212,14 +212,7 @@ public class GEvalInstrTry_Assoc_LinkendSeqs extends GEvalInstrTry
         }
                 
         // this is the "all links exist" configuration + 1
-        long tooLarge = (1 << insertStatements.size());
-        
-        // we start with the 0000... (all links off) combination
-        long oldConfiguration = 0;
-        // configuration after state change
-        // in the first iteration old- and newConfiguration are equal, so we 
-        // can check the initial state
-        long newConfiguration = oldConfiguration;
+        long tooLarge = (1L << insertStatements.size());
         
         long numEvaluated = 0;
         long numCut = 0;
@@ -229,7 +222,23 @@ public class GEvalInstrTry_Assoc_LinkendSeqs extends GEvalInstrTry
         final boolean useTryCuts = conf.getArguments().useTryCuts();
         final boolean checkStructure = conf.getArguments().checkStructure();
         
-        do {
+        // configurations violating the multiplicities would be cut anyway,
+        // so they are skipped without changing the state
+        GMultiplicityPropagator propagator = null;
+        if (useTryCuts && checkStructure && 
+        	GMultiplicityPropagator.isApplicable(association, combinations)) {
+        	propagator = new GMultiplicityPropagator(association, combinations, state);
+        }
+        
+        // we start with the 0000... (all links off) combination
+        long oldConfiguration = 0;
+        // configuration after state change
+        // in the first iteration old- and newConfiguration are equal, so we 
+        // can check the initial state
+        long newConfiguration = nextConfiguration(propagator, oldConfiguration, tooLarge, collector);
+        
+        // if no configuration satisfies the multiplicities, nothing is tried
+        while (newConfiguration < tooLarge) {
         	// construct the statement that transforms the state from old to
         	// new configuration
         	MStatement statement = constructLinkChangeStatement(
@@ -280,13 +289,15 @@ public class GEvalInstrTry_Assoc_LinkendSeqs extends GEvalInstrTry
         	
             // configurations for next iteration
             oldConfiguration = newConfiguration;
-        	++newConfiguration;
+        	newConfiguration = nextConfiguration(propagator, newConfiguration + 1, tooLarge, collector);
         	this.outPutProgress(newConfiguration);
         	// Remove unique name state, because no undo statements are executed
         	system.getUniqueNameGenerator().popState();
         	
           // stop once all configurations have been built or stopping is allowed
-        } while ((newConfiguration < tooLarge) && !collector.canStop());
+        	if (collector.canStop())
+        		break;
+        }
         
         this.endProgress();
         
@@ -319,6 +330,29 @@ public class GEvalInstrTry_Assoc_LinkendSeqs extends GEvalInstrTry
         }
     }
 
+    /**
+     * Returns the next configuration greater or equal to <code>from</code>
+     * which needs to be tried. If a propagator is given, configurations
+     * which cannot satisfy the multiplicities are skipped and
+     * reported as ignored states.
+     * @return The next configuration or <code>tooLarge</code> if
+     *         all configurations were tried.
+     */
+    private long nextConfiguration(GMultiplicityPropagator propagator,
+    		long from, long tooLarge, IGCollector collector) {
+    	if (propagator == null || from >= tooLarge)
+    		return from;
+    	
+    	long next = propagator.nextConfiguration(from);
+    	if (next == GMultiplicityPropagator.NO_CONFIGURATION)
+    		next = tooLarge;
+    	
+    	if (next > from)
+    		collector.addIgnoredStates(next - from);
+    	
+    	return next;
+    }
+    
 	private long constructInsertAndDeleteStatements(
     		List<List<MObject>> combinations,
     		int numLinks,
@@ -362,7 +396,7 @@ public class GEvalInstrTry_Assoc_LinkendSeqs extends GEvalInstrTry
         		// FIXME: Support qualifiers in generator
 				if (state.hasLink(association, objects, emptyQualifiers)) {
 					// "turn on" bit i
-					initConfiguration |= (1 << i);
+					initConfiguration |= (1L << i);
 				}
 			} catch (MSystemException e) {
 				throw new GEvaluationException(e);
@@ -20,6 +20,7 @@
 package org.tzi.use.gen.assl.dynamics;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -93,6 +94,9 @@ public class GEvalInstrTry_Attribute extends GEvalInstrTry {
 		CollectionValue values = (CollectionValue)valuesResult;
 
 		List<Value> valuesList = new ArrayList<Value>(values.collection());
+		if (conf.getArguments().useRandomTry()) {
+			Collections.shuffle(valuesList, conf.random());
+		}
 		List<MObject> rangeObjects = new LinkedList<MObject>();
 		for (Value object : range.collection()) {
 			if (object.isUndefined()) {
@@ -29,6 +29,10 @@
 
 package org.tzi.use.gen.assl.dynamics;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.tzi.use.gen.assl.statics.GInstrTry_Seq;
 import org.tzi.use.uml.ocl.value.CollectionValue;
 import org.tzi.use.uml.ocl.value.Value;
@@ -64,7 +68,14 @@ public class GEvalInstrTry_Seq extends GEvalInstrTry implements IGCaller {
         	this.initProgress(col.size());
         	int element = 0;
         	
-            for (Value elem : col) {
+        	Iterable<Value> elements = col;
+        	if (conf.getArguments().useRandomTry()) {
+        		List<Value> shuffled = new ArrayList<Value>(col.collection());
+        		Collections.shuffle(shuffled, conf.random());
+        		elements = shuffled;
+        	}
+        	
+            for (Value elem : elements) {
             	if (collector.canStop()) {
                 	break;
                 }
@@ -0,0 +1,276 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.gen.assl.dynamics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.tzi.use.uml.mm.MAssociation;
+import org.tzi.use.uml.mm.MAssociationEnd;
+import org.tzi.use.uml.mm.MMultiplicity;
+import org.tzi.use.uml.sys.MLink;
+import org.tzi.use.uml.sys.MObject;
+import org.tzi.use.uml.sys.MSystemState;
+
+/**
+ * Enumerates the link configurations of a try over link end sequences
+ * which can satisfy the multiplicities of the association.
+ * <p>
+ * A configuration is a bit vector (bit i == 1 -> link i exists).
+ * For each association end and each tuple of objects at the other ends
+ * the number of connected objects is bounded by the multiplicity of the end.
+ * The search decides the links from the most significant bit downwards and
+ * propagates these bounds after each decision, i.e., a subtree is skipped
+ * as soon as an upper bound is exceeded or a lower bound can no longer be
+ * reached by the undecided links.
+ * Configurations are returned in ascending order, so the enumeration
+ * order of the unpruned try is preserved.
+ * </p>
+ * <p>
+ * Links which are not part of the tried configurations
+ * (i.e., links to other objects) are counted as fixed.
+ * </p>
+ */
+final class GMultiplicityPropagator {
+
+	/**
+	 * Returned by {@link #nextConfiguration(long)} if no
+	 * further configuration can satisfy the multiplicities.
+	 */
+	static final long NO_CONFIGURATION = -1;
+
+	private final int numLinks;
+
+	/**
+	 * For each link the indexes of the counters it contributes to
+	 * (one per association end).
+	 */
+	private final int[][] linkCounters;
+
+	private final int[] lower;
+
+	private final int[] upper;
+
+	private final MMultiplicity[] multiplicities;
+
+	/**
+	 * Number of existing links per counter (fixed links + decided links)
+	 */
+	private final int[] count;
+
+	/**
+	 * Number of undecided links per counter
+	 */
+	private final int[] open;
+
+	/**
+	 * Returns <code>true</code>, if the structure of the association
+	 * allows to count links by the tuples of the other ends only.
+	 * Derived, union and qualified associations as well as associations
+	 * taking part in subsets or redefines relations are not supported.
+	 */
+	static boolean isApplicable(MAssociation association, List<List<MObject>> combinations) {
+		if (association.isDerived() || association.isUnion()
+				|| !association.getSubsettedBy().isEmpty()
+				|| !association.getRedefinedBy().isEmpty()
+				|| association.isRedefining()
+				|| !association.allChildren().isEmpty()) {
+			return false;
+		}
+
+		for (MAssociationEnd end : association.associationEnds()) {
+			if (end.hasQualifiers() || !end.getSubsettedEnds().isEmpty()
+					|| !end.getRedefinedEnds().isEmpty()) {
+				return false;
+			}
+		}
+
+		// duplicate link candidates cannot be counted by their bits
+		return new HashSet<List<MObject>>(combinations).size() == combinations.size();
+	}
+
+	/**
+	 * @param association The association the links are tried for.
+	 * @param combinations The possible links. Link <code>i</code> is represented by bit <code>i</code>.
+	 * @param state The current system state. Links of <code>association</code>
+	 *        which are not contained in <code>combinations</code> are counted as fixed.
+	 */
+	GMultiplicityPropagator(MAssociation association, List<List<MObject>> combinations, MSystemState state) {
+		List<MAssociationEnd> ends = association.associationEnds();
+		int numEnds = ends.size();
+
+		numLinks = combinations.size();
+		linkCounters = new int[numLinks][numEnds];
+
+		// one map per end: objects at the other ends -> counter index
+		List<Map<List<MObject>, Integer>> counterIndexes = new ArrayList<Map<List<MObject>, Integer>>(numEnds);
+		List<MMultiplicity> counterMultiplicities = new ArrayList<MMultiplicity>();
+
+		for (int end = 0; end < numEnds; ++end) {
+			counterIndexes.add(new HashMap<List<MObject>, Integer>());
+		}
+
+		for (int link = 0; link < numLinks; ++link) {
+			List<MObject> objects = combinations.get(link);
+
+			for (int end = 0; end < numEnds; ++end) {
+				List<MObject> key = otherObjects(objects, end);
+				Integer index = counterIndexes.get(end).get(key);
+
+				if (index == null) {
+					index = Integer.valueOf(counterMultiplicities.size());
+					counterIndexes.get(end).put(key, index);
+					counterMultiplicities.add(ends.get(end).multiplicity());
+				}
+
+				linkCounters[link][end] = index.intValue();
+			}
+		}
+
+		int numCounters = counterMultiplicities.size();
+		multiplicities = counterMultiplicities.toArray(new MMultiplicity[numCounters]);
+		lower = new int[numCounters];
+		upper = new int[numCounters];
+		count = new int[numCounters];
+		open = new int[numCounters];
+
+		for (int i = 0; i < numCounters; ++i) {
+			lower[i] = Integer.MAX_VALUE;
+			upper[i] = 0;
+
+			for (MMultiplicity.Range r : multiplicities[i].getRanges()) {
+				lower[i] = Math.min(lower[i], r.getLower());
+				upper[i] = Math.max(upper[i],
+						r.getUpper() == MMultiplicity.MANY ? Integer.MAX_VALUE : r.getUpper());
+			}
+		}
+
+		for (int link = 0; link < numLinks; ++link) {
+			for (int counter : linkCounters[link]) {
+				++open[counter];
+			}
+		}
+
+		// links outside of the tried combinations are fixed
+		Set<List<MObject>> candidates = new HashSet<List<MObject>>(combinations);
+
+		for (MLink link : state.linksOfAssociation(association).links()) {
+			List<MObject> objects = link.linkedObjects();
+			if (candidates.contains(objects))
+				continue;
+
+			for (int end = 0; end < numEnds; ++end) {
+				Integer index = counterIndexes.get(end).get(otherObjects(objects, end));
+				if (index != null) {
+					++count[index.intValue()];
+				}
+			}
+		}
+	}
+
+	private static List<MObject> otherObjects(List<MObject> objects, int end) {
+		List<MObject> key = new ArrayList<MObject>(objects);
+		key.remove(end);
+		return key;
+	}
+
+	/**
+	 * Calculates the smallest configuration greater or equal to
+	 * <code>from</code> which satisfies the multiplicities.
+	 * @param from The lowest configuration to consider.
+	 * @return The next valid configuration or {@link #NO_CONFIGURATION}.
+	 */
+	long nextConfiguration(long from) {
+		if (from < 0 || (numLinks < 63 && from >= (1L << numLinks)))
+			return NO_CONFIGURATION;
+
+		return search(numLinks - 1, 0, true, from);
+	}
+
+	private long search(int bit, long prefix, boolean tight, long from) {
+		if (bit < 0) {
+			return isValid() ? prefix : NO_CONFIGURATION;
+		}
+
+		long mask = 1L << bit;
+		boolean fromBit = (from & mask) != 0;
+		long result = NO_CONFIGURATION;
+
+		// link off first to keep the configurations ascending
+		if (!(tight && fromBit)) {
+			if (decide(bit, false)) {
+				result = search(bit - 1, prefix, tight, from);
+			}
+			undo(bit, false);
+
+			if (result != NO_CONFIGURATION)
+				return result;
+		}
+
+		if (decide(bit, true)) {
+			result = search(bit - 1, prefix | mask, tight && fromBit, from);
+		}
+		undo(bit, true);
+
+		return result;
+	}
+
+	/**
+	 * Applies the decision for <code>link</code> and
+	 * checks if all affected bounds are still reachable.
+	 */
+	private boolean decide(int link, boolean on) {
+		boolean feasible = true;
+
+		for (int counter : linkCounters[link]) {
+			--open[counter];
+			if (on) ++count[counter];
+
+			if (count[counter] > upper[counter] || count[counter] + open[counter] < lower[counter]) {
+				feasible = false;
+			}
+		}
+
+		return feasible;
+	}
+
+	private void undo(int link, boolean on) {
+		for (int counter : linkCounters[link]) {
+			++open[counter];
+			if (on) --count[counter];
+		}
+	}
+
+	/**
+	 * Checks the exact multiplicities, because
+	 * they can consist of several ranges.
+	 */
+	private boolean isValid() {
+		for (int i = 0; i < count.length; ++i) {
+			if (!multiplicities[i].contains(count[i]))
+				return false;
+		}
+		return true;
+	}
+}
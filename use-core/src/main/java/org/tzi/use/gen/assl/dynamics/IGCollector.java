@@ -33,6 +33,7 @@ import java.io.PrintWriter;
 
 import org.tzi.use.gen.assl.statics.GInstrBarrier;
 import org.tzi.use.gen.assl.statics.GInstrCalculatedBarrier;
+import org.tzi.use.gen.tool.statistics.GStatistic;
 import org.tzi.use.uml.sys.soil.MStatement;
 
 public interface IGCollector {
@@ -120,4 +121,10 @@ public interface IGCollector {
 	 * @param bInstr 
 	 */
 	public void addBarrier(GInstrCalculatedBarrier bInstr);
+	
+	/**
+	 * Returns the statistic the evaluations of <code>bInstr</code>
+	 * are counted by.
+	 */
+	public GStatistic barrierStatistic(GInstrBarrier bInstr);
 }
@@ -35,9 +35,14 @@ public class GInstrBarrier implements GInstruction {
 	
 	private final GStatistic barrierStatistic;
 	
+	// stateless, so one evaluator is shared by all evaluations
+	// (and all threads of a portfolio search)
+	private final GEvalBarrier evalInstr;
+	
 	public GInstrBarrier(Expression barrierExp) {
 		this.barrierExpression = barrierExp;
 		this.barrierStatistic = new GStatistic(this);
+		this.evalInstr = new GEvalBarrier(this);
 	}
 
 	/* (non-Javadoc)
@@ -45,7 +50,7 @@ public class GInstrBarrier implements GInstruction {
 	 */
 	@Override
 	public GEvalInstruction createEvalInstr() {
-		return new GEvalBarrier(this);
+		return evalInstr;
 	}
 	
 	/* (non-Javadoc)
@@ -28,6 +28,8 @@ import org.tzi.use.uml.mm.MClassInvariant;
  */
 public class GInstrCalculatedBarrier extends GInstrBarrier {
 
+	private final MClassInvariant invariant;
+	
 	private String invName;
 	
 	/**
@@ -36,9 +38,18 @@ public class GInstrCalculatedBarrier extends GInstrBarrier {
 	 */
 	public GInstrCalculatedBarrier(MClassInvariant flaggedInvariant) {
 		super(flaggedInvariant.flaggedExpression());
+		invariant = flaggedInvariant;
 		invName = flaggedInvariant.toString();
 	}
 
+	/**
+	 * Returns the invariant this barrier checks.
+	 * @return
+	 */
+	public MClassInvariant getInvariant() {
+		return invariant;
+	}
+
 	@Override
 	public String toString() {
 		return "*Barrier(" + invName + ")";
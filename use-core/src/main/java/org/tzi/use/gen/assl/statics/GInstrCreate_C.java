@@ -38,9 +38,12 @@ public class GInstrCreate_C implements GValueInstruction {
     // Create( Class C ): C
 
     private MClass fClass;
+    // stateless, so one evaluator is shared by all evaluations
+    private final GEvalInstrCreate_C fEvalInstr;
 
     public GInstrCreate_C( MClass cls ) {
         fClass = cls;
+        fEvalInstr = new GEvalInstrCreate_C( this );
     }
 
     public MClass cls() {
@@ -64,6 +67,6 @@ public class GInstrCreate_C implements GValueInstruction {
 	 */
 	@Override
 	public GEvalInstruction createEvalInstr() {
-		return new GEvalInstrCreate_C( this );
+		return fEvalInstr;
 	}
 }
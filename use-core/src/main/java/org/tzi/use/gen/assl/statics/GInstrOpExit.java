@@ -5,6 +5,9 @@ import org.tzi.use.gen.assl.dynamics.GEvalOpExit;
 
 public class GInstrOpExit implements GInstruction {
 
+	// stateless, so one evaluator is shared by all evaluations
+	private final GEvalOpExit fEvalInstr = new GEvalOpExit(this);
+
 	@Override
 	public String toString() {
 		return "OpExit";
@@ -19,6 +22,6 @@ public class GInstrOpExit implements GInstruction {
 	 */
 	@Override
 	public GEvalInstruction createEvalInstr() {
-		return new GEvalOpExit(this);
+		return fEvalInstr;
 	}
 }
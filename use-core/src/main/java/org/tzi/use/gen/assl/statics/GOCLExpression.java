@@ -35,9 +35,12 @@ import org.tzi.use.uml.ocl.type.Type;
  */
 public class GOCLExpression implements GValueInstruction {
     private Expression fExpression;
+    // stateless, so one evaluator is shared by all evaluations
+    private final GEvalOCLExpression fEvalInstr;
 
     public GOCLExpression( Expression expression ) {
         fExpression = expression;
+        fEvalInstr = new GEvalOCLExpression( this );
     }
 
     public Type type() {
@@ -61,6 +64,6 @@ public class GOCLExpression implements GValueInstruction {
 	 */
 	@Override
 	public GEvalInstruction createEvalInstr() {
-		return new GEvalOCLExpression( this );
+		return fEvalInstr;
 	}
 }
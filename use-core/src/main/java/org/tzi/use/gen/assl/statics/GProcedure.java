@@ -47,6 +47,10 @@ public class GProcedure {
     private GInstructionList fInstructionList;
     private GSignature signature = null;
     
+    // model and invariant flags the current calculated barriers were computed for
+    private MModel fBarrierModel = null;
+    private Map<MClassInvariant, Boolean> fBarrierFlags = null;
+    
     public GProcedure(String name) {
         fName = name;
         fParameterDecls = new ArrayList<VarDecl>();
@@ -109,10 +113,28 @@ public class GProcedure {
     }
 
 	/**
+	 * Inserts barriers for all active invariants of <code>model</code> that
+	 * cannot be changed by the remaining instructions.
+	 * The result is memoized: if the procedure is evaluated again
+	 * with the same invariant flags, the existing barriers are reused
+	 * and only registered at <code>collector</code>.
 	 * @param collector
      * @param model
 	 */
 	public void calculateBarriers(IGCollector collector, MModel model) {
+		Map<MClassInvariant, Boolean> flags = new HashMap<MClassInvariant, Boolean>();
+		for (MClassInvariant inv : model.classInvariants()) {
+			if (inv.isActive()) {
+				flags.put(inv, Boolean.valueOf(inv.isNegated()));
+			}
+		}
+		
+		if (model == fBarrierModel && flags.equals(fBarrierFlags)) {
+			registerBarriers(collector);
+			return;
+		}
+		
+		removeCalculatedBarriers();
 		
 		// Calculate coverage of all invariants
 		Map<MClassInvariant, BasicCoverageData> invCoverage = new HashMap<MClassInvariant, BasicCoverageData>();
@@ -131,6 +153,7 @@ public class GProcedure {
 		for (int index = 0; index < instrList.size(); ++index) {
 			// Add user defined barrier to statistics
 			if (instrList.get(index).getClass().equals(GInstrBarrier.class) ) {
+				((GInstrBarrier)instrList.get(index)).getStatistic().reset();
 				collector.addBarrier((GInstrBarrier)instrList.get(index));
 			}
 			
@@ -163,6 +186,62 @@ public class GProcedure {
 				invCoverage.remove(inv);
 			}
 		}
+		
+		fBarrierModel = model;
+		fBarrierFlags = flags;
+	}
+
+	/**
+	 * Registers the barriers of a previous calculation at <code>collector</code>
+	 * and resets their statistics.
+	 */
+	private void registerBarriers(IGCollector collector) {
+		List<GInstruction> instrList = fInstructionList.instructions();
+		
+		for (int index = 0; index < instrList.size(); ++index) {
+			GInstruction instr = instrList.get(index);
+			
+			if (instr instanceof GInstrCalculatedBarrier) {
+				GInstrCalculatedBarrier bInstr = (GInstrCalculatedBarrier)instr;
+				bInstr.getStatistic().reset();
+				collector.addBarrier(bInstr);
+				bInstr.getInvariant().setCheckedByBarrier(true);
+				
+				if (collector.doBasicPrinting()) {
+					int next = index + 1;
+					while (instrList.get(next) instanceof GInstrCalculatedBarrier) {
+						++next;
+					}
+					
+					collector.basicPrintWriter().println(
+							"Added Barrier for invariant "
+									+ StringUtil.inQuotes(bInstr.getInvariant())
+									+ " before statement "
+									+ StringUtil.inQuotes(instrList.get(next)));
+				}
+			} else if (instr.getClass().equals(GInstrBarrier.class)) {
+				((GInstrBarrier)instr).getStatistic().reset();
+				collector.addBarrier((GInstrBarrier)instr);
+			}
+		}
+	}
+	
+	/**
+	 * Removes all barriers added by {@link #calculateBarriers(IGCollector, MModel)}.
+	 */
+	public void removeCalculatedBarriers() {
+		Iterator<GInstruction> iter = fInstructionList.instructions().iterator();
+		
+		while (iter.hasNext()) {
+			GInstruction instr = iter.next();
+			if (instr instanceof GInstrCalculatedBarrier) {
+				((GInstrCalculatedBarrier)instr).getInvariant().setCheckedByBarrier(false);
+				iter.remove();
+			}
+		}
+		
+		fBarrierModel = null;
+		fBarrierFlags = null;
 	}
 }
 
@@ -41,6 +41,10 @@ import org.tzi.use.uml.ocl.value.BooleanValue;
 import org.tzi.use.uml.ocl.value.Value;
 import org.tzi.use.uml.sys.MSystemState;
 import org.tzi.use.util.NullPrintWriter;
+import org.tzi.use.util.metrics.Counter;
+import org.tzi.use.util.metrics.Histogram;
+import org.tzi.use.util.metrics.InvariantEvaluationEvent;
+import org.tzi.use.util.metrics.Metrics;
 
 
 /**
@@ -50,6 +54,10 @@ import org.tzi.use.util.NullPrintWriter;
  * @author  Joern Bohling
  */
 public class GChecker implements IGChecker {
+    private static final Counter INVARIANTS_EVALUATED = Metrics.counter("generator.invariant.evaluated");
+    private static final Counter INVARIANTS_FAILED = Metrics.counter("generator.invariant.failed");
+    private static final Histogram INVARIANT_TIME = Metrics.histogram("generator.invariant.time");
+    
     private boolean fCheckStructure;
     
     private final GInvariantStatistic[] fInvariantStatistics;
@@ -113,13 +121,28 @@ public class GChecker implements IGChecker {
             if (stat.getInvariant().isActive() && !stat.isCheckedByBarrier() ) {
             	
             	try {
+            		InvariantEvaluationEvent event = new InvariantEvaluationEvent();
+            		event.begin();
             		start = System.nanoTime();
 	            		                    
 	                value = fEvaluator.eval( stat.getInvariant().expandedExpression(), state );
 	                    
 	                valid = value.isDefined() && ((BooleanValue) value).isFalse() == stat.getInvariant().isNegated();
-	                	            	
-	                stat.registerResult(valid, System.nanoTime() - start);
+	                
+	                long duration = System.nanoTime() - start;
+	                stat.registerResult(valid, duration);
+	                
+	                INVARIANT_TIME.record(duration);
+	                INVARIANTS_EVALUATED.inc();
+	                if (!valid)
+	                	INVARIANTS_FAILED.inc();
+	                
+	                event.end();
+	                if (event.shouldCommit()) {
+	                	event.invariant = stat.getInvariant().qualifiedName();
+	                	event.valid = valid;
+	                	event.commit();
+	                }
 	                
 	                if (!valid) {
 	                	if (collector.doBasicPrinting())
@@ -155,6 +178,25 @@ public class GChecker implements IGChecker {
         return result;
     }
 
+    /**
+     * Adds the statistics of <code>other</code>, which checked
+     * states of the same model, to this checker.
+     * @param other
+     */
+    public void merge(GChecker other) {
+    	for (GInvariantStatistic otherStat : other.fInvariantStatistics) {
+    		for (GInvariantStatistic stat : fInvariantStatistics) {
+    			if (stat.getInvariant() == otherStat.getInvariant()) {
+    				stat.add(otherStat);
+    				break;
+    			}
+    		}
+    	}
+    	
+    	fStructureStatistic.add(other.fStructureStatistic);
+    	sortCount += other.sortCount;
+    }
+
     public void printStatistics(PrintWriter pw, long checkedStates) {
     	// Add the local data to the total 
         for (int i = 0; i < fInvariantStatistics.length; ++i)
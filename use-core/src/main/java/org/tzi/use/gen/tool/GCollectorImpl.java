@@ -26,13 +26,19 @@ package org.tzi.use.gen.tool;
 
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.tzi.use.gen.assl.dynamics.IGCollector;
 import org.tzi.use.gen.assl.statics.GInstrBarrier;
 import org.tzi.use.gen.assl.statics.GInstrCalculatedBarrier;
+import org.tzi.use.gen.tool.statistics.GStatistic;
 import org.tzi.use.uml.sys.soil.MStatement;
 import org.tzi.use.util.NullPrintWriter;
+import org.tzi.use.util.metrics.Counter;
+import org.tzi.use.util.metrics.Metrics;
 
 /**
  * Collects information which can be printed using the -d and -b options
@@ -42,6 +48,10 @@ import org.tzi.use.util.NullPrintWriter;
  * @author  Joern Bohling
  */
 public class GCollectorImpl implements IGCollector {
+    private static final Counter STATES_CHECKED = Metrics.counter("generator.states.checked");
+    private static final Counter STATES_IGNORED = Metrics.counter("generator.states.ignored");
+    private static final Counter CUTS = Metrics.counter("generator.cuts");
+    
     private boolean fValidStateFound;
     private List<MStatement> fStatements;
     private long fLimit;
@@ -83,6 +93,17 @@ public class GCollectorImpl implements IGCollector {
     
     private List<GInstrBarrier> barriers = new ArrayList<GInstrBarrier>();
     
+    /**
+     * If set, the search stops as soon as the signal is raised.
+     */
+    private AtomicBoolean fCancelSignal = null;
+    
+    /**
+     * Barrier statistics of this collector. If <code>null</code>,
+     * the statistics of the barriers are used directly.
+     */
+    private Map<GInstrBarrier, GStatistic> fBarrierStatistics = null;
+    
     public GCollectorImpl(boolean doBasicPrinting, boolean doDetailPrinting) {
         fValidStateFound = false;
         fStatements = new ArrayList<MStatement>();
@@ -97,7 +118,29 @@ public class GCollectorImpl implements IGCollector {
     }
     
     public boolean canStop() {
-        return fValidStateFound || fLeafCount >= fLimit;
+        return fValidStateFound || fLeafCount >= fLimit
+        		|| (fCancelSignal != null && fCancelSignal.get());
+    }
+    
+    /**
+     * Sets a signal which cancels the search, when it is raised
+     * by another thread.
+     * @param signal
+     */
+    public void setCancelSignal(AtomicBoolean signal) {
+    	fCancelSignal = signal;
+    }
+    
+    /**
+     * Counts the barrier evaluations in statistics owned by this collector
+     * instead of the statistics of the barriers, which are shared by all
+     * searches running the same procedure.
+     * The counters are added to the barriers when this collector is merged
+     * into a collector without own statistics.
+     */
+    public void useOwnBarrierStatistics() {
+    	if (fBarrierStatistics == null)
+    		fBarrierStatistics = new IdentityHashMap<GInstrBarrier, GStatistic>();
     }
 
     public void setValidStateFound() {
@@ -162,6 +205,7 @@ public class GCollectorImpl implements IGCollector {
 
     public void leaf() {
         fLeafCount++;
+        STATES_CHECKED.inc();
         fBasicPrintWriter.print("check state (" + fLeafCount + "): ");
     }
 
@@ -209,6 +253,7 @@ public class GCollectorImpl implements IGCollector {
 	@Override
 	public void addIgnoredStates(long ignoredStates) {
 		this.ignoredStates += ignoredStates;
+		STATES_IGNORED.add(ignoredStates);
 	}
 	
 	public long getIgnoredStates() {
@@ -237,6 +282,7 @@ public class GCollectorImpl implements IGCollector {
 	@Override
 	public void addCut() {
 		++this.cutCount;
+		CUTS.inc();
 	}
 
 	/* (non-Javadoc)
@@ -290,5 +336,44 @@ public class GCollectorImpl implements IGCollector {
 	public List<GInstrBarrier> getBarriers() {
 		return this.barriers;
 	}
+	
+	@Override
+	public GStatistic barrierStatistic(GInstrBarrier bInstr) {
+		if (fBarrierStatistics == null)
+			return bInstr.getStatistic();
+		
+		GStatistic stat = fBarrierStatistics.get(bInstr);
+		if (stat == null) {
+			stat = new GStatistic(bInstr);
+			fBarrierStatistics.put(bInstr, stat);
+		}
+		return stat;
+	}
+	
+	/**
+	 * Adds the counters of <code>other</code> to this collector.
+	 * If <code>other</code> found a valid state and this collector
+	 * did not, the statements of <code>other</code> are taken over.
+	 * @param other
+	 */
+	public void merge(GCollectorImpl other) {
+		fLeafCount += other.fLeafCount;
+		ignoredStates += other.ignoredStates;
+		cutCount += other.cutCount;
+		barrierHitCount += other.barrierHitCount;
+		fExistsInvalidMessage |= other.fExistsInvalidMessage;
+		
+		if (other.fBarrierStatistics != null) {
+			for (Map.Entry<GInstrBarrier, GStatistic> e : other.fBarrierStatistics.entrySet()) {
+				barrierStatistic(e.getKey()).add(e.getValue());
+			}
+		}
+		
+		if (other.validStateFound() && !validStateFound()) {
+			fValidStateFound = true;
+			fPrePostCondViolation = false;
+			fStatements = new ArrayList<MStatement>(other.fStatements);
+		}
+	}
 }
 
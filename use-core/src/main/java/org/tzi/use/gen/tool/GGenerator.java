@@ -25,13 +25,19 @@
 package org.tzi.use.gen.tool;
 
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.tzi.use.config.Options;
 import org.tzi.use.gen.assl.dynamics.GEvalProcedure;
@@ -47,6 +53,10 @@ import org.tzi.use.uml.sys.MSystem;
 import org.tzi.use.uml.sys.MSystemException;
 import org.tzi.use.uml.sys.soil.MStatement;
 import org.tzi.use.util.Log;
+import org.tzi.use.util.metrics.Counter;
+import org.tzi.use.util.metrics.GeneratorRunEvent;
+import org.tzi.use.util.metrics.Histogram;
+import org.tzi.use.util.metrics.Metrics;
 
 
 /**
@@ -57,6 +67,14 @@ import org.tzi.use.util.Log;
  */
 public class GGenerator {
 
+    private static final Histogram RUN_TIME = Metrics.histogram("generator.run.time");
+    private static final Counter CACHE_HITS = Metrics.counter("generator.procedures.cached");
+    
+    /**
+     * Maximum number of compiled ASSL files kept by a generator.
+     */
+    private static final int MAX_CACHED_FILES = 8;
+
     protected MModel fModel;
     protected MSystem fSystem;
     protected GResult fLastResult;
@@ -66,6 +84,20 @@ public class GGenerator {
     
     private List<GProcedure> fProcedures;
     
+    /**
+     * Compiled procedures by the SHA-256 hash of their source,
+     * so that repeated runs of the same file are not compiled again.
+     */
+    private final Map<String, List<GProcedure>> fProcedureCache = 
+    	new LinkedHashMap<String, List<GProcedure>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, List<GProcedure>> eldest) {
+				return size() > MAX_CACHED_FILES;
+			}
+		};
+    
     public GGenerator( MSystem system ) {
         fSystem = system;
         fModel = system.model();
@@ -109,12 +141,7 @@ public class GGenerator {
         long startTime = System.currentTimeMillis();
         
         try {
-            Log.verbose("Compiling procedures from " + fConfig.getFilename() + ".");
-            fProcedures = ASSLCompiler.compileProcedures(
-                                                     fSystem.model(),
-                                                     new FileInputStream(fConfig.getFilename()),
-                                                     fConfig.getFilename(),
-                                                     new PrintWriter(System.err) );
+            fProcedures = compileProcedures(fConfig.getFilename());
             if (fProcedures != null) {
                 Log.verbose("Compiling `" + callstr + "'.");
                 call = ASSLCompiler.compileProcedureCall(fSystem.model(),
@@ -129,6 +156,13 @@ public class GGenerator {
             if (call == null) {
             	Log.error( "No procedure found for call " + callstr + " in " + fConfig.getFilename() );
             } else {
+                // barriers of a cached procedure are only valid for its own runs
+                for (GProcedure proc : fProcedures) {
+                    if (proc != call.getProcedure() || !fConfig.isCalculateBarriers()) {
+                        proc.removeCalculatedBarriers();
+                    }
+                }
+                
                 resultPw = new PrintWriter(System.out);
                 if (fConfig.getPrintFilename() == null)
                     pw = resultPw;
@@ -148,20 +182,36 @@ public class GGenerator {
                 }
                 
                 GChecker checker = new GChecker(fModel, fConfig);
+                long randomNr = fConfig.getRandomNr().longValue();
                 Log.verbose(call.getProcedure().toString() + " started...");
                 
+                GeneratorRunEvent event = new GeneratorRunEvent();
+                event.begin();
+                
                 try {
-                    GEvalProcedure evalproc = new GEvalProcedure( call.getProcedure() );
-                    evalproc.eval(call.evaluateParams(fSystem.state()),
-                                  fSystem.state(),
-                                  collector,
-                                  checker,
-                                  fConfig);
+                    if (fConfig.isPortfolioSearch()) {
+                        GPortfolioSearch portfolio = new GPortfolioSearch(fSystem, call, fConfig);
+                        checker = portfolio.run(collector);
+                        randomNr = portfolio.getRandomNr();
+                    } else {
+                        GEvalProcedure evalproc = new GEvalProcedure( call.getProcedure() );
+                        evalproc.eval(call.evaluateParams(fSystem.state()),
+                                      fSystem.state(),
+                                      collector,
+                                      checker,
+                                      fConfig);
+                    }
                     
                     long endTime = System.currentTimeMillis();
+                    RUN_TIME.record((endTime - startTime) * 1000000);
+                    event.procedure = callstr;
+                    event.checkedStates = collector.numberOfCheckedStates();
+                    event.cuts = collector.getCuts();
+                    event.commit();
+
                     fLastResult = new GResult( collector,
                                                checker,
-                                               fConfig.getRandomNr().longValue(),
+                                               randomNr,
                                                endTime - startTime);
                     
                     if (collector.existsInvalidMessage()) {
@@ -211,6 +261,52 @@ public class GGenerator {
         }
     }
 
+    /**
+     * Returns the procedures defined in <code>filename</code>.
+     * The file is only compiled, if its content was not compiled before.
+     * @return The compiled procedures or <code>null</code> if the compilation failed.
+     */
+    private List<GProcedure> compileProcedures(String filename) throws IOException {
+        byte[] source;
+        try (InputStream in = new FileInputStream(filename)) {
+            source = in.readAllBytes();
+        }
+        
+        String key = contentHash(source);
+        List<GProcedure> procedures = fProcedureCache.get(key);
+        
+        if (procedures != null) {
+            Log.verbose("Using compiled procedures of " + filename + ".");
+            CACHE_HITS.inc();
+            return procedures;
+        }
+        
+        Log.verbose("Compiling procedures from " + filename + ".");
+        procedures = ASSLCompiler.compileProcedures(fModel,
+                                                    new ByteArrayInputStream(source),
+                                                    filename,
+                                                    new PrintWriter(System.err));
+        if (procedures != null) {
+            fProcedureCache.put(key, procedures);
+        }
+        
+        return procedures;
+    }
+    
+    private static String contentHash(byte[] source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(source);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is required by the Java platform
+            throw new RuntimeException(e);
+        }
+    }
+
     public void printInvariantFlags( Collection<MClassInvariant> invs ) {
         boolean found = false;
     
@@ -349,7 +445,7 @@ public class GGenerator {
             System.out.println("(no loaded invariants)");
     }
 
-    private GResult lastResult() throws GNoResultException {
+    GResult lastResult() throws GNoResultException {
         if (fLastResult==null)
             throw new GNoResultException();
         else
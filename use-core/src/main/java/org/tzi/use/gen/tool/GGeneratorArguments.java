@@ -91,11 +91,47 @@ public class GGeneratorArguments {
      */
     private boolean calculateBarriers = true;
     
+    /**
+     * Number of differently seeded searches run concurrently.
+     */
+    private int portfolioSize = 1;
+    
+    /**
+     * If greater than zero, a search is restarted with a new seed
+     * after <code>restartUnit</code> times the next value of the
+     * Luby sequence checked states.
+     */
+    private long restartUnit = 0;
+    
     public GGeneratorArguments() {
     	fRandomNr = Long.valueOf((new Random()).nextInt(10000));
     	fLimit = Long.valueOf(Long.MAX_VALUE);
     }
     
+    /**
+     * Creates a copy of <code>args</code>.
+     * @param args
+     */
+    public GGeneratorArguments(GGeneratorArguments args) {
+    	fFilename = args.fFilename;
+    	callString = args.callString;
+    	fLimit = args.fLimit;
+    	fPrintFilename = args.fPrintFilename;
+    	fPrintBasics = args.fPrintBasics;
+    	fPrintDetails = args.fPrintDetails;
+    	fRandomNr = args.fRandomNr;
+    	fCheckStructure = args.fCheckStructure;
+    	useRandomTry = args.useRandomTry;
+    	useTryCuts = args.useTryCuts;
+    	useMinCombinations = args.useMinCombinations;
+    	printTimeRelatedData = args.printTimeRelatedData;
+    	fChecksBeforeSortInvariants = args.fChecksBeforeSortInvariants;
+    	invariantSortOrder = args.invariantSortOrder;
+    	calculateBarriers = args.calculateBarriers;
+    	portfolioSize = args.portfolioSize;
+    	restartUnit = args.restartUnit;
+    }
+    
 	/**
 	 * @return the fFilename
 	 */
@@ -294,6 +330,44 @@ public class GGeneratorArguments {
 		this.calculateBarriers = calculateBarriers;
 	}
 
+	/**
+	 * @return the number of concurrent searches
+	 */
+	public int getPortfolioSize() {
+		return portfolioSize;
+	}
+
+	/**
+	 * @param portfolioSize the number of concurrent searches to set
+	 */
+	public void setPortfolioSize(int portfolioSize) {
+		this.portfolioSize = portfolioSize;
+	}
+
+	/**
+	 * @return the number of checked states used as unit of the restart budgets
+	 *         or <code>0</code>, if searches are not restarted
+	 */
+	public long getRestartUnit() {
+		return restartUnit;
+	}
+
+	/**
+	 * @param restartUnit the restartUnit to set
+	 */
+	public void setRestartUnit(long restartUnit) {
+		this.restartUnit = restartUnit;
+	}
+	
+	/**
+	 * <code>true</code>, if more than one search is run
+	 * or searches are restarted.
+	 * @return
+	 */
+	public boolean isPortfolioSearch() {
+		return portfolioSize > 1 || restartUnit > 0;
+	}
+
 	/**
 	 * Parses the command line arguments
 	 * @param str
@@ -362,6 +436,27 @@ public class GGeneratorArguments {
                     if (error)
                         message = "the parameter of the -si"
                                 + " option must be a positive number.";
+                } else if (optionOrFilename.equals("-p")) {
+                    try {
+                        args.setPortfolioSize(Integer.parseInt(st.nextToken()));
+                    } catch (NumberFormatException e) {
+                        error = true;
+                    }
+                    error = error || (args.getPortfolioSize() <= 0);
+                    if (error)
+                        message = "the parameter of the -p"
+                                + " option must be a positive number.";
+                } else if (optionOrFilename.equals("-rs")) {
+                    try {
+                        args.setRestartUnit(Long.parseLong(st.nextToken()));
+                    } catch (NumberFormatException e) {
+                        error = true;
+                    }
+                    error = error || (args.getRestartUnit() <= 0);
+                    if (error)
+                        message = "the parameter of the -rs"
+                                + " option must be a positive number"
+                                + " (< 2^63).";
                 } else if (optionOrFilename.equals("-so")) {
                 	String sortOrder = st.nextToken();
                 	
@@ -436,7 +531,7 @@ public class GGeneratorArguments {
             if (message != null)
                 Log.error(message);
             else {
-                Log.error("syntax is `start [-l <num>][-r <num>][-si <num>][-so [c|f|m]][-sif<num>]"
+                Log.error("syntax is `start [-l <num>][-r <num>][-p <num>][-rs <num>][-si <num>][-so [c|f|m]][-sif<num>]"
                         + "[-b|-d|-bf <FILE>|-df <FILE>|-t|-c|-ac|-dc] "
                         + "FILE PROCNAME([paramlist])'");
             }
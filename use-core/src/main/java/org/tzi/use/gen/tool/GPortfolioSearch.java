@@ -0,0 +1,229 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.gen.tool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.tzi.use.gen.assl.dynamics.GEvalProcedure;
+import org.tzi.use.gen.assl.dynamics.GEvaluationException;
+import org.tzi.use.uml.sys.MSystem;
+
+/**
+ * Runs several differently seeded searches for a valid system state
+ * concurrently. Each search works on its own copy of the system.
+ * The first valid state found wins and cancels the other searches.
+ * <p>
+ * If a restart unit is given, a search is restarted with a new seed
+ * after <code>unit * luby(i)</code> checked states, where
+ * <code>luby(i)</code> is the i-th value of the Luby sequence
+ * (1, 1, 2, 1, 1, 2, 4, ...).
+ * </p>
+ * <p>
+ * All searches except the first non restarted one use random tries,
+ * since otherwise they would only repeat the same search.
+ * Brief and detailed output is not written by the searches.
+ * </p>
+ */
+class GPortfolioSearch {
+    
+    private final MSystem fSystem;
+    
+    private final GProcedureCall fCall;
+    
+    private final GGeneratorArguments fConfig;
+    
+    /**
+     * Raised when a search found a valid state or failed.
+     */
+    private final AtomicBoolean fStop = new AtomicBoolean(false);
+    
+    private long fRandomNr;
+    
+    /**
+     * The merged results of a single search and all its restarts.
+     */
+    private static class Run {
+        GCollectorImpl collector = null;
+        GChecker checker;
+        long randomNr;
+        boolean won = false;
+        
+        void add(GCollectorImpl runCollector, long seed) {
+            if (collector == null) {
+                collector = runCollector;
+            } else {
+                collector.merge(runCollector);
+            }
+            randomNr = seed;
+        }
+    }
+    
+    GPortfolioSearch(MSystem system, GProcedureCall call, GGeneratorArguments config) {
+        fSystem = system;
+        fCall = call;
+        fConfig = config;
+        fRandomNr = config.getRandomNr().longValue();
+    }
+    
+    /**
+     * Runs all searches and waits until they are finished.
+     * The statistics of all searches are merged into <code>collector</code>.
+     * If a valid state was found, the statements of the winning search
+     * are added to <code>collector</code>.
+     * @return A checker holding the merged invariant statistics.
+     */
+    GChecker run(GCollectorImpl collector) throws GEvaluationException {
+        final int size = fConfig.getPortfolioSize();
+        List<Future<Run>> futures = new ArrayList<Future<Run>>(size);
+        ExecutorService executor = Executors.newFixedThreadPool(size, r -> {
+            Thread t = new Thread(r, "USE generator search");
+            t.setDaemon(true);
+            return t;
+        });
+        
+        try {
+            for (int i = 0; i < size; ++i) {
+                // copies are created before any search changes the state
+                final MSystem system = new MSystem(fSystem);
+                final int index = i;
+                futures.add(executor.submit(() -> search(system, index)));
+            }
+            
+            List<Run> runs = new ArrayList<Run>(size);
+            for (Future<Run> f : futures) {
+                runs.add(get(f));
+            }
+            
+            // the winner is merged first to take over its statements
+            runs.sort((r1, r2) -> Boolean.compare(r2.won, r1.won));
+            GChecker checker = new GChecker(fSystem.model(), fConfig);
+            
+            for (Run run : runs) {
+                collector.merge(run.collector);
+                checker.merge(run.checker);
+            }
+            
+            fRandomNr = runs.get(0).randomNr;
+            return checker;
+        } finally {
+            fStop.set(true);
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * The seed of the winning search or, if no valid
+     * state was found, the seed of the first search.
+     */
+    long getRandomNr() {
+        return fRandomNr;
+    }
+    
+    private Run get(Future<Run> future) throws GEvaluationException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GEvaluationException(e);
+        } catch (ExecutionException e) {
+            fStop.set(true);
+            Throwable cause = e.getCause();
+            if (cause instanceof GEvaluationException)
+                throw (GEvaluationException)cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+            if (cause instanceof Error)
+                throw (Error)cause;
+            throw new GEvaluationException((Exception)cause);
+        }
+    }
+    
+    private Run search(MSystem system, int index) throws GEvaluationException {
+        final int size = fConfig.getPortfolioSize();
+        final long unit = fConfig.getRestartUnit();
+        final long limit = fConfig.getLimit().longValue();
+        
+        Run run = new Run();
+        run.checker = new GChecker(system.model(), fConfig);
+        long checked = 0;
+        
+        for (int restart = 0; ; ++restart) {
+            long seed = fConfig.getRandomNr().longValue() + index + (long)restart * size;
+            GGeneratorArguments args = new GGeneratorArguments(fConfig);
+            args.setRandomNr(Long.valueOf(seed));
+            args.setRandomTry(fConfig.useRandomTry() || index > 0 || restart > 0);
+            
+            long budget = limit - checked;
+            if (unit > 0) {
+                long luby = luby(restart + 1);
+                budget = luby > budget / unit ? budget : Math.min(budget, luby * unit);
+            }
+            
+            GCollectorImpl collector = new GCollectorImpl(false, false);
+            collector.setLimit(budget);
+            collector.setCancelSignal(fStop);
+            // the barriers are shared by all searches
+            collector.useOwnBarrierStatistics();
+            
+            new GEvalProcedure(fCall.getProcedure()).eval(
+                    fCall.evaluateParams(system.state()),
+                    system.state(),
+                    collector,
+                    run.checker,
+                    args);
+            
+            run.add(collector, seed);
+            checked += collector.numberOfCheckedStates();
+            
+            if (collector.validStateFound()) {
+                run.won = fStop.compareAndSet(false, true);
+                return run;
+            }
+            
+            // cancelled, overall limit reached or search space exhausted
+            if (unit == 0 || fStop.get() || checked >= limit
+                    || collector.numberOfCheckedStates() < budget) {
+                return run;
+            }
+        }
+    }
+    
+    /**
+     * Returns the i-th value (starting with 1) of the Luby sequence.
+     */
+    static long luby(int i) {
+        int k = 1;
+        while ((1L << k) - 1 < i) {
+            ++k;
+        }
+        
+        if ((1L << k) - 1 == i) {
+            return 1L << (k - 1);
+        }
+        
+        return luby(i - (1 << (k - 1)) + 1);
+    }
+}
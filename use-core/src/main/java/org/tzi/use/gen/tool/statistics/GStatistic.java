@@ -71,6 +71,24 @@ public class GStatistic {
     	totalTime_Local = 0;
     }
 
+    public void reset() {
+    	localReset();
+    	fCountValid = 0;
+    	fCountInvalid = 0;
+    	fCountException = 0;
+    	totalTime = 0;
+    }
+
+    /**
+     * Adds the results counted by <code>other</code>.
+     */
+    public void add(GStatistic other) {
+    	fCountValid += other.fCountValid;
+    	fCountInvalid += other.fCountInvalid;
+    	fCountException += other.fCountException;
+    	totalTime += other.totalTime;
+    }
+
     public String toStringForStatistics() {
 		return String.format("%,14d %,14d %,14d %,14d %,14d", getTotalChecks(),
 				fCountValid, fCountInvalid, fCountException, totalTime / 1000000) + "  " + name.toString();
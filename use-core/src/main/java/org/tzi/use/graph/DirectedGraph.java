@@ -124,6 +124,12 @@ public interface DirectedGraph<N, E extends DirectedEdge<N>> extends Collection<
      * @return the number of edges in this graph
      */
     int numEdges();
+    
+    /**
+     * Returns a counter which changes with each added or removed node or edge.
+     * Can be used to validate information derived from the graph.
+     */
+    int getModificationCount();
 
     /**
      * Returns the number of cyclic edges in this graph.
@@ -134,8 +134,22 @@ public class DirectedGraphBase<N, E extends DirectedEdge<N>> extends AbstractCol
     	}
     }
     
+    /**
+     * Incremented on each structural change of the graph.
+     */
+    private volatile int modificationCount = 0;
+    
     private synchronized void clearCache() {
     	closureCache.invalidateAll();
+    	++modificationCount;
+    }
+    
+    /**
+     * Returns a counter which changes with each added or removed node or edge.
+     * Can be used to validate information derived from the graph.
+     */
+    public int getModificationCount() {
+    	return modificationCount;
     }
     
     // Query Operations
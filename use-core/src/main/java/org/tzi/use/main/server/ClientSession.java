@@ -0,0 +1,156 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.main.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+import org.tzi.use.main.server.Protocol.Frame;
+import org.tzi.use.util.soil.VariableEnvironment;
+
+/**
+ * The server side of a single client connection.
+ * Holds the buffers of the connection, the variables of the client
+ * and the queue of pending requests, which are processed one after another.
+ */
+final class ClientSession {
+	private final SocketChannel fChannel;
+	
+	private final VariableEnvironment fVariables;
+	
+	private ByteBuffer fReadBuffer = ByteBuffer.allocate(8192);
+	
+	private final Queue<ByteBuffer> fWriteQueue = new ConcurrentLinkedQueue<>();
+	
+	private final Deque<Runnable> fTasks = new ArrayDeque<>();
+	
+	private boolean fProcessing = false;
+	
+	ClientSession(SocketChannel channel, VariableEnvironment variables) {
+		fChannel = channel;
+		fVariables = variables;
+	}
+	
+	SocketChannel getChannel() {
+		return fChannel;
+	}
+	
+	/**
+	 * The variables of this client. Only accessed by the
+	 * task currently processed for this client.
+	 */
+	VariableEnvironment getVariables() {
+		return fVariables;
+	}
+	
+	/**
+	 * Reads the available bytes from the channel.
+	 * @return The completely received frames or <code>null</code>,
+	 *         if the client closed the connection.
+	 * @throws IOException
+	 */
+	List<Frame> read() throws IOException {
+		if (fChannel.read(fReadBuffer) < 0)
+			return null;
+		
+		List<Frame> frames = new ArrayList<>();
+		fReadBuffer.flip();
+		
+		Frame frame;
+		while ((frame = Protocol.decode(fReadBuffer)) != null) {
+			frames.add(frame);
+		}
+		
+		if (fReadBuffer.remaining() >= 4) {
+			int required = 4 + fReadBuffer.getInt(fReadBuffer.position());
+			if (required > fReadBuffer.capacity()) {
+				ByteBuffer larger = ByteBuffer.allocate(required);
+				larger.put(fReadBuffer);
+				fReadBuffer = larger;
+				return frames;
+			}
+		}
+		
+		fReadBuffer.compact();
+		return frames;
+	}
+	
+	void enqueue(ByteBuffer data) {
+		fWriteQueue.add(data);
+	}
+	
+	/**
+	 * Writes as much of the queued data as the channel accepts.
+	 * @return <code>true</code>, if all queued data was written.
+	 * @throws IOException
+	 */
+	boolean write() throws IOException {
+		ByteBuffer buf;
+		while ((buf = fWriteQueue.peek()) != null) {
+			fChannel.write(buf);
+			if (buf.hasRemaining())
+				return false;
+			fWriteQueue.poll();
+		}
+		return true;
+	}
+	
+	/**
+	 * Schedules a task for this client. The tasks of a client are executed
+	 * in the order they are scheduled and never concurrently. 
+	 */
+	void schedule(Runnable task, Executor executor) {
+		synchronized (fTasks) {
+			fTasks.add(task);
+			if (fProcessing)
+				return;
+			fProcessing = true;
+		}
+		executor.execute(() -> runNext(executor));
+	}
+	
+	private void runNext(Executor executor) {
+		Runnable task;
+		synchronized (fTasks) {
+			task = fTasks.poll();
+		}
+		
+		try {
+			task.run();
+		} finally {
+			synchronized (fTasks) {
+				if (fTasks.isEmpty()) {
+					fProcessing = false;
+					return;
+				}
+			}
+			// give other clients a chance before the next request
+			executor.execute(() -> runNext(executor));
+		}
+	}
+}
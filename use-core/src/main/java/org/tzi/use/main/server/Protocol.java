@@ -0,0 +1,132 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.main.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The framed protocol used between a {@link UseServer} and its clients.
+ * <p>Each frame consists of a four byte length of the remaining frame,
+ * a single type byte, a four byte request id and the UTF-8 encoded payload.
+ * A response carries the id of the request it answers. Clients may send
+ * several requests without waiting for the responses (pipelining).
+ * The requests of a client are answered in the order they were sent.</p>
+ */
+public final class Protocol {
+	
+	/** Evaluates the OCL expression given as payload */
+	public static final byte EVALUATE = 'e';
+	
+	/** Executes the SOIL statement given as payload */
+	public static final byte EXECUTE = 'x';
+	
+	/** Checks the structure and all invariants of the system state */
+	public static final byte CHECK = 'c';
+	
+	/** The request was successful. The payload contains the result. */
+	public static final byte RESULT = 'R';
+	
+	/** A check found violated constraints. The payload contains the report. */
+	public static final byte VIOLATED = 'V';
+	
+	/** The request failed. The payload contains the error message. */
+	public static final byte ERROR = 'E';
+	
+	/** Frames larger than this are rejected */
+	public static final int MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+	
+	private static final int HEADER_LENGTH = 5;
+	
+	private Protocol() { }
+	
+	/**
+	 * A decoded frame.
+	 */
+	public static final class Frame {
+		private final byte type;
+		private final int id;
+		private final String payload;
+		
+		public Frame(byte type, int id, String payload) {
+			this.type = type;
+			this.id = id;
+			this.payload = payload;
+		}
+
+		public byte getType() {
+			return type;
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		public String getPayload() {
+			return payload;
+		}
+		
+		@Override
+		public String toString() {
+			return (char)type + "#" + id + ": " + payload;
+		}
+	}
+	
+	/**
+	 * Encodes a frame into a buffer which is ready to be written.
+	 */
+	public static ByteBuffer encode(Frame frame) {
+		byte[] payload = frame.payload.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer buf = ByteBuffer.allocate(4 + HEADER_LENGTH + payload.length);
+		buf.putInt(HEADER_LENGTH + payload.length);
+		buf.put(frame.type);
+		buf.putInt(frame.id);
+		buf.put(payload);
+		buf.flip();
+		return buf;
+	}
+	
+	/**
+	 * Decodes the next frame from <code>buf</code>, which must be in read mode.
+	 * If the buffer does not contain a complete frame, <code>null</code> is
+	 * returned and the position of the buffer is not changed.
+	 * @throws IOException If the frame length is invalid.
+	 */
+	public static Frame decode(ByteBuffer buf) throws IOException {
+		if (buf.remaining() < 4)
+			return null;
+		
+		int length = buf.getInt(buf.position());
+		if (length < HEADER_LENGTH || length > MAX_FRAME_LENGTH)
+			throw new IOException("Invalid frame length " + length + ".");
+		
+		if (buf.remaining() < 4 + length)
+			return null;
+		
+		buf.getInt();
+		byte type = buf.get();
+		int id = buf.getInt();
+		byte[] payload = new byte[length - HEADER_LENGTH];
+		buf.get(payload);
+		
+		return new Frame(type, id, new String(payload, StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.main.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+import org.tzi.use.main.server.Protocol.Frame;
+
+/**
+ * A simple blocking client for a {@link UseServer}.
+ * Requests can be sent without waiting for their response by
+ * {@link #send(byte, String)} and collected later by {@link #receive()}.
+ */
+public class UseClient implements Closeable {
+	private final Socket fSocket;
+	private final DataInputStream fIn;
+	private final DataOutputStream fOut;
+	
+	private int fNextId = 1;
+	
+	public UseClient(InetSocketAddress address) throws IOException {
+		fSocket = new Socket(address.getAddress(), address.getPort());
+		fSocket.setTcpNoDelay(true);
+		fIn = new DataInputStream(new BufferedInputStream(fSocket.getInputStream()));
+		fOut = new DataOutputStream(new BufferedOutputStream(fSocket.getOutputStream()));
+	}
+	
+	/**
+	 * Sends a request without waiting for the response.
+	 * @return The id of the request.
+	 */
+	public int send(byte type, String payload) throws IOException {
+		int id = fNextId++;
+		ByteBuffer buf = Protocol.encode(new Frame(type, id, payload));
+		fOut.write(buf.array(), 0, buf.limit());
+		fOut.flush();
+		return id;
+	}
+	
+	/**
+	 * Waits for the next response.
+	 */
+	public Frame receive() throws IOException {
+		int length = fIn.readInt();
+		if (length < 5 || length > Protocol.MAX_FRAME_LENGTH)
+			throw new IOException("Invalid frame length " + length + ".");
+		
+		ByteBuffer buf = ByteBuffer.allocate(4 + length);
+		buf.putInt(length);
+		fIn.readFully(buf.array(), 4, length);
+		buf.rewind();
+		
+		return Protocol.decode(buf);
+	}
+	
+	/**
+	 * Sends a request and waits for its response.
+	 * Must not be used while responses of pipelined requests are pending.
+	 */
+	public Frame request(byte type, String payload) throws IOException {
+		send(type, payload);
+		return receive();
+	}
+	
+	/**
+	 * Evaluates an OCL expression.
+	 * @return The result value with its type, e.g., <code>3 : Integer</code>.
+	 * @throws IOException If the server reported an error.
+	 */
+	public String evaluate(String expression) throws IOException {
+		return result(request(Protocol.EVALUATE, expression));
+	}
+	
+	/**
+	 * Executes a SOIL statement.
+	 * @throws IOException If the server reported an error.
+	 */
+	public void execute(String statement) throws IOException {
+		result(request(Protocol.EXECUTE, statement));
+	}
+	
+	/**
+	 * Checks the current system state.
+	 * @return <code>true</code>, if no constraint is violated.
+	 */
+	public boolean check() throws IOException {
+		Frame response = request(Protocol.CHECK, "");
+		if (response.getType() == Protocol.VIOLATED)
+			return false;
+		
+		result(response);
+		return true;
+	}
+	
+	private String result(Frame response) throws IOException {
+		if (response.getType() == Protocol.ERROR)
+			throw new IOException(response.getPayload().trim());
+		return response.getPayload();
+	}
+
+	@Override
+	public void close() throws IOException {
+		fSocket.close();
+	}
+}
@@ -0,0 +1,353 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.main.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.tzi.use.main.server.Protocol.Frame;
+import org.tzi.use.parser.ocl.OCLCompiler;
+import org.tzi.use.parser.shell.ShellCommandCompiler;
+import org.tzi.use.uml.ocl.expr.Evaluator;
+import org.tzi.use.uml.ocl.expr.Expression;
+import org.tzi.use.uml.ocl.expr.MultiplicityViolationException;
+import org.tzi.use.uml.ocl.value.Value;
+import org.tzi.use.uml.ocl.value.VarBindings;
+import org.tzi.use.uml.sys.MSystem;
+import org.tzi.use.uml.sys.MSystemException;
+import org.tzi.use.uml.sys.MSystemState;
+import org.tzi.use.uml.sys.soil.MStatement;
+import org.tzi.use.util.Log;
+import org.tzi.use.util.soil.VariableEnvironment;
+
+/**
+ * A headless server which gives many clients concurrent access
+ * to a single system.
+ * <p>A selector thread handles all connections using non-blocking I/O.
+ * Requests are processed by a pool of worker threads. The requests of one
+ * client are answered in order, while requests of different clients
+ * are processed concurrently. Evaluations and checks share a read lock
+ * on the system state; executed statements take the write lock.</p>
+ * <p>Each client has its own variables. During the execution of a statement
+ * they replace the top-level variables of the system.
+ * See {@link Protocol} for the wire format.</p>
+ */
+public class UseServer implements Closeable {
+	
+	private static final String INPUT_NAME = "<client>";
+	
+	private final MSystem fSystem;
+	
+	private final ReadWriteLock fStateLock = new ReentrantReadWriteLock();
+	
+	private final ExecutorService fWorkers;
+	
+	private final Queue<ClientSession> fPendingWrites = new ConcurrentLinkedQueue<>();
+	
+	private Selector fSelector;
+	
+	private ServerSocketChannel fServerChannel;
+	
+	private Thread fSelectorThread;
+	
+	private volatile boolean fRunning = false;
+	
+	/**
+	 * Creates a server for <code>system</code> with one
+	 * worker thread per available processor. 
+	 */
+	public UseServer(MSystem system) {
+		this(system, Runtime.getRuntime().availableProcessors());
+	}
+	
+	public UseServer(MSystem system, int numWorkers) {
+		if (numWorkers < 1)
+			throw new IllegalArgumentException("numWorkers == " + numWorkers);
+		
+		fSystem = system;
+		fWorkers = Executors.newFixedThreadPool(numWorkers, r -> {
+			Thread t = new Thread(r, "USE server worker");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+	
+	/**
+	 * Binds the server to <code>address</code> and starts
+	 * accepting clients in a background thread.
+	 * @throws IOException If the address cannot be bound.
+	 */
+	public synchronized void start(InetSocketAddress address) throws IOException {
+		if (fRunning)
+			throw new IllegalStateException("Server is already running.");
+		
+		fSelector = Selector.open();
+		fServerChannel = ServerSocketChannel.open();
+		fServerChannel.bind(address);
+		fServerChannel.configureBlocking(false);
+		fServerChannel.register(fSelector, SelectionKey.OP_ACCEPT);
+		
+		fRunning = true;
+		fSelectorThread = new Thread(this::run, "USE server");
+		fSelectorThread.start();
+		
+		Log.verbose("USE server listening on port " + getPort() + "...");
+	}
+	
+	/**
+	 * The port the server is bound to.
+	 */
+	public int getPort() {
+		return fServerChannel.socket().getLocalPort();
+	}
+	
+	/**
+	 * Waits until the server is closed.
+	 */
+	public void join() throws InterruptedException {
+		fSelectorThread.join();
+	}
+	
+	/**
+	 * Stops the server and closes all client connections.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (!fRunning)
+			return;
+		
+		fRunning = false;
+		fSelector.wakeup();
+		try {
+			fSelectorThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		for (SelectionKey key : fSelector.keys()) {
+			key.channel().close();
+		}
+		fSelector.close();
+		fWorkers.shutdownNow();
+	}
+	
+	private void run() {
+		while (fRunning) {
+			try {
+				fSelector.select();
+			} catch (IOException e) {
+				Log.error("USE server: " + e.getMessage());
+				break;
+			}
+			
+			ClientSession session;
+			while ((session = fPendingWrites.poll()) != null) {
+				SelectionKey key = session.getChannel().keyFor(fSelector);
+				if (key != null && key.isValid()) {
+					key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+				}
+			}
+			
+			Iterator<SelectionKey> it = fSelector.selectedKeys().iterator();
+			while (it.hasNext()) {
+				SelectionKey key = it.next();
+				it.remove();
+				
+				try {
+					if (!key.isValid())
+						continue;
+					
+					if (key.isAcceptable()) {
+						accept();
+						continue;
+					}
+					
+					if (key.isReadable())
+						read(key);
+					if (key.isValid() && key.isWritable())
+						write(key);
+				} catch (IOException e) {
+					disconnect(key);
+				}
+			}
+		}
+	}
+	
+	private void accept() throws IOException {
+		SocketChannel channel = fServerChannel.accept();
+		if (channel == null)
+			return;
+		
+		channel.configureBlocking(false);
+		ClientSession session = new ClientSession(channel, new VariableEnvironment(fSystem.state()));
+		channel.register(fSelector, SelectionKey.OP_READ, session);
+		
+		Log.verbose("USE server: connected to " + channel.getRemoteAddress());
+	}
+	
+	private void read(SelectionKey key) throws IOException {
+		final ClientSession session = (ClientSession)key.attachment();
+		List<Frame> requests = session.read();
+		
+		if (requests == null) {
+			disconnect(key);
+			return;
+		}
+		
+		for (final Frame request : requests) {
+			session.schedule(() -> send(session, process(session, request)), fWorkers);
+		}
+	}
+	
+	private void write(SelectionKey key) throws IOException {
+		ClientSession session = (ClientSession)key.attachment();
+		if (session.write()) {
+			key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+		}
+	}
+	
+	private void disconnect(SelectionKey key) {
+		key.cancel();
+		try {
+			Log.verbose("USE server: disconnected " + ((SocketChannel)key.channel()).getRemoteAddress());
+			key.channel().close();
+		} catch (IOException e) {
+			// closing anyway
+		}
+	}
+	
+	private void send(ClientSession session, Frame response) {
+		session.enqueue(Protocol.encode(response));
+		fPendingWrites.add(session);
+		fSelector.wakeup();
+	}
+	
+	private Frame process(ClientSession session, Frame request) {
+		try {
+			switch (request.getType()) {
+			case Protocol.EVALUATE:
+				return evaluate(session, request);
+			case Protocol.EXECUTE:
+				return execute(session, request);
+			case Protocol.CHECK:
+				return check(request);
+			default:
+				return new Frame(Protocol.ERROR, request.getId(), "Unknown request type " + request.getType() + ".");
+			}
+		} catch (RuntimeException e) {
+			return new Frame(Protocol.ERROR, request.getId(), String.valueOf(e.getMessage()));
+		}
+	}
+	
+	private Frame evaluate(ClientSession session, Frame request) {
+		StringWriter errors = new StringWriter();
+		
+		Lock lock = fStateLock.readLock();
+		lock.lock();
+		try {
+			MSystemState state = fSystem.state();
+			VarBindings bindings = session.getVariables().constructVarBindings();
+			
+			Expression expr = OCLCompiler.compileExpression(fSystem.model(), state,
+					request.getPayload(), INPUT_NAME, new PrintWriter(errors, true), bindings);
+			
+			if (expr == null)
+				return new Frame(Protocol.ERROR, request.getId(), errors.toString());
+			
+			Value val = new Evaluator().eval(expr, state, bindings);
+			return new Frame(Protocol.RESULT, request.getId(), val.toStringWithType());
+		} catch (MultiplicityViolationException e) {
+			return new Frame(Protocol.ERROR, request.getId(), "Could not evaluate. " + e.getMessage());
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	private Frame execute(ClientSession session, Frame request) {
+		StringWriter errors = new StringWriter();
+		
+		Lock lock = fStateLock.writeLock();
+		lock.lock();
+		
+		VariableEnvironment systemVariables = fSystem.getVariableEnvironment();
+		Map<String, Value> saved = new HashMap<>(systemVariables.getCurrentMappings());
+		systemVariables.clear();
+		systemVariables.assign(session.getVariables().getCurrentMappings());
+		
+		try {
+			// the shell prefix is accepted, too
+			String input = request.getPayload().startsWith("!") ? request.getPayload().substring(1) : request.getPayload();
+			MStatement statement = ShellCommandCompiler.compileShellCommand(fSystem.model(), fSystem.state(),
+					systemVariables, input, INPUT_NAME, new PrintWriter(errors, true), false);
+			
+			if (statement == null)
+				return new Frame(Protocol.ERROR, request.getId(), errors.toString());
+			
+			// the undo stack is shared by all clients and therefore not used
+			fSystem.execute(statement, true, false, true);
+			return new Frame(Protocol.RESULT, request.getId(), "");
+		} catch (MSystemException e) {
+			return new Frame(Protocol.ERROR, request.getId(), e.getMessage());
+		} finally {
+			session.getVariables().clear();
+			session.getVariables().assign(systemVariables.getCurrentMappings());
+			systemVariables.clear();
+			systemVariables.assign(saved);
+			lock.unlock();
+		}
+	}
+	
+	private Frame check(Frame request) {
+		StringWriter report = new StringWriter();
+		PrintWriter out = new PrintWriter(report);
+		
+		Lock lock = fStateLock.readLock();
+		lock.lock();
+		try {
+			MSystemState state = fSystem.state();
+			boolean valid = state.checkStructure(out);
+			valid = state.check(out, false, false, true, Collections.<String>emptyList()) && valid;
+			out.flush();
+			
+			return new Frame(valid ? Protocol.RESULT : Protocol.VIOLATED, request.getId(), report.toString());
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -29,6 +29,7 @@ import org.antlr.runtime.Token;
 import org.tzi.use.parser.AST;
 import org.tzi.use.parser.Context;
 import org.tzi.use.parser.SemanticException;
+import org.tzi.use.parser.SrcPos;
 import org.tzi.use.uml.mm.MClassifier;
 import org.tzi.use.uml.mm.MNavigableElement;
 import org.tzi.use.uml.ocl.expr.ExpCollect;
@@ -91,6 +92,19 @@ public abstract class ASTExpression extends AST {
     }
 
     public abstract Expression gen(Context ctx) throws SemanticException;
+
+    /**
+     * Records the position of <code>token</code> as the source position
+     * of <code>exp</code>, unless a position was already set by a more
+     * specific rule. Used to report profiling results per source position.
+     */
+    protected static void setSourcePosition(Expression exp, Token token) {
+        if (exp == null || token == null || token.getInputStream() == null
+                || exp.getSourcePosition() != null)
+            return;
+
+        exp.setSourcePosition(new SrcPos(token));
+    }
         
     /**
      * Used by template method {@link getFreeVariables()} to create
@@ -129,6 +143,7 @@ public abstract class ASTExpression extends AST {
         } catch (ExpInvalidException ex) {
             throw new SemanticException(token, ex);
         }
+        setSourcePosition(res, token);
         return res;
     }
 
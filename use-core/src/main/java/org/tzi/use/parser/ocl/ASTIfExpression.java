@@ -58,6 +58,7 @@ public class ASTIfExpression extends ASTExpression {
         } catch (ExpInvalidException ex) {
             throw new SemanticException(fIfToken, ex);
         }
+        setSourcePosition(res, fIfToken);
         return res;
     }
 
@@ -100,6 +100,7 @@ public class ASTIterateExpression extends ASTExpression {
         } catch (ExpInvalidException ex) {
             throw new SemanticException(fIterateToken, ex);
         }
+        setSourcePosition(res, fIterateToken);
         return res;
     }
 
@@ -84,6 +84,7 @@ public class ASTLetExpression extends ASTExpression {
             throw new SemanticException(fVarToken, ex);
         }
 
+        setSourcePosition(res, fVarToken);
         return res;
     }
 
@@ -232,6 +232,7 @@ public class ASTOperationExpression extends ASTExpression {
                                             "Operation oclIsNew is only allowed in postconditions.");
         }
         
+        setSourcePosition(res, fOp);
         return res;
     }
     
@@ -190,6 +190,7 @@ public class ASTQueryExpression extends ASTExpression {
         } catch (ExpInvalidException ex) {
             throw new SemanticException(fOp, ex);
         }
+        setSourcePosition(res, fOp);
         return res;
     }
 
@@ -127,7 +127,30 @@ public class ShellCommandCompiler {
 		
 		return statement;
 	 }
-	
+
+	/**
+	 * Generates an evaluable {@link MStatement soil statement} from
+	 * an already parsed statement, e.g., read by a {@link ShellScriptReader}.
+	 * If the compilation fails {@code null} is returned.
+	 *
+	 * @param model the model
+	 * @param state the system state
+	 * @param variableEnvironment holds the existing variables
+	 * @param ast the parsed statement
+	 * @param inputName the name of the source
+	 * @param errorOutput target for error messages
+	 * @param verbose if true, additional information is produced in case of errors
+	 * @return
+	 *   if the statement is valid, an evaluable soil statement, null else
+	 */
+	public static MStatement compileShellCommand(MModel model,
+			MSystemState state, VariableEnvironment variableEnvironment,
+			ASTStatement ast, String inputName, PrintWriter errorOutput,
+			boolean verbose) {
+		return constructStatement(ast, inputName, errorOutput,
+				state, model, variableEnvironment, verbose);
+	}
+
 	/**
 	 * Constructs an AST for a shell command represented as 
 	 * a soil statement from <code>input</code>.
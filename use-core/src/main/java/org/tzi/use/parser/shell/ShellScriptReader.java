@@ -0,0 +1,351 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.parser.shell;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.antlr.runtime.ANTLRStringStream;
+import org.antlr.runtime.CommonTokenStream;
+import org.antlr.runtime.RecognitionException;
+import org.tzi.use.config.Options;
+import org.tzi.use.parser.ParseErrorHandler;
+import org.tzi.use.parser.soil.ast.ASTStatement;
+
+/**
+ * Reads a shell script (e.g., a <code>.soil</code> or <code>.cmd</code> file)
+ * in a single streaming pass.
+ * <p>
+ * A background thread reads the lines of the script and parses all
+ * statement lines (<code>!...</code>) with one lexer and parser instance,
+ * while the caller of {@link #next()} compiles and executes the
+ * previously parsed commands. The parsed commands are handed over
+ * in batches through a bounded queue, so memory usage does not depend
+ * on the size of the script.
+ * </p>
+ * <p>
+ * Compilation is left to the consumer, because the symbol table
+ * of a statement depends on the variables created by the statements before.
+ * </p>
+ * <p>
+ * Like in the interactive shell, each statement is parsed as a
+ * single input named {@link #STATEMENT_INPUT_NAME}, so the
+ * positions in error messages and call stacks do not change
+ * when a statement is read from a file.
+ * </p>
+ */
+public class ShellScriptReader implements Closeable {
+
+	/**
+	 * The input name of parsed statements.
+	 */
+	public static final String STATEMENT_INPUT_NAME = "<input>";
+
+	/**
+	 * Maximum number of commands handed over at once.
+	 */
+	private static final int BATCH_SIZE = 256;
+
+	/**
+	 * Maximum number of batches read ahead.
+	 */
+	private static final int QUEUE_CAPACITY = 16;
+
+	/**
+	 * Marks the end of the script in the queue.
+	 */
+	private static final List<Command> END = new ArrayList<Command>(0);
+
+	/**
+	 * A single command of the script, i.e., a line
+	 * or a multi-line block enclosed by <code>\</code> and <code>.</code>.
+	 */
+	public static final class Command {
+		private final String fText;
+
+		private final String fSource;
+
+		private final int fLine;
+
+		private final ASTStatement fStatement;
+
+		private final String fErrors;
+
+		Command(String text, String source, int line, ASTStatement statement, String errors) {
+			fText = text;
+			fSource = source;
+			fLine = line;
+			fStatement = statement;
+			fErrors = errors;
+		}
+
+		/**
+		 * The trimmed command text as it is passed to the shell.
+		 */
+		public String getText() {
+			return fText;
+		}
+
+		/**
+		 * The lines of the script this command was read from.
+		 */
+		public String getSource() {
+			return fSource;
+		}
+
+		/**
+		 * The line number of the first line of this command.
+		 */
+		public int getLine() {
+			return fLine;
+		}
+
+		/**
+		 * <code>true</code>, if this command is a statement,
+		 * i.e., it starts with <code>!</code>.
+		 */
+		public boolean isStatement() {
+			return fText.startsWith("!");
+		}
+
+		/**
+		 * <code>true</code>, if this is a statement
+		 * which should be compiled verbosely (<code>!!</code>).
+		 */
+		public boolean isVerbose() {
+			return fText.startsWith("!!");
+		}
+
+		/**
+		 * The parsed statement or <code>null</code>, if this command is not
+		 * a statement or the statement could not be parsed.
+		 */
+		public ASTStatement getStatement() {
+			return fStatement;
+		}
+
+		/**
+		 * The error messages of the parser or <code>null</code>.
+		 */
+		public String getErrors() {
+			return fErrors;
+		}
+	}
+
+	private final BufferedReader fInput;
+
+	private final BlockingQueue<List<Command>> fQueue =
+			new ArrayBlockingQueue<List<Command>>(QUEUE_CAPACITY);
+
+	private final Deque<Command> fCurrentBatch = new ArrayDeque<Command>();
+
+	private final Thread fReaderThread;
+
+	private volatile boolean fClosed = false;
+
+	private volatile IOException fReadError = null;
+
+	private boolean fEndReached = false;
+
+	/* reused for all statements of the script */
+	private final ShellCommandLexer fLexer = new ShellCommandLexer();
+
+	private final CommonTokenStream fTokens = new CommonTokenStream(fLexer);
+
+	private final ShellCommandParser fParser = new ShellCommandParser(fTokens);
+
+	private int fLineNumber = 0;
+
+	/**
+	 * Starts reading the script from <code>input</code>.
+	 * @param input The script.
+	 * @param inputName The name of the script, e.g., its file name.
+	 */
+	public ShellScriptReader(BufferedReader input, String inputName) {
+		fInput = input;
+
+		fReaderThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				readScript();
+			}
+		}, "Script reader " + inputName);
+		fReaderThread.setDaemon(true);
+		fReaderThread.start();
+	}
+
+	/**
+	 * Returns the next command of the script. Blocks until
+	 * the command is parsed.
+	 * @return The next command or <code>null</code> at the end of the script.
+	 * @throws IOException If the script could not be read.
+	 * @throws InterruptedException If the calling thread was interrupted while waiting.
+	 */
+	public Command next() throws IOException, InterruptedException {
+		if (fCurrentBatch.isEmpty() && !fEndReached) {
+			List<Command> batch = fQueue.take();
+
+			if (batch == END) {
+				fEndReached = true;
+			} else {
+				fCurrentBatch.addAll(batch);
+			}
+		}
+
+		if (fCurrentBatch.isEmpty()) {
+			if (fReadError != null) {
+				throw fReadError;
+			}
+			return null;
+		}
+
+		return fCurrentBatch.poll();
+	}
+
+	/**
+	 * Stops reading the script and closes the input.
+	 */
+	@Override
+	public void close() throws IOException {
+		fClosed = true;
+		fReaderThread.interrupt();
+		fQueue.clear();
+		fInput.close();
+	}
+
+	private void readScript() {
+		List<Command> batch = new ArrayList<Command>(BATCH_SIZE);
+
+		try {
+			Command command;
+			while (!fClosed && (command = readCommand()) != null) {
+				batch.add(command);
+
+				// hand over early, if the consumer is waiting
+				if (batch.size() == BATCH_SIZE || fQueue.isEmpty()) {
+					fQueue.put(batch);
+					batch = new ArrayList<Command>(BATCH_SIZE);
+				}
+			}
+		} catch (IOException e) {
+			if (!fClosed) {
+				fReadError = e;
+			}
+		} catch (InterruptedException e) {
+			return;
+		}
+
+		try {
+			if (!batch.isEmpty()) {
+				fQueue.put(batch);
+			}
+			fQueue.put(END);
+		} catch (InterruptedException e) {
+			// closed
+		}
+	}
+
+	/**
+	 * Reads the next line or multi-line block and parses it,
+	 * if it is a statement. Same rules as the interactive shell.
+	 */
+	private Command readCommand() throws IOException {
+		String line = fInput.readLine();
+		if (line == null) {
+			return null;
+		}
+
+		++fLineNumber;
+		int firstLine = fLineNumber;
+		String source = line;
+
+		if (line.equals("\\")) {
+			StringBuilder text = new StringBuilder();
+			StringBuilder sourceText = new StringBuilder(line);
+
+			while ((line = fInput.readLine()) != null) {
+				++fLineNumber;
+				sourceText.append(Options.LINE_SEPARATOR).append(line);
+
+				if (line.equals(".")) {
+					break;
+				}
+				text.append(line).append(Options.LINE_SEPARATOR);
+			}
+
+			line = text.toString();
+			source = sourceText.toString();
+			// the statement starts after the backslash
+			++firstLine;
+		}
+
+		String text = line.trim();
+
+		if (!text.startsWith("!")) {
+			return new Command(text, source, firstLine, null, null);
+		}
+
+		int offset = text.startsWith("!!") ? 2 : 1;
+		return parseStatement(text, source, firstLine, text.substring(offset).trim());
+	}
+
+	private Command parseStatement(String text, String source, int line, String statementText) {
+		StringWriter errors = new StringWriter();
+		PrintWriter errorOutput = new PrintWriter(errors);
+
+		ANTLRStringStream input = new ANTLRStringStream(statementText);
+		input.name = STATEMENT_INPUT_NAME;
+
+		ParseErrorHandler errorHandler = new ParseErrorHandler(STATEMENT_INPUT_NAME, errorOutput);
+		fLexer.init(errorHandler);
+		fParser.init(errorHandler);
+
+		// resets the state of the lexer, the token stream and the parser
+		fLexer.setCharStream(input);
+		fTokens.setTokenSource(fLexer);
+		fParser.setTokenStream(fTokens);
+
+		ASTStatement statement = null;
+		try {
+			statement = fParser.shellCommand();
+		} catch (RecognitionException e) {
+			errorOutput.println(STATEMENT_INPUT_NAME + ":" + e.line + ":"
+					+ e.charPositionInLine + ": " + e.getMessage());
+		}
+
+		if (errorHandler.errorCount() != 0) {
+			statement = null;
+		}
+
+		errorOutput.flush();
+		String errorText = errors.getBuffer().length() == 0 ? null : errors.toString();
+
+		return new Command(text, source, line, statement, errorText);
+	}
+}
@@ -17,6 +17,7 @@ import org.tzi.use.uml.sys.MSystemState;
 import org.tzi.use.uml.sys.soil.MExitOperationStatement;
 import org.tzi.use.uml.sys.soil.MStatement;
 import org.tzi.use.uml.sys.testsuite.MAssert;
+import org.tzi.use.uml.sys.testsuite.MTestResult;
 import org.tzi.use.util.StringUtil;
 import org.tzi.use.util.soil.exceptions.CompilationFailedException;
 
@@ -47,6 +48,15 @@ public class ASTTestCase extends AST {
 	}
 
 	public TestResult execute(MSystem system) throws SemanticException, MSystemException {
+		return execute(system, null);
+	}
+	
+	/**
+	 * Executes the test case on <code>system</code>.
+	 * @param system The system to execute the statements on.
+	 * @param timings If not <code>null</code>, the evaluated assertions are recorded.
+	 */
+	public TestResult execute(MSystem system, MTestResult timings) throws SemanticException, MSystemException {
 		
 		MSystemState preState = system.state();
 				
@@ -66,7 +76,14 @@ public class ASTTestCase extends AST {
 				ctx.setIsAssertExpression(true);
 				
 				MAssert mAss = ass.gen(ctx);
-				if (!mAss.eval(eCtx)) {
+				long start = System.nanoTime();
+				boolean passed = mAss.eval(eCtx);
+				
+				if (timings != null) {
+					timings.addAssertion(mAss, passed, System.nanoTime() - start);
+				}
+				
+				if (!passed) {
 					reportAssertionError(mAss, ctx);
 					return TestResult.FAILURE;
 				}
@@ -185,6 +185,8 @@ public class MAssociationClassImpl extends MClassifierImpl implements MAssociati
             }
         }
         fClassImpl.addAttribute( attr );
+        // the delegate is not part of the generalization graph
+        MClassImpl.invalidateAttributeLayouts( this );
     }
 
     /**
@@ -207,6 +209,15 @@ public class MAssociationClassImpl extends MClassifierImpl implements MAssociati
         return fClassImpl.allAttributes();
     }
 
+    @Override
+    public MAttributeLayout attributeLayout() {
+        return fClassImpl.attributeLayout();
+    }
+    
+    void invalidateAttributeLayout() {
+        fClassImpl.invalidateAttributeLayout();
+    }
+
 
     /**
      * Returns the specified attribute. Attributes are also looked up
@@ -270,7 +281,15 @@ public class MAssociationClassImpl extends MClassifierImpl implements MAssociati
      * @return null if no such association end exists.
      */
     public MNavigableElement navigableEnd( String rolename ) {
-        return navigableEnds().get( rolename );
+        MNavigableElement res = null;
+        
+        for (MAssociationEnd ae : associationEnds()) {
+            if (ae.name().equals(rolename)) {
+                res = ae;
+            }
+        }
+        
+        return res != null ? res : fClassImpl.navigableEnd( rolename );
     }
 
     /**
@@ -0,0 +1,103 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.mm;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns each attribute of a class (including inherited ones)
+ * a fixed slot index. Object states store their attribute values
+ * in an array ordered by the layout of their class.
+ * <p>
+ * A layout is immutable. All objects created for the same class
+ * share a layout, as long as the attributes of the class do not change.
+ * </p>
+ */
+public final class MAttributeLayout {
+	/**
+	 * Up to this number of attributes, slots are found by
+	 * a linear search which is faster than hashing.
+	 */
+	private static final int INDEX_THRESHOLD = 8;
+	
+	private final MAttribute[] attributes;
+	
+	/**
+	 * Attribute to slot mapping for large classes.
+	 * <code>null</code> if the class has at most {@link #INDEX_THRESHOLD} attributes.
+	 */
+	private final Map<MAttribute, Integer> index;
+	
+	MAttributeLayout(List<MAttribute> attributes) {
+		this.attributes = attributes.toArray(new MAttribute[attributes.size()]);
+		
+		if (this.attributes.length > INDEX_THRESHOLD) {
+			index = new IdentityHashMap<MAttribute, Integer>(this.attributes.length);
+			for (int i = 0; i < this.attributes.length; ++i) {
+				index.put(this.attributes[i], Integer.valueOf(i));
+			}
+		} else {
+			index = null;
+		}
+	}
+	
+	/**
+	 * The number of slots.
+	 */
+	public int size() {
+		return attributes.length;
+	}
+	
+	/**
+	 * Returns the slot index of <code>attr</code> or
+	 * <code>-1</code> if the attribute is not part of this layout.
+	 */
+	public int indexOf(MAttribute attr) {
+		if (index != null) {
+			Integer i = index.get(attr);
+			return i == null ? -1 : i.intValue();
+		}
+		
+		for (int i = 0; i < attributes.length; ++i) {
+			if (attributes[i] == attr)
+				return i;
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Returns the attribute stored in slot <code>i</code>.
+	 */
+	public MAttribute attribute(int i) {
+		return attributes[i];
+	}
+	
+	/**
+	 * The attributes in slot order.
+	 */
+	public List<MAttribute> attributes() {
+		return Collections.unmodifiableList(Arrays.asList(attributes));
+	}
+}
@@ -110,6 +110,13 @@ public interface MClass extends MClassifier {
      * @return List(MAttribute)
      */
     public List<MAttribute> allAttributes();
+    
+    /**
+     * Returns the slot layout of all attributes (including inherited ones)
+     * of this class. The same layout is returned as long as the
+     * attributes of this class do not change.
+     */
+    public MAttributeLayout attributeLayout();
 
     /**
      * Adds an operation. The operation name must be unique among all
@@ -61,6 +61,13 @@ public class MClassImpl extends MClassifierImpl implements MClass {
      */
     private Set<MProtocolStateMachine> ownedProtocolStateMachines = Collections.emptySet();
     
+    /**
+     * The attribute layout. Reset if an attribute is added to
+     * this class or one of its parents or if the generalization
+     * hierarchy changes.
+     */
+    private volatile MAttributeLayout fAttributeLayout = null;
+    
     MClassImpl(String name, boolean isAbstract) {
         super(name, isAbstract);
         fAttributes = new TreeMap<String, MAttribute>();
@@ -124,6 +131,7 @@ public class MClassImpl extends MClassifierImpl implements MClass {
         // add attribute
         fAttributes.put(attr.name(), attr);
         attr.setOwner(this);
+        invalidateAttributeLayouts(this);
     }
 
     /**
@@ -156,6 +164,48 @@ public class MClassImpl extends MClassifierImpl implements MClass {
         return result;
     }
 
+    @Override
+    public MAttributeLayout attributeLayout() {
+        MAttributeLayout layout = fAttributeLayout;
+        
+        if (layout == null) {
+            layout = new MAttributeLayout(allAttributes());
+            fAttributeLayout = layout;
+        }
+        
+        return layout;
+    }
+    
+    /**
+     * Drops the attribute layout of this class.
+     */
+    void invalidateAttributeLayout() {
+        fAttributeLayout = null;
+    }
+    
+    /**
+     * Drops the attribute layouts of <code>cls</code> and all of its
+     * subclasses, because their inherited attributes changed.
+     */
+    static void invalidateAttributeLayouts(MClass cls) {
+        invalidateAttributeLayout(cls);
+        
+        if (cls.model() == null)
+            return;
+        
+        for (MClass child : cls.allChildren()) {
+            invalidateAttributeLayout(child);
+        }
+    }
+    
+    private static void invalidateAttributeLayout(MClass cls) {
+        if (cls instanceof MClassImpl) {
+            ((MClassImpl) cls).invalidateAttributeLayout();
+        } else if (cls instanceof MAssociationClassImpl) {
+            ((MAssociationClassImpl) cls).invalidateAttributeLayout();
+        }
+    }
+
     /**
      * Returns the specified attribute. Attributes are also looked up
      * in superclasses if <code>searchInherited</code> is true.
@@ -295,7 +345,17 @@ public class MClassImpl extends MClassifierImpl implements MClass {
      * @return <code>null</code> if no such association end exists.
      */
     public MNavigableElement navigableEnd(String rolename) {
-        return navigableEnds().get( rolename );
+        // same result as navigableEnds().get(rolename) without copying
+        // the ends of the whole hierarchy, i.e., ends of superclasses win
+        MNavigableElement res = fNavigableElements.get(rolename);
+        
+        for (MClass superclass : parents() ) {
+            MNavigableElement end = superclass.navigableEnd(rolename);
+            if (end != null) {
+                res = end;
+            }
+        }
+        return res;
     }
 
     /**
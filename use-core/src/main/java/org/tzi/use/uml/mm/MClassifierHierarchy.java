@@ -0,0 +1,164 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.mm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.tzi.use.graph.DirectedGraphBase;
+
+/**
+ * Precomputed encoding of the generalization hierarchy of a model.
+ * <p>
+ * Each classifier gets a consecutive id and a bit vector of all its
+ * ancestors (including itself). A subtype test is a single bit test
+ * and does not allocate or lock.
+ * </p>
+ * <p>
+ * The encoding is an immutable snapshot of the generalization graph.
+ * It is built on demand by {@link MModel#classifierHierarchy()} and
+ * replaced after the graph was modified.
+ * </p>
+ */
+final class MClassifierHierarchy {
+
+	/**
+	 * Encoding of a single classifier.
+	 */
+	static final class Node {
+		private final MClassifierHierarchy hierarchy;
+
+		private final int id;
+
+		/**
+		 * Bit <code>i</code> is set, if the classifier
+		 * with the id <code>i</code> is this classifier or one of its parents.
+		 */
+		private final long[] ancestors;
+
+		private final Set<MClassifier> allParents;
+
+		private Set<MClassifier> allChildren;
+
+		Node(MClassifierHierarchy hierarchy, int id, long[] ancestors, Set<MClassifier> allParents) {
+			this.hierarchy = hierarchy;
+			this.id = id;
+			this.ancestors = ancestors;
+			this.allParents = allParents;
+		}
+
+		MClassifierHierarchy hierarchy() {
+			return hierarchy;
+		}
+
+		/**
+		 * <code>true</code>, if <code>other</code> is this classifier
+		 * or one of its parents.
+		 */
+		boolean isSubtypeOf(Node other) {
+			int otherId = other.id;
+			return (ancestors[otherId >>> 6] & (1L << otherId)) != 0;
+		}
+
+		/**
+		 * The unmodifiable set of all parents (without this classifier).
+		 */
+		Set<MClassifier> allParents() {
+			return allParents;
+		}
+
+		/**
+		 * The unmodifiable set of all children (without this classifier).
+		 */
+		Set<MClassifier> allChildren() {
+			return allChildren;
+		}
+	}
+
+	private final Map<MClassifier, Node> nodes;
+
+	private final int modificationCount;
+
+	/**
+	 * Encodes the current state of <code>graph</code>.
+	 */
+	MClassifierHierarchy(DirectedGraphBase<MClassifier, MGeneralization> graph) {
+		// Read before the graph to detect concurrent changes
+		this.modificationCount = graph.getModificationCount();
+
+		List<MClassifier> classifiers = new ArrayList<MClassifier>(graph);
+		int numClassifiers = classifiers.size();
+		int words = Math.max(1, (numClassifiers + 63) >>> 6);
+
+		Map<MClassifier, Integer> ids = new HashMap<MClassifier, Integer>(numClassifiers);
+		for (int i = 0; i < numClassifiers; ++i) {
+			ids.put(classifiers.get(i), Integer.valueOf(i));
+		}
+
+		nodes = new HashMap<MClassifier, Node>(numClassifiers);
+		List<Set<MClassifier>> children = new ArrayList<Set<MClassifier>>(numClassifiers);
+
+		for (int i = 0; i < numClassifiers; ++i) {
+			MClassifier cf = classifiers.get(i);
+			long[] ancestors = new long[words];
+			ancestors[i >>> 6] |= 1L << i;
+
+			Set<MClassifier> parents = new LinkedHashSet<MClassifier>(graph.targetNodeClosureSet(cf));
+			for (MClassifier parent : parents) {
+				int parentId = ids.get(parent).intValue();
+				ancestors[parentId >>> 6] |= 1L << parentId;
+			}
+
+			nodes.put(cf, new Node(this, i, ancestors, Collections.unmodifiableSet(parents)));
+			children.add(new LinkedHashSet<MClassifier>());
+		}
+
+		for (int i = 0; i < numClassifiers; ++i) {
+			MClassifier cf = classifiers.get(i);
+			for (MClassifier parent : nodes.get(cf).allParents) {
+				children.get(ids.get(parent).intValue()).add(cf);
+			}
+		}
+
+		for (int i = 0; i < numClassifiers; ++i) {
+			nodes.get(classifiers.get(i)).allChildren = Collections.unmodifiableSet(children.get(i));
+		}
+	}
+
+	/**
+	 * <code>true</code>, if this encoding still reflects <code>graph</code>.
+	 */
+	boolean isValidFor(DirectedGraphBase<MClassifier, MGeneralization> graph) {
+		return modificationCount == graph.getModificationCount();
+	}
+
+	/**
+	 * Returns the encoding of <code>cf</code> or <code>null</code>,
+	 * if it is not part of the hierarchy.
+	 */
+	Node node(MClassifier cf) {
+		return nodes.get(cf);
+	}
+}
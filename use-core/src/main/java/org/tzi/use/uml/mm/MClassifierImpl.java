@@ -52,6 +52,12 @@ public abstract class MClassifierImpl extends MModelElementImpl implements MClas
 	 */
 	private boolean isAbstract;
 	
+	/**
+	 * Cached encoding of this classifier in the generalization hierarchy
+	 * of the model. Validated against {@link MModel#classifierHierarchy()}.
+	 */
+	private volatile MClassifierHierarchy.Node hierarchyNode;
+	
 	/**
 	 * @param name
 	 */
@@ -104,12 +110,54 @@ public abstract class MClassifierImpl extends MModelElementImpl implements MClas
         positionInModel = position;
     }
     
+	/**
+     * Returns the encoding of this classifier in the current
+     * generalization hierarchy or <code>null</code> if
+     * it is not part of the hierarchy of its model.
+     */
+    MClassifierHierarchy.Node hierarchyNode() {
+    	if (model == null) return null;
+    	
+    	MClassifierHierarchy hierarchy = model.classifierHierarchy();
+    	MClassifierHierarchy.Node node = hierarchyNode;
+    	
+    	if (node == null || node.hierarchy() != hierarchy) {
+    		node = hierarchy.node(this);
+    		hierarchyNode = node;
+    	}
+    	
+    	return node;
+    }
+    
+    /**
+     * Subtype test using the precomputed hierarchy.
+     * @return <code>null</code>, if one of the classifiers is not encoded.
+     */
+    private Boolean isSubtypeOf(MClassifier other) {
+    	MClassifierHierarchy.Node node = hierarchyNode();
+    	if (node == null) return null;
+    	
+    	MClassifierHierarchy.Node otherNode;
+    	if (other instanceof MClassifierImpl) {
+    		otherNode = ((MClassifierImpl)other).hierarchyNode();
+    	} else {
+    		otherNode = node.hierarchy().node(other);
+    	}
+    	
+    	if (otherNode == null || otherNode.hierarchy() != node.hierarchy()) return null;
+    	
+    	return Boolean.valueOf(node.isSubtypeOf(otherNode));
+    }
+    
 	@Override
 	public boolean conformsTo(Type other) {
 		if (other.equals(this)) return true;
 		
 		if (other.isKindOfClassifier(VoidHandling.EXCLUDE_VOID)) {
             MClassifier clf = (MClassifier)other;
+            Boolean result = isSubtypeOf(clf);
+            if (result != null) return result.booleanValue();
+            
             return this.allSupertypes().contains(clf);
         }
 		
@@ -395,6 +443,9 @@ public abstract class MClassifierImpl extends MModelElementImpl implements MClas
      */
 	@Override
 	public Set<? extends MClassifier> allChildren() {
+		MClassifierHierarchy.Node node = hierarchyNode();
+		if (node != null) return node.allChildren();
+		
     	return model.generalizationGraph().sourceNodeClosureSet(this);
     }
 
@@ -439,6 +490,11 @@ public abstract class MClassifierImpl extends MModelElementImpl implements MClas
 
     @Override
     public boolean isSubClassOf(MClassifier otherClassifier, boolean excludeThis) {
+    	if (otherClassifier.equals(this)) return !excludeThis;
+    	
+    	Boolean result = isSubtypeOf(otherClassifier);
+    	if (result != null) return result.booleanValue();
+    	
         return Iterators.contains(this.generalizationHierachie(!excludeThis).iterator(), otherClassifier);
     }
 
@@ -61,7 +61,13 @@ public class MModel extends MModelElementImpl {
 
 	private Map<String, MAssociation> fAssociations;
 
-	private DirectedGraph<MClassifier, MGeneralization> fGenGraph;
+	private DirectedGraphBase<MClassifier, MGeneralization> fGenGraph;
+
+	/**
+	 * Encoding of the generalization graph for fast subtype tests.
+	 * Rebuilt on demand after the graph was modified.
+	 */
+	private volatile MClassifierHierarchy fClassifierHierarchy;
 
 	private Map<String, MClassInvariant> fClassInvariants;
 
@@ -233,8 +239,6 @@ public class MModel extends MModelElementImpl {
 		// check for role name conflicts: for each class the set of
 		// navigable classes must have unique role names
 		for (MClass cls : assoc.associatedClasses()) {
-			Map<String, ? extends MNavigableElement> aends = cls
-					.navigableEnds();
 			List<String> newRolenames = new ArrayList<String>();
 
 			for (MNavigableElement elem : assoc.navigableEndsFrom(cls)) {
@@ -242,10 +246,11 @@ public class MModel extends MModelElementImpl {
 
 				newRolenames.add(newRolename);
 
-				if (aends.containsKey(newRolename)) {
+				MNavigableElement otherEnd = cls.navigableEnd(newRolename);
+				
+				if (otherEnd != null) {
 					// Inherited?
 					boolean inherited = false;
-					MNavigableElement otherEnd = aends.get(newRolename);
 
 					if (otherEnd.association() instanceof MAssociationClass
 							&& assoc instanceof MAssociationClass) {
@@ -265,9 +270,7 @@ public class MModel extends MModelElementImpl {
 										+ "' navigable from class `"
 										+ cls.name()
 										+ "' conflicts with same rolename in association `"
-										+ ((MNavigableElement) aends
-												.get(newRolename))
-												.association().name() + "'.");
+										+ otherEnd.association().name() + "'.");
 					}
 				}
 			}
@@ -277,17 +280,16 @@ public class MModel extends MModelElementImpl {
 					.<MClassifier, MClass> downCastUnsafe(cls.allChildren())) {
 				for (int i = 0; i < newRolenames.size(); i++) {
 					String newRolename = newRolenames.get(i);
-					if (subCls.navigableEnds().containsKey(newRolename)) {
+					MNavigableElement otherEnd = subCls.navigableEnd(newRolename);
+					
+					if (otherEnd != null) {
 						throw new MInvalidModelException(
 								"Association end `"
 										+ newRolename
 										+ "' navigable from class `"
 										+ subCls.name()
 										+ "' conflicts with same rolename in association `"
-										+ ((MNavigableElement) subCls
-												.navigableEnds().get(
-														newRolename))
-												.association().name() + "'.");
+										+ otherEnd.association().name() + "'.");
 					}
 				}
 			}
@@ -422,6 +424,10 @@ public class MModel extends MModelElementImpl {
 
 		// silently ignore duplicates
 		fGenGraph.addEdge(gen);
+		
+		if (child instanceof MClass) {
+			MClassImpl.invalidateAttributeLayouts((MClass) child);
+		}
 	}
 
 	/**
@@ -433,6 +439,18 @@ public class MModel extends MModelElementImpl {
 		return fGenGraph;
 	}
 
+	/**
+	 * Returns the precomputed encoding of the current generalization graph.
+	 */
+	MClassifierHierarchy classifierHierarchy() {
+		MClassifierHierarchy hierarchy = fClassifierHierarchy;
+		if (hierarchy == null || !hierarchy.isValidFor(fGenGraph)) {
+			hierarchy = new MClassifierHierarchy(fGenGraph);
+			fClassifierHierarchy = hierarchy;
+		}
+		return hierarchy;
+	}
+
 	/**
 	 * Adds an enumeration type.
 	 * 
@@ -18,6 +18,13 @@
  */
 package org.tzi.use.uml.mm.statemachines;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.tzi.use.parser.SrcPos;
 import org.tzi.use.uml.mm.MClass;
 import org.tzi.use.uml.mm.MOperation;
@@ -39,6 +46,16 @@ import org.tzi.use.uml.sys.statemachines.MProtocolStateMachineInstance;
  */
 public class MProtocolStateMachine extends MStateMachine {
 
+	/**
+	 * Dispatch table: called operation -> source state -> transitions
+	 * which refer to the operation or to an operation overridden by it.
+	 * Filled on demand, because overriding operations of subclasses
+	 * are not known in advance. Cleared when the structure of the
+	 * state machine changes.
+	 */
+	private final Map<MOperation, Map<MVertex, List<MProtocolTransition>>> dispatchTable =
+			new ConcurrentHashMap<MOperation, Map<MVertex, List<MProtocolTransition>>>();
+
 	/**
 	 * @param name
 	 * @param srcPos
@@ -60,20 +77,71 @@ public class MProtocolStateMachine extends MStateMachine {
 	 * @return
 	 */
 	public boolean handlesOperation(MOperation operation) {
-		//TODO: Caching?
+		return !dispatchTable(operation).isEmpty();
+	}
+
+	/**
+	 * Returns the transitions leaving <code>source</code> which
+	 * can be triggered by a call of <code>operation</code>.
+	 * Guards are not considered.
+	 * @param source The source state of the transitions.
+	 * @param operation The called operation.
+	 * @return An unmodifiable list of the transitions. 
+	 */
+	public List<MProtocolTransition> getTransitions(MVertex source, MOperation operation) {
+		List<MProtocolTransition> transitions = dispatchTable(operation).get(source);
+		
+		if (transitions == null)
+			return Collections.emptyList();
+		
+		return transitions;
+	}
+
+	@Override
+	protected void structureChanged() {
+		dispatchTable.clear();
+	}
+
+	private Map<MVertex, List<MProtocolTransition>> dispatchTable(MOperation operation) {
+		Map<MVertex, List<MProtocolTransition>> table = dispatchTable.get(operation);
+		
+		if (table == null) {
+			table = buildDispatchTable(operation);
+			dispatchTable.put(operation, table);
+		}
+		
+		return table;
+	}
+	
+	private Map<MVertex, List<MProtocolTransition>> buildDispatchTable(MOperation operation) {
+		Map<MVertex, List<MProtocolTransition>> table = new HashMap<MVertex, List<MProtocolTransition>>();
+		
 		for (MRegion r : this.getRegions()) {
-			for (MTransition t : r.getTransitions()) {
-				// PSM only contains protocol transitions
-				MProtocolTransition pt = (MProtocolTransition)t;
-				// some transitions don't have an operation, e. g., create
-				if (pt.getReferred() == null) continue;
+			for (MVertex v : r.getSubvertices()) {
+				List<MProtocolTransition> transitions = null;
 				
-				if (operation.equals(pt.getReferred()) || 
-					operation.isValidOverrideOf(pt.getReferred()))
-					return true;
+				// keep the order of the outgoing transitions
+				for (MTransition t : v.getOutgoing()) {
+					// PSM only contains protocol transitions
+					MProtocolTransition pt = (MProtocolTransition)t;
+					// some transitions don't have an operation, e. g., create
+					if (pt.getReferred() == null) continue;
+					
+					if (operation.equals(pt.getReferred()) || 
+						operation.isValidOverrideOf(pt.getReferred())) {
+						if (transitions == null)
+							transitions = new ArrayList<MProtocolTransition>(2);
+						
+						transitions.add(pt);
+					}
+				}
+				
+				if (transitions != null)
+					table.put(v, Collections.unmodifiableList(transitions));
 			}
 		}
-		return false;
+		
+		return table.isEmpty() ? Collections.<MVertex, List<MProtocolTransition>>emptyMap() : table;
 	}
 
 	@Override
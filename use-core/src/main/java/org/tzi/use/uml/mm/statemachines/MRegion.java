@@ -91,6 +91,7 @@ public class MRegion {
 			
 			initialState = (MState)t.getTarget();
 			this.transition.add(t);
+			stateMachine.structureChanged();
 			return;
 		} 
 		
@@ -110,6 +111,9 @@ public class MRegion {
 		}
 				
 		this.outgoingTrasitions.get(t.getSource()).add(t);
+		// the source may have cached that it has no outgoing transitions
+		t.getSource().outgoing = null;
+		stateMachine.structureChanged();
 	}
 	
 	/**
@@ -135,6 +139,7 @@ public class MRegion {
 		
 		this.subvertex.put(v.name(), v);
 		v.setContainer(this);
+		stateMachine.structureChanged();
 	}
 	
 	/**
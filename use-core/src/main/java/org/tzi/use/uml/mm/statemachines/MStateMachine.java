@@ -94,6 +94,14 @@ public class MStateMachine implements MNamedElement, UseFileLocatable {
 	public MClass getContext() {
 		return this.context;
 	}
+	
+	/**
+	 * Called when a state or a transition of this state machine
+	 * is added or changed. Subclasses discard information derived
+	 * from the structure of the state machine.
+	 */
+	protected void structureChanged() {
+	}
 
 	@Override
 	public int getPositionInModel() {
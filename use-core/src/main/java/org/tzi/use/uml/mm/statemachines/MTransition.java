@@ -146,6 +146,8 @@ public class MTransition implements MNamedElement {
 	 */
 	public void setTrigger(MTrigger trigger) {
 		this.trigger = trigger;
+		if (container != null)
+			container.getStateMachine().structureChanged();
 	}
 	
 	/**
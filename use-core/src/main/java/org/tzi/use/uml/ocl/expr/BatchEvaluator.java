@@ -0,0 +1,187 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.ocl.expr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.tzi.use.uml.ocl.expr.compiled.CompiledBatch;
+import org.tzi.use.uml.ocl.expr.compiled.ExpressionCompiler;
+import org.tzi.use.uml.ocl.value.Value;
+import org.tzi.use.uml.ocl.value.VarBindings;
+import org.tzi.use.uml.sys.MSystemState;
+import org.tzi.use.util.Log;
+
+/**
+ * Evaluates a list of expressions on a single system state, e.g.,
+ * to compute many metrics after each change of the state.
+ * <p>
+ * The expressions are compiled once, regardless of the
+ * option to compile single expressions. Subexpressions which do not
+ * use variables, like <code>Person.allInstances()</code>, are evaluated
+ * only once per call and shared by all expressions and variable bindings.
+ * The evaluation can be distributed over several threads.
+ * The results are returned in the order of the expressions.
+ * </p>
+ * <p>
+ * If the profiler is active or tracing is enabled, each expression
+ * is evaluated by an {@link Evaluator} to record the details.
+ * </p>
+ */
+public final class BatchEvaluator {
+
+	private final List<Expression> fExpressions;
+	
+	private final CompiledBatch fCompiled;
+	
+	/**
+	 * Prepares the evaluation of <code>expressions</code>.
+	 */
+	public BatchEvaluator(List<Expression> expressions) {
+		fExpressions = new ArrayList<Expression>(expressions);
+		fCompiled = ExpressionCompiler.compileBatch(fExpressions);
+	}
+	
+	/**
+	 * The expressions evaluated by this batch.
+	 */
+	public List<Expression> getExpressions() {
+		return Collections.unmodifiableList(fExpressions);
+	}
+	
+	/**
+	 * The number of distinct subexpressions which are shared by the expressions.
+	 * <code>0</code>, if the expressions are currently evaluated by the interpreter.
+	 */
+	public int getNumSharedSubexpressions() {
+		return useCompiled() ? fCompiled.getNumSharedSubexpressions() : 0;
+	}
+	
+	/**
+	 * The compiled expressions are not observed by the profiler and the trace.
+	 */
+	private static boolean useCompiled() {
+		return !EvalProfiler.getInstance().isActive() && !Log.isTracing();
+	}
+	
+	/**
+	 * Evaluates all expressions in <code>state</code>.
+	 */
+	public List<Value> eval(MSystemState state, VarBindings bindings) {
+		return eval(state, bindings, 1);
+	}
+	
+	/**
+	 * Evaluates all expressions in <code>state</code> using
+	 * up to <code>numThreads</code> threads.
+	 */
+	public List<Value> eval(MSystemState state, VarBindings bindings, int numThreads) {
+		return eval(state, Collections.singletonList(bindings), numThreads).get(0);
+	}
+	
+	/**
+	 * Evaluates all expressions for each of the variable bindings in 
+	 * <code>bindingsList</code> in <code>state</code> using up to 
+	 * <code>numThreads</code> threads.
+	 * @return For each bindings the values of the expressions.
+	 */
+	public List<List<Value>> eval(final MSystemState state, final List<VarBindings> bindingsList, int numThreads) {
+		if (numThreads < 1 )
+			throw new IllegalArgumentException("numThreads == " + numThreads);
+		
+		final int numExpressions = fExpressions.size();
+		final int numTasks = numExpressions * bindingsList.size();
+		final Value[][] results = new Value[bindingsList.size()][numExpressions];
+		final CompiledBatch.SharedValues shared = fCompiled.newSharedValues();
+		final boolean compiled = useCompiled();
+		final AtomicInteger nextTask = new AtomicInteger();
+		
+		Runnable worker = () -> {
+			for (int task = nextTask.getAndIncrement(); task < numTasks; task = nextTask.getAndIncrement()) {
+				int b = task / numExpressions;
+				int e = task % numExpressions;
+				VarBindings bindings = bindingsList.get(b);
+				
+				try {
+					if (compiled) {
+						results[b][e] = fCompiled.eval(e, new SimpleEvalContext(state, state, bindings), shared);
+					} else {
+						results[b][e] = new Evaluator().eval(fExpressions.get(e), state, bindings);
+					}
+				} catch (RuntimeException ex) {
+					// the other threads stop after their current task
+					nextTask.set(numTasks);
+					throw ex;
+				}
+			}
+		};
+		
+		int threads = Math.min(numThreads, numTasks);
+		if (threads <= 1) {
+			worker.run();
+		} else {
+			runConcurrently(worker, threads);
+		}
+		
+		List<List<Value>> res = new ArrayList<List<Value>>(results.length);
+		for (Value[] values : results) {
+			res.add(Arrays.asList(values));
+		}
+		return res;
+	}
+	
+	private static void runConcurrently(Runnable worker, int numThreads) {
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads, r -> {
+			Thread t = new Thread(r, "USE batch evaluation");
+			t.setDaemon(true);
+			return t;
+		});
+		
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>(numThreads);
+			for (int i = 0; i < numThreads; ++i) {
+				futures.add(executor.submit(worker));
+			}
+			
+			for (Future<?> f : futures) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException)cause;
+			if (cause instanceof Error)
+				throw (Error)cause;
+			throw new RuntimeException(cause);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -140,6 +140,17 @@ public class EvalContext {
     Value getVarValue(String name) {
         return fVarBindings.getValue(name);
     }
+    
+    /**
+     * Returns the value of the binding <code>depth</code> positions below
+     * the top of the binding stack. If this binding does not bind
+     * <code>name</code>, the bindings are searched by name.
+     * 
+     * @return value for name binding or null if not bound
+     */
+    Value getVarValue(String name, int depth) {
+        return fVarBindings.getValue(name, depth);
+    }
 
     void enter(Expression expr) {
         if (isTracing) {
@@ -0,0 +1,370 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.ocl.expr;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.tzi.use.parser.SrcPos;
+
+/**
+ * Collects execution times, invocation counts and result collection
+ * sizes of expression nodes over many evaluations.
+ * <p>While the profiler is active, the {@link Evaluator} uses a
+ * {@link ProfilingEvalContext} instead of the compiled or the
+ * simple evaluation. The values of each evaluation are merged
+ * into this profiler, so a report covers all invariant checks
+ * (also parallel ones) since the last reset.</p>
+ * 
+ *
+ */
+public final class EvalProfiler {
+
+	private static final EvalProfiler INSTANCE = new EvalProfiler();
+	
+	/**
+	 * Measured values of a single expression node or
+	 * of all nodes at a source position.
+	 */
+	public static final class Entry {
+		private final Expression fExpression;
+		
+		long fCount;
+		long fTotalTime;
+		long fSelfTime;
+		long fCollections;
+		long fCollectionElements;
+		int fMaxCollectionSize;
+		
+		/** Currently open invocations (only used while measuring) */
+		int fActive;
+		
+		Entry(Expression expression) {
+			fExpression = expression;
+		}
+		
+		Entry(Entry src) {
+			this(src.fExpression);
+			add(src);
+		}
+
+		void add(Entry other) {
+			fCount += other.fCount;
+			fTotalTime += other.fTotalTime;
+			fSelfTime += other.fSelfTime;
+			fCollections += other.fCollections;
+			fCollectionElements += other.fCollectionElements;
+			fMaxCollectionSize = Math.max(fMaxCollectionSize, other.fMaxCollectionSize);
+		}
+		
+		/**
+		 * The measured expression. For entries aggregated by source
+		 * position, the expression with the highest total time.
+		 */
+		public Expression getExpression() {
+			return fExpression;
+		}
+		
+		/**
+		 * The source position of the expression or <code>null</code>,
+		 * if it is unknown.
+		 */
+		public String getPosition() {
+			SrcPos pos = fExpression.getSourcePosition();
+			return pos == null ? null : pos.toString(true);
+		}
+		
+		public long getCount() {
+			return fCount;
+		}
+
+		/**
+		 * Time spent in the expression including its subexpressions
+		 * in nanoseconds.
+		 */
+		public long getTotalTime() {
+			return fTotalTime;
+		}
+		
+		/**
+		 * Time spent in the expression without its subexpressions
+		 * in nanoseconds.
+		 */
+		public long getSelfTime() {
+			return fSelfTime;
+		}
+		
+		/**
+		 * Number of evaluations that resulted in a collection.
+		 */
+		public long getCollections() {
+			return fCollections;
+		}
+		
+		/**
+		 * Sum of the sizes of all resulting collections.
+		 */
+		public long getCollectionElements() {
+			return fCollectionElements;
+		}
+		
+		public int getMaxCollectionSize() {
+			return fMaxCollectionSize;
+		}
+	}
+	
+	private static final Comparator<Entry> BY_SELF_TIME = new Comparator<Entry>() {
+		@Override
+		public int compare(Entry o1, Entry o2) {
+			return Long.compare(o2.fSelfTime, o1.fSelfTime);
+		}
+	};
+	
+	private volatile boolean fActive = false;
+	
+	private final Map<Expression, Entry> fEntries = new IdentityHashMap<>();
+	
+	private long fEvaluations = 0;
+	
+	private EvalProfiler() { }
+	
+	public static EvalProfiler getInstance() {
+		return INSTANCE;
+	}
+	
+	public boolean isActive() {
+		return fActive;
+	}
+	
+	/**
+	 * Starts profiling. Already collected values are kept.
+	 */
+	public void start() {
+		fActive = true;
+	}
+	
+	public void stop() {
+		fActive = false;
+	}
+	
+	/**
+	 * Discards all collected values.
+	 */
+	public synchronized void reset() {
+		fEntries.clear();
+		fEvaluations = 0;
+	}
+	
+	/**
+	 * Number of evaluations merged into this profiler.
+	 */
+	public synchronized long getEvaluations() {
+		return fEvaluations;
+	}
+	
+	synchronized void merge(Map<Expression, Entry> entries) {
+		++fEvaluations;
+		
+		for (Entry e : entries.values()) {
+			Entry target = fEntries.get(e.fExpression);
+			if (target == null) {
+				fEntries.put(e.fExpression, new Entry(e));
+			} else {
+				target.add(e);
+			}
+		}
+	}
+	
+	/**
+	 * Returns a copy of the values of all profiled expression nodes
+	 * ordered by their self time, highest first.
+	 */
+	public synchronized List<Entry> getEntries() {
+		List<Entry> result = new ArrayList<>(fEntries.size());
+		
+		for (Entry e : fEntries.values()) {
+			result.add(new Entry(e));
+		}
+		
+		Collections.sort(result, BY_SELF_TIME);
+		return result;
+	}
+	
+	/**
+	 * Returns the values aggregated by the source position of the expressions
+	 * ordered by their self time, highest first.
+	 * Expressions without a known source position are ignored.
+	 */
+	public List<Entry> getEntriesByPosition() {
+		Map<String, List<Entry>> byPosition = new LinkedHashMap<>();
+		
+		for (Entry e : getEntries()) {
+			String pos = e.getPosition();
+			if (pos == null) continue;
+			
+			List<Entry> atPos = byPosition.get(pos);
+			if (atPos == null) {
+				atPos = new ArrayList<>();
+				byPosition.put(pos, atPos);
+			}
+			atPos.add(e);
+		}
+		
+		List<Entry> result = new ArrayList<>(byPosition.size());
+		for (List<Entry> atPos : byPosition.values()) {
+			Entry outermost = atPos.get(0);
+			for (Entry e : atPos) {
+				if (e.fTotalTime > outermost.fTotalTime) {
+					outermost = e;
+				}
+			}
+			
+			Entry aggregated = new Entry(outermost.fExpression);
+			for (Entry e : atPos) {
+				aggregated.add(e);
+			}
+			result.add(aggregated);
+		}
+		
+		Collections.sort(result, BY_SELF_TIME);
+		return result;
+	}
+	
+	/**
+	 * Prints the <code>topN</code> expression nodes and source positions
+	 * with the highest self time.
+	 */
+	public void printReport(PrintWriter out, int topN) {
+		List<Entry> entries = getEntries();
+		
+		out.println("Profile of " + getEvaluations() + " evaluations, " 
+				+ entries.size() + " expression nodes.");
+		
+		if (entries.isEmpty()) {
+			out.flush();
+			return;
+		}
+		
+		out.println();
+		out.println("Hot expressions (by self time):");
+		printEntries(out, entries, topN);
+		
+		List<Entry> positions = getEntriesByPosition();
+		if (!positions.isEmpty()) {
+			out.println();
+			out.println("Hot source positions (by self time):");
+			printEntries(out, positions, topN);
+		}
+		
+		out.flush();
+	}
+	
+	private void printEntries(PrintWriter out, List<Entry> entries, int topN) {
+		out.println(String.format("%10s %10s %10s %10s  %-20s %s", 
+				"self ms", "total ms", "count", "avg size", "position", "expression"));
+		
+		for (int i = 0; i < entries.size() && i < topN; ++i) {
+			Entry e = entries.get(i);
+			String pos = e.getPosition();
+			String avgSize = e.fCollections == 0 ? "-" : String.format("%.1f", (double)e.fCollectionElements / e.fCollections);
+			
+			out.println(String.format("%10.3f %10.3f %10d %10s  %-20s %s",
+					e.fSelfTime / 1e6, e.fTotalTime / 1e6, e.fCount, avgSize,
+					pos == null ? "-" : pos, shorten(e.fExpression.toString(), 80)));
+		}
+	}
+	
+	private static String shorten(String s, int length) {
+		s = s.replaceAll("\\s+", " ");
+		if (s.length() <= length) return s;
+		return s.substring(0, length - 3) + "...";
+	}
+	
+	/**
+	 * Writes all collected values as a JSON document.
+	 * Times are given in nanoseconds.
+	 */
+	public void writeJSON(Writer out) throws IOException {
+		long evaluations = getEvaluations();
+		
+		out.write("{\n  \"evaluations\": " + evaluations + ",\n");
+		out.write("  \"expressions\": [");
+		writeJSON(out, getEntries());
+		out.write("],\n  \"positions\": [");
+		writeJSON(out, getEntriesByPosition());
+		out.write("]\n}\n");
+		out.flush();
+	}
+
+	private void writeJSON(Writer out, List<Entry> entries) throws IOException {
+		boolean first = true;
+		
+		for (Entry e : entries) {
+			out.write(first ? "\n" : ",\n");
+			first = false;
+			
+			String pos = e.getPosition();
+			out.write("    {\"expression\": " + jsonString(e.fExpression.toString()) 
+					+ ", \"position\": " + (pos == null ? "null" : jsonString(pos))
+					+ ", \"count\": " + e.fCount
+					+ ", \"totalTime\": " + e.fTotalTime
+					+ ", \"selfTime\": " + e.fSelfTime
+					+ ", \"collections\": " + e.fCollections
+					+ ", \"collectionElements\": " + e.fCollectionElements
+					+ ", \"maxCollectionSize\": " + e.fMaxCollectionSize + "}");
+		}
+		
+		if (!first) {
+			out.write("\n  ");
+		}
+	}
+	
+	private static String jsonString(String s) {
+		StringBuilder res = new StringBuilder(s.length() + 2);
+		res.append('"');
+		
+		for (int i = 0; i < s.length(); ++i) {
+			char c = s.charAt(i);
+			switch (c) {
+			case '"': res.append("\\\""); break;
+			case '\\': res.append("\\\\"); break;
+			case '\n': res.append("\\n"); break;
+			case '\r': res.append("\\r"); break;
+			case '\t': res.append("\\t"); break;
+			default:
+				if (c < ' ') {
+					res.append(String.format("\\u%04x", (int)c));
+				} else {
+					res.append(c);
+				}
+			}
+		}
+		
+		return res.append('"').toString();
+	}
+}
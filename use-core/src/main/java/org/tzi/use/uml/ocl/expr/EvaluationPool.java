@@ -0,0 +1,61 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.ocl.expr;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.tzi.use.config.Options;
+
+/**
+ * A process-wide pool of threads for evaluating
+ * expressions in the background, e.g., by views.
+ * The number of threads is given by {@link Options#EVAL_NUMTHREADS}
+ * when the pool is first used.
+ * <p>
+ * The threads are daemon threads, therefore the pool
+ * must not be shut down by its users.
+ * </p>
+ */
+public final class EvaluationPool {
+
+	private static ExecutorService executor = null;
+	
+	private EvaluationPool() {}
+	
+	/**
+	 * The shared executor. Users should cancel their pending
+	 * tasks if the results are no longer needed.
+	 */
+	public static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			final AtomicInteger threadNumber = new AtomicInteger(1);
+			
+			executor = Executors.newFixedThreadPool(Math.max(1, Options.EVAL_NUMTHREADS), r -> {
+				Thread t = new Thread(r, "USE evaluation " + threadNumber.getAndIncrement());
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		
+		return executor;
+	}
+}
@@ -22,6 +22,7 @@ package org.tzi.use.uml.ocl.expr;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 
+import org.tzi.use.uml.ocl.expr.compiled.ExpressionCompiler;
 import org.tzi.use.uml.ocl.value.Value;
 import org.tzi.use.uml.ocl.value.VarBindings;
 import org.tzi.use.uml.sys.MSystemState;
@@ -73,6 +74,8 @@ public final class Evaluator {
                       String evalLogIndent) {
     	if (fEnableEvalTree)
     		fEvalContext = new DetailedEvalContext(preState, postState, bindings, evalLog, evalLogIndent);
+    	else if (EvalProfiler.getInstance().isActive())
+    		fEvalContext = new ProfilingEvalContext(preState, postState, bindings, evalLog, evalLogIndent);
     	else if (evalLog != null || Log.isTracing())
     		fEvalContext = new EvalContext(preState, postState, bindings, evalLog, evalLogIndent);
     	else
@@ -154,11 +157,14 @@ public final class Evaluator {
 
         Value res = null;
         try {
-            res = expr.eval(fEvalContext);
+            res = ExpressionCompiler.eval(expr, fEvalContext);
         } catch (StackOverflowError ex) {
             throw new RuntimeException(
                                        "Stack overflow. The expression is probably nested" +
                                        " too deep or contains an infinite recursion.");
+        } finally {
+            if (fEvalContext instanceof ProfilingEvalContext)
+                EvalProfiler.getInstance().merge(((ProfilingEvalContext)fEvalContext).getEntries());
         }
         return res;
     }
@@ -20,6 +20,7 @@
 package org.tzi.use.uml.ocl.expr;
 
 import org.tzi.use.uml.mm.MAttribute;
+import org.tzi.use.uml.mm.MAttributeLayout;
 import org.tzi.use.uml.ocl.value.ObjectValue;
 import org.tzi.use.uml.ocl.value.UndefinedValue;
 import org.tzi.use.uml.ocl.value.Value;
@@ -38,6 +39,23 @@ public final class ExpAttrOp extends Expression {
     
     private Expression fObjExp;
     
+    /**
+     * The slot of the attribute in the last accessed attribute layout.
+     * Objects of the same class share their layout, therefore
+     * the slot needs to be looked up only if the class changes.
+     */
+    private volatile SlotCache fSlotCache = null;
+    
+    private static final class SlotCache {
+        final MAttributeLayout layout;
+        final int slot;
+        
+        SlotCache(MAttributeLayout layout, int slot) {
+            this.layout = layout;
+            this.slot = slot;
+        }
+    }
+    
     public ExpAttrOp(MAttribute a, Expression objExp) {
         super(a.type());
         fAttr = a;
@@ -77,13 +95,30 @@ public final class ExpAttrOp extends Expression {
 	
 	            // if the object is dead the result is undefined
 	            if (objState != null )
-	                res = objState.attributeValue(fAttr);
+	                res = attributeValue(objState);
             }
         }
         ctx.exit(this, res);
         return res;
     }
 
+    private Value attributeValue(MObjectState objState) {
+        MAttributeLayout layout = objState.attributeLayout();
+        SlotCache cache = fSlotCache;
+        
+        if (cache == null || cache.layout != layout) {
+            int slot = layout.indexOf(fAttr);
+            if (slot < 0)
+                // let the object state report the error
+                return objState.attributeValue(fAttr);
+            
+            cache = new SlotCache(layout, slot);
+            fSlotCache = cache;
+        }
+        
+        return objState.attributeValue(cache.slot);
+    }
+
     @Override
     public StringBuilder toString(StringBuilder sb) {
         fObjExp.toString(sb);
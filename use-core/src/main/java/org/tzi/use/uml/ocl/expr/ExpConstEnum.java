@@ -35,7 +35,7 @@ public final class ExpConstEnum extends Expression {
     public ExpConstEnum(EnumType t, String literal) {
         super(t);
         fValue = literal;
-        enumValue = new EnumValue((EnumType) type(), fValue);
+        enumValue = EnumValue.valueOf((EnumType) type(), fValue);
     }
 
     public String value() {
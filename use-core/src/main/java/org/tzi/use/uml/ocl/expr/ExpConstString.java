@@ -30,10 +30,13 @@ import org.tzi.use.uml.ocl.value.Value;
  */
 public final class ExpConstString extends Expression {
     private final String fValue;
+    
+    private final StringValue fStringValue;
 
     public ExpConstString(String s) {
         super(TypeFactory.mkString());
         fValue = s;
+        fStringValue = StringValue.valueOf(s);
     }
 
     public String value() {
@@ -45,7 +48,7 @@ public final class ExpConstString extends Expression {
      */
     public Value eval(EvalContext ctx) {
         ctx.enter(this);
-        Value res = new StringValue(fValue);
+        Value res = fStringValue;
         ctx.exit(this, res);
         return res;
     }
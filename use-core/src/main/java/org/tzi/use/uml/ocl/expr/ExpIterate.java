@@ -43,6 +43,8 @@ public class ExpIterate extends ExpQuery {
         // result type is type of accumulator
         super(accuInitializer.type(), elemVarDecls, rangeExp, queryExp);
         fAccuInitializer = accuInitializer;
+        // the accumulator is bound on top of the element variables
+        VarBindingResolver.resolve(this, fAccuInitializer.name());
 
         if (elemVarDecls.containsName(accuInitializer.name()) ) 
             throw new ExpInvalidException("Redefinition of variable `" + 
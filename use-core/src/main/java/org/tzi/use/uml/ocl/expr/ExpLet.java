@@ -44,6 +44,7 @@ public final class ExpLet extends Expression {
         fVarType = varType;
         fVarExpr = varExpr;
         fInExpr = inExpr;
+        VarBindingResolver.resolve(fInExpr, fVarname);
         if (! fVarExpr.type().conformsTo(fVarType) )
             throw new ExpInvalidException(
                                           "Type of variable expression `" + fVarExpr.type() +
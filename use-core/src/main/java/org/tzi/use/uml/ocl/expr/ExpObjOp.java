@@ -22,6 +22,7 @@ package org.tzi.use.uml.ocl.expr;
 import java.util.List;
 
 import org.tzi.use.uml.mm.MOperation;
+import org.tzi.use.uml.ocl.expr.compiled.ExpressionCompiler;
 import org.tzi.use.uml.ocl.value.ObjectValue;
 import org.tzi.use.uml.ocl.value.UndefinedValue;
 import org.tzi.use.uml.ocl.value.Value;
@@ -133,7 +134,7 @@ public final class ExpObjOp extends Expression {
     		operationCall.setExecutionFailed(true);
     	
 			if (operation.hasExpression()) {
-				result = operation.expression().eval(ctx);
+				result = ExpressionCompiler.eval(operation.expression(), ctx);
 			}
 
 			operationCall.setExecutionFailed(false);
@@ -84,6 +84,8 @@ public abstract class ExpQuery extends Expression {
                         + "' does not match type `" + rangeElemType
                         + "' of collection elements.");
         }
+        
+        VarBindingResolver.resolve(this);
     }
 
 	@Override
@@ -29,18 +29,38 @@ import org.tzi.use.uml.ocl.value.Value;
  */
 public final class ExpVariable extends Expression  {
     private String fVarname;
+    
+    /**
+     * The position of the binding of this variable on the
+     * variable stack counted from the top or <code>-1</code>
+     * if the variable is looked up by name.
+     * @see VarBindingResolver
+     */
+    private int fBindingDepth = -1;
 
     public ExpVariable(String varname, Type t) {
         super(t);
         fVarname = varname;
     }
+    
+    void setBindingDepth(int depth) {
+        fBindingDepth = depth;
+    }
+    
+    /**
+     * The position of the binding of this variable counted from
+     * the top of the variable stack or <code>-1</code>, if unknown.
+     */
+    public int getBindingDepth() {
+        return fBindingDepth;
+    }
 
     /**
      * Evaluates expression and returns result value.
      */
     public Value eval(EvalContext ctx) {
         ctx.enter(this);
-        Value res = ctx.getVarValue(fVarname);
+        Value res = ctx.getVarValue(fVarname, fBindingDepth);
         if (res == null ) 
             throw new RuntimeException("unbound variable `" + 
                                        fVarname + "'.");
@@ -0,0 +1,136 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.ocl.expr;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.tzi.use.uml.ocl.value.CollectionValue;
+import org.tzi.use.uml.ocl.value.Value;
+import org.tzi.use.uml.ocl.value.VarBindings;
+import org.tzi.use.uml.sys.MSystemState;
+
+/**
+ * Extends EvalContext to measure the time spent in each
+ * expression node. The results of one evaluation are collected
+ * locally and merged into the {@link EvalProfiler} by the
+ * {@link Evaluator} afterwards.
+ *
+ */
+public class ProfilingEvalContext extends EvalContext {
+	private final Map<Expression, EvalProfiler.Entry> fEntries = new IdentityHashMap<>();
+
+	private Expression[] fExpressions = new Expression[32];
+	private long[] fStartTimes = new long[32];
+	private long[] fChildTimes = new long[32];
+	private int fDepth = 0;
+
+	public ProfilingEvalContext(MSystemState preState,
+			   MSystemState postState,
+			   VarBindings globalBindings,
+			   PrintWriter evalLog,
+			   String evalLogIndent) {
+		super(preState, postState, globalBindings, evalLog, evalLogIndent);
+	}
+
+	@Override
+	void enter(Expression expr) {
+		super.enter(expr);
+		
+		if (fDepth == fExpressions.length) {
+			int size = fDepth * 2;
+			fExpressions = Arrays.copyOf(fExpressions, size);
+			fStartTimes = Arrays.copyOf(fStartTimes, size);
+			fChildTimes = Arrays.copyOf(fChildTimes, size);
+		}
+		
+		entry(expr).fActive++;
+		fExpressions[fDepth] = expr;
+		fChildTimes[fDepth] = 0;
+		fStartTimes[fDepth] = System.nanoTime();
+		++fDepth;
+	}
+
+	@Override
+	void exit(Expression expr, Value result) {
+		long now = System.nanoTime();
+		super.exit(expr, result);
+		
+		// Nodes left by an exception are closed on the next matching exit
+		while (fDepth > 0 && fExpressions[fDepth - 1] != expr) {
+			pop(now, null);
+		}
+		
+		if (fDepth > 0) {
+			pop(now, result);
+		}
+	}
+
+	private void pop(long now, Value result) {
+		--fDepth;
+		Expression expr = fExpressions[fDepth];
+		fExpressions[fDepth] = null;
+		
+		long elapsed = now - fStartTimes[fDepth];
+		EvalProfiler.Entry e = entry(expr);
+		
+		e.fCount++;
+		e.fSelfTime += elapsed - fChildTimes[fDepth];
+		// Recursive calls are already part of the outermost invocation
+		if (--e.fActive == 0) {
+			e.fTotalTime += elapsed;
+		}
+		
+		if (result instanceof CollectionValue) {
+			int size = ((CollectionValue)result).size();
+			e.fCollections++;
+			e.fCollectionElements += size;
+			e.fMaxCollectionSize = Math.max(e.fMaxCollectionSize, size);
+		}
+		
+		if (fDepth > 0) {
+			fChildTimes[fDepth - 1] += elapsed;
+		}
+	}
+	
+	private EvalProfiler.Entry entry(Expression expr) {
+		EvalProfiler.Entry e = fEntries.get(expr);
+		if (e == null) {
+			e = new EvalProfiler.Entry(expr);
+			fEntries.put(expr, e);
+		}
+		return e;
+	}
+
+	/**
+	 * Returns the measured values of this context.
+	 * Expressions which are still open, e.g., because
+	 * the evaluation was aborted by an exception, are closed first.
+	 */
+	Map<Expression, EvalProfiler.Entry> getEntries() {
+		long now = System.nanoTime();
+		while (fDepth > 0) {
+			pop(now, null);
+		}
+		return fEntries;
+	}
+}
@@ -0,0 +1,360 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.ocl.expr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resolves variables to their binding on the variable stack.
+ * <p>
+ * When a variable is evaluated, the bindings pushed by the expressions
+ * between the declaring expression and the variable are known statically.
+ * The resolver walks the body of a declaring expression
+ * (e.g., <code>let</code>, <code>select</code>, <code>iterate</code>)
+ * and sets the binding depth of each variable bound by it.
+ * At runtime the binding is then found without searching the stack by name
+ * (see {@link org.tzi.use.uml.ocl.value.VarBindings#getValue(String, int)}).
+ * </p>
+ * <p>
+ * Variables which are shadowed by an inner declaration are left to the
+ * inner declaring expression. Bodies of <code>closure</code> expressions are
+ * skipped, because the number of bindings depends on the recursion depth.
+ * Variables which are not resolved, e.g., shell variables or object names,
+ * are looked up by name.
+ * </p>
+ */
+final class VarBindingResolver implements ExpressionVisitor {
+
+	/**
+	 * Resolves the variables in <code>body</code> which are bound
+	 * to <code>names</code>. The last name is bound at the top of the stack.
+	 */
+	static void resolve(Expression body, String... names) {
+		new VarBindingResolver(names).visit(body);
+	}
+	
+	/**
+	 * Resolves the variables in the query expression of <code>exp</code>
+	 * bound by its element variables and <code>additionalNames</code>, 
+	 * which are bound on top of the element variables.
+	 */
+	static void resolve(ExpQuery exp, String... additionalNames) {
+		VarDeclList decls = exp.getVariableDeclarations();
+		String[] names = new String[decls.size() + additionalNames.length];
+		
+		for (int i = 0; i < decls.size(); ++i) {
+			names[i] = decls.varDecl(i).name();
+		}
+		System.arraycopy(additionalNames, 0, names, decls.size(), additionalNames.length);
+		
+		if (names.length > 0) {
+			resolve(exp.getQueryExpression(), names);
+		}
+	}
+	
+	/** The names to resolve. The last name is bound at the top of the stack. */
+	private final String[] names;
+	
+	/** Names declared by inner expressions */
+	private final List<String> innerNames = new ArrayList<String>();
+	
+	private VarBindingResolver(String[] names) {
+		this.names = names;
+	}
+	
+	private void visit(Expression exp) {
+		exp.processWithVisitor(this);
+	}
+	
+	private void visit(Expression[] exps) {
+		for (Expression exp : exps) {
+			exp.processWithVisitor(this);
+		}
+	}
+	
+	/**
+	 * Visits <code>body</code> with the inner declarations <code>declared</code>
+	 * bound on top of the stack.
+	 */
+	private void visitInner(Expression body, List<String> declared) {
+		int size = innerNames.size();
+		innerNames.addAll(declared);
+		visit(body);
+		while (innerNames.size() > size) {
+			innerNames.remove(innerNames.size() - 1);
+		}
+	}
+	
+	private void visitQueryBody(ExpQuery exp, String... additionalNames) {
+		List<String> declared = new ArrayList<String>();
+		for (VarDecl decl : exp.getVariableDeclarations()) {
+			declared.add(decl.name());
+		}
+		for (String name : additionalNames) {
+			declared.add(name);
+		}
+		visitInner(exp.getQueryExpression(), declared);
+	}
+	
+	@Override
+	public void visitQuery(ExpQuery exp) {
+		visit(exp.getRangeExpression());
+		visitQueryBody(exp);
+	}
+	
+	@Override
+	public void visitVariable(ExpVariable exp) {
+		String name = exp.getVarname();
+		
+		if (innerNames.contains(name))
+			return;
+		
+		for (int i = names.length - 1; i >= 0; --i) {
+			if (names[i].equals(name)) {
+				exp.setBindingDepth(innerNames.size() + names.length - 1 - i);
+				return;
+			}
+		}
+	}
+	
+	@Override
+	public void visitAllInstances(ExpAllInstances exp) { }
+
+	@Override
+	public void visitAny(ExpAny exp) {
+		visitQuery(exp);
+	}
+
+	@Override
+	public void visitAsType(ExpAsType exp) {
+		visit(exp.getSourceExpr());
+	}
+
+	@Override
+	public void visitAttrOp(ExpAttrOp exp) {
+		visit(exp.objExp());
+	}
+
+	@Override
+	public void visitBagLiteral(ExpBagLiteral exp) {
+		visit(exp.getElemExpr());
+	}
+
+	@Override
+	public void visitCollect(ExpCollect exp) {
+		visitQuery(exp);
+	}
+
+	@Override
+	public void visitCollectNested(ExpCollectNested exp) {
+		visitQuery(exp);
+	}
+
+	@Override
+	public void visitConstBoolean(ExpConstBoolean exp) { }
+
+	@Override
+	public void visitConstEnum(ExpConstEnum exp) { }
+
+	@Override
+	public void visitConstInteger(ExpConstInteger exp) { }
+
+	@Override
+	public void visitConstReal(ExpConstReal exp) { }
+
+	@Override
+	public void visitConstString(ExpConstString exp) { }
+
+	@Override
+	public void visitEmptyCollection(ExpEmptyCollection exp) { }
+
+	@Override
+	public void visitExists(ExpExists exp) {
+		visitQuery(exp);
+	}
+
+	@Override
+	public void visitForAll(ExpForAll exp) {
+		visitQuery(exp);
+	}
+
+	@Override
+	public void visitIf(ExpIf exp) {
+		visit(exp.getCondition());
+		visit(exp.getThenExpression());
+		visit(exp.getElseExpression());
+	}
+
+	@Override
+	public void visitIsKindOf(ExpIsKindOf exp) {
+		visit(exp.getSourceExpr());
+	}
+
+	@Override
+	public void visitIsTypeOf(ExpIsTypeOf exp) {
+		visit(exp.getSourceExpr());
+	}
+
+	@Override
+	public void visitIsUnique(ExpIsUnique exp) {
+		visitQuery(exp);
+	}
+
+	@Override
+	public void visitIterate(ExpIterate exp) {
+		// the accumulator is initialized before any element is bound
+		visit(exp.getRangeExpression());
+		visit(exp.getAccuInitializer().initExpr());
+		visitQueryBody(exp, exp.getAccuInitializer().name());
+	}
+
+	@Override
+	public void visitLet(ExpLet exp) {
+		visit(exp.getVarExpression());
+		List<String> declared = new ArrayList<String>(1);
+		declared.add(exp.getVarname());
+		visitInner(exp.getInExpression(), declared);
+	}
+
+	@Override
+	public void visitNavigation(ExpNavigation exp) {
+		visit(exp.getObjectExpression());
+		visit(exp.getQualifierExpression());
+	}
+
+	@Override
+	public void visitObjAsSet(ExpObjAsSet exp) {
+		visit(exp.getObjectExpression());
+	}
+
+	@Override
+	public void visitObjOp(ExpObjOp exp) {
+		// the body of the operation is resolved on its own
+		visit(exp.getArguments());
+	}
+
+	@Override
+	public void visitObjRef(ExpObjRef exp) { }
+
+	@Override
+	public void visitOne(ExpOne exp) {
+		visitQuery(exp);
+	}
+
+	@Override
+	public void visitOrderedSetLiteral(ExpOrderedSetLiteral exp) {
+		visit(exp.getElemExpr());
+	}
+
+	@Override
+	public void visitReject(ExpReject exp) {
+		visitQuery(exp);
+	}
+
+	@Override
+	public void visitWithValue(ExpressionWithValue exp) { }
+
+	@Override
+	public void visitSelect(ExpSelect exp) {
+		visitQuery(exp);
+	}
+
+	@Override
+	public void visitSequenceLiteral(ExpSequenceLiteral exp) {
+		visit(exp.getElemExpr());
+	}
+
+	@Override
+	public void visitSetLiteral(ExpSetLiteral exp) {
+		visit(exp.getElemExpr());
+	}
+
+	@Override
+	public void visitSortedBy(ExpSortedBy exp) {
+		visitQuery(exp);
+	}
+
+	@Override
+	public void visitStdOp(ExpStdOp exp) {
+		visit(exp.args());
+	}
+
+	@Override
+	public void visitTupleLiteral(ExpTupleLiteral exp) {
+		for (ExpTupleLiteral.Part part : exp.getParts()) {
+			visit(part.getExpression());
+		}
+	}
+
+	@Override
+	public void visitTupleSelectOp(ExpTupleSelectOp exp) {
+		visit(exp.getTupleExp());
+	}
+
+	@Override
+	public void visitUndefined(ExpUndefined exp) { }
+
+	@Override
+	public void visitClosure(ExpClosure exp) {
+		// the body is evaluated with one binding per recursion step
+		visit(exp.getRangeExpression());
+	}
+
+	@Override
+	public void visitOclInState(ExpOclInState exp) {
+		visit(exp.getSourceExpr());
+	}
+
+	@Override
+	public void visitVarDeclList(VarDeclList varDeclList) { }
+
+	@Override
+	public void visitVarDecl(VarDecl varDecl) { }
+
+	@Override
+	public void visitObjectByUseId(ExpObjectByUseId exp) {
+		visit(exp.getIdExpression());
+	}
+
+	@Override
+	public void visitConstUnlimitedNatural(ExpConstUnlimitedNatural exp) { }
+
+	@Override
+	public void visitSelectByKind(ExpSelectByKind exp) {
+		visit(exp.getSourceExpression());
+	}
+
+	@Override
+	public void visitExpSelectByType(ExpSelectByType exp) {
+		visit(exp.getSourceExpression());
+	}
+
+	@Override
+	public void visitRange(ExpRange exp) {
+		visit(exp.getStart());
+		visit(exp.getEnd());
+	}
+
+	@Override
+	public void visitNavigationClassifierSource(ExpNavigationClassifierSource exp) {
+		visit(exp.getObjectExpression());
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.ocl.expr.compiled;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.tzi.use.uml.ocl.expr.EvalContext;
+import org.tzi.use.uml.ocl.value.Value;
+
+/**
+ * Several OCL expressions compiled together by 
+ * {@link ExpressionCompiler#compileBatch(java.util.List)}.
+ * Subexpressions without variables are shared by all expressions.
+ * Their values are kept in a {@link SharedValues} object, which must
+ * only be used for evaluations on the same system state.
+ * Instances are immutable and can be evaluated concurrently.
+ */
+public final class CompiledBatch {
+	
+	/**
+	 * The values of the shared subexpressions computed so far.
+	 * Can be used by several threads at once.
+	 */
+	public static final class SharedValues {
+		private final AtomicReferenceArray<Value> fValues;
+		
+		private SharedValues(int size) {
+			fValues = new AtomicReferenceArray<Value>(size);
+		}
+	}
+	
+	private final CompiledExpression[] fExpressions;
+	
+	private final int fNumShared;
+	
+	CompiledBatch(CompiledExpression[] expressions, int numShared) {
+		fExpressions = expressions;
+		fNumShared = numShared;
+	}
+	
+	/**
+	 * The number of expressions of this batch.
+	 */
+	public int size() {
+		return fExpressions.length;
+	}
+	
+	/**
+	 * The compiled expression at position <code>index</code>.
+	 */
+	public CompiledExpression get(int index) {
+		return fExpressions[index];
+	}
+	
+	/**
+	 * The number of distinct subexpressions shared by the expressions.
+	 */
+	public int getNumSharedSubexpressions() {
+		return fNumShared;
+	}
+	
+	/**
+	 * Creates an empty store for the values of the shared subexpressions.
+	 */
+	public SharedValues newSharedValues() {
+		return new SharedValues(fNumShared);
+	}
+	
+	/**
+	 * Evaluates the expression at position <code>index</code>.
+	 * Values of shared subexpressions are taken from and stored in <code>shared</code>.
+	 */
+	public Value eval(int index, EvalContext ctx, SharedValues shared) {
+		return fExpressions[index].eval(ctx, shared.fValues);
+	}
+}
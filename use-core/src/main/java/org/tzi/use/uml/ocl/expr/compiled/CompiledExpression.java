@@ -0,0 +1,74 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.ocl.expr.compiled;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.tzi.use.uml.ocl.expr.EvalContext;
+import org.tzi.use.uml.ocl.expr.Expression;
+import org.tzi.use.uml.ocl.value.Value;
+
+/**
+ * An OCL expression compiled by the {@link ExpressionCompiler}.
+ * Instances are immutable and can be evaluated concurrently.
+ */
+public final class CompiledExpression {
+	private final Expression fExpression;
+	
+	private final Node fRoot;
+	
+	private final int fNumSlots;
+	
+	CompiledExpression(Expression expression, Node root, int numSlots) {
+		fExpression = expression;
+		fRoot = root;
+		fNumSlots = numSlots;
+	}
+	
+	/**
+	 * The source expression of this compiled expression.
+	 */
+	public Expression getExpression() {
+		return fExpression;
+	}
+	
+	/**
+	 * The root node of the compiled expression.
+	 */
+	Node getRoot() {
+		return fRoot;
+	}
+	
+	/**
+	 * Evaluates the expression. Variables which are not
+	 * declared inside of the expression (e.g., <code>self</code>)
+	 * are looked up in the variable bindings of <code>ctx</code>.
+	 */
+	public Value eval(EvalContext ctx) {
+		return fRoot.eval(new Frame(ctx, fNumSlots));
+	}
+	
+	/**
+	 * Evaluates the expression as part of a batch.
+	 */
+	Value eval(EvalContext ctx, AtomicReferenceArray<Value> shared) {
+		return fRoot.eval(new Frame(ctx, fNumSlots, shared));
+	}
+}
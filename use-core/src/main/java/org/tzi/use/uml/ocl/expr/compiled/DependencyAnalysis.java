@@ -0,0 +1,400 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.ocl.expr.compiled;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.tzi.use.uml.ocl.expr.*;
+
+/**
+ * Computes for each subexpression of an expression which variables
+ * it depends on and whether it reads the system state.
+ * The {@link ExpressionCompiler} uses this information to evaluate
+ * constant subexpressions once at compile time and to evaluate
+ * subexpressions which do not depend on the element variable of
+ * an iterator only once per iteration.
+ */
+final class DependencyAnalysis implements ExpressionVisitor {
+
+	/**
+	 * The dependencies of a single subexpression.
+	 */
+	static final class Dependencies {
+		/** Variables which are not bound inside of the expression */
+		final Set<String> freeVariables;
+		
+		/** <code>true</code>, if the expression does not access the system state */
+		final boolean isStateIndependent;
+		
+		/**
+		 * <code>true</code>, if two evaluations with the same variable bindings
+		 * and the same system state return the same value.
+		 * This is not the case for non-deterministic operations (e.g., random numbers) and
+		 * for user defined operations and derived features, which can call them.
+		 */
+		final boolean isRepeatable;
+		
+		Dependencies(Set<String> freeVariables, boolean isStateIndependent, boolean isRepeatable) {
+			this.freeVariables = freeVariables;
+			this.isStateIndependent = isStateIndependent;
+			this.isRepeatable = isRepeatable;
+		}
+		
+		/**
+		 * An expression is constant, if it always evaluates to the same value.
+		 */
+		boolean isConstant() {
+			return freeVariables.isEmpty() && isStateIndependent && isRepeatable;
+		}
+	}
+	
+	/**
+	 * Analyzes <code>exp</code> and all of its subexpressions.
+	 */
+	static Map<Expression, Dependencies> analyze(Expression exp) {
+		DependencyAnalysis analysis = new DependencyAnalysis();
+		analysis.visit(exp);
+		return analysis.result;
+	}
+	
+	private final Map<Expression, Dependencies> result = new IdentityHashMap<Expression, Dependencies>();
+	
+	/* Dependencies of the currently visited expression */
+	private Set<String> freeVariables;
+	private boolean isStateIndependent;
+	private boolean isRepeatable;
+	
+	private DependencyAnalysis() { }
+	
+	private Dependencies visit(Expression exp) {
+		Set<String> outerFreeVariables = freeVariables;
+		boolean outerStateIndependent = isStateIndependent;
+		boolean outerRepeatable = isRepeatable;
+		
+		freeVariables = new HashSet<String>();
+		isStateIndependent = true;
+		isRepeatable = true;
+		
+		exp.processWithVisitor(this);
+		
+		Dependencies res = new Dependencies(
+				freeVariables.isEmpty() ? Collections.<String>emptySet() : freeVariables,
+				isStateIndependent, isRepeatable);
+		result.put(exp, res);
+		
+		freeVariables = outerFreeVariables;
+		isStateIndependent = outerStateIndependent;
+		isRepeatable = outerRepeatable;
+		
+		return res;
+	}
+	
+	/**
+	 * Adds the dependencies of the subexpression <code>exp</code>.
+	 */
+	private void add(Expression exp) {
+		addBody(exp, Collections.<String>emptyList());
+	}
+	
+	private void add(Expression[] exps) {
+		for (Expression exp : exps) {
+			add(exp);
+		}
+	}
+	
+	/**
+	 * Adds the dependencies of <code>body</code> in which
+	 * the variables <code>bound</code> are declared.
+	 */
+	private void addBody(Expression body, List<String> bound) {
+		Dependencies dep = visit(body);
+		
+		for (String name : dep.freeVariables) {
+			if (!bound.contains(name))
+				freeVariables.add(name);
+		}
+		
+		isStateIndependent &= dep.isStateIndependent;
+		isRepeatable &= dep.isRepeatable;
+	}
+	
+	private void addQuery(ExpQuery exp, String... additionalNames) {
+		List<String> bound = new ArrayList<String>();
+		for (VarDecl decl : exp.getVariableDeclarations()) {
+			bound.add(decl.name());
+		}
+		Collections.addAll(bound, additionalNames);
+		
+		add(exp.getRangeExpression());
+		addBody(exp.getQueryExpression(), bound);
+	}
+	
+	@Override
+	public void visitQuery(ExpQuery exp) {
+		addQuery(exp);
+	}
+	
+	@Override
+	public void visitVariable(ExpVariable exp) {
+		freeVariables.add(exp.getVarname());
+	}
+	
+	@Override
+	public void visitAllInstances(ExpAllInstances exp) {
+		isStateIndependent = false;
+	}
+
+	@Override
+	public void visitAny(ExpAny exp) {
+		addQuery(exp);
+	}
+
+	@Override
+	public void visitAsType(ExpAsType exp) {
+		add(exp.getSourceExpr());
+	}
+
+	@Override
+	public void visitAttrOp(ExpAttrOp exp) {
+		isStateIndependent = false;
+		isRepeatable = !exp.attr().isDerived();
+		add(exp.objExp());
+	}
+
+	@Override
+	public void visitBagLiteral(ExpBagLiteral exp) {
+		add(exp.getElemExpr());
+	}
+
+	@Override
+	public void visitCollect(ExpCollect exp) {
+		addQuery(exp);
+	}
+
+	@Override
+	public void visitCollectNested(ExpCollectNested exp) {
+		addQuery(exp);
+	}
+
+	@Override
+	public void visitConstBoolean(ExpConstBoolean exp) { }
+
+	@Override
+	public void visitConstEnum(ExpConstEnum exp) { }
+
+	@Override
+	public void visitConstInteger(ExpConstInteger exp) { }
+
+	@Override
+	public void visitConstReal(ExpConstReal exp) { }
+
+	@Override
+	public void visitConstString(ExpConstString exp) { }
+
+	@Override
+	public void visitEmptyCollection(ExpEmptyCollection exp) { }
+
+	@Override
+	public void visitExists(ExpExists exp) {
+		addQuery(exp);
+	}
+
+	@Override
+	public void visitForAll(ExpForAll exp) {
+		addQuery(exp);
+	}
+
+	@Override
+	public void visitIf(ExpIf exp) {
+		add(exp.getCondition());
+		add(exp.getThenExpression());
+		add(exp.getElseExpression());
+	}
+
+	@Override
+	public void visitIsKindOf(ExpIsKindOf exp) {
+		add(exp.getSourceExpr());
+	}
+
+	@Override
+	public void visitIsTypeOf(ExpIsTypeOf exp) {
+		add(exp.getSourceExpr());
+	}
+
+	@Override
+	public void visitIsUnique(ExpIsUnique exp) {
+		addQuery(exp);
+	}
+
+	@Override
+	public void visitIterate(ExpIterate exp) {
+		add(exp.getAccuInitializer().initExpr());
+		addQuery(exp, exp.getAccuInitializer().name());
+	}
+
+	@Override
+	public void visitLet(ExpLet exp) {
+		add(exp.getVarExpression());
+		addBody(exp.getInExpression(), Collections.singletonList(exp.getVarname()));
+	}
+
+	@Override
+	public void visitNavigation(ExpNavigation exp) {
+		isStateIndependent = false;
+		isRepeatable = !exp.getDestination().isDerived();
+		add(exp.getObjectExpression());
+		add(exp.getQualifierExpression());
+	}
+
+	@Override
+	public void visitObjAsSet(ExpObjAsSet exp) {
+		add(exp.getObjectExpression());
+	}
+
+	@Override
+	public void visitObjOp(ExpObjOp exp) {
+		isStateIndependent = false;
+		isRepeatable = false;
+		add(exp.getArguments());
+	}
+
+	@Override
+	public void visitObjRef(ExpObjRef exp) {
+		isStateIndependent = false;
+	}
+
+	@Override
+	public void visitOne(ExpOne exp) {
+		addQuery(exp);
+	}
+
+	@Override
+	public void visitOrderedSetLiteral(ExpOrderedSetLiteral exp) {
+		add(exp.getElemExpr());
+	}
+
+	@Override
+	public void visitReject(ExpReject exp) {
+		addQuery(exp);
+	}
+
+	@Override
+	public void visitWithValue(ExpressionWithValue exp) {
+		isStateIndependent = false;
+	}
+
+	@Override
+	public void visitSelect(ExpSelect exp) {
+		addQuery(exp);
+	}
+
+	@Override
+	public void visitSequenceLiteral(ExpSequenceLiteral exp) {
+		add(exp.getElemExpr());
+	}
+
+	@Override
+	public void visitSetLiteral(ExpSetLiteral exp) {
+		add(exp.getElemExpr());
+	}
+
+	@Override
+	public void visitSortedBy(ExpSortedBy exp) {
+		addQuery(exp);
+	}
+
+	@Override
+	public void visitStdOp(ExpStdOp exp) {
+		if (!exp.getOperation().isDeterministic()) {
+			isRepeatable = false;
+		}
+		add(exp.args());
+	}
+
+	@Override
+	public void visitTupleLiteral(ExpTupleLiteral exp) {
+		for (ExpTupleLiteral.Part part : exp.getParts()) {
+			add(part.getExpression());
+		}
+	}
+
+	@Override
+	public void visitTupleSelectOp(ExpTupleSelectOp exp) {
+		add(exp.getTupleExp());
+	}
+
+	@Override
+	public void visitUndefined(ExpUndefined exp) { }
+
+	@Override
+	public void visitClosure(ExpClosure exp) {
+		addQuery(exp);
+	}
+
+	@Override
+	public void visitOclInState(ExpOclInState exp) {
+		isStateIndependent = false;
+		add(exp.getSourceExpr());
+	}
+
+	@Override
+	public void visitVarDeclList(VarDeclList varDeclList) { }
+
+	@Override
+	public void visitVarDecl(VarDecl varDecl) { }
+
+	@Override
+	public void visitObjectByUseId(ExpObjectByUseId exp) {
+		isStateIndependent = false;
+		add(exp.getIdExpression());
+	}
+
+	@Override
+	public void visitConstUnlimitedNatural(ExpConstUnlimitedNatural exp) { }
+
+	@Override
+	public void visitSelectByKind(ExpSelectByKind exp) {
+		add(exp.getSourceExpression());
+	}
+
+	@Override
+	public void visitExpSelectByType(ExpSelectByType exp) {
+		add(exp.getSourceExpression());
+	}
+
+	@Override
+	public void visitRange(ExpRange exp) {
+		add(exp.getStart());
+		add(exp.getEnd());
+	}
+
+	@Override
+	public void visitNavigationClassifierSource(ExpNavigationClassifierSource exp) {
+		isStateIndependent = false;
+		isRepeatable = !exp.getDestination().isDerived();
+		add(exp.getObjectExpression());
+	}
+}
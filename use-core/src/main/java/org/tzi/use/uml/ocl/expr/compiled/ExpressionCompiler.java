@@ -0,0 +1,757 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.ocl.expr.compiled;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.tzi.use.config.Options;
+import org.tzi.use.uml.ocl.expr.*;
+import org.tzi.use.uml.ocl.expr.compiled.DependencyAnalysis.Dependencies;
+import org.tzi.use.uml.ocl.expr.operations.OpGeneric;
+import org.tzi.use.uml.ocl.expr.operations.StandardOperationsBoolean;
+import org.tzi.use.uml.ocl.type.CollectionType;
+import org.tzi.use.uml.ocl.type.EnumType;
+import org.tzi.use.uml.ocl.type.Type;
+import org.tzi.use.uml.ocl.type.Type.VoidHandling;
+import org.tzi.use.uml.ocl.value.BooleanValue;
+import org.tzi.use.uml.ocl.value.EnumValue;
+import org.tzi.use.uml.ocl.value.IntegerValue;
+import org.tzi.use.uml.ocl.value.RealValue;
+import org.tzi.use.uml.ocl.value.StringValue;
+import org.tzi.use.uml.ocl.value.UndefinedValue;
+import org.tzi.use.uml.ocl.value.Value;
+import org.tzi.use.uml.ocl.value.VarBindings;
+
+/**
+ * Compiles OCL expressions into trees of specialized evaluation nodes.
+ * <p>
+ * Compared to the interpreter ({@link Expression#eval(EvalContext)}) a
+ * compiled expression
+ * <ul>
+ *   <li>resolves variables to slots at compile time instead of
+ *       searching the variable bindings by name,</li>
+ *   <li>evaluates Boolean connectives and Integer arithmetic
+ *       without creating argument arrays,</li>
+ *   <li>calls standard operations directly,</li>
+ *   <li>evaluates constant subexpressions (e.g., <code>Set{1,2,3}</code>)
+ *       only once at compile time,</li>
+ *   <li>evaluates subexpressions of iterator bodies which do not depend on
+ *       the element variables only once per iteration
+ *       (e.g., <code>self.limit</code> in 
+ *       <code>self.items->forAll(i | i.price &lt; self.limit)</code>) and</li>
+ *   <li>does not call the tracing hooks of the evaluation context.</li>
+ * </ul>
+ * Expressions without a specialized node are evaluated by the interpreter.
+ * </p>
+ * <p>
+ * Boolean connectives with a constant operand are simplified, if
+ * the result is the same for all values of the other operand
+ * (including undefined) and the other operand is evaluated in the same cases,
+ * e.g., <code>true and b</code> becomes <code>b</code>.
+ * Subexpressions whose evaluation fails at compile time are left
+ * to the evaluation, so that errors are reported as before.
+ * </p>
+ * <p>
+ * These optimizations are only applied if expressions are compiled,
+ * i.e., if the option <code>-compileOCL</code> is set. The interpreter,
+ * which is used by default, evaluates the expression tree unchanged.
+ * </p>
+ */
+public final class ExpressionCompiler implements ExpressionVisitor {
+
+	private static final Map<Expression, CompiledExpression> cache = 
+			Collections.synchronizedMap(new WeakHashMap<Expression, CompiledExpression>());
+	
+	/**
+	 * Evaluates <code>expr</code> using its compiled form, if expression
+	 * compilation is enabled and <code>ctx</code> does not record 
+	 * the evaluation. Otherwise, the interpreter is used.
+	 */
+	public static Value eval(Expression expr, EvalContext ctx) {
+		if (Options.compileExpressions && ctx instanceof SimpleEvalContext) {
+			return getCompiled(expr).eval(ctx);
+		}
+		
+		return expr.eval(ctx);
+	}
+	
+	/**
+	 * Returns the (cached) compiled form of <code>expr</code>.
+	 */
+	public static CompiledExpression getCompiled(Expression expr) {
+		CompiledExpression res = cache.get(expr);
+		
+		if (res == null) {
+			res = compile(expr);
+			cache.put(expr, res);
+		}
+		
+		return res;
+	}
+	
+	/**
+	 * Compiles <code>expr</code> without using the cache.
+	 */
+	public static CompiledExpression compile(Expression expr) {
+		ExpressionCompiler compiler = new ExpressionCompiler(DependencyAnalysis.analyze(expr), null);
+		Node root = compiler.compileNode(expr);
+		return new CompiledExpression(expr, root, compiler.numSlots);
+	}
+	
+	/**
+	 * Compiles the expressions of a batch. Subexpressions which
+	 * do not use any variable (e.g., <code>A.allInstances()</code>)
+	 * are shared by all expressions of the batch, i.e., they are
+	 * evaluated at most once per evaluation of the batch.
+	 * Subexpressions are considered equal, if they have the same type
+	 * and textual representation.
+	 */
+	public static CompiledBatch compileBatch(List<Expression> exprs) {
+		Map<String, Integer> sharedSlots = new HashMap<String, Integer>();
+		CompiledExpression[] compiled = new CompiledExpression[exprs.size()];
+		
+		for (int i = 0; i < compiled.length; ++i) {
+			Expression expr = exprs.get(i);
+			ExpressionCompiler compiler = new ExpressionCompiler(DependencyAnalysis.analyze(expr), sharedSlots);
+			Node root = compiler.compileNode(expr);
+			compiled[i] = new CompiledExpression(expr, root, compiler.numSlots);
+		}
+		
+		return new CompiledBatch(compiled, sharedSlots.size());
+	}
+	
+	/** The result of the last visited expression */
+	private Node result;
+	
+	/** Names of the declared variables in scope */
+	private final List<String> scopeNames = new ArrayList<String>();
+	
+	/** Slots of the declared variables in scope */
+	private final List<Integer> scopeSlots = new ArrayList<Integer>();
+	
+	/** Slots of variables bound outside of the expression */
+	private final Map<String, Integer> freeVariables = new HashMap<String, Integer>();
+	
+	private int numSlots = 0;
+	
+	/** Dependencies of all subexpressions of the compiled expression */
+	private final Map<Expression, Dependencies> dependencies;
+	
+	/** The compiled iterators enclosing the current expression, outermost first */
+	private final List<Loop> loops = new ArrayList<Loop>();
+	
+	/** <code>true</code> while compiling an expression which is cached by an iterator */
+	private boolean isCached = false;
+	
+	/** 
+	 * Slots of the subexpressions shared by a batch by their type and text
+	 * or <code>null</code>, if a single expression is compiled 
+	 */
+	private final Map<String, Integer> sharedSlots;
+	
+	/**
+	 * A compiled iterator. Values of subexpressions of the body which
+	 * do not depend on the element variables are cached in slots, which
+	 * are cleared each time the iterator is evaluated.
+	 */
+	private static final class Loop {
+		/** Position of the first element variable in the scope */
+		final int scopePosition;
+		
+		final List<Integer> cacheSlots = new ArrayList<Integer>();
+		
+		Loop(int scopePosition) {
+			this.scopePosition = scopePosition;
+		}
+		
+		int[] getCacheSlots() {
+			int[] res = new int[cacheSlots.size()];
+			for (int i = 0; i < res.length; ++i) {
+				res[i] = cacheSlots.get(i).intValue();
+			}
+			return res;
+		}
+	}
+	
+	private ExpressionCompiler(Map<Expression, Dependencies> dependencies, Map<String, Integer> sharedSlots) {
+		this.dependencies = dependencies;
+		this.sharedSlots = sharedSlots;
+	}
+	
+	private Node compileNode(Expression exp) {
+		Dependencies dep = dependencies.get(exp);
+		
+		if (dep.isConstant() && !isLiteral(exp)) {
+			Value value = evalConstant(exp);
+			if (value != null)
+				return new ConstantNode(value);
+		}
+		
+		if (sharedSlots != null && dep.freeVariables.isEmpty() && dep.isRepeatable
+				&& !dep.isConstant() && !(exp instanceof ExpVariable)) {
+			String key = exp.type().toString() + " " + exp.toString();
+			Integer slot = sharedSlots.get(key);
+			if (slot == null) {
+				slot = Integer.valueOf(sharedSlots.size());
+				sharedSlots.put(key, slot);
+			}
+			
+			exp.processWithVisitor(this);
+			Node res = result;
+			result = null;
+			return new SharedNode(slot.intValue(), res);
+		}
+		
+		Loop loop = isCached ? null : invariantLoop(exp, dep);
+		boolean wasCached = isCached;
+		isCached = wasCached || loop != null;
+		
+		exp.processWithVisitor(this);
+		Node res = result;
+		result = null;
+		
+		isCached = wasCached;
+		
+		if (loop != null) {
+			int slot = numSlots++;
+			loop.cacheSlots.add(Integer.valueOf(slot));
+			res = new CachedNode(slot, res);
+		}
+		
+		return res;
+	}
+	
+	private static boolean isLiteral(Expression exp) {
+		return exp instanceof ExpConstBoolean || exp instanceof ExpConstInteger
+				|| exp instanceof ExpConstReal || exp instanceof ExpConstString
+				|| exp instanceof ExpConstEnum || exp instanceof ExpUndefined;
+	}
+	
+	/**
+	 * Evaluates the constant expression <code>exp</code> using the interpreter.
+	 * If the evaluation fails, <code>null</code> is returned.
+	 */
+	private static Value evalConstant(Expression exp) {
+		try {
+			return exp.eval(new SimpleEvalContext(null, null, new VarBindings()));
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Returns the outermost enclosing iterator whose element variables
+	 * are not used by <code>exp</code>, i.e., <code>exp</code> needs to be evaluated
+	 * only once per evaluation of this iterator.
+	 * Returns <code>null</code>, if there is no such iterator or if caching 
+	 * the value of <code>exp</code> is not possible or not useful.
+	 */
+	private Loop invariantLoop(Expression exp, Dependencies dep) {
+		if (loops.isEmpty() || !dep.isRepeatable || dep.isConstant() || exp instanceof ExpVariable)
+			return null;
+		
+		// the innermost declaration exp depends on
+		int position = -1;
+		for (String name : dep.freeVariables) {
+			position = Math.max(position, scopeNames.lastIndexOf(name));
+		}
+		
+		for (Loop loop : loops) {
+			if (loop.scopePosition > position)
+				return loop;
+		}
+		
+		return null;
+	}
+	
+	private Loop enterLoop() {
+		Loop loop = new Loop(scopeNames.size());
+		loops.add(loop);
+		return loop;
+	}
+	
+	private void exitLoop() {
+		loops.remove(loops.size() - 1);
+	}
+	
+	private static Value constantValue(Node node) {
+		return node instanceof ConstantNode ? ((ConstantNode) node).value() : null;
+	}
+	
+	private Node[] compileNodes(Expression[] exps) {
+		Node[] res = new Node[exps.length];
+		for (int i = 0; i < exps.length; ++i) {
+			res[i] = compileNode(exps[i]);
+		}
+		return res;
+	}
+	
+	private int declare(String name) {
+		int slot = numSlots++;
+		scopeNames.add(name);
+		scopeSlots.add(Integer.valueOf(slot));
+		return slot;
+	}
+	
+	private void undeclare() {
+		scopeNames.remove(scopeNames.size() - 1);
+		scopeSlots.remove(scopeSlots.size() - 1);
+	}
+	
+	/**
+	 * Uses the interpreter for <code>exp</code>.
+	 * Declared variables in scope are bound by the interpreted node.
+	 */
+	private void interpret(Expression exp) {
+		int[] slots = new int[scopeSlots.size()];
+		for (int i = 0; i < slots.length; ++i) {
+			slots[i] = scopeSlots.get(i).intValue();
+		}
+		
+		result = new InterpretedNode(exp, slots, scopeNames.toArray(new String[scopeNames.size()]));
+	}
+	
+	/**
+	 * Queries with more than one variable are interpreted.
+	 * In this case the result is set and <code>false</code> is returned.
+	 */
+	private boolean hasAtMostOneVariable(ExpQuery exp) {
+		if (exp.getVariableDeclarations().size() > 1) {
+			interpret(exp);
+			return false;
+		}
+		return true;
+	}
+	
+	private int declareQueryVariable(ExpQuery exp) {
+		VarDeclList decls = exp.getVariableDeclarations();
+		return decls.isEmpty() ? -1 : declare(decls.varDecl(0).name());
+	}
+	
+	private void undeclareQueryVariable(int slot) {
+		if (slot >= 0)
+			undeclare();
+	}
+	
+	private void visitQuantifier(ExpQuery exp, boolean isExists) {
+		if (!hasAtMostOneVariable(exp)) return;
+		
+		Node range = compileNode(exp.getRangeExpression());
+		Loop loop = enterLoop();
+		int slot = declareQueryVariable(exp);
+		Node body = compileNode(exp.getQueryExpression());
+		undeclareQueryVariable(slot);
+		exitLoop();
+		
+		result = new QuantifierNode(range, slot, body, isExists, loop.getCacheSlots());
+	}
+	
+	private void visitSelectOrReject(ExpQuery exp, boolean doSelect) {
+		if (!hasAtMostOneVariable(exp)) return;
+		
+		Node range = compileNode(exp.getRangeExpression());
+		Loop loop = enterLoop();
+		int slot = declareQueryVariable(exp);
+		Node body = compileNode(exp.getQueryExpression());
+		undeclareQueryVariable(slot);
+		exitLoop();
+		
+		result = new SelectNode(range, slot, body, doSelect, loop.getCacheSlots());
+	}
+	
+	@Override
+	public void visitAllInstances(ExpAllInstances exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitAny(ExpAny exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitAsType(ExpAsType exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitAttrOp(ExpAttrOp exp) {
+		result = new AttributeNode(exp.attr(), compileNode(exp.objExp()), exp.isPre());
+	}
+
+	@Override
+	public void visitBagLiteral(ExpBagLiteral exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitCollect(ExpCollect exp) {
+		if (!hasAtMostOneVariable(exp)) return;
+		
+		Type queryType = exp.getQueryExpression().type();
+		boolean flatten = queryType.isKindOfCollection(VoidHandling.EXCLUDE_VOID);
+		Type elemType = flatten ? ((CollectionType) queryType).elemType() : queryType;
+		
+		Node range = compileNode(exp.getRangeExpression());
+		Loop loop = enterLoop();
+		int slot = declareQueryVariable(exp);
+		Node body = compileNode(exp.getQueryExpression());
+		undeclareQueryVariable(slot);
+		exitLoop();
+		
+		result = new CollectNode(range, slot, body, elemType, flatten, loop.getCacheSlots());
+	}
+
+	@Override
+	public void visitCollectNested(ExpCollectNested exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitConstBoolean(ExpConstBoolean exp) {
+		result = new ConstantNode(BooleanValue.get(exp.value()));
+	}
+
+	@Override
+	public void visitConstEnum(ExpConstEnum exp) {
+		result = new ConstantNode(EnumValue.valueOf((EnumType) exp.type(), exp.value()));
+	}
+
+	@Override
+	public void visitConstInteger(ExpConstInteger exp) {
+		result = new ConstantNode(IntegerValue.valueOf(exp.value()));
+	}
+
+	@Override
+	public void visitConstReal(ExpConstReal exp) {
+		result = new ConstantNode(new RealValue(exp.value()));
+	}
+
+	@Override
+	public void visitConstString(ExpConstString exp) {
+		result = new ConstantNode(StringValue.valueOf(exp.value()));
+	}
+
+	@Override
+	public void visitEmptyCollection(ExpEmptyCollection exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitExists(ExpExists exp) {
+		visitQuantifier(exp, true);
+	}
+
+	@Override
+	public void visitForAll(ExpForAll exp) {
+		visitQuantifier(exp, false);
+	}
+
+	@Override
+	public void visitIf(ExpIf exp) {
+		Node condition = compileNode(exp.getCondition());
+		Value value = constantValue(condition);
+		
+		if (value == null) {
+			result = new IfNode(condition,
+					compileNode(exp.getThenExpression()),
+					compileNode(exp.getElseExpression()));
+		} else if (value.isUndefined()) {
+			result = new ConstantNode(UndefinedValue.instance);
+		} else if (((BooleanValue) value).value()) {
+			result = compileNode(exp.getThenExpression());
+		} else {
+			result = compileNode(exp.getElseExpression());
+		}
+	}
+
+	@Override
+	public void visitIsKindOf(ExpIsKindOf exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitIsTypeOf(ExpIsTypeOf exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitIsUnique(ExpIsUnique exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitIterate(ExpIterate exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitLet(ExpLet exp) {
+		Node varExpr = compileNode(exp.getVarExpression());
+		int slot = declare(exp.getVarname());
+		Node inExpr = compileNode(exp.getInExpression());
+		undeclare();
+		
+		result = new LetNode(slot, varExpr, inExpr);
+	}
+
+	@Override
+	public void visitNavigation(ExpNavigation exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitObjAsSet(ExpObjAsSet exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitObjOp(ExpObjOp exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitObjRef(ExpObjRef exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitOne(ExpOne exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitOrderedSetLiteral(ExpOrderedSetLiteral exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitQuery(ExpQuery exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitReject(ExpReject exp) {
+		visitSelectOrReject(exp, false);
+	}
+
+	@Override
+	public void visitWithValue(ExpressionWithValue exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitSelect(ExpSelect exp) {
+		visitSelectOrReject(exp, true);
+	}
+
+	@Override
+	public void visitSequenceLiteral(ExpSequenceLiteral exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitSetLiteral(ExpSetLiteral exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitSortedBy(ExpSortedBy exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitStdOp(ExpStdOp exp) {
+		OpGeneric op = exp.getOperation();
+		Expression[] args = exp.args();
+		
+		if (op instanceof StandardOperationsBoolean.Op_boolean_and) {
+			result = booleanBinary(BooleanBinaryNode.AND, compileNode(args[0]), compileNode(args[1]));
+		} else if (op instanceof StandardOperationsBoolean.Op_boolean_or) {
+			result = booleanBinary(BooleanBinaryNode.OR, compileNode(args[0]), compileNode(args[1]));
+		} else if (op instanceof StandardOperationsBoolean.Op_boolean_implies) {
+			result = booleanBinary(BooleanBinaryNode.IMPLIES, compileNode(args[0]), compileNode(args[1]));
+		} else if (op instanceof StandardOperationsBoolean.Op_boolean_xor) {
+			result = booleanBinary(BooleanBinaryNode.XOR, compileNode(args[0]), compileNode(args[1]));
+		} else if (op instanceof StandardOperationsBoolean.Op_boolean_not) {
+			result = new NotNode(compileNode(args[0]));
+		} else if (op.isBooleanOperation()) {
+			interpret(exp);
+		} else if (op.kind() != OpGeneric.OPERATION && op.kind() != OpGeneric.SPECIAL) {
+			// let the interpreter report the error
+			interpret(exp);
+		} else {
+			int kind = integerKind(exp);
+			
+			if (kind >= 0) {
+				result = new IntegerBinaryNode(kind, compileNode(args[0]), compileNode(args[1]), op, exp.type());
+			} else {
+				result = new OperationNode(op, compileNodes(args), exp.type());
+			}
+		}
+	}
+	
+	/**
+	 * Creates a node for a Boolean connective. If one of the operands 
+	 * is constant and the result does not depend on it or equals the other
+	 * operand, the connective is removed. The right operand is only removed 
+	 * if it would not have been evaluated.
+	 */
+	private static Node booleanBinary(int kind, Node left, Node right) {
+		Value leftValue = constantValue(left);
+		
+		if (leftValue != null && leftValue.isDefined()) {
+			boolean b = ((BooleanValue) leftValue).value();
+			
+			switch (kind) {
+			case BooleanBinaryNode.AND:     return b ? right : new ConstantNode(BooleanValue.FALSE);
+			case BooleanBinaryNode.OR:      return b ? new ConstantNode(BooleanValue.TRUE) : right;
+			case BooleanBinaryNode.IMPLIES: return b ? right : new ConstantNode(BooleanValue.TRUE);
+			default:                        return b ? new NotNode(right) : right;
+			}
+		}
+		
+		Value rightValue = constantValue(right);
+		
+		if (rightValue != null && rightValue.isDefined()) {
+			boolean b = ((BooleanValue) rightValue).value();
+			
+			// x and true, x or false, x xor false
+			if (kind == BooleanBinaryNode.AND ? b : 
+				(kind == BooleanBinaryNode.OR || kind == BooleanBinaryNode.XOR) && !b)
+				return left;
+		}
+		
+		return new BooleanBinaryNode(kind, left, right);
+	}
+	
+	/**
+	 * Returns the kind of the {@link IntegerBinaryNode} for
+	 * the operation or <code>-1</code> if <code>exp</code> is not 
+	 * a binary Integer operation.
+	 */
+	private static int integerKind(ExpStdOp exp) {
+		Expression[] args = exp.args();
+		
+		if (args.length != 2 || !args[0].type().isTypeOfInteger() || !args[1].type().isTypeOfInteger())
+			return -1;
+		
+		switch (exp.opname()) {
+		case "+":  return IntegerBinaryNode.ADD;
+		case "-":  return IntegerBinaryNode.SUB;
+		case "*":  return IntegerBinaryNode.MULT;
+		case "<":  return IntegerBinaryNode.LESS;
+		case ">":  return IntegerBinaryNode.GREATER;
+		case "<=": return IntegerBinaryNode.LESS_EQUAL;
+		case ">=": return IntegerBinaryNode.GREATER_EQUAL;
+		default:   return -1;
+		}
+	}
+
+	@Override
+	public void visitTupleLiteral(ExpTupleLiteral exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitTupleSelectOp(ExpTupleSelectOp exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitUndefined(ExpUndefined exp) {
+		result = new ConstantNode(UndefinedValue.instance);
+	}
+
+	@Override
+	public void visitVariable(ExpVariable exp) {
+		String name = exp.getVarname();
+		
+		for (int i = scopeNames.size() - 1; i >= 0; --i) {
+			if (scopeNames.get(i).equals(name)) {
+				result = new SlotNode(scopeSlots.get(i).intValue(), name);
+				return;
+			}
+		}
+		
+		Integer slot = freeVariables.get(name);
+		if (slot == null) {
+			slot = Integer.valueOf(numSlots++);
+			freeVariables.put(name, slot);
+		}
+		
+		result = new FreeVariableNode(slot.intValue(), name);
+	}
+
+	@Override
+	public void visitClosure(ExpClosure exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitOclInState(ExpOclInState exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitVarDeclList(VarDeclList varDeclList) {
+		throw new IllegalStateException("Variable declarations are compiled by their expressions.");
+	}
+
+	@Override
+	public void visitVarDecl(VarDecl varDecl) {
+		throw new IllegalStateException("Variable declarations are compiled by their expressions.");
+	}
+
+	@Override
+	public void visitObjectByUseId(ExpObjectByUseId exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitConstUnlimitedNatural(ExpConstUnlimitedNatural exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitSelectByKind(ExpSelectByKind exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitExpSelectByType(ExpSelectByType exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitRange(ExpRange exp) {
+		interpret(exp);
+	}
+
+	@Override
+	public void visitNavigationClassifierSource(ExpNavigationClassifierSource exp) {
+		interpret(exp);
+	}
+}
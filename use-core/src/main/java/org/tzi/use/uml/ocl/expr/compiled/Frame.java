@@ -0,0 +1,57 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.ocl.expr.compiled;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.tzi.use.uml.ocl.expr.EvalContext;
+import org.tzi.use.uml.ocl.value.Value;
+
+/**
+ * The state of a single evaluation of a {@link CompiledExpression}.
+ * Variables are stored in slots which are assigned during compilation.
+ */
+final class Frame {
+	final EvalContext ctx;
+	
+	final Value[] slots;
+	
+	/** Values of subexpressions shared by a batch, <code>null</code> if not evaluating a batch */
+	final AtomicReferenceArray<Value> shared;
+	
+	Frame(EvalContext ctx, int numSlots) {
+		this(ctx, numSlots, null);
+	}
+	
+	Frame(EvalContext ctx, int numSlots, AtomicReferenceArray<Value> shared) {
+		this.ctx = ctx;
+		this.slots = new Value[numSlots];
+		this.shared = shared;
+	}
+	
+	/**
+	 * Clears the given slots, e.g., cached values.
+	 */
+	void clear(int[] slotsToClear) {
+		for (int slot : slotsToClear) {
+			slots[slot] = null;
+		}
+	}
+}
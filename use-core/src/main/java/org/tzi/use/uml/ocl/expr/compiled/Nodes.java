@@ -0,0 +1,609 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.ocl.expr.compiled;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.tzi.use.uml.mm.MAttribute;
+import org.tzi.use.uml.ocl.expr.EvalContext;
+import org.tzi.use.uml.ocl.expr.Expression;
+import org.tzi.use.uml.ocl.expr.operations.OpGeneric;
+import org.tzi.use.uml.ocl.type.CollectionType;
+import org.tzi.use.uml.ocl.type.Type;
+import org.tzi.use.uml.ocl.value.BagValue;
+import org.tzi.use.uml.ocl.value.BooleanValue;
+import org.tzi.use.uml.ocl.value.CollectionValue;
+import org.tzi.use.uml.ocl.value.IntegerValue;
+import org.tzi.use.uml.ocl.value.ObjectValue;
+import org.tzi.use.uml.ocl.value.SequenceValue;
+import org.tzi.use.uml.ocl.value.UndefinedValue;
+import org.tzi.use.uml.ocl.value.Value;
+import org.tzi.use.uml.sys.MObject;
+import org.tzi.use.uml.sys.MObjectState;
+import org.tzi.use.uml.sys.MSystemState;
+
+// --------------------------------------------------------
+//
+// Nodes of compiled expressions. Each node mirrors the
+// evaluation of the corresponding expression class
+// without tracing support.
+//
+// --------------------------------------------------------
+
+/* literals */
+final class ConstantNode extends Node {
+	private final Value fValue;
+	
+	ConstantNode(Value value) {
+		fValue = value;
+	}
+	
+	Value value() {
+		return fValue;
+	}
+	
+	@Override
+	Value eval(Frame f) {
+		return fValue;
+	}
+}
+
+// --------------------------------------------------------
+
+/* 
+ * Subexpression of an iterator body which does not depend on the
+ * element variables. It is evaluated on first use, the slot is
+ * cleared when the iterator is evaluated again.
+ */
+final class CachedNode extends Node {
+	private final int fSlot;
+	private final Node fNode;
+	
+	CachedNode(int slot, Node node) {
+		fSlot = slot;
+		fNode = node;
+	}
+	
+	@Override
+	Value eval(Frame f) {
+		Value res = f.slots[fSlot];
+		if (res == null) {
+			res = fNode.eval(f);
+			f.slots[fSlot] = res;
+		}
+		return res;
+	}
+}
+
+// --------------------------------------------------------
+
+/* subexpressions shared by all expressions of a batch */
+final class SharedNode extends Node {
+	private final int fSlot;
+	private final Node fNode;
+	
+	SharedNode(int slot, Node node) {
+		fSlot = slot;
+		fNode = node;
+	}
+	
+	@Override
+	Value eval(Frame f) {
+		if (f.shared == null)
+			return fNode.eval(f);
+		
+		// concurrent evaluations may compute the value twice, which is harmless
+		Value res = f.shared.get(fSlot);
+		if (res == null) {
+			res = fNode.eval(f);
+			f.shared.set(fSlot, res);
+		}
+		return res;
+	}
+}
+
+// --------------------------------------------------------
+
+/* variables declared inside of the compiled expression */
+final class SlotNode extends Node {
+	private final int fSlot;
+	private final String fName;
+	
+	SlotNode(int slot, String name) {
+		fSlot = slot;
+		fName = name;
+	}
+	
+	@Override
+	Value eval(Frame f) {
+		Value res = f.slots[fSlot];
+		if (res == null)
+			throw new RuntimeException("unbound variable `" + fName + "'.");
+		return res;
+	}
+}
+
+// --------------------------------------------------------
+
+/* 
+ * variables bound outside of the compiled expression, e.g., self.
+ * They are looked up by name once per evaluation.
+ */
+final class FreeVariableNode extends Node {
+	private final int fSlot;
+	private final String fName;
+	
+	FreeVariableNode(int slot, String name) {
+		fSlot = slot;
+		fName = name;
+	}
+	
+	@Override
+	Value eval(Frame f) {
+		Value res = f.slots[fSlot];
+		if (res == null) {
+			res = f.ctx.varBindings().getValue(fName);
+			if (res == null)
+				throw new RuntimeException("unbound variable `" + fName + "'.");
+			f.slots[fSlot] = res;
+		}
+		return res;
+	}
+}
+
+// --------------------------------------------------------
+
+/* 
+ * Fallback to the interpreter. Variables bound in slots are
+ * pushed as variable bindings for the evaluation of the expression.
+ */
+final class InterpretedNode extends Node {
+	private final Expression fExpr;
+	private final int[] fSlots;
+	private final String[] fNames;
+	
+	InterpretedNode(Expression expr, int[] slots, String[] names) {
+		fExpr = expr;
+		fSlots = slots;
+		fNames = names;
+	}
+	
+	@Override
+	Value eval(Frame f) {
+		EvalContext ctx = f.ctx;
+		int pushed = 0;
+		
+		for (int i = 0; i < fSlots.length; ++i) {
+			Value v = f.slots[fSlots[i]];
+			if (v != null) {
+				ctx.pushVarBinding(fNames[i], v);
+				++pushed;
+			}
+		}
+		
+		try {
+			return fExpr.eval(ctx);
+		} finally {
+			for (int i = 0; i < pushed; ++i) {
+				ctx.varBindings().pop();
+			}
+		}
+	}
+}
+
+// --------------------------------------------------------
+
+/* let */
+final class LetNode extends Node {
+	private final int fSlot;
+	private final Node fVarExpr;
+	private final Node fInExpr;
+	
+	LetNode(int slot, Node varExpr, Node inExpr) {
+		fSlot = slot;
+		fVarExpr = varExpr;
+		fInExpr = inExpr;
+	}
+	
+	@Override
+	Value eval(Frame f) {
+		f.slots[fSlot] = fVarExpr.eval(f);
+		return fInExpr.eval(f);
+	}
+}
+
+// --------------------------------------------------------
+
+/* if */
+final class IfNode extends Node {
+	private final Node fCondition;
+	private final Node fThen;
+	private final Node fElse;
+	
+	IfNode(Node condition, Node thenNode, Node elseNode) {
+		fCondition = condition;
+		fThen = thenNode;
+		fElse = elseNode;
+	}
+	
+	@Override
+	Value eval(Frame f) {
+		Value cond = fCondition.eval(f);
+		
+		if (cond.isUndefined())
+			return UndefinedValue.instance;
+		
+		return ((BooleanValue) cond).value() ? fThen.eval(f) : fElse.eval(f);
+	}
+}
+
+// --------------------------------------------------------
+
+/* and, or, implies with OCL undefined semantics */
+final class BooleanBinaryNode extends Node {
+	static final int AND = 0;
+	static final int OR = 1;
+	static final int IMPLIES = 2;
+	static final int XOR = 3;
+	
+	private final int fKind;
+	private final Node fLeft;
+	private final Node fRight;
+	
+	BooleanBinaryNode(int kind, Node left, Node right) {
+		fKind = kind;
+		fLeft = left;
+		fRight = right;
+	}
+	
+	@Override
+	Value eval(Frame f) {
+		Value v1 = fLeft.eval(f);
+		
+		switch (fKind) {
+		case AND:
+			if (v1.isDefined()) {
+				return ((BooleanValue) v1).value() ? fRight.eval(f) : BooleanValue.FALSE;
+			} else {
+				Value v2 = fRight.eval(f);
+				if (v2.isDefined() && !((BooleanValue) v2).value())
+					return BooleanValue.FALSE;
+				return UndefinedValue.instance;
+			}
+		case OR:
+			if (v1.isDefined()) {
+				return ((BooleanValue) v1).value() ? BooleanValue.TRUE : fRight.eval(f);
+			} else {
+				Value v2 = fRight.eval(f);
+				if (v2.isDefined() && ((BooleanValue) v2).value())
+					return BooleanValue.TRUE;
+				return UndefinedValue.instance;
+			}
+		case IMPLIES:
+			if (v1.isDefined()) {
+				return ((BooleanValue) v1).value() ? fRight.eval(f) : BooleanValue.TRUE;
+			} else {
+				Value v2 = fRight.eval(f);
+				if (v2.isDefined() && ((BooleanValue) v2).value())
+					return BooleanValue.TRUE;
+				return UndefinedValue.instance;
+			}
+		default: // XOR
+			if (v1.isUndefined())
+				return v1;
+			Value v2 = fRight.eval(f);
+			if (!((BooleanValue) v1).value() || v2.isUndefined())
+				return v2;
+			return ((BooleanValue) v2).value() ? BooleanValue.FALSE : BooleanValue.TRUE;
+		}
+	}
+}
+
+// --------------------------------------------------------
+
+/* not */
+final class NotNode extends Node {
+	private final Node fArg;
+	
+	NotNode(Node arg) {
+		fArg = arg;
+	}
+	
+	@Override
+	Value eval(Frame f) {
+		Value v = fArg.eval(f);
+		if (v.isUndefined())
+			return v;
+		return ((BooleanValue) v).value() ? BooleanValue.FALSE : BooleanValue.TRUE;
+	}
+}
+
+// --------------------------------------------------------
+
+/* 
+ * +, -, *, <, >, <=, >= on Integer x Integer.
+ * Other argument values are passed to the generic operation.
+ */
+final class IntegerBinaryNode extends Node {
+	static final int ADD = 0;
+	static final int SUB = 1;
+	static final int MULT = 2;
+	static final int LESS = 3;
+	static final int GREATER = 4;
+	static final int LESS_EQUAL = 5;
+	static final int GREATER_EQUAL = 6;
+	
+	private final int fKind;
+	private final Node fLeft;
+	private final Node fRight;
+	private final OpGeneric fOp;
+	private final Type fResultType;
+	
+	IntegerBinaryNode(int kind, Node left, Node right, OpGeneric op, Type resultType) {
+		fKind = kind;
+		fLeft = left;
+		fRight = right;
+		fOp = op;
+		fResultType = resultType;
+	}
+	
+	@Override
+	Value eval(Frame f) {
+		// strict evaluation like ExpStdOp
+		Value v1 = fLeft.eval(f);
+		if (v1.isUndefined())
+			return UndefinedValue.instance;
+		
+		Value v2 = fRight.eval(f);
+		if (v2.isUndefined())
+			return UndefinedValue.instance;
+		
+		if (!v1.isInteger() || !v2.isInteger())
+			return fOp.eval(f.ctx, new Value[] { v1, v2 }, fResultType);
+		
+		int i1 = ((IntegerValue) v1).value();
+		int i2 = ((IntegerValue) v2).value();
+		
+		switch (fKind) {
+		case ADD:           return IntegerValue.valueOf(i1 + i2);
+		case SUB:           return IntegerValue.valueOf(i1 - i2);
+		case MULT:          return IntegerValue.valueOf(i1 * i2);
+		case LESS:          return BooleanValue.get(i1 < i2);
+		case GREATER:       return BooleanValue.get(i1 > i2);
+		case LESS_EQUAL:    return BooleanValue.get(i1 <= i2);
+		default:            return BooleanValue.get(i1 >= i2);
+		}
+	}
+}
+
+// --------------------------------------------------------
+
+/* any other standard operation, called without dispatch through ExpStdOp */
+final class OperationNode extends Node {
+	private final OpGeneric fOp;
+	private final Node[] fArgs;
+	private final Type fResultType;
+	private final boolean fIsStrict;
+	
+	OperationNode(OpGeneric op, Node[] args, Type resultType) {
+		fOp = op;
+		fArgs = args;
+		fResultType = resultType;
+		fIsStrict = op.kind() == OpGeneric.OPERATION;
+	}
+	
+	@Override
+	Value eval(Frame f) {
+		final Value[] argValues = new Value[fArgs.length];
+		
+		for (int i = 0; i < fArgs.length; ++i) {
+			Value v = fArgs[i].eval(f);
+			if (fIsStrict && v.isUndefined())
+				return UndefinedValue.instance;
+			argValues[i] = v;
+		}
+		
+		try {
+			return fOp.eval(f.ctx, argValues, fResultType);
+		} catch (ArithmeticException ex) {
+			// catch e.g. division by zero
+			return UndefinedValue.instance;
+		}
+	}
+}
+
+// --------------------------------------------------------
+
+/* attribute access */
+final class AttributeNode extends Node {
+	private final MAttribute fAttr;
+	private final Node fObject;
+	private final boolean fIsPre;
+	
+	AttributeNode(MAttribute attr, Node object, boolean isPre) {
+		fAttr = attr;
+		fObject = object;
+		fIsPre = isPre;
+	}
+	
+	@Override
+	Value eval(Frame f) {
+		Value val = fObject.eval(f);
+		if (val.isUndefined())
+			return UndefinedValue.instance;
+		
+		MObject obj = ((ObjectValue) val).value();
+		MSystemState state = fIsPre ? f.ctx.preState() : f.ctx.postState();
+		
+		if (fAttr.isDerived())
+			return state.evaluateDeriveExpression(obj, fAttr);
+		
+		MObjectState objState = obj.state(state);
+		// if the object is dead the result is undefined
+		return objState == null ? UndefinedValue.instance : objState.attributeValue(fAttr);
+	}
+}
+
+// --------------------------------------------------------
+
+/* forAll and exists with at most one element variable */
+final class QuantifierNode extends Node {
+	private final Node fRange;
+	private final int fSlot;
+	private final Node fBody;
+	private final boolean fIsExists;
+	private final int[] fCacheSlots;
+	
+	QuantifierNode(Node range, int slot, Node body, boolean isExists, int[] cacheSlots) {
+		fRange = range;
+		fSlot = slot;
+		fBody = body;
+		fIsExists = isExists;
+		fCacheSlots = cacheSlots;
+	}
+	
+	@Override
+	Value eval(Frame f) {
+		f.clear(fCacheSlots);
+		Value v = fRange.eval(f);
+		if (v.isUndefined())
+			return UndefinedValue.instance;
+		
+		for (Value elem : (CollectionValue) v) {
+			if (fSlot >= 0)
+				f.slots[fSlot] = elem;
+			
+			Value queryVal = fBody.eval(f);
+			
+			// undefined query values default to false
+			boolean holds = queryVal.isDefined() && ((BooleanValue) queryVal).value();
+			if (holds == fIsExists)
+				return BooleanValue.get(fIsExists);
+		}
+		
+		return BooleanValue.get(!fIsExists);
+	}
+}
+
+// --------------------------------------------------------
+
+/* select and reject with at most one element variable */
+final class SelectNode extends Node {
+	private final Node fRange;
+	private final int fSlot;
+	private final Node fBody;
+	private final boolean fDoSelect;
+	private final int[] fCacheSlots;
+	
+	SelectNode(Node range, int slot, Node body, boolean doSelect, int[] cacheSlots) {
+		fRange = range;
+		fSlot = slot;
+		fBody = body;
+		fDoSelect = doSelect;
+		fCacheSlots = cacheSlots;
+	}
+	
+	int[] getCacheSlots() {
+		return fCacheSlots;
+	}
+	
+	@Override
+	Value eval(Frame f) {
+		f.clear(fCacheSlots);
+		Value v = fRange.eval(f);
+		if (v.isUndefined())
+			return UndefinedValue.instance;
+		
+		CollectionValue rangeVal = (CollectionValue) v;
+		
+		if (!rangeVal.type().isInstantiableCollection())
+			throw new RuntimeException("rangeVal is not of collection type: " + rangeVal.type());
+		
+		List<Value> resValues = new ArrayList<Value>();
+		
+		for (Value elem : rangeVal) {
+			if (fSlot >= 0)
+				f.slots[fSlot] = elem;
+			
+			Value queryVal = fBody.eval(f);
+			
+			// undefined query values default to false
+			boolean selected = queryVal.isDefined() && ((BooleanValue) queryVal).value();
+			if (selected == fDoSelect)
+				resValues.add(elem);
+		}
+		
+		return ((CollectionType) rangeVal.type()).createCollectionValue(resValues);
+	}
+}
+
+// --------------------------------------------------------
+
+/* collect with at most one element variable */
+final class CollectNode extends Node {
+	private final Node fRange;
+	private final int fSlot;
+	private final Node fBody;
+	private final Type fElemType;
+	/** The body results in a collection which is flattened */
+	private final boolean fFlatten;
+	private final int[] fCacheSlots;
+	
+	CollectNode(Node range, int slot, Node body, Type elemType, boolean flatten, int[] cacheSlots) {
+		fRange = range;
+		fSlot = slot;
+		fBody = body;
+		fElemType = elemType;
+		fFlatten = flatten;
+		fCacheSlots = cacheSlots;
+	}
+	
+	@Override
+	Value eval(Frame f) {
+		f.clear(fCacheSlots);
+		Value v = fRange.eval(f);
+		if (v.isUndefined())
+			return UndefinedValue.instance;
+		
+		CollectionValue rangeVal = (CollectionValue) v;
+		List<Value> resValues = new ArrayList<Value>(rangeVal.size());
+		
+		for (Value elem : rangeVal) {
+			if (fSlot >= 0)
+				f.slots[fSlot] = elem;
+			
+			Value val = fBody.eval(f);
+			
+			if (fFlatten && !val.isUndefined()) {
+				for (Value cVal : (CollectionValue) val) {
+					resValues.add(cVal);
+				}
+			} else {
+				resValues.add(val);
+			}
+		}
+		
+		if (v.type().isTypeOfSequence() || v.type().isTypeOfOrderedSet())
+			return new SequenceValue(fElemType, resValues);
+		else
+			return new BagValue(fElemType, resValues);
+	}
+}
@@ -51,6 +51,15 @@ public abstract class OpGeneric {
     
     public abstract Value eval(EvalContext ctx, Value args[], Type resultType);
 
+    /**
+     * Returns <code>true</code>, if the operation always returns the same
+     * result for the same arguments. Results of operations which are not 
+     * deterministic (e.g., random numbers) are never reused by the evaluation.
+     */
+    public boolean isDeterministic() {
+        return true;
+    }
+
     public String stringRep(Expression args[], String atPre) {
         String res;
         if (isInfixOrPrefix()) {
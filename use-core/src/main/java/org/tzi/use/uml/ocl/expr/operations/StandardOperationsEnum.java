@@ -68,7 +68,7 @@ final class Op_toString extends OpGeneric {
 		else {
 			// get object
 			EnumValue enumVal = (EnumValue) args[0];
-			res = new StringValue(enumVal.value());
+			res = StringValue.valueOf(enumVal.value());
 		}
 		return res;
 	}
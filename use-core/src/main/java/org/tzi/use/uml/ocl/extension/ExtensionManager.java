@@ -6,8 +6,15 @@ import java.io.FileReader;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 
 import org.tzi.use.parser.ocl.OCLCompiler;
 import org.tzi.use.uml.mm.MModel;
@@ -18,6 +25,8 @@ import org.tzi.use.uml.ocl.type.Type;
 import org.tzi.use.util.Log;
 import org.tzi.use.util.StringUtil;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
 import com.ximpleware.NavException;
 import com.ximpleware.VTDGen;
 import com.ximpleware.VTDNav;
@@ -33,6 +42,16 @@ public class ExtensionManager {
 	private PrintWriter error = null;
 	private List<OpGeneric> addedOperations = new ArrayList<OpGeneric>();
 	
+	/**
+	 * Operations added by {@link OperationProvider}s with the names they are registered with
+	 */
+	private ListMultimap<String, OpGeneric> providedOperations = ArrayListMultimap.create();
+	
+	/**
+	 * Loads the providers from the jar files in the extension folder.
+	 */
+	private URLClassLoader providerClassLoader = null;
+	
 	/**
 	 * The required header for ruby method calls.
 	 * Provides extensions for accessing USE objects
@@ -63,6 +82,11 @@ public class ExtensionManager {
 			return;
 		}
 		
+		if (!isRubyAvailable()) {
+			Log.warn("JRuby is not available. Ruby extensions are not loaded.");
+			return;
+		}
+		
 		// initialize helper
 		this.error = new PrintWriter(System.err);
 		ModelFactory modelFactory = new ModelFactory();
@@ -129,12 +153,95 @@ public class ExtensionManager {
 		}
 	}
 	
+	private static boolean isRubyAvailable() {
+		try {
+			Class.forName("org.jruby.embed.EvalFailedException", false, ExtensionManager.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Loads the operations of all {@link OperationProvider}s found on the
+	 * class path and in the jar files of the extension folder.
+	 */
+	public void loadOperationProviders() {
+		ClassLoader loader = ExtensionManager.class.getClassLoader();
+		
+		File[] jars = new File(EXTENSIONS_FOLDER).listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.toLowerCase().endsWith(".jar");
+			}
+		});
+		
+		if (jars != null && jars.length > 0) {
+			URL[] urls = new URL[jars.length];
+			try {
+				for (int i = 0; i < jars.length; ++i) {
+					urls[i] = jars[i].toURI().toURL();
+				}
+			} catch (MalformedURLException e) {
+				Log.error("Invalid extension jar: " + e.getMessage());
+				return;
+			}
+			
+			providerClassLoader = new URLClassLoader(urls, loader);
+			loader = providerClassLoader;
+		}
+		
+		Iterator<OperationProvider> providers = ServiceLoader.load(OperationProvider.class, loader).iterator();
+		
+		while (true) {
+			try {
+				if (!providers.hasNext())
+					break;
+				
+				addOperations(providers.next());
+			} catch (ServiceConfigurationError e) {
+				// skip the provider
+				Log.error("Could not load operation provider: " + e.getMessage());
+			}
+		}
+	}
+	
+	/**
+	 * Adds the operations of <code>provider</code> to the standard operations.
+	 * They are removed by {@link #unloadExtensions()}.
+	 */
+	public void addOperations(OperationProvider provider) {
+		ListMultimap<String, OpGeneric> operations = ArrayListMultimap.create();
+		provider.registerOperations(operations);
+		
+		for (Map.Entry<String, OpGeneric> entry : operations.entries()) {
+			ExpStdOp.opmap.put(entry.getKey(), entry.getValue());
+			Log.debug("Added operation '" + entry.getKey() + "' of " + provider.getClass().getName());
+		}
+		
+		providedOperations.putAll(operations);
+	}
+	
 	/***
 	 * Unloads all previously loaded extensions
 	 */
 	public void unloadExtensions() {
 		ExpStdOp.removeAllOperations(this.addedOperations);
 		this.addedOperations.clear();
+		
+		for (Map.Entry<String, OpGeneric> entry : providedOperations.entries()) {
+			ExpStdOp.opmap.remove(entry.getKey(), entry.getValue());
+		}
+		providedOperations.clear();
+		
+		if (providerClassLoader != null) {
+			try {
+				providerClassLoader.close();
+			} catch (IOException e) {
+				// nothing left to do
+			}
+			providerClassLoader = null;
+		}
 	}
 
 	private ExtensionOperation loadOperation(VTDNav vn) throws NavException {
@@ -147,6 +147,14 @@ public class ExtensionOperation extends OpGeneric {
 	public String name() {
 		return name;
 	}
+
+	/**
+	 * The behavior of the Ruby body is unknown.
+	 */
+	@Override
+	public boolean isDeterministic() {
+		return false;
+	}
 		
 	public void initialize() {
 		this.sourceType = ExtensionManager.getInstance().getType(this.sourceTypeName);
@@ -0,0 +1,49 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.ocl.extension;
+
+import org.tzi.use.uml.ocl.expr.operations.OpGeneric;
+
+import com.google.common.collect.Multimap;
+
+/**
+ * Service provider interface for OCL operations implemented in Java.
+ * <p>
+ * Providers are found by a {@link java.util.ServiceLoader} on the class path
+ * and in the jar files of the extension folder
+ * (see {@link ExtensionManager#loadOperationProviders()}).
+ * A jar registers its providers in the file
+ * <code>META-INF/services/org.tzi.use.uml.ocl.extension.OperationProvider</code>.
+ * </p>
+ * <p>
+ * The operations are evaluated like the standard operations, i.e.,
+ * they receive the argument values directly. The signature of an operation
+ * is checked by {@link OpGeneric#matches(org.tzi.use.uml.ocl.type.Type[])}.
+ * Operations must not have side effects. Operations which can return different 
+ * results for the same arguments must override {@link OpGeneric#isDeterministic()}.
+ * </p>
+ */
+public interface OperationProvider {
+	/**
+	 * Puts the provided operations into <code>opmap</code>,
+	 * e.g., by using {@link OpGeneric#registerOperation(OpGeneric, Multimap)}.
+	 */
+	void registerOperations(Multimap<String, OpGeneric> opmap);
+}
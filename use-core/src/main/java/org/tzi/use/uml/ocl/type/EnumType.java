@@ -21,15 +21,18 @@ package org.tzi.use.uml.ocl.type;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.tzi.use.uml.mm.MClassifier;
 import org.tzi.use.uml.mm.MClassifierImpl;
 import org.tzi.use.uml.mm.MMVisitor;
 import org.tzi.use.uml.mm.MModel;
+import org.tzi.use.uml.ocl.value.EnumValue;
 
 /**
  * An enumeration type.
@@ -47,6 +50,16 @@ public final class EnumType extends MClassifierImpl {
      */
     private Set<String> fLiteralSet;
     
+    /**
+     * position of each literal
+     */
+    private Map<String, Integer> fLiteralIndex;
+    
+    /**
+     * shared values of the literals, created on first use
+     */
+    private volatile EnumValue[] fValues;
+    
     /**
      * Constructs an enumeration type with name and list of literals
      * (String objects). The list of literals is checked for
@@ -57,12 +70,14 @@ public final class EnumType extends MClassifierImpl {
         setModel(model);
         fLiterals = new ArrayList<String>(literals);
         fLiteralSet = new HashSet<String>(fLiterals.size());
+        fLiteralIndex = new HashMap<String, Integer>(fLiterals.size());
         
         Iterator<String> it = fLiterals.iterator();
         while (it.hasNext() ) {
             String lit = it.next();
             if (! fLiteralSet.add(lit) )
                 throw new IllegalArgumentException("duplicate literal `" +  lit + "'");
+            fLiteralIndex.put(lit, Integer.valueOf(fLiteralIndex.size()));
         }
     }
     
@@ -102,6 +117,37 @@ public final class EnumType extends MClassifierImpl {
     public boolean contains(String lit) {
         return fLiteralSet.contains(lit);
     }
+    
+    /**
+     * Returns the position of the literal or <code>-1</code>,
+     * if this enumeration type does not contain it.
+     */
+    public int indexOf(String lit) {
+    	Integer index = fLiteralIndex.get(lit);
+    	return index == null ? -1 : index.intValue();
+    }
+    
+    /**
+     * Returns the shared value of the given literal.
+     * @throws IllegalArgumentException If the literal is not part of this enumeration type.
+     */
+    public EnumValue value(String lit) {
+    	int index = indexOf(lit);
+    	if (index < 0)
+    		throw new IllegalArgumentException("literal `" + lit + 
+                    "' not part of enumeration type `" + this + "'");
+    	
+    	EnumValue[] values = fValues;
+    	if (values == null) {
+    		values = new EnumValue[fLiterals.size()];
+    		for (int i = 0; i < values.length; ++i) {
+    			values[i] = new EnumValue(this, fLiterals.get(i));
+    		}
+    		fValues = values;
+    	}
+    	
+    	return values[index];
+    }
 
     /** 
      * Returns true if this type is a subtype of <code>t</code>. 
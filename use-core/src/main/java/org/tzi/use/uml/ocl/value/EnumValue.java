@@ -23,19 +23,34 @@ import org.tzi.use.uml.ocl.type.EnumType;
 
 /**
  * An enumeration value.
+ * The values of the literals are shared by their
+ * enumeration type (see {@link #valueOf(EnumType, String)}).
  *
  * @author  Mark Richters
  * @see     org.tzi.use.uml.ocl.type.EnumType
  */
 public final class EnumValue extends Value {
-    private String fLiteral;
+    private final String fLiteral;
 
+    /**
+     * Constructs a new, unshared enumeration value.
+     * Use {@link #valueOf(EnumType, String)} instead.
+     */
     public EnumValue(EnumType t, String literal) {
         super(t);
-        fLiteral = literal;
         if (! t.contains(literal) )
             throw new IllegalArgumentException("literal `" + literal + 
                                                "' not part of enumeration type `" + t + "'");
+        // the literal instance of the type allows identity checks
+        fLiteral = t.getLiterals().get(t.indexOf(literal));
+    }
+    
+    /**
+     * Returns the shared value of <code>literal</code>.
+     * @throws IllegalArgumentException If the literal is not part of the enumeration.
+     */
+    public static EnumValue valueOf(EnumType t, String literal) {
+    	return t.value(literal);
     }
     
     @Override
@@ -53,7 +68,7 @@ public final class EnumValue extends Value {
 
         if (obj instanceof EnumValue ) {
             EnumValue v = (EnumValue) obj;
-            return type().equals(v.type()) && fLiteral.equals(v.fLiteral);
+            return (fLiteral == v.fLiteral || fLiteral.equals(v.fLiteral)) && type().equals(v.type());
         }
         return false;
     }
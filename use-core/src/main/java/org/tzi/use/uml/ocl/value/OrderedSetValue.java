@@ -29,16 +29,35 @@ import org.tzi.use.util.StringUtil;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 
 /**
  * Ordered set values.
- *
+ * <p>
+ * The elements are stored in insertion order. Larger ordered sets
+ * additionally maintain a hash index from each element to its
+ * position, so membership tests and {@link #indexOf(Value)} do not need
+ * to scan the elements.
+ * </p>
  * @author  Lars Hamann
  */
 public class OrderedSetValue extends CollectionValue {
+    /**
+     * The hash index is only built for ordered sets with more elements,
+     * because scanning a few elements is cheaper than hashing them.
+     */
+    private static final int INDEX_THRESHOLD = 8;
+    
     private ArrayList<Value> fElements;
     
+    /**
+     * Maps each element to the position of its first occurrence.
+     * <code>null</code> as long as the ordered set is small.
+     */
+    private Map<Value, Integer> fIndex;
+    
     /**
      * Constructs a new empty OrderedSet.
      */
@@ -123,6 +142,9 @@ public class OrderedSetValue extends CollectionValue {
     }
 
     public boolean includes(Value v) {
+        if (fIndex != null)
+            return fIndex.containsKey(v);
+        
         return fElements.contains(v);
     }
 
@@ -130,7 +152,7 @@ public class OrderedSetValue extends CollectionValue {
         Iterator<Value> it = v.iterator(); 
         while (it.hasNext() ) {
             Value elem = it.next();
-            if (! fElements.contains(elem) )
+            if (! includes(elem) )
                 return false;
         }
         return true;
@@ -140,7 +162,7 @@ public class OrderedSetValue extends CollectionValue {
         Iterator<Value> it = v.iterator(); 
         while (it.hasNext() ) {
             Value elem = it.next();
-            if (fElements.contains(elem) )
+            if (includes(elem) )
                 return false;
         }
         return true;
@@ -153,6 +175,7 @@ public class OrderedSetValue extends CollectionValue {
      */
     public OrderedSetValue excluding(Type resultType, Value v) {
         OrderedSetValue res = new OrderedSetValue(getResultElementType(resultType));
+        res.fElements.ensureCapacity(fElements.size());
         Iterator<Value> it = fElements.iterator(); 
         while (it.hasNext() ) {
             Value elem = it.next();
@@ -169,11 +192,18 @@ public class OrderedSetValue extends CollectionValue {
     	OrderedSetValue res = new OrderedSetValue(getResultElementType(resultType));
     	res.addAll(fElements);
     	res.fElements.add(index.value() - 1, v);
+    	// positions behind the inserted element have changed
+    	res.rebuildIndex();
     	
     	return res;
     }
     
     public int indexOf(Value v) {
+    	if (fIndex != null) {
+    		Integer pos = fIndex.get(v);
+    		return pos == null ? -1 : pos.intValue();
+    	}
+    	
     	return fElements.indexOf(v);
     }
     
@@ -188,6 +218,7 @@ public class OrderedSetValue extends CollectionValue {
 
     public OrderedSetValue union(Type resultType, OrderedSetValue v) {
         OrderedSetValue res = new OrderedSetValue(getResultElementType(resultType));
+        res.fElements.ensureCapacity(fElements.size() + v.fElements.size());
         res.addAll(fElements);
         res.addAll(v.fElements);
         return res;
@@ -202,7 +233,7 @@ public class OrderedSetValue extends CollectionValue {
 
     public OrderedSetValue prepend(Type resultType, Value v) {
         OrderedSetValue res = new OrderedSetValue(getResultElementType(resultType));
-        if (!fElements.contains(v))
+        if (!includes(v))
         	res.add(v);
         
         res.addAll(fElements);
@@ -285,8 +316,16 @@ public class OrderedSetValue extends CollectionValue {
     }
 
     void add(Value v) {
-    	if (!fElements.contains(v)) {
+    	if (fIndex != null) {
+    		if (fIndex.putIfAbsent(v, Integer.valueOf(fElements.size())) == null) {
+    			fElements.add(v);
+    		}
+    	} else if (!fElements.contains(v)) {
     		fElements.add(v);
+    		
+    		if (fElements.size() > INDEX_THRESHOLD) {
+    			rebuildIndex();
+    		}
     	}
     }
 
@@ -294,11 +333,23 @@ public class OrderedSetValue extends CollectionValue {
     void addAll(Collection<Value> v) {
     	Iterator<Value> iter = v.iterator();
     	while (iter.hasNext()) {
-    		Value element = iter.next();
-    		
-    		if (!fElements.contains(element)) {
-        		fElements.add(element);
-        	}
+    		add(iter.next());
+    	}
+    }
+    
+    /**
+     * (Re-)Builds the hash index from the element list, if
+     * the ordered set is large enough.
+     */
+    private void rebuildIndex() {
+    	if (fElements.size() <= INDEX_THRESHOLD) {
+    		fIndex = null;
+    		return;
+    	}
+    	
+    	fIndex = new HashMap<Value, Integer>(fElements.size() * 2);
+    	for (int i = 0; i < fElements.size(); ++i) {
+    		fIndex.putIfAbsent(fElements.get(i), Integer.valueOf(i));
     	}
     }
 }
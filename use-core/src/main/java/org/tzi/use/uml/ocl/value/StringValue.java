@@ -21,19 +21,51 @@ package org.tzi.use.uml.ocl.value;
 
 import org.tzi.use.uml.ocl.type.TypeFactory;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
 /**
  * String values.
+ * <p>
+ * Values which are kept for a longer time, e.g., constants
+ * or attribute values, should be shared by using {@link #valueOf(String)}
+ * or {@link #intern()}. Shared values are compared by identity first.
+ * </p>
  *
  * @author  Mark Richters
  */
 public final class StringValue extends Value {
+	/**
+	 * Shared instances. Weak, so values no longer used
+	 * by any state or expression are collected.
+	 */
+	private static final Interner<StringValue> INTERNER = Interners.newWeakInterner();
+	
     private final String fValue;
     
+    /**
+     * Constructs a new, unshared string value.
+     * Use {@link #valueOf(String)} for values which are kept.
+     */
     public StringValue(String s) {
         super(TypeFactory.mkString());
         fValue = s;
     }
 
+    /**
+     * Returns the shared string value for <code>s</code>.
+     */
+    public static StringValue valueOf(String s) {
+    	return INTERNER.intern(new StringValue(s));
+    }
+    
+    /**
+     * Returns the shared instance of an equal string value.
+     */
+    public StringValue intern() {
+    	return INTERNER.intern(this);
+    }
+
     public String value() {
         return fValue;
     }
@@ -46,8 +78,11 @@ public final class StringValue extends Value {
     public boolean equals(Object obj) {
         if (obj == this )
             return true;
-        else if (obj instanceof StringValue )
-            return ((StringValue) obj).fValue.equals(fValue);
+        else if (obj instanceof StringValue ) {
+        	String other = ((StringValue) obj).fValue;
+        	// the hash code is cached by the string
+            return other.hashCode() == fValue.hashCode() && other.equals(fValue);
+        }
         return false;
     }
 
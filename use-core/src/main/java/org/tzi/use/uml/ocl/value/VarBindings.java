@@ -20,8 +20,8 @@
 package org.tzi.use.uml.ocl.value;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.List;
 
 import org.tzi.use.uml.sys.MObject;
 import org.tzi.use.uml.sys.MSystemState;
@@ -80,7 +80,18 @@ public class VarBindings implements Iterable<VarBindings.Entry> {
         }
     }
     
-    private List<Entry> fBindings;
+    private static final int INITIAL_CAPACITY = 8;
+    
+    /**
+     * The names of the bound variables.
+     * The binding stack is stored in arrays to avoid
+     * an allocation for each pushed binding.
+     */
+    private String[] fNames;
+    
+    private Value[] fValues;
+    
+    private int fSize;
 
     private MSystemState fVisibleState;
     
@@ -88,14 +99,15 @@ public class VarBindings implements Iterable<VarBindings.Entry> {
      * Creates an empty VarBindings.
      */
     public VarBindings() {
-        fBindings = new ArrayList<Entry>();
+        fNames = new String[INITIAL_CAPACITY];
+        fValues = new Value[INITIAL_CAPACITY];
     }
 
     /**
      * Creates an empty VarBindings.
      */
     public VarBindings(MSystemState visibleState) {
-        fBindings = new ArrayList<Entry>();
+        this();
         fVisibleState = visibleState;
     }
 
@@ -104,7 +116,10 @@ public class VarBindings implements Iterable<VarBindings.Entry> {
      * object passed as parameter.
      */
     public VarBindings(VarBindings bindings) {
-        fBindings = new ArrayList<Entry>(bindings.fBindings);
+        int capacity = Math.max(INITIAL_CAPACITY, bindings.fSize + INITIAL_CAPACITY);
+        fNames = Arrays.copyOf(bindings.fNames, capacity);
+        fValues = Arrays.copyOf(bindings.fValues, capacity);
+        fSize = bindings.fSize;
         fVisibleState = bindings.fVisibleState;
     }
 
@@ -112,14 +127,30 @@ public class VarBindings implements Iterable<VarBindings.Entry> {
      * Adds all given bindings.
      */
     public void add(VarBindings bindings) {
-        fBindings.addAll(bindings.fBindings);
+        ensureCapacity(fSize + bindings.fSize);
+        System.arraycopy(bindings.fNames, 0, fNames, fSize, bindings.fSize);
+        System.arraycopy(bindings.fValues, 0, fValues, fSize, bindings.fSize);
+        fSize += bindings.fSize;
         
         if (this.fVisibleState == null)
         	this.fVisibleState = bindings.fVisibleState;
     }
 
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > fNames.length) {
+            int newCapacity = Math.max(minCapacity, fNames.length * 2);
+            fNames = Arrays.copyOf(fNames, newCapacity);
+            fValues = Arrays.copyOf(fValues, newCapacity);
+        }
+    }
+    
     public void push(String varname, Value value) {
-        fBindings.add(new Entry(varname, value));
+        if (fSize == fNames.length)
+            ensureCapacity(fSize + 1);
+        
+        fNames[fSize] = varname;
+        fValues[fSize] = value;
+        ++fSize;
     }
 
     /**
@@ -128,14 +159,20 @@ public class VarBindings implements Iterable<VarBindings.Entry> {
      * @param v
      */
     public void setPeekValue(Value v) {
-    	fBindings.get(fBindings.size() - 1).fValue = v;
+    	if (fSize == 0)
+    		throw new IndexOutOfBoundsException("No variable bound.");
+    	fValues[fSize - 1] = v;
     }
     
     /**
      * Removes the last varentry
      */
     public void pop() {
-        fBindings.remove(fBindings.size() - 1);
+        if (fSize == 0)
+            throw new IndexOutOfBoundsException("No variable bound.");
+        --fSize;
+        fNames[fSize] = null;
+        fValues[fSize] = null;
     }
 
     /**
@@ -143,10 +180,14 @@ public class VarBindings implements Iterable<VarBindings.Entry> {
      */
     public void remove(String varname) {
         // search in reverse order
-        for (int i = fBindings.size() - 1; i >= 0; i--) {
-            Entry b = fBindings.get(i);
-            if (b.fVarname.equals(varname)) {
-                fBindings.remove(i);
+        for (int i = fSize - 1; i >= 0; i--) {
+            if (fNames[i].equals(varname)) {
+                int numMoved = fSize - i - 1;
+                System.arraycopy(fNames, i + 1, fNames, i, numMoved);
+                System.arraycopy(fValues, i + 1, fValues, i, numMoved);
+                --fSize;
+                fNames[fSize] = null;
+                fValues[fSize] = null;
                 break;
             }
         }
@@ -161,10 +202,9 @@ public class VarBindings implements Iterable<VarBindings.Entry> {
      */
     public Value getValue(String name) {
         // search in reverse order
-        for (int i = fBindings.size() - 1; i >= 0; i--) {
-            Entry b = fBindings.get(i);
-            if (b.fVarname.equals(name))
-                return b.fValue;
+        for (int i = fSize - 1; i >= 0; i--) {
+            if (fNames[i].equals(name))
+                return fValues[i];
         }
         if (fVisibleState != null) {
         	for (MObject o : fVisibleState.allObjects()) {
@@ -174,17 +214,41 @@ public class VarBindings implements Iterable<VarBindings.Entry> {
         return null;
     }
 
+    /**
+     * Returns the value of the binding <code>depth</code> positions
+     * below the top of the stack, if it binds <code>name</code>.
+     * Otherwise, the bindings are searched by name (see {@link #getValue(String)}).
+     * 
+     * @param name The name of the variable.
+     * @param depth The position of the binding counted from the top of the stack
+     *        or <code>-1</code> if unknown.
+     * @return value for name binding or null if not bound
+     */
+    public Value getValue(String name, int depth) {
+        int i = fSize - 1 - depth;
+        
+        if (depth >= 0 && i >= 0) {
+            String boundName = fNames[i];
+            if (boundName == name || boundName.equals(name))
+                return fValues[i];
+        }
+        
+        return getValue(name);
+    }
+
     /**
      * Returns an iterator over VarBindings.Entry objects.
      */
     public Iterator<Entry> iterator() {
+    	ArrayList<Entry> tmp;
+    	
     	if (fVisibleState != null) { 
-    		ArrayList<Entry> tmp = new ArrayList<Entry>(fVisibleState.numObjects() + fBindings.size());
+    		tmp = new ArrayList<Entry>(fVisibleState.numObjects() + fSize);
     		// add all object names which are not shadowed by variable names
     		for( MObject obj : fVisibleState.allObjects()) {
     			boolean shadowed = false;
-    			for (int i = fBindings.size() - 1; i >= 0; i--) {
-    	            if (fBindings.get(i).fVarname.equals(obj.name())) {
+    			for (int i = fSize - 1; i >= 0; i--) {
+    	            if (fNames[i].equals(obj.name())) {
     	            	shadowed = true;
     	            	break;
     	            }
@@ -193,17 +257,27 @@ public class VarBindings implements Iterable<VarBindings.Entry> {
     				tmp.add( new Entry(obj.name(),obj.value()) );
     			}
     		}
-    		// all variable names
-    		tmp.addAll(fBindings);
-    		return tmp.iterator();
+    	} else {
+    		tmp = new ArrayList<Entry>(fSize);
     	}
-        return fBindings.iterator();
+    	
+    	// all variable names
+    	for (int i = 0; i < fSize; ++i) {
+    		tmp.add(new Entry(fNames[i], fValues[i]));
+    	}
+    	
+    	return tmp.iterator();
     }
 
     /**
      * Returns string representation of bindings useful for debugging.
      */
     public String toString() {
-        return "VarBindings: " + fBindings.toString();
+        StringBuilder sb = new StringBuilder("VarBindings: [");
+        for (int i = 0; i < fSize; ++i) {
+            if (i > 0) sb.append(", ");
+            sb.append(new Entry(fNames[i], fValues[i]));
+        }
+        return sb.append("]").toString();
     }
 }
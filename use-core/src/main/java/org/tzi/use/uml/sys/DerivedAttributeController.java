@@ -125,6 +125,9 @@ public class DerivedAttributeController implements DerivedValueController {
 				
 				if (returnChangeset) {
 					modifiedObjects.add(obj);
+					if (!state.system().getEventBus().hasSubscribers(AttributeAssignedEvent.class))
+						continue;
+					
 					AttributeAssignedEvent e = new AttributeAssignedEvent(state
 							.system().getExecutionContext(), obj, attr,
 							derivedValue);
@@ -0,0 +1,235 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.sys;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.tzi.use.analysis.coverage.AbstractCoverageVisitor;
+import org.tzi.use.uml.mm.MAssociation;
+import org.tzi.use.uml.mm.MAttribute;
+import org.tzi.use.uml.mm.MClass;
+import org.tzi.use.uml.mm.MClassInvariant;
+import org.tzi.use.uml.mm.MNavigableElement;
+import org.tzi.use.uml.mm.MOperation;
+import org.tzi.use.uml.ocl.expr.ExpAsType;
+import org.tzi.use.uml.ocl.expr.ExpAttrOp;
+import org.tzi.use.uml.ocl.expr.ExpIterate;
+import org.tzi.use.uml.ocl.expr.ExpNavigation;
+import org.tzi.use.uml.ocl.expr.ExpObjRef;
+import org.tzi.use.uml.ocl.expr.ExpOclInState;
+import org.tzi.use.uml.ocl.expr.ExpTupleSelectOp;
+import org.tzi.use.uml.ocl.expr.Expression;
+import org.tzi.use.util.soil.StateDifference;
+
+/**
+ * The parts of a system state an expression can read,
+ * i.e., the classes of the objects it can access and
+ * the associations it navigates.
+ * Operations, derived attributes and derived association ends
+ * are expanded.
+ * <p>
+ * The footprint is conservative: if a change of the state
+ * can modify the result of the expression, {@link #isAffectedBy(StateDifference)}
+ * returns <code>true</code>. Expressions which depend on information
+ * not covered by a {@link StateDifference}, e.g., <code>oclInState</code>,
+ * are affected by any change.
+ * </p>
+ */
+public final class ExpressionFootprint {
+
+	private final Set<MClass> fClasses = new HashSet<MClass>();
+	
+	private final Set<MAssociation> fAssociations = new HashSet<MAssociation>();
+	
+	/**
+	 * <code>true</code>, if the expression reads something
+	 * which cannot be determined statically.
+	 */
+	private boolean fUnbounded = false;
+	
+	public ExpressionFootprint(Expression exp) {
+		try {
+			exp.processWithVisitor(new FootprintVisitor());
+		} catch (RuntimeException e) {
+			// unsupported expression structure
+			fUnbounded = true;
+		}
+		
+		// links of associations subsetting or redefining
+		// a navigated association are visible through it
+		for (MAssociation assoc : new ArrayList<MAssociation>(fAssociations)) {
+			fAssociations.addAll(assoc.getSubsettedByClosure());
+			fAssociations.addAll(assoc.getRedefinedByClosure());
+		}
+	}
+	
+	/**
+	 * Calculates the footprint of the expression of an invariant.
+	 */
+	public static ExpressionFootprint of(MClassInvariant inv) {
+		return new ExpressionFootprint(inv.expandedExpression());
+	}
+	
+	/**
+	 * <code>true</code>, if the expression can be affected by any state change.
+	 */
+	public boolean isUnbounded() {
+		return fUnbounded;
+	}
+	
+	/**
+	 * Checks if the result of the expression can differ after the changes in
+	 * <code>diff</code> were applied.
+	 */
+	public boolean isAffectedBy(StateDifference diff) {
+		if (fUnbounded)
+			return true;
+		
+		for (MObject obj : diff.getNewObjects()) {
+			if (isAffectedBy(obj.cls())) return true;
+		}
+		
+		for (MObject obj : diff.getDeletedObjects()) {
+			if (isAffectedBy(obj.cls())) return true;
+		}
+		
+		for (MObject obj : diff.getModifiedObjects()) {
+			if (isAffectedBy(obj.cls())) return true;
+		}
+		
+		for (MLink link : diff.getNewLinks()) {
+			if (fAssociations.contains(link.association())) return true;
+		}
+		
+		for (MLink link : diff.getDeletedLinks()) {
+			if (fAssociations.contains(link.association())) return true;
+		}
+		
+		return false;
+	}
+	
+	private boolean isAffectedBy(MClass cls) {
+		for (MClass read : fClasses) {
+			if (cls.isSubClassOf(read))
+				return true;
+		}
+		return false;
+	}
+	
+	private class FootprintVisitor extends AbstractCoverageVisitor {
+		
+		/** derive expressions already visited, to stop recursive definitions **/
+		private final Set<Expression> fVisitedDerivations = new HashSet<Expression>();
+		
+		public FootprintVisitor() {
+			super(true);
+		}
+
+		private void visitDerivation(Expression exp) {
+			if (exp != null && fVisitedDerivations.add(exp)) {
+				exp.processWithVisitor(this);
+			}
+		}
+		
+		@Override
+		protected void addClassCoverage(MClass cls) {
+			fClasses.add(cls);
+		}
+
+		@Override
+		protected void addAssociationEndCoverage(MNavigableElement dst) {
+			fClasses.add(dst.cls());
+			if (dst.isDerived()) {
+				visitDerivation(dst.getDeriveExpression());
+			}
+		}
+
+		@Override
+		protected void addAssociationCoverage(MAssociation assoc) {
+			fAssociations.add(assoc);
+		}
+
+		@Override
+		protected void addAttributeCoverage(MClass sourceClass, MAttribute att) {
+			fClasses.add(sourceClass);
+			if (att.isDerived()) {
+				visitDerivation(att.getDeriveExpression());
+			}
+		}
+
+		@Override
+		protected void addOperationCoverage(MClass sourceClass, MOperation op) {
+			fClasses.add(sourceClass);
+			if (!op.hasExpression()) {
+				fUnbounded = true;
+			}
+		}
+		
+		@Override
+		public void visitAttrOp(ExpAttrOp exp) {
+			exp.objExp().processWithVisitor(this);
+			if (exp.objExp().type().isTypeOfClass()) {
+				addAttributeCoverage((MClass) exp.objExp().type(), exp.attr());
+			} else if (exp.attr().isDerived()) {
+				visitDerivation(exp.attr().getDeriveExpression());
+			}
+		}
+		
+		@Override
+		public void visitAsType(ExpAsType exp) {
+			exp.getSourceExpr().processWithVisitor(this);
+			if (exp.getTargetType().isTypeOfClass()) {
+				addClassCoverage((MClass) exp.getTargetType());
+			}
+		}
+		
+		@Override
+		public void visitIterate(ExpIterate exp) {
+			exp.getAccuInitializer().initExpr().processWithVisitor(this);
+			super.visitIterate(exp);
+		}
+		
+		@Override
+		public void visitNavigation(ExpNavigation exp) {
+			super.visitNavigation(exp);
+			for (Expression qualifier : exp.getQualifierExpression()) {
+				qualifier.processWithVisitor(this);
+			}
+		}
+		
+		@Override
+		public void visitObjRef(ExpObjRef exp) {
+			fUnbounded = true;
+		}
+		
+		@Override
+		public void visitOclInState(ExpOclInState exp) {
+			// state machine changes are not part of a state difference
+			fUnbounded = true;
+		}
+		
+		@Override
+		public void visitTupleSelectOp(ExpTupleSelectOp exp) {
+			exp.getTupleExp().processWithVisitor(this);
+		}
+	}
+}
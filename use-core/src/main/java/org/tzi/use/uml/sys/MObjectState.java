@@ -20,6 +20,7 @@
 package org.tzi.use.uml.sys;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -30,9 +31,11 @@ import java.util.Map;
 import java.util.Set;
 
 import org.tzi.use.uml.mm.MAttribute;
+import org.tzi.use.uml.mm.MAttributeLayout;
 import org.tzi.use.uml.mm.statemachines.MProtocolStateMachine;
 import org.tzi.use.uml.mm.statemachines.MState;
 import org.tzi.use.uml.mm.statemachines.MStateMachine;
+import org.tzi.use.uml.ocl.value.StringValue;
 import org.tzi.use.uml.ocl.value.UndefinedValue;
 import org.tzi.use.uml.ocl.value.Value;
 import org.tzi.use.uml.sys.statemachines.MProtocolStateMachineInstance;
@@ -47,10 +50,16 @@ import com.google.common.collect.Collections2;
  * @author Lars Hamann 
  */
 public final class MObjectState {
+    /**
+     * Slot index of each attribute in {@link #fAttrValues}.
+     * Shared by all objects of a class.
+     */
+    private final MAttributeLayout fLayout;
+    
     /**
      * Slots holding a value for each attribute.
      */
-    private Map<MAttribute, Value> fAttrSlots;
+    private final Value[] fAttrValues;
 
     /**
      * Instances of the owned psm.
@@ -68,13 +77,10 @@ public final class MObjectState {
 	public MObjectState(MObject obj) {
         fObject = obj;
 
-        List<MAttribute> atts = obj.cls().allAttributes();
+        fLayout = obj.cls().attributeLayout();
         // initialize attribute slots with undefined values
-        fAttrSlots = new IdentityHashMap<MAttribute, Value>(atts.size());
-        
-        for (MAttribute attr : atts) {
-            fAttrSlots.put(attr, UndefinedValue.instance);
-        }
+        fAttrValues = new Value[fLayout.size()];
+        Arrays.fill(fAttrValues, UndefinedValue.instance);
         
         Set<MProtocolStateMachine> psms = obj.cls().getAllOwnedProtocolStateMachines(); 
         if (psms.isEmpty()) {
@@ -93,7 +99,8 @@ public final class MObjectState {
      */
     MObjectState(MObjectState x) {
         fObject = x.fObject;
-        fAttrSlots = new IdentityHashMap<MAttribute, Value>(x.fAttrSlots);
+        fLayout = x.fLayout;
+        fAttrValues = x.fAttrValues.clone();
         
         if (x.protocolStateMachines.isEmpty()) {
         	this.protocolStateMachines = Collections.emptySet();
@@ -118,7 +125,7 @@ public final class MObjectState {
      */
     public void initialize(MSystemState state) {
 
-    	Collection<MAttribute> initAttr = Collections2.filter(fAttrSlots.keySet(), new Predicate<MAttribute>() {
+    	Collection<MAttribute> initAttr = Collections2.filter(fLayout.attributes(), new Predicate<MAttribute>() {
 			@Override
 			public boolean apply(MAttribute input) {
 				return input.getInitExpression().isPresent();
@@ -153,13 +160,28 @@ public final class MObjectState {
 	 *                attr is not part of this object.
      */
     public Value attributeValue(MAttribute attr) {
-        Value val = fAttrSlots.get(attr);
+        int slot = fLayout.indexOf(attr);
         
-        if (val == null )
+        if (slot < 0)
 			throw new IllegalArgumentException("Attribute `" + attr
 					+ "' does not exist in object `" + fObject.name() + "'.");
         
-        return val;
+        return fAttrValues[slot];
+    }
+    
+    /**
+     * Returns the value stored in the slot <code>slot</code> of
+     * the {@link #attributeLayout() attribute layout}.
+     */
+    public Value attributeValue(int slot) {
+        return fAttrValues[slot];
+    }
+    
+    /**
+     * Returns the layout of the attribute slots of this object state.
+     */
+    public MAttributeLayout attributeLayout() {
+        return fLayout;
     }
     
     /**
@@ -181,9 +203,9 @@ public final class MObjectState {
 	 *                attr is not part of this object or types don't match.
      */
     public void setAttributeValue(MAttribute attr, Value newVal) {
-        Value oldVal = fAttrSlots.get(attr);
+        int slot = fLayout.indexOf(attr);
         
-        if (oldVal == null )
+        if (slot < 0)
 			throw new IllegalArgumentException("Attribute `" + attr
 					+ "' does not exist in object `" + fObject.name() + "'.");
         
@@ -192,17 +214,25 @@ public final class MObjectState {
 					+ "' for attribute `" + attr.name() + "', found type `"
 					+ newVal.type() + "'.");
         
-        fAttrSlots.put(attr, newVal);
+        // share repeated strings between objects
+        if (newVal instanceof StringValue)
+        	newVal = ((StringValue) newVal).intern();
+        
+        fAttrValues[slot] = newVal;
     }
 
     /**
 	 * Returns a map with attribute/value pairs.
-	 * The returned map is unmodifiable.
+	 * The returned map is an unmodifiable copy of the current values.
      *
      * @return Map(MAttribute, Value) 
      */
     public Map<MAttribute, Value> attributeValueMap() {
-        return Collections.unmodifiableMap(fAttrSlots);
+        Map<MAttribute, Value> res = new IdentityHashMap<MAttribute, Value>(fAttrValues.length);
+        for (int i = 0; i < fAttrValues.length; ++i) {
+            res.put(fLayout.attribute(i), fAttrValues[i]);
+        }
+        return Collections.unmodifiableMap(res);
     }
     
     /**
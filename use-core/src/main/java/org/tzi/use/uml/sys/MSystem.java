@@ -19,7 +19,6 @@
 
 package org.tzi.use.uml.sys;
 
-import com.google.common.eventbus.EventBus;
 import org.tzi.use.config.Options;
 import org.tzi.use.gen.tool.GGenerator;
 import org.tzi.use.parser.generator.ASSLCompiler;
@@ -48,10 +47,16 @@ import org.tzi.use.uml.sys.statemachines.MProtocolStateMachineInstance.Transitio
 import org.tzi.use.util.Log;
 import org.tzi.use.util.StringUtil;
 import org.tzi.use.util.UniqueNameGenerator;
+import org.tzi.use.util.metrics.Counter;
+import org.tzi.use.util.metrics.Gauge;
+import org.tzi.use.util.metrics.Histogram;
+import org.tzi.use.util.metrics.Metrics;
+import org.tzi.use.util.metrics.StatementExecutionEvent;
 import org.tzi.use.util.soil.VariableEnvironment;
 import org.tzi.use.util.soil.exceptions.EvaluationFailedException;
 
 import java.io.InputStream;
+import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.util.*;
 
@@ -80,7 +85,13 @@ public final class MSystem {
 	private UniqueNameGenerator fUniqueNameGenerator;
 
 	/** Event bus for detailed events during execution **/
-	private EventBus eventBus = new EventBus("System change");
+	private SystemEventBus eventBus = new SystemEventBus("System change");
+
+	/**
+	 * If <code>true</code>, raised events are stored in the
+	 * statement results (see {@link #getAllEvents()}).
+	 */
+	private boolean fRecordEvents = Options.recordEvents;
 
 	/** Last called operation (used by test suite) */
 	private MOperationCall lastOperationCall;
@@ -103,6 +114,11 @@ public final class MSystem {
 	/** Stack which is filled after an undo */
 	private Deque<MStatement> fRedoStack;
 
+	private static final Counter STATEMENTS_EXECUTED = Metrics.counter("statement.executed");
+	private static final Counter STATEMENTS_FAILED = Metrics.counter("statement.failed");
+	private static final Histogram STATEMENT_TIME = Metrics.histogram("statement.time");
+	private static final Gauge UNDO_JOURNAL_SIZE = Metrics.gauge("undo.journal.size");
+
 	/**
 	 * SOIL call stack with information about result of a statement and how to
 	 * revert it.
@@ -124,6 +140,12 @@ public final class MSystem {
 	 */
 	private Stack<VariableEnvironment> variationPointsVars = new Stack<VariableEnvironment>();
 
+	/**
+	 * Output of SOIL operations like <code>WriteLine</code>.
+	 * If <code>null</code>, <code>System.out</code> is used.
+	 */
+	private PrintStream fOutput = null;
+
 	/**
 	 * Count of open GUI elements that require updates on changes with derived
 	 * elements.
@@ -146,6 +168,37 @@ public final class MSystem {
 		init();
 	}
 
+	/**
+	 * Creates an independent copy of <code>system</code>,
+	 * e.g., to execute several test cases on the same fixture.
+	 * Objects and executed statements are shared, the system state
+	 * and the variables are copied. Event subscribers are not copied.
+	 * 
+	 * @param system The system to copy. It must not execute a statement,
+	 *        an operation or a variation.
+	 * @throws IllegalStateException If <code>system</code> is executing.
+	 */
+	public MSystem(MSystem system) {
+		if (system.isExecutingStatement() || !system.fCallStack.isEmpty()
+				|| !system.variationPointsStates.isEmpty())
+			throw new IllegalStateException("A system can only be copied between statements.");
+		
+		fModel = system.fModel;
+		fObjects = new HashMap<String, MObject>(system.fObjects);
+		fUniqueNameGenerator = new UniqueNameGenerator(system.fUniqueNameGenerator);
+		fCurrentState = new MSystemState(fUniqueNameGenerator.generate("state#"), system.fCurrentState, this);
+		fGenerator = new GGenerator(this);
+		fVariableEnvironment = system.fVariableEnvironment.copy(fCurrentState);
+		fStatementEvaluationResults = new ArrayDeque<StatementEvaluationResult>(system.fStatementEvaluationResults);
+		fCallStack = new ArrayDeque<MOperationCall>();
+		fRedoStack = new ArrayDeque<MStatement>();
+		fCurrentlyEvaluatedStatements = new ArrayDeque<StatementEvaluationResult>();
+		fPPCHandlerOverride = system.fPPCHandlerOverride;
+		isRunningTestSuite = system.isRunningTestSuite;
+		fRecordEvents = system.fRecordEvents;
+		fOutput = system.fOutput;
+	}
+
 	/**
 	 * Initializes a system (used for new system instances and for
 	 * {@link #reset()})
@@ -217,10 +270,47 @@ public final class MSystem {
 	 * be found <a href="http://code.google.com/p/guava-libraries/wiki/EventBusExplained">here</a>.   
 	 * @return
 	 */
-	public EventBus getEventBus() {
+	public SystemEventBus getEventBus() {
 		return this.eventBus;
 	}
 
+	/**
+	 * <code>true</code>, if the raised events are stored
+	 * in the results of the executed statements.
+	 * @see #getAllEvents()
+	 */
+	public boolean isRecordingEvents() {
+		return fRecordEvents;
+	}
+
+	/**
+	 * Enables or disables storing of the raised events
+	 * in the results of the executed statements.
+	 * Events raised while recording is disabled are not
+	 * returned by {@link #getAllEvents()}.
+	 * The default value is given by {@link Options#recordEvents}.
+	 */
+	public void setRecordEvents(boolean recordEvents) {
+		fRecordEvents = recordEvents;
+	}
+
+	/**
+	 * <code>true</code>, if an event of the given type needs to be created,
+	 * because it is either recorded or someone subscribed to it.
+	 */
+	private boolean needsEvent(Class<? extends Event> eventType) {
+		return fRecordEvents || eventBus.hasSubscribers(eventType);
+	}
+
+	/**
+	 * Stores <code>event</code> in <code>result</code>, if events are recorded.
+	 */
+	private void recordEvent(StatementEvaluationResult result, Event event) {
+		if (fRecordEvents) {
+			result.appendEvent(event);
+		}
+	}
+
 	/**
 	 * The current execution context, e. g., UNDO
 	 * @return the executionContext
@@ -519,7 +609,7 @@ public final class MSystem {
 		}
 
 		if (getCurrentStatement() != null) {
-			result.appendEvent(fireOperationEntered(operationCall));
+			recordEvent(result, fireOperationEntered(operationCall));
 		}
 
 		// Push call stack in case of error to allow
@@ -729,7 +819,7 @@ public final class MSystem {
 				for (TransitionResult r : toExecute) {
 					psm.doTransition(r.getTransition());
 					operationCall.addExecutedTransition(psm, r.getTransition());
-					result.appendEvent(fireTransition(operationCall.getSelf(), psm.getProtocolStateMachine(), r.getTransition()));
+					recordEvent(result, fireTransition(operationCall.getSelf(), psm.getProtocolStateMachine(), r.getTransition()));
 					state().updateDerivedValues(result.getStateDifference());
 				}
 				psm.setExecutingTransition(false);
@@ -747,7 +837,7 @@ public final class MSystem {
 	 */
 	public void revertTransition(StatementEvaluationResult result, MProtocolStateMachineInstance psmI, MTransition t) {
 		psmI.revertTransition(t);
-		result.appendEvent(fireTransition(psmI.getObject(), psmI.getProtocolStateMachine(), t));
+		recordEvent(result, fireTransition(psmI.getObject(), psmI.getProtocolStateMachine(), t));
 		state().updateDerivedValues(result.getStateDifference());
 	}
 	
@@ -925,7 +1015,7 @@ public final class MSystem {
 		fCallStack.pop();
 		MStatement currentStatement = getCurrentStatement();
 		if (currentStatement != null) {
-			result.appendEvent(fireOperationExited(currentOperation));
+			recordEvent(result, fireOperationExited(currentOperation));
 		}
 		fVariableEnvironment.popFrame();
 	}
@@ -952,7 +1042,7 @@ public final class MSystem {
 		result.getStateDifference().addNewObject(newObject);
 		result.prependToInverseStatement(new MObjectDestructionStatement(newObject.value()));
 
-		result.appendEvent(fireObjectCreated(newObject));
+		recordEvent(result, fireObjectCreated(newObject));
 		
 		state().updateDerivedValues(result.getStateDifference());
 
@@ -997,10 +1087,10 @@ public final class MSystem {
 
 		result.prependToInverseStatement(new MObjectRestorationStatement(deleteResult, undefinedTopLevelReferences));
 
-		result.appendEvent(fireObjectDestroyed(object));
+		recordEvent(result, fireObjectDestroyed(object));
 		if (object instanceof MLink) {
 			MLink link = (MLink) object;
-			result.appendEvent(fireLinkDeleted(link));
+			recordEvent(result, fireLinkDeleted(link));
 		}
 
 		Set<MLink> deletedLinks = new HashSet<MLink>(deleteResult.getRemovedLinks());
@@ -1018,11 +1108,11 @@ public final class MSystem {
 		deletedObjects.removeAll(deletedLinks);
 
 		for (MLink l : deletedLinks) {
-			result.appendEvent(fireLinkDeleted(l));
+			recordEvent(result, fireLinkDeleted(l));
 		}
 
 		for (MObject o : deletedObjects) {
-			result.appendEvent(fireObjectDestroyed(o));
+			recordEvent(result, fireObjectDestroyed(o));
 		}
 
 		state().updateDerivedValues(result.getStateDifference());
@@ -1066,7 +1156,7 @@ public final class MSystem {
 		}
 
 		result.prependToInverseStatement(new MLinkDeletionStatement(association, wrappedParticipants, wrappedQualifier));
-		result.appendEvent(fireLinkInserted(newLink));
+		recordEvent(result, fireLinkInserted(newLink));
 
 		state().updateDerivedValues(result.getStateDifference());
 
@@ -1132,10 +1222,7 @@ public final class MSystem {
 
 		state().updateDerivedValues(result.getStateDifference());
 		
-		LinkDeletedEvent e = new LinkDeletedEvent(executionContext, link);
-		result.appendEvent(e);
-		
-		getEventBus().post(e);
+		recordEvent(result, fireLinkDeleted(link));
 	}
 
 	/**
@@ -1157,8 +1244,8 @@ public final class MSystem {
 		result.getStateDifference().addNewLinkObject(newLinkObject);
 		result.prependToInverseStatement(new MObjectDestructionStatement(newLinkObject.value()));
 
-		result.appendEvent(fireObjectCreated(newLinkObject));
-		result.appendEvent(fireLinkInserted(newLinkObject));
+		recordEvent(result, fireObjectCreated(newLinkObject));
+		recordEvent(result, fireLinkInserted(newLinkObject));
 		
 		state().updateDerivedValues(result.getStateDifference());
 
@@ -1189,7 +1276,7 @@ public final class MSystem {
 
 		result.prependToInverseStatement(new MAttributeAssignmentStatement(object, attribute, oldValue));
 
-		result.appendEvent(fireAttributeAssigned(object, attribute, value));
+		recordEvent(result, fireAttributeAssigned(object, attribute, value));
 
 		state().updateDerivedValues(result.getStateDifference());
 	}
@@ -1289,6 +1376,10 @@ public final class MSystem {
 
 		StatementEvaluationResult result = new StatementEvaluationResult(statement);
 
+		StatementExecutionEvent event = new StatementExecutionEvent();
+		event.begin();
+		long start = System.nanoTime();
+
 		fCurrentlyEvaluatedStatements.push(result);
 
 		if (context.isUndo()) {
@@ -1306,18 +1397,34 @@ public final class MSystem {
 
 		fCurrentlyEvaluatedStatements.pop();
 
+		STATEMENT_TIME.record(System.nanoTime() - start);
+		STATEMENTS_EXECUTED.inc();
+		if (!result.wasSuccessfull())
+			STATEMENTS_FAILED.inc();
+
+		event.end();
+		if (event.shouldCommit()) {
+			event.statement = statement.getShellCommand();
+			event.successful = result.wasSuccessfull();
+			event.commit();
+		}
+
 		if (storeResult) {
 			fStatementEvaluationResults.push(result);
+			UNDO_JOURNAL_SIZE.set(fStatementEvaluationResults.size());
 		}
 
-		if (result.wasSuccessfull() && notifyUpdateStateListeners) {
+		if (result.wasSuccessfull() && notifyUpdateStateListeners
+				&& eventBus.hasSubscribers(StatementExecutedEvent.class)) {
 			getEventBus().post(new StatementExecutedEvent(executionContext, statement, result.getStateDifference()));
 		}
 
 		if (!result.wasSuccessfull()) {
 			if (undoOnFailure) {
-				if (storeResult)
+				if (storeResult) {
 					fStatementEvaluationResults.pop();
+					UNDO_JOURNAL_SIZE.set(fStatementEvaluationResults.size());
+				}
 				SoilEvaluationContext ctx = new SoilEvaluationContext(this);
 				ctx.setIsUndo(true);
 				execute(result.getInverseStatement(), ctx, false, false, notifyUpdateStateListeners);
@@ -1343,6 +1450,7 @@ public final class MSystem {
 		}
 
 		StatementEvaluationResult lastResult = fStatementEvaluationResults.pop();
+		UNDO_JOURNAL_SIZE.set(fStatementEvaluationResults.size());
 
 		MStatement lastStatement = lastResult.getEvaluatedStatement();
 		MStatement inverseStatement = lastResult.getInverseStatement();
@@ -1421,6 +1529,21 @@ public final class MSystem {
 		this.isRunningTestSuite = isRunningTestSuite;
 	}
 
+	/**
+	 * The stream SOIL operations like <code>WriteLine</code> write to.
+	 */
+	public PrintStream getOutput() {
+		return fOutput == null ? System.out : fOutput;
+	}
+
+	/**
+	 * Sets the stream SOIL operations like <code>WriteLine</code> write to.
+	 * @param output The stream or <code>null</code> to use <code>System.out</code>.
+	 */
+	public void setOutput(PrintStream output) {
+		this.fOutput = output;
+	}
+
 	/**
 	 * Returns the shell command of the last undone statement.
 	 * 
@@ -1564,7 +1687,7 @@ public final class MSystem {
 	 * @param object
 	 */
 	ObjectCreatedEvent fireObjectCreated(MObject object) {
-		if (object instanceof MLink) return null;
+		if (object instanceof MLink || !needsEvent(ObjectCreatedEvent.class)) return null;
 		
 		ObjectCreatedEvent objectCreatedEvent = new ObjectCreatedEvent(executionContext, object);
         getEventBus().post(objectCreatedEvent);
@@ -1577,12 +1700,16 @@ public final class MSystem {
 	 * @return
 	 */
 	ObjectDestroyedEvent fireObjectDestroyed(MObject object) {
+		if (!needsEvent(ObjectDestroyedEvent.class)) return null;
+
 		ObjectDestroyedEvent event = new ObjectDestroyedEvent(executionContext, object);
 		getEventBus().post(event);
 		return event;
 	}
 		
 	LinkDeletedEvent fireLinkDeleted(MLink link) {
+		if (!needsEvent(LinkDeletedEvent.class)) return null;
+
 		LinkDeletedEvent event = new LinkDeletedEvent(executionContext, link);
 		getEventBus().post(event);
 		return event;
@@ -1592,6 +1719,8 @@ public final class MSystem {
 	 * @param link
 	 */
 	LinkInsertedEvent fireLinkInserted(MLink link) {
+		if (!needsEvent(LinkInsertedEvent.class)) return null;
+
 		LinkInsertedEvent event = new LinkInsertedEvent(executionContext, link);
 		getEventBus().post(event);
 		return event;
@@ -1599,42 +1728,56 @@ public final class MSystem {
 	
 	AttributeAssignedEvent fireAttributeAssigned(MObject object, MAttribute attribute,
 			Value value) {
+		if (!needsEvent(AttributeAssignedEvent.class)) return null;
+
 		AttributeAssignedEvent e = new AttributeAssignedEvent(executionContext, object, attribute, value);
 		getEventBus().post(e);
 		return e;
 	}
 
 	OperationEnteredEvent fireOperationEntered(MOperationCall operationCall) {
+		if (!needsEvent(OperationEnteredEvent.class)) return null;
+
 		OperationEnteredEvent e = new OperationEnteredEvent(executionContext, operationCall);
 		getEventBus().post(e);
 		return e;
 	}
 	
 	OperationExitedEvent fireOperationExited(MOperationCall operationCall) {
+		if (!needsEvent(OperationExitedEvent.class)) return null;
+
 		OperationExitedEvent e = new OperationExitedEvent(executionContext, operationCall);
 		getEventBus().post(e);
 		return e;
 	}
 	
 	TransitionEvent fireTransition(MObject source, MStateMachine stateMachine, MTransition transition) {
+		if (!needsEvent(TransitionEvent.class)) return null;
+
 		TransitionEvent e = new TransitionEvent(executionContext, source, stateMachine, transition);
 		getEventBus().post(e);
 		return e;
 	}
 	
 	ClassInvariantsLoadedEvent fireClassInvariantsLoadedEvent(Collection<MClassInvariant> invariants) {
+		if (!eventBus.hasSubscribers(ClassInvariantsLoadedEvent.class)) return null;
+
 		ClassInvariantsLoadedEvent e = new ClassInvariantsLoadedEvent(executionContext, invariants);
 		getEventBus().post(e);
 		return e;
 	}
 	
 	ClassInvariantsUnloadedEvent fireClassInvariantsUnloadedEvent(Collection<MClassInvariant> invariants) {
+		if (!eventBus.hasSubscribers(ClassInvariantsUnloadedEvent.class)) return null;
+
 		ClassInvariantsUnloadedEvent e = new ClassInvariantsUnloadedEvent(executionContext, invariants);
 		getEventBus().post(e);
 		return e;
 	}
 	
 	ClassInvariantChangedEvent fireClassInvariantChangeEvent(MClassInvariant invariant, InvariantStateChange change){
+		if (!eventBus.hasSubscribers(ClassInvariantChangedEvent.class)) return null;
+
 		ClassInvariantChangedEvent e = new ClassInvariantChangedEvent(executionContext, invariant, change);
 		getEventBus().post(e);
 		return e;
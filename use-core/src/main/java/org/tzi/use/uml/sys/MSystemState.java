@@ -25,10 +25,9 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 import org.eclipse.jdt.annotation.NonNull;
 import org.tzi.use.config.Options;
-import org.tzi.use.graph.DirectedGraph;
-import org.tzi.use.graph.DirectedGraphBase;
 import org.tzi.use.uml.mm.*;
 import org.tzi.use.uml.ocl.expr.*;
+import org.tzi.use.uml.ocl.expr.compiled.ExpressionCompiler;
 import org.tzi.use.uml.ocl.type.Type.VoidHandling;
 import org.tzi.use.uml.ocl.value.*;
 import org.tzi.use.uml.sys.MSystemState.DeleteObjectResult.ObjectStateModification;
@@ -41,6 +40,12 @@ import org.tzi.use.util.collections.Bag;
 import org.tzi.use.util.collections.CollectionUtil;
 import org.tzi.use.util.collections.HashBag;
 import org.tzi.use.util.collections.Queue;
+import org.tzi.use.util.metrics.Counter;
+import org.tzi.use.util.metrics.DerivedValuesUpdateEvent;
+import org.tzi.use.util.metrics.Histogram;
+import org.tzi.use.util.metrics.InvariantCheckEvent;
+import org.tzi.use.util.metrics.Metrics;
+import org.tzi.use.util.metrics.StructureCheckEvent;
 import org.tzi.use.util.soil.StateDifference;
 
 import java.io.PrintWriter;
@@ -96,6 +101,13 @@ public final class MSystemState {
 	 */
 	private DerivedValueController[] derivedValuesController;
 	
+	private static final Histogram DERIVED_UPDATE_TIME = Metrics.histogram("derived.update.time");
+	private static final Histogram CHECK_TIME = Metrics.histogram("check.time");
+	private static final Histogram STRUCTURE_CHECK_TIME = Metrics.histogram("structure.check.time");
+	private static final Counter STRUCTURE_VIOLATIONS = Metrics.counter("structure.check.failed");
+	private static final Counter INVARIANTS_EVALUATED = Metrics.counter("invariant.evaluated");
+	private static final Counter INVARIANTS_FAILED = Metrics.counter("invariant.failed");
+
 	private static final int DVC_DERIVED_ASSOCS = 0;
 	private static final int DVC_UNION_ASSOCS = 1;
 	private static final int DVC_DERIVED_ATTR = 2;
@@ -109,6 +121,7 @@ public final class MSystemState {
 		fClassObjects = HashMultimap.create();
 		fObjectNames = new HashMap<String, MObject>();
 		fLinkSets = new HashMap<MAssociation, MLinkSet>();
+		fWholePartHierarchy = new MWholePartHierarchy();
 		
 		// create empty link sets
 		for(MAssociation assoc : fSystem.model().associations()) {
@@ -132,8 +145,17 @@ public final class MSystemState {
 	 * Creates a copy of an existing system state.
 	 */
 	public MSystemState(String name, MSystemState x) {
+		this(name, x, x.fSystem);
+	}
+	
+	/**
+	 * Creates a copy of an existing system state for
+	 * the system <code>system</code>.
+	 * @see MSystem#MSystem(MSystem)
+	 */
+	MSystemState(String name, MSystemState x, MSystem system) {
 		fName = name;
-		fSystem = x.fSystem;
+		fSystem = system;
 
 		// deep copy of object states
 		fObjectStates = new HashMap<MObject, MObjectState>();
@@ -152,6 +174,8 @@ public final class MSystemState {
 			fLinkSets.put(e.getKey(), new MLinkSet(e.getValue()));
 		}
 		
+		fWholePartHierarchy = new MWholePartHierarchy(x.fWholePartHierarchy);
+		
 		synchronized (dirtyLock) {
 			derivedValuesController = new DerivedValueController[3];
 			derivedValuesController[0] = new DerivedLinkControllerDerivedEnd(this, x.fLinkSets, (DerivedLinkController)x.derivedValuesController[0]);
@@ -173,10 +197,18 @@ public final class MSystemState {
 			if (!this.derivedIsDirty) return;
 			
 			if(forceUpdate || fSystem.isImmediatlyCalculateDerivedValues()) {
+				DerivedValuesUpdateEvent event = new DerivedValuesUpdateEvent();
+				event.begin();
+				long start = System.nanoTime();
+				
 				for (int i = 0; i < derivedValuesController.length; ++i) { 
 					derivedValuesController[i].updateState();
 				}
 				this.derivedIsDirty = false;
+				
+				DERIVED_UPDATE_TIME.record(System.nanoTime() - start);
+				event.forced = forceUpdate;
+				event.commit();
 			}
 		}
 	}
@@ -200,10 +232,17 @@ public final class MSystemState {
 			this.derivedIsDirty = true;
 			
 			if(fSystem.isImmediatlyCalculateDerivedValues()){
+				DerivedValuesUpdateEvent event = new DerivedValuesUpdateEvent();
+				event.begin();
+				long start = System.nanoTime();
+				
 				for (int i = 0; i < derivedValuesController.length; ++i) {
 					derivedValuesController[i].updateState(diff);
 				}
 				this.derivedIsDirty = false;
+				
+				DERIVED_UPDATE_TIME.record(System.nanoTime() - start);
+				event.commit();
 			}
 		}
 	}
@@ -703,18 +742,7 @@ public final class MSystemState {
 	private void removeLinkFromWholePartGraph(MLink link) {
 		if (   link.association().aggregationKind() == MAggregationKind.AGGREGATION 
 			|| link.association().aggregationKind() == MAggregationKind.COMPOSITION ) {
-			MWholePartLink wpLink = new MWholePartLinkImpl(link);
-			fWholePartLinkGraph.removeEdge(wpLink);
-			
-			if (fWholePartLinkGraph.numIncomingEdges(wpLink.source()) == 0 &&
-				fWholePartLinkGraph.numOutgoingEdges(wpLink.source()) == 0) {
-					fWholePartLinkGraph.remove(wpLink.source());
-			}
-			
-			if (fWholePartLinkGraph.numIncomingEdges(wpLink.target()) == 0 &&
-				fWholePartLinkGraph.numOutgoingEdges(wpLink.target()) == 0) {
-					fWholePartLinkGraph.remove(wpLink.target());
-			}
+			fWholePartHierarchy.remove(new MWholePartLinkImpl(link));
 		}
 	}
 
@@ -765,13 +793,14 @@ public final class MSystemState {
 						+ StringUtil.fmtSeq(objects.iterator(), ",")
 						+ ") already exist.");
 			
-			// The graph to store the information of the whole/part hierachy
+			// The hierarchy stores the information of the whole/part links
 			MWholePartLink wholePartLink = new MWholePartLinkImpl(link);
 			MObject source = wholePartLink.source();
 			MObject target = wholePartLink.target();
-			 
-			fWholePartLinkGraph.add(source);
-			fWholePartLinkGraph.add(target);
+			
+			// silently ignore duplicates
+			linkSet.add(link);
+			fWholePartHierarchy.add(wholePartLink);
 			
 			// the link is irreflexive
 			if (wholePartLink.isReflexive())
@@ -779,39 +808,22 @@ public final class MSystemState {
 						+ "' cannot be a part of itself.");
 			
 			// check for SHARED OBJECT OF THE COMPOSION RELATIONSHIP
-			if (assoc.aggregationKind() == MAggregationKind.COMPOSITION) {
-				// finding all edges (links) whose target is the target object
-				// of the new link
-				Iterator<MObject> sourceEdgeIter = fWholePartLinkGraph.sourceNodeSet(target).iterator();
-				
-				while (sourceEdgeIter.hasNext()) {
-					Iterator<MWholePartLink> iter = fWholePartLinkGraph.edgesBetween(target,
-							sourceEdgeIter.next()).iterator();
-					
-					while (iter.hasNext()) {
-						MLink l = iter.next();
-						if (l.association().aggregationKind() == MAggregationKind.COMPOSITION && 
-							!associationsHaveSubsetsRelation(l.association(), assoc) &&
-							!associationsHaveRedefinitionRelation(l.association(), wholePartLink.association())) {
-							Log.warn("Warning: Insert has resulted in two aggregates for object `"
-									 + target.name()
-									 + "'. Object `"
-									 + target.name()
-									 + "' is already component of another object.");
-						}
-					}
-				}
+			if (assoc.aggregationKind() == MAggregationKind.COMPOSITION
+					&& fWholePartHierarchy.getConflictingOwner(wholePartLink) != null) {
+				Log.warn("Warning: Insert has resulted in two aggregates for object `"
+						 + target.name()
+						 + "'. Object `"
+						 + target.name()
+						 + "' is already component of another object.");
 			}
-			// check for cycles that might be occurred when adding the new
-			// whole/part link
-			if (fWholePartLinkGraph.existsPath(target, source))
+			
+			// check for cycles that occurred when adding the new
+			// whole/part link (a reflexive link is already reported above)
+			if (!wholePartLink.isReflexive() && fWholePartHierarchy.closesCycle(wholePartLink))
 				Log.warn("Warning: Insert has resulted in a cycle in the part-whole hierarchy. Object `"
 								+ source.name()
 								+ "' is a direct or indirect part of `"
 								+ target.name() + "'.");
-			// silently ignore duplicates
-			linkSet.add(link);
-			fWholePartLinkGraph.addEdge(wholePartLink);
 		} else {
 			// create a normal link
 			link = new MLinkImpl(assoc, objects, qualifierValues);
@@ -977,14 +989,10 @@ public final class MSystemState {
 		}
 	}
 	
-	private DirectedGraph<MObject, MWholePartLink> fWholePartLinkGraph = new DirectedGraphBase<MObject, MWholePartLink>();
-	
 	/**
-	 * The graph to store the information of the whole/part hierachy.
+	 * The information of the whole/part hierarchy.
 	 */
-	private DirectedGraph<MObject, MWholePartLink> getWholePartLinkGraph() {		
-		return fWholePartLinkGraph;
-	}
+	private MWholePartHierarchy fWholePartHierarchy;
 
 	/**
 	 * Inserts a link into the state.
@@ -1527,7 +1535,7 @@ public final class MSystemState {
     	
         ctx.pushVarBinding("self", source);
 		try {
-			return attribute.getDeriveExpression().eval(ctx);
+			return ExpressionCompiler.eval(attribute.getDeriveExpression(), ctx);
 		} catch (StackOverflowError e) {
 			Log.error("Derive expression of attribute " + StringUtil.inQuotes(attribute.qualifiedName()) + " let to a stack overflow!\nMaybe an infinite recursion is defined.");
 		} catch (RuntimeException e) {
@@ -1568,6 +1576,9 @@ public final class MSystemState {
 		int numChecked = 0;
 		int numFailed = 0;
 		long tAll = System.currentTimeMillis();
+		long start = System.nanoTime();
+		InvariantCheckEvent event = new InvariantCheckEvent();
+		event.begin();
 
 		ArrayList<MClassInvariant> invList = new ArrayList<MClassInvariant>();
 		ArrayList<Boolean> negatedList = new ArrayList<Boolean>();
@@ -1669,6 +1680,13 @@ public final class MSystemState {
 			}
 		}
 
+		CHECK_TIME.record(System.nanoTime() - start);
+		INVARIANTS_EVALUATED.add(numChecked);
+		INVARIANTS_FAILED.add(numFailed);
+		event.invariants = numChecked;
+		event.failures = numFailed;
+		event.commit();
+		
 		long t = System.currentTimeMillis() - tAll;
 		String timeStr = t % 1000 + "s";
 		timeStr = (t / 1000) + "." + StringUtil.leftPad(timeStr, 4, '0');
@@ -1681,98 +1699,53 @@ public final class MSystemState {
 
 	/**
 	 * Checks the whole/part hierarchy.
+	 * The violations are maintained by the hierarchy when links are
+	 * inserted or removed, so only the violations are visited.
 	 */
 	private boolean checkWholePartLink(PrintWriter out) {
 		boolean valid = true;
-		boolean isCyclic = false;
-		DirectedGraph<MObject, MWholePartLink> fWholePartLinkGraph = getWholePartLinkGraph();
-		List<MObject> sharedObjects = new ArrayList<MObject>();
-		
-		MWholePartLink wholePartLink = null;
-		MObject source = null;
-		MObject target = null;		
-		Iterator<MWholePartLink> edgeIter = fWholePartLinkGraph.edgeIterator();
-		while (edgeIter.hasNext()) {
-			wholePartLink = edgeIter.next();
-			source = wholePartLink.source();
-			target = wholePartLink.target();
-			// ****************************************************************
-			// the link is irreflexive
-			// ****************************************************************
+		
+		// ****************************************************************
+		// the link is irreflexive
+		// ****************************************************************
+		for (MWholePartLink wholePartLink : fWholePartHierarchy.getCycleLinks()) {
 			if (wholePartLink.isReflexive()) {
-				out.println("Error: Object `" + source.name()
+				out.println("Error: Object `" + wholePartLink.source().name()
 						+ "' cannot be a part of itself.");
 				valid = false;
 			}
-			// ****************************************************************
-			// check for SHARED OBJECTs OF THE COMPOSITION RELATIONSHIP
-			// ****************************************************************
-			if ((wholePartLink.association().aggregationKind() == MAggregationKind.COMPOSITION)
-					&& !sharedObjects.contains(target)) {
-				// finding all edges (links) whose target is the target object
-				// of the new link
-				for (MObject tmpSource : fWholePartLinkGraph.sourceNodeSet(target)) {
-					for (MWholePartLink tmpWholePartLink : fWholePartLinkGraph.edgesBetween(tmpSource, target)) {
-						MLink l = tmpWholePartLink;
-						if ((l.association().aggregationKind() == MAggregationKind.COMPOSITION)
-								&& (!wholePartLink.equals(l))
-								&& !sharedObjects.contains(target)
-								&& tmpWholePartLink.target().equals(target)) {
-							
-							if (!associationsHaveSubsetsRelation(l.association(), wholePartLink.association()) &&
-								!associationsHaveRedefinitionRelation(l.association(), wholePartLink.association())) {
-								out.println("Error: Object `" + target.name()
-										+ "' is shared by object `" + source.name()
-										+ "' and object `" + tmpSource.name()
-										+ "'.");
-								sharedObjects.add(target);
-								valid = false;
-							}
-						}
-					}
+		}
+		
+		// ****************************************************************
+		// check for SHARED OBJECTs OF THE COMPOSITION RELATIONSHIP
+		// ****************************************************************
+		for (MObject target : fWholePartHierarchy.getSharedParts()) {
+			for (MWholePartLink wholePartLink : fWholePartHierarchy.getOwners(target)) {
+				MWholePartLink other = fWholePartHierarchy.getConflictingOwner(wholePartLink);
+				if (other != null) {
+					out.println("Error: Object `" + target.name()
+							+ "' is shared by object `" + wholePartLink.source().name()
+							+ "' and object `" + other.source().name()
+							+ "'.");
+					valid = false;
+					break;
 				}
 			}
-			// ****************************************************************
-			// check for cycles that might be occurred when adding the new
-			// whole/part link
-			// ****************************************************************
-			if (!isCyclic && fWholePartLinkGraph.existsPath(target, source)) {
-				out
-						.println("Error: There is a cycle in the part-whole hierarchy. Object `"
-								+ source.name()
-								+ "' is a direct or indirect part of `"
-								+ target.name() + "'.");
-				isCyclic = true;
-				valid = false;
-			}
 		}
-		return valid;
-	}
-
-	private boolean associationsHaveSubsetsRelation(MAssociation association, MAssociation association2) {
-		
-		Set<MAssociation> allSubsettingAssociations = association.getSubsettedByClosure();
-		if (allSubsettingAssociations.contains(association2))
-			return true;
-		
-		Set<MAssociation> allSubsettedAssociations = association.getSubsetsClosure();		
-		if (allSubsettedAssociations.contains(association2))
-			return true;
-			
-		return false;
-	}
-
-	private boolean associationsHaveRedefinitionRelation(MAssociation association, MAssociation association2) {
-			
-		Set<MAssociation> allRedefiningAssociations = association.getRedefinedByClosure();
-		if (allRedefiningAssociations.contains(association2))
-			return true;
 		
-		Set<MAssociation> allRedefinedAssociations = association.getRedefinesClosure();		
-		if (allRedefinedAssociations.contains(association2))
-			return true;
+		// ****************************************************************
+		// check for cycles
+		// ****************************************************************
+		if (!fWholePartHierarchy.getCycleLinks().isEmpty()) {
+			MWholePartLink wholePartLink = fWholePartHierarchy.getCycleLinks().iterator().next();
+			out.println("Error: There is a cycle in the part-whole hierarchy. Object `"
+							+ wholePartLink.source().name()
+							+ "' is a direct or indirect part of `"
+							+ wholePartLink.target().name() + "'.");
+			valid = false;
+		}
 		
-		return false;
+		return valid;
 	}
 
 	/**
@@ -1789,11 +1762,33 @@ public final class MSystemState {
 	 */
 	public boolean checkStructure(PrintWriter out, boolean reportAllErrors) {
 		long start = System.currentTimeMillis();
+		StructureCheckEvent event = new StructureCheckEvent();
+		event.begin();
+		long startNanos = System.nanoTime();
 		
-		boolean res = true;
 		out.println("checking structure...");
 		out.flush();
 		
+		boolean res = checkStructureConstraints(out, reportAllErrors);
+		
+		STRUCTURE_CHECK_TIME.record(System.nanoTime() - startNanos);
+		if (!res)
+			STRUCTURE_VIOLATIONS.inc();
+		event.valid = res;
+		event.commit();
+		
+		out.flush();
+
+		if (!Options.testMode) {
+			long duration = System.currentTimeMillis() - start;
+			out.println(String.format("checked structure in %,dms.", duration));
+		}
+		
+		return res;
+	}
+
+	private boolean checkStructureConstraints(PrintWriter out, boolean reportAllErrors) {
+		boolean res = true;
 		updateDerivedValues(true);
 		
 		// check the whole/part hierarchy
@@ -1807,13 +1802,6 @@ public final class MSystemState {
 			res = checkStructure(assoc, out, reportAllErrors) && res;
 			if (!reportAllErrors && !res) return false;
 		}
-
-		out.flush();
-
-		if (!Options.testMode) {
-			long duration = System.currentTimeMillis() - start;
-			out.println(String.format("checked structure in %,dms.", duration));
-		}
 		
 		return res;
 	}
@@ -0,0 +1,390 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.sys;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.tzi.use.uml.mm.MAggregationKind;
+import org.tzi.use.uml.mm.MAssociation;
+
+/**
+ * Incrementally maintained whole/part hierarchy of a system state.
+ * <p>
+ * The links which do not close a cycle are kept in a topological order
+ * of their objects (Pearce/Kelly). Inserting a link only visits
+ * the objects between the orders of its ends, so cycles are detected
+ * when a link is inserted. Links closing a cycle are kept separately
+ * and are retried when a link of the order is removed.
+ * </p>
+ * <p>
+ * The composite owners of each part are counted on insertion, too.
+ * Therefore, shared parts and cycles are known without traversing
+ * the whole hierarchy.
+ * </p>
+ */
+final class MWholePartHierarchy {
+
+	private static final class Node {
+		final MObject object;
+		
+		/**
+		 * Position in the topological order
+		 */
+		int order;
+		
+		/**
+		 * Number of links connected to this object
+		 */
+		int degree = 0;
+		
+		/**
+		 * Used to mark visited nodes during a search
+		 */
+		int mark = 0;
+		
+		/**
+		 * Ordered links to the parts of this object
+		 */
+		final List<MWholePartLink> outgoing = new ArrayList<MWholePartLink>(2);
+		
+		/**
+		 * Ordered links to the wholes of this object
+		 */
+		final List<MWholePartLink> incoming = new ArrayList<MWholePartLink>(2);
+		
+		/**
+		 * All composition links to the composites of this object
+		 */
+		final List<MWholePartLink> owners = new ArrayList<MWholePartLink>(1);
+		
+		Node(MObject object, int order) {
+			this.object = object;
+			this.order = order;
+		}
+	}
+	
+	private static final Comparator<Node> ORDER_COMPARATOR = new Comparator<Node>() {
+		@Override
+		public int compare(Node n1, Node n2) {
+			return Integer.compare(n1.order, n2.order);
+		}
+	};
+	
+	private final Map<MObject, Node> nodes = new HashMap<MObject, Node>();
+	
+	private final Set<MWholePartLink> links = new HashSet<MWholePartLink>();
+	
+	/**
+	 * Links which close a cycle and are therefore not part of the order.
+	 */
+	private final Set<MWholePartLink> cycleLinks = new LinkedHashSet<MWholePartLink>();
+	
+	/**
+	 * Parts with more than one composite
+	 */
+	private final Set<MObject> sharedParts = new LinkedHashSet<MObject>();
+	
+	private int nextOrder = 0;
+	
+	private int currentMark = 0;
+	
+	MWholePartHierarchy() { }
+	
+	/**
+	 * Copy constructor. Links and objects are shared. 
+	 */
+	MWholePartHierarchy(MWholePartHierarchy other) {
+		for (Node n : other.nodes.values()) {
+			Node copy = new Node(n.object, n.order);
+			copy.degree = n.degree;
+			copy.outgoing.addAll(n.outgoing);
+			copy.incoming.addAll(n.incoming);
+			copy.owners.addAll(n.owners);
+			nodes.put(copy.object, copy);
+		}
+		
+		links.addAll(other.links);
+		cycleLinks.addAll(other.cycleLinks);
+		sharedParts.addAll(other.sharedParts);
+		nextOrder = other.nextOrder;
+	}
+	
+	/**
+	 * Adds a link of an aggregation or composition.
+	 * Duplicates are ignored.
+	 */
+	void add(MWholePartLink link) {
+		if (!links.add(link))
+			return;
+		
+		Node source = getOrCreateNode(link.source());
+		Node target = getOrCreateNode(link.target());
+		++source.degree;
+		++target.degree;
+		
+		if (!addOrdered(link, source, target)) {
+			cycleLinks.add(link);
+		}
+		
+		if (isComposition(link)) {
+			target.owners.add(link);
+			updateShared(target);
+		}
+	}
+	
+	/**
+	 * Removes the whole/part link of <code>link</code>
+	 * if it is part of the hierarchy. 
+	 */
+	void remove(MWholePartLink link) {
+		if (!links.remove(link))
+			return;
+		
+		Node source = nodes.get(link.source());
+		Node target = nodes.get(link.target());
+		
+		if (!cycleLinks.remove(link)) {
+			source.outgoing.remove(link);
+			target.incoming.remove(link);
+			
+			// the cycle may be broken now
+			if (!cycleLinks.isEmpty()) {
+				retryCycleLinks();
+			}
+		}
+		
+		if (target.owners.remove(link)) {
+			updateShared(target);
+		}
+		
+		if (--source.degree == 0)
+			nodes.remove(source.object);
+		
+		if (--target.degree == 0)
+			nodes.remove(target.object);
+	}
+	
+	/**
+	 * <code>true</code> if the link is part of a cycle.
+	 */
+	boolean closesCycle(MWholePartLink link) {
+		return cycleLinks.contains(link);
+	}
+	
+	/**
+	 * Links which close a cycle in insertion order.
+	 * If this set is empty, the hierarchy is acyclic.
+	 */
+	Set<MWholePartLink> getCycleLinks() {
+		return Collections.unmodifiableSet(cycleLinks);
+	}
+	
+	/**
+	 * Parts which are owned by more than one composite. 
+	 */
+	Set<MObject> getSharedParts() {
+		return Collections.unmodifiableSet(sharedParts);
+	}
+	
+	/**
+	 * Returns a composition link to the part of <code>link</code>
+	 * which conflicts with <code>link</code> or <code>null</code>.
+	 */
+	MWholePartLink getConflictingOwner(MWholePartLink link) {
+		Node target = nodes.get(link.target());
+		if (target == null) return null;
+		
+		for (MWholePartLink other : target.owners) {
+			if (!other.equals(link) && !haveSubsetsOrRedefinitionRelation(other.association(), link.association())) {
+				return other;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Returns the composition links to the composites of <code>part</code>.
+	 */
+	List<MWholePartLink> getOwners(MObject part) {
+		Node n = nodes.get(part);
+		if (n == null) return Collections.emptyList();
+		return Collections.unmodifiableList(n.owners);
+	}
+	
+	private Node getOrCreateNode(MObject object) {
+		Node n = nodes.get(object);
+		if (n == null) {
+			n = new Node(object, nextOrder++);
+			nodes.put(object, n);
+		}
+		return n;
+	}
+	
+	private static boolean isComposition(MWholePartLink link) {
+		return link.association().aggregationKind() == MAggregationKind.COMPOSITION;
+	}
+	
+	private void updateShared(Node part) {
+		boolean shared = false;
+		
+		for (int i = 0; i < part.owners.size() && !shared; ++i) {
+			if (getConflictingOwner(part.owners.get(i)) != null)
+				shared = true;
+		}
+		
+		if (shared)
+			sharedParts.add(part.object);
+		else
+			sharedParts.remove(part.object);
+	}
+	
+	private void retryCycleLinks() {
+		for (MWholePartLink link : new ArrayList<MWholePartLink>(cycleLinks)) {
+			if (addOrdered(link, nodes.get(link.source()), nodes.get(link.target()))) {
+				cycleLinks.remove(link);
+			}
+		}
+	}
+	
+	/**
+	 * Adds the link to the order if it does not close a cycle.
+	 * @return <code>false</code>, if the link closes a cycle.
+	 */
+	private boolean addOrdered(MWholePartLink link, Node source, Node target) {
+		if (source == target)
+			return false;
+		
+		if (source.order > target.order) {
+			List<Node> forward = new ArrayList<Node>();
+			// all nodes reachable from the target which must move behind the source
+			if (!searchForward(target, source, forward))
+				return false;
+			
+			List<Node> backward = new ArrayList<Node>();
+			searchBackward(source, target.order, backward);
+			
+			reorder(backward, forward);
+		}
+		
+		source.outgoing.add(link);
+		target.incoming.add(link);
+		return true;
+	}
+	
+	/**
+	 * Collects all nodes reachable from <code>start</code> with an order
+	 * less than the order of <code>stop</code>.
+	 * @return <code>false</code>, if <code>stop</code> is reachable. 
+	 */
+	private boolean searchForward(Node start, Node stop, List<Node> result) {
+		int mark = ++currentMark;
+		int upperBound = stop.order;
+		Deque<Node> stack = new ArrayDeque<Node>();
+		
+		start.mark = mark;
+		stack.push(start);
+		
+		while (!stack.isEmpty()) {
+			Node n = stack.pop();
+			result.add(n);
+			
+			for (MWholePartLink l : n.outgoing) {
+				Node next = nodes.get(l.target());
+				if (next == stop)
+					return false;
+				
+				if (next.mark != mark && next.order < upperBound) {
+					next.mark = mark;
+					stack.push(next);
+				}
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Collects all nodes from which <code>start</code> is reachable 
+	 * with an order greater than <code>lowerBound</code>.
+	 */
+	private void searchBackward(Node start, int lowerBound, List<Node> result) {
+		int mark = ++currentMark;
+		Deque<Node> stack = new ArrayDeque<Node>();
+		
+		start.mark = mark;
+		stack.push(start);
+		
+		while (!stack.isEmpty()) {
+			Node n = stack.pop();
+			result.add(n);
+			
+			for (MWholePartLink l : n.incoming) {
+				Node next = nodes.get(l.source());
+				
+				if (next.mark != mark && next.order > lowerBound) {
+					next.mark = mark;
+					stack.push(next);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Places the nodes of <code>backward</code> before the nodes of
+	 * <code>forward</code> by reusing their positions.
+	 */
+	private void reorder(List<Node> backward, List<Node> forward) {
+		Collections.sort(backward, ORDER_COMPARATOR);
+		Collections.sort(forward, ORDER_COMPARATOR);
+		
+		int[] positions = new int[backward.size() + forward.size()];
+		int i = 0;
+		for (Node n : backward) positions[i++] = n.order;
+		for (Node n : forward) positions[i++] = n.order;
+		Arrays.sort(positions);
+		
+		i = 0;
+		for (Node n : backward) n.order = positions[i++];
+		for (Node n : forward) n.order = positions[i++];
+	}
+	
+	/**
+	 * <code>true</code>, if the associations are related by
+	 * subsets or redefines, i. e., their links do not share a part.
+	 */
+	static boolean haveSubsetsOrRedefinitionRelation(MAssociation association, MAssociation association2) {
+		return association.getSubsettedByClosure().contains(association2)
+				|| association.getSubsetsClosure().contains(association2)
+				|| association.getRedefinedByClosure().contains(association2)
+				|| association.getRedefinesClosure().contains(association2);
+	}
+}
@@ -20,6 +20,7 @@
 package org.tzi.use.uml.sys;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.tzi.use.uml.sys.events.Event;
@@ -41,7 +42,8 @@ public class StatementEvaluationResult {
 	private StateDifference fStateDifference = new StateDifference();
 	private MSequenceStatement fInverseStatement = new MSequenceStatement();
 	private EvaluationFailedException fException = null;
-	private List<Event> fEvents = new ArrayList<Event>();
+	/** Created on the first appended event */
+	private List<Event> fEvents = null;
 	
 
 	/**
@@ -123,6 +125,9 @@ public class StatementEvaluationResult {
 	 * @return The <code>List</code> of events.
 	 */
 	public List<Event> getEvents() {
+		if (fEvents == null)
+			return Collections.emptyList();
+		
 		return fEvents;
 	}
 	
@@ -134,6 +139,9 @@ public class StatementEvaluationResult {
 	public void appendEvent(Event event) {
 		if (event == null) return;
 		
+		if (fEvents == null)
+			fEvents = new ArrayList<Event>();
+		
 		fEvents.add(event);
 	}
 }
@@ -0,0 +1,153 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.sys.events;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * Event bus of a system, which keeps track of the event types
+ * its subscribers are interested in.
+ * This allows to skip the creation of events nobody
+ * listens to (see {@link #hasSubscribers(Class)}).
+ */
+public class SystemEventBus extends EventBus {
+
+	/**
+	 * The parameter types of the subscriber methods of each registered object.
+	 */
+	private final Map<Object, List<Class<?>>> subscribers = new IdentityHashMap<Object, List<Class<?>>>();
+
+	/**
+	 * Number of subscriber methods per parameter type
+	 */
+	private final Map<Class<?>, Integer> subscribedTypes = new ConcurrentHashMap<Class<?>, Integer>();
+
+	/**
+	 * Cached results of {@link #hasSubscribers(Class)}.
+	 * Cleared on each change of the subscribers. 
+	 */
+	private final Map<Class<?>, Boolean> hasSubscribersCache = new ConcurrentHashMap<Class<?>, Boolean>();
+
+	public SystemEventBus(String identifier) {
+		super(identifier);
+	}
+
+	@Override
+	public void register(Object object) {
+		super.register(object);
+
+		synchronized (subscribers) {
+			if (subscribers.containsKey(object))
+				return;
+
+			List<Class<?>> types = subscribedTypes(object.getClass());
+			subscribers.put(object, types);
+
+			for (Class<?> type : types) {
+				subscribedTypes.merge(type, Integer.valueOf(1), Integer::sum);
+			}
+			hasSubscribersCache.clear();
+		}
+	}
+
+	@Override
+	public void unregister(Object object) {
+		super.unregister(object);
+
+		synchronized (subscribers) {
+			List<Class<?>> types = subscribers.remove(object);
+			if (types == null)
+				return;
+
+			for (Class<?> type : types) {
+				subscribedTypes.computeIfPresent(type, (t, count) -> count.intValue() == 1 ? null : Integer.valueOf(count.intValue() - 1));
+			}
+			hasSubscribersCache.clear();
+		}
+	}
+
+	/**
+	 * <code>true</code>, if an event of type <code>eventType</code>
+	 * would be delivered to at least one subscriber. 
+	 * @param eventType The type of the event to post.
+	 */
+	public boolean hasSubscribers(Class<? extends Event> eventType) {
+		Boolean result = hasSubscribersCache.get(eventType);
+
+		if (result == null) {
+			synchronized (subscribers) {
+				result = Boolean.FALSE;
+				for (Class<?> type : subscribedTypes.keySet()) {
+					if (type.isAssignableFrom(eventType)) {
+						result = Boolean.TRUE;
+						break;
+					}
+				}
+				hasSubscribersCache.put(eventType, result);
+			}
+		}
+
+		return result.booleanValue();
+	}
+
+	/**
+	 * Collects the parameter types of all methods annotated with {@link Subscribe}
+	 * declared by <code>cls</code> or one of its super types.
+	 * Like the event bus, overridden methods are only considered once.
+	 */
+	private static List<Class<?>> subscribedTypes(Class<?> cls) {
+		List<Class<?>> result = new ArrayList<Class<?>>();
+		Set<String> signatures = new HashSet<String>();
+		Set<Class<?>> visited = new HashSet<Class<?>>();
+		List<Class<?>> toVisit = new ArrayList<Class<?>>();
+		toVisit.add(cls);
+
+		while (!toVisit.isEmpty()) {
+			Class<?> current = toVisit.remove(toVisit.size() - 1);
+			if (current == null || !visited.add(current))
+				continue;
+
+			for (Method m : current.getDeclaredMethods()) {
+				if (m.isAnnotationPresent(Subscribe.class) && !m.isSynthetic()
+						&& m.getParameterCount() == 1
+						&& signatures.add(m.getName() + "(" + m.getParameterTypes()[0].getName() + ")")) {
+					result.add(m.getParameterTypes()[0]);
+				}
+			}
+
+			toVisit.add(current.getSuperclass());
+			for (Class<?> i : current.getInterfaces()) {
+				toVisit.add(i);
+			}
+		}
+
+		return result;
+	}
+}
@@ -193,7 +193,7 @@ public class SoilLibrary {
 			if (v.isUndefined()) return null;
 			
 			String value = ((StringValue)v).value();
-			System.out.println(value);
+			context.getSystem().getOutput().println(value);
 			
 			return null;
 		}
@@ -224,7 +224,7 @@ public class SoilLibrary {
 			if (v.isUndefined()) return null;
 			
 			String value = ((StringValue)v).value();
-			System.out.print(value);
+			context.getSystem().getOutput().print(value);
 			
 			return null;
 		}
@@ -117,44 +117,36 @@ public class MProtocolStateMachineInstance {
 	public boolean validOperationCall(EvalContext ctx, MOperationCall operationCall, Map<MRegion, Set<MTransition>> possibleTransitions) {
 		
 		boolean foundValid = false;
+		Evaluator oclEvaluator = null;
 		
 		for (Map.Entry<MRegion, MState> entry : this.currentRegionsState.entrySet()) {
 			if (entry.getValue() instanceof MFinalState) {
 				return false;
 			}
 
-			Set<MTransition> outgoingTransitions = entry.getValue().getOutgoing();
-			possibleTransitions.put(entry.getKey(), new LinkedHashSet<MTransition>());
+			Set<MTransition> validTransitions = new LinkedHashSet<MTransition>();
+			possibleTransitions.put(entry.getKey(), validTransitions);
 			
-			for (MTransition t : outgoingTransitions) {
-				MProtocolTransition pt = (MProtocolTransition)t;
-				// some transitions don't have an operation, e. g., create
-				if (pt.getReferred() == null) continue;
+			for (MProtocolTransition pt : stateMachine.getTransitions(entry.getValue(), operationCall.getOperation())) {
+				boolean isValid;
 				
-				boolean isValid = false;
-				
-				if (   operationCall.getOperation().equals(pt.getReferred())
-					|| operationCall.getOperation().isValidOverrideOf(pt.getReferred())) {
-					// Check the guard
-					if (pt.hasGuard()) {
-						Evaluator oclEvaluator = new Evaluator();
-						
-						Value evalResult = 
-							oclEvaluator.eval(t.getGuard(), 
-											  ctx.postState(), ctx.varBindings());
+				// Check the guard
+				if (pt.hasGuard()) {
+					if (oclEvaluator == null)
+						oclEvaluator = new Evaluator();
+					
+					Value evalResult = 
+						oclEvaluator.eval(pt.getGuard(), 
+										  ctx.postState(), ctx.varBindings());
 
-						if (evalResult.isBoolean() && ((BooleanValue)evalResult).isTrue()) {
-							isValid = true;
-						}
-							
-					} else {
-						isValid = true;
-					}
+					isValid = evalResult.isBoolean() && ((BooleanValue)evalResult).isTrue();
+				} else {
+					isValid = true;
 				}
 				
 				if (isValid) {
-					possibleTransitions.get(entry.getKey()).add(t);
-					foundValid = foundValid || isValid;
+					validTransitions.add(pt);
+					foundValid = true;
 				}
 			}
 		}
@@ -0,0 +1,123 @@
+package org.tzi.use.uml.sys.testsuite;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.tzi.use.parser.testsuite.ASTTestCase.TestResult;
+
+/**
+ * The result and timing of a single executed test case.
+ */
+public class MTestResult {
+	
+	/**
+	 * The timing of an evaluated assertion.
+	 */
+	public static class AssertionResult {
+		private final MAssert assertion;
+		private final boolean passed;
+		private final long duration;
+		
+		AssertionResult(MAssert assertion, boolean passed, long duration) {
+			this.assertion = assertion;
+			this.passed = passed;
+			this.duration = duration;
+		}
+
+		public MAssert getAssertion() {
+			return assertion;
+		}
+
+		public boolean isPassed() {
+			return passed;
+		}
+
+		/**
+		 * The evaluation time in nanoseconds
+		 */
+		public long getDuration() {
+			return duration;
+		}
+	}
+	
+	private final int number;
+	private final String name;
+	
+	private TestResult result = null;
+	private String details = null;
+	private Exception exception = null;
+	private long duration = 0;
+	private String output = "";
+	
+	private final List<AssertionResult> assertions = new ArrayList<AssertionResult>();
+	
+	public MTestResult(int number, String name) {
+		this.number = number;
+		this.name = name;
+	}
+	
+	public int getNumber() {
+		return number;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * The result of the test case or <code>null</code>
+	 * if it raised an exception.
+	 */
+	public TestResult getResult() {
+		return result;
+	}
+	
+	void setResult(TestResult result, String details) {
+		this.result = result;
+		this.details = details;
+	}
+	
+	public String getDetails() {
+		return details;
+	}
+	
+	public Exception getException() {
+		return exception;
+	}
+	
+	void setException(Exception exception) {
+		this.exception = exception;
+	}
+	
+	/**
+	 * The execution time of the test case in nanoseconds
+	 */
+	public long getDuration() {
+		return duration;
+	}
+	
+	void setDuration(long duration) {
+		this.duration = duration;
+	}
+	
+	/**
+	 * The output of SOIL operations like <code>WriteLine</code>
+	 * written while executing the test case.
+	 */
+	public String getOutput() {
+		return output;
+	}
+	
+	void setOutput(String output) {
+		this.output = output;
+	}
+	
+	public void addAssertion(MAssert assertion, boolean passed, long duration) {
+		assertions.add(new AssertionResult(assertion, passed, duration));
+	}
+	
+	public List<AssertionResult> getAssertions() {
+		return Collections.unmodifiableList(assertions);
+	}
+}
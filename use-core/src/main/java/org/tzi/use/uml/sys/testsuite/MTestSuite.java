@@ -1,9 +1,18 @@
 package org.tzi.use.uml.sys.testsuite;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.antlr.runtime.Token;
+import org.tzi.use.config.Options;
 import org.tzi.use.parser.Context;
 import org.tzi.use.parser.soil.ast.ASTStatement;
 import org.tzi.use.parser.testsuite.ASTTestCase;
@@ -28,6 +37,8 @@ public class MTestSuite {
 	
 	private PrintWriter output = null;
 	
+	private PrintWriter timings = null;
+	
 	public MTestSuite(Token name, MModel model, List<ASTStatement> setup, List<ASTTestCase> testCases) {
 		this.name = name;
 		this.setupStatements = setup;
@@ -44,44 +55,66 @@ public class MTestSuite {
 		this.run();
 	}
 	
+	/**
+	 * Runs the test suite and writes the timing of each test case 
+	 * and assertion as tab separated values to <code>timings</code>.
+	 */
+	public void run(PrintWriter output, PrintWriter timings) {
+		this.output = output;
+		this.timings = timings;
+		this.run();
+	}
+	
+	/**
+	 * Executes the setup statements once. Each test case is executed
+	 * on its own copy of the resulting system, using
+	 * {@link Options#TESTSUITE_NUMTHREADS} threads.
+	 * The results and the output of each test case are reported
+	 * in the order of the test cases.
+	 */
 	public void run() {
-		MSystem system;
-		int testNr = 1;
+		MSystem fixture;
+		
+		// execute the setup statements
+		try {
+			fixture = setUp();
+		} catch (Exception e) {
+			System.err.println("Error during test setup:");
+			System.err.println(e.getMessage());
+			return;
+		}
+		
+		if (fixture == null) {
+			System.err.println("Error during test setup.");
+			return;
+		}
+		
+		List<MTestResult> results = execute(fixture);
 		int failedTests = 0;
 		
-		for (ASTTestCase test : testCases) {
-			// execute the setup statements
-			try {
-				system = setUp();
-			} catch (Exception e) {
-				System.err.println("Error during test setup:");
-				System.err.println(e.getMessage());
-				return;
-			}
-			
-			report("Executing test " + testNr + "/" + testCases.size() + " `" + test.getName().getText() + "'");
+		writeTimings(results);
+		
+		for (MTestResult result : results) {
+			report("Executing test " + result.getNumber() + "/" + testCases.size() + " `" + result.getName() + "'");
+			printOutput(result);
 			
-			try {
-				TestResult result = test.execute(system); 
-				
-				if (result == TestResult.OK) {
-					reportln("... success");
-				} else if (result == TestResult.FAILURE) {
-					reportln("... failure");
-					reportln("  " + test.getFailureDetails());
-					failedTests++;
-				} else if (result == TestResult.ERROR) {
-					reportln("... error");
-					reportln("  " + test.getFailureDetails());
-					return;
-				}
-			} catch (Exception e) {
+			if (result.getException() != null) {
 				System.err.println("... error");
-				System.err.println("  " + e.getMessage());
+				System.err.println("  " + result.getException().getMessage());
 				return;
 			}
 			
-			testNr++;
+			if (result.getResult() == TestResult.OK) {
+				reportln("... success");
+			} else if (result.getResult() == TestResult.FAILURE) {
+				reportln("... failure");
+				reportln("  " + result.getDetails());
+				failedTests++;
+			} else if (result.getResult() == TestResult.ERROR) {
+				reportln("... error");
+				reportln("  " + result.getDetails());
+				return;
+			}
 		}
 		
 		if (failedTests > 0) {
@@ -91,6 +124,141 @@ public class MTestSuite {
 		}
 	}
 	
+	/**
+	 * Executes the test cases until the first error.
+	 * @return The results of the executed test cases in the order of the test cases.
+	 */
+	private List<MTestResult> execute(final MSystem fixture) {
+		int numThreads = Math.max(1, Math.min(Options.TESTSUITE_NUMTHREADS, testCases.size()));
+		final MTestResult[] results = new MTestResult[testCases.size()];
+		
+		if (numThreads == 1) {
+			for (int i = 0; i < testCases.size(); ++i) {
+				results[i] = execute(fixture, i);
+				if (isError(results[i])) break;
+			}
+		} else {
+			// index of the first test case with an error
+			final AtomicInteger firstError = new AtomicInteger(testCases.size());
+			ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+			
+			try {
+				List<Future<?>> futures = new ArrayList<Future<?>>(testCases.size());
+				
+				for (int i = 0; i < testCases.size(); ++i) {
+					final int index = i;
+					futures.add(executor.submit(new Runnable() {
+						@Override
+						public void run() {
+							if (index > firstError.get()) return;
+							
+							results[index] = execute(fixture, index);
+							
+							if (isError(results[index])) {
+								int current;
+								do {
+									current = firstError.get();
+								} while (index < current && !firstError.compareAndSet(current, index));
+							}
+						}
+					}));
+				}
+				
+				for (Future<?> f : futures) {
+					try {
+						f.get();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						break;
+					} catch (ExecutionException e) {
+						// execute handles all exceptions
+					}
+				}
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+		
+		List<MTestResult> resultList = new ArrayList<MTestResult>(results.length);
+		for (MTestResult r : results) {
+			if (r == null) break;
+			resultList.add(r);
+			if (isError(r)) break;
+		}
+		
+		return resultList;
+	}
+	
+	private MTestResult execute(MSystem fixture, int index) {
+		ASTTestCase test = testCases.get(index);
+		MTestResult result = new MTestResult(index + 1, test.getName().getText());
+		// the output is buffered, because test cases can run in parallel
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		PrintStream out = new PrintStream(buffer, true);
+		long start = System.nanoTime();
+		
+		try {
+			MSystem system = new MSystem(fixture);
+			system.setOutput(out);
+			TestResult testResult = test.execute(system, result);
+			result.setResult(testResult, test.getFailureDetails());
+		} catch (Exception e) {
+			result.setException(e);
+		}
+		
+		result.setDuration(System.nanoTime() - start);
+		out.flush();
+		result.setOutput(buffer.toString());
+		return result;
+	}
+	
+	private static boolean isError(MTestResult result) {
+		return result.getException() != null || result.getResult() == TestResult.ERROR;
+	}
+	
+	/**
+	 * Writes the buffered output of a test case to <code>System.out</code>,
+	 * where it was written before the test cases were run in parallel.
+	 */
+	private void printOutput(MTestResult result) {
+		if (result.getOutput().isEmpty()) return;
+		
+		if (output != null) output.flush();
+		System.out.print(result.getOutput());
+		System.out.flush();
+	}
+	
+	private void writeTimings(List<MTestResult> results) {
+		if (timings == null) return;
+		
+		timings.println("kind\ttest\tname\tresult\tnanos");
+		
+		for (MTestResult result : results) {
+			timings.print("test\t");
+			timings.print(result.getNumber());
+			timings.print('\t');
+			timings.print(result.getName());
+			timings.print('\t');
+			timings.print(result.getResult() == null ? TestResult.ERROR : result.getResult());
+			timings.print('\t');
+			timings.println(result.getDuration());
+			
+			for (MTestResult.AssertionResult ass : result.getAssertions()) {
+				timings.print("assert\t");
+				timings.print(result.getNumber());
+				timings.print('\t');
+				timings.print("line ");
+				timings.print(ass.getAssertion().getPosition().line());
+				timings.print('\t');
+				timings.print(ass.isPassed() ? TestResult.OK : TestResult.FAILURE);
+				timings.print('\t');
+				timings.println(ass.getDuration());
+			}
+		}
+		
+		timings.flush();
+	}
+	
 	private MSystem setUp() throws MSystemException, CompilationFailedException {
 		
 		MSystem system = new MSystem(model);
@@ -85,6 +85,19 @@ public class UniqueNameGenerator {
         fStack.push(new StackEntry());
     }
     
+    /**
+     * Copy constructor. The copy generates the same names
+     * as <code>other</code> from now on.
+     */
+    public UniqueNameGenerator(UniqueNameGenerator other) {
+    	fStack = new Stack<StackEntry>();
+    	for (StackEntry e : other.fStack) {
+    		StackEntry copy = new StackEntry(e.nameCounters);
+    		copy.numPushes = e.numPushes;
+    		fStack.push(copy);
+    	}
+    }
+    
     /**
      * Creates a new name by appending <code>name</code> with a
      * number. Numbering starts with 1. Subsequent calls will
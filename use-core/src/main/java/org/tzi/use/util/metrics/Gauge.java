@@ -0,0 +1,43 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A value which is set to the current measurement, e.g., a size.
+ */
+public final class Gauge {
+	private final AtomicLong fValue = new AtomicLong();
+	
+	Gauge() { }
+	
+	public void set(long value) {
+		fValue.set(value);
+	}
+	
+	public long get() {
+		return fValue.get();
+	}
+	
+	void reset() {
+		fValue.set(0);
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the distribution of non-negative values, e.g., durations in nanoseconds.
+ * Values are counted in buckets of powers of two, so percentiles are
+ * upper bounds with a relative error of at most factor two.
+ */
+public final class Histogram {
+	private final LongAdder fCount = new LongAdder();
+	private final LongAdder fSum = new LongAdder();
+	private final LongAccumulator fMax = new LongAccumulator(Math::max, 0);
+	
+	/** bucket i counts the values v with 2^(i-1) <= v < 2^i */
+	private final AtomicLongArray fBuckets = new AtomicLongArray(64);
+	
+	Histogram() { }
+	
+	public void record(long value) {
+		if (value < 0) value = 0;
+		
+		fCount.increment();
+		fSum.add(value);
+		fMax.accumulate(value);
+		fBuckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+	}
+	
+	public long getCount() {
+		return fCount.sum();
+	}
+	
+	public long getSum() {
+		return fSum.sum();
+	}
+	
+	public long getMax() {
+		return fMax.get();
+	}
+	
+	public double getMean() {
+		long count = getCount();
+		return count == 0 ? 0 : (double)getSum() / count;
+	}
+	
+	/**
+	 * Returns an upper bound of the <code>p</code>-th percentile (0 &lt; p &lt;= 100).
+	 */
+	public long getPercentile(double p) {
+		long count = getCount();
+		if (count == 0)
+			return 0;
+		
+		long rank = (long)Math.ceil(count * p / 100.0);
+		long seen = 0;
+		
+		for (int i = 0; i < fBuckets.length(); ++i) {
+			seen += fBuckets.get(i);
+			if (seen >= rank) {
+				long upper = i == 0 ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+				return Math.min(upper, getMax());
+			}
+		}
+		
+		return getMax();
+	}
+	
+	void reset() {
+		fCount.reset();
+		fSum.reset();
+		fMax.reset();
+		for (int i = 0; i < fBuckets.length(); ++i) {
+			fBuckets.set(i, 0);
+		}
+	}
+}
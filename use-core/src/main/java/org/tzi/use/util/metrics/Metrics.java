@@ -0,0 +1,188 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.util.metrics;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.tzi.use.util.Log;
+
+/**
+ * Registry of the counters, gauges and histograms of the core engine.
+ * <p>Instrumented classes obtain their metrics once, e.g.,
+ * <code>private static final Counter EXECUTED = Metrics.counter("statement.executed");</code>.
+ * Names of histograms recording durations end with <code>.time</code>
+ * and are given in nanoseconds.</p>
+ * <p>The values are available through the shell command <code>stats</code>
+ * and the MXBean <code>org.tzi.use:type=Metrics</code>.</p>
+ */
+public final class Metrics {
+	
+	public static final String MBEAN_NAME = "org.tzi.use:type=Metrics";
+	
+	private static final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<String, Gauge> gauges = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+	
+	private Metrics() { }
+	
+	/**
+	 * Returns the counter with the given name. It is created if needed.
+	 */
+	public static Counter counter(String name) {
+		return counters.computeIfAbsent(name, n -> new Counter());
+	}
+	
+	/**
+	 * Returns the gauge with the given name. It is created if needed.
+	 */
+	public static Gauge gauge(String name) {
+		return gauges.computeIfAbsent(name, n -> new Gauge());
+	}
+	
+	/**
+	 * Returns the histogram with the given name. It is created if needed.
+	 */
+	public static Histogram histogram(String name) {
+		return histograms.computeIfAbsent(name, n -> new Histogram());
+	}
+	
+	/**
+	 * Sets all metrics to zero.
+	 */
+	public static void reset() {
+		counters.values().forEach(Counter::reset);
+		gauges.values().forEach(Gauge::reset);
+		histograms.values().forEach(Histogram::reset);
+	}
+	
+	public static SortedMap<String, Long> getCounterValues() {
+		SortedMap<String, Long> result = new TreeMap<>();
+		for (Map.Entry<String, Counter> e : counters.entrySet()) {
+			result.put(e.getKey(), e.getValue().get());
+		}
+		return result;
+	}
+	
+	public static SortedMap<String, Long> getGaugeValues() {
+		SortedMap<String, Long> result = new TreeMap<>();
+		for (Map.Entry<String, Gauge> e : gauges.entrySet()) {
+			result.put(e.getKey(), e.getValue().get());
+		}
+		return result;
+	}
+	
+	public static SortedMap<String, String> getHistogramSummaries() {
+		SortedMap<String, String> result = new TreeMap<>();
+		for (Map.Entry<String, Histogram> e : histograms.entrySet()) {
+			result.put(e.getKey(), summary(e.getKey(), e.getValue()));
+		}
+		return result;
+	}
+	
+	private static String summary(String name, Histogram h) {
+		if (name.endsWith(".time")) {
+			return String.format("count=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms",
+					h.getCount(), h.getMean() / 1e6, h.getPercentile(50) / 1e6,
+					h.getPercentile(99) / 1e6, h.getMax() / 1e6);
+		} else {
+			return String.format("count=%d mean=%.1f p50=%d p99=%d max=%d",
+					h.getCount(), h.getMean(), h.getPercentile(50),
+					h.getPercentile(99), h.getMax());
+		}
+	}
+	
+	/**
+	 * Prints all metrics ordered by their names.
+	 */
+	public static void printReport(PrintWriter out) {
+		out.println("Counters:");
+		for (Map.Entry<String, Long> e : getCounterValues().entrySet()) {
+			out.println(String.format("  %-32s %,d", e.getKey(), e.getValue()));
+		}
+		
+		out.println("Gauges:");
+		for (Map.Entry<String, Long> e : getGaugeValues().entrySet()) {
+			out.println(String.format("  %-32s %,d", e.getKey(), e.getValue()));
+		}
+		
+		out.println("Histograms:");
+		for (Map.Entry<String, String> e : getHistogramSummaries().entrySet()) {
+			out.println(String.format("  %-32s %s", e.getKey(), e.getValue()));
+		}
+		
+		out.flush();
+	}
+	
+	/**
+	 * Registers the MXBean at the platform MBean server.
+	 * Further calls have no effect.
+	 */
+	public static synchronized void registerMBean() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName name = new ObjectName(MBEAN_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(new MBean(), name);
+			}
+		} catch (JMException e) {
+			Log.warn("Could not register metrics MBean: " + e.getMessage());
+		}
+	}
+	
+	private static final class MBean implements MetricsMXBean {
+		@Override
+		public Map<String, Long> getCounters() {
+			return getCounterValues();
+		}
+
+		@Override
+		public Map<String, Long> getGauges() {
+			return getGaugeValues();
+		}
+
+		@Override
+		public Map<String, String> getHistograms() {
+			return getHistogramSummaries();
+		}
+
+		@Override
+		public String getReport() {
+			StringWriter sw = new StringWriter();
+			printReport(new PrintWriter(sw));
+			return sw.toString();
+		}
+
+		@Override
+		public void reset() {
+			Metrics.reset();
+		}
+	}
+}
@@ -0,0 +1,46 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.util.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of the {@link Metrics} registry,
+ * registered as <code>org.tzi.use:type=Metrics</code>.
+ */
+public interface MetricsMXBean {
+	
+	Map<String, Long> getCounters();
+	
+	Map<String, Long> getGauges();
+	
+	/**
+	 * Summaries of all histograms, e.g.,
+	 * <code>count=10 mean=1.2ms p50=1.0ms p99=4.2ms max=4.0ms</code>.
+	 */
+	Map<String, String> getHistograms();
+	
+	/**
+	 * The same report as printed by the shell command <code>stats</code>.
+	 */
+	String getReport();
+	
+	void reset();
+}
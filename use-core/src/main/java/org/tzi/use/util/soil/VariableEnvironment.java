@@ -105,6 +105,16 @@ public class VariableEnvironment {
 		fObjectVisibility = new ArrayDeque<Boolean>(other.fObjectVisibility);
 	}
 	
+	/**
+	 * Creates a copy like {@link #VariableEnvironment(VariableEnvironment)}
+	 * which is bound to the system state <code>systemState</code>.
+	 */
+	public VariableEnvironment copy(MSystemState systemState) {
+		VariableEnvironment result = new VariableEnvironment(this);
+		result.fSystemState = systemState;
+		return result;
+	}
+	
 	/**
 	 * Restores the initial state, which consists of one level, with one
 	 * frame containing no variable mappings
@@ -34,7 +34,10 @@ public class AllTests {
 
     public static Test suite() {
         final TestSuite test = new TestSuite( "All use tests" );
+        test.addTest( org.tzi.use.gen.assl.dynamics.AllTests.suite() );
+        test.addTest( org.tzi.use.gen.tool.AllTests.suite() );
         test.addTest( org.tzi.use.graph.AllTests.suite() );
+        test.addTest( org.tzi.use.main.server.AllTests.suite() );
         test.addTest( org.tzi.use.parser.AllTests.suite() );
         test.addTest( org.tzi.use.uml.AllTests.suite() );
         test.addTest( org.tzi.use.util.AllTests.suite() );
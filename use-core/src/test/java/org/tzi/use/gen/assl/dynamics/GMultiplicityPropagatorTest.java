@@ -0,0 +1,192 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.gen.assl.dynamics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+
+import org.tzi.use.api.UseApiException;
+import org.tzi.use.api.UseModelApi;
+import org.tzi.use.api.UseSystemApi;
+import org.tzi.use.uml.mm.MAggregationKind;
+import org.tzi.use.uml.mm.MAssociation;
+import org.tzi.use.uml.mm.MMultiplicity;
+import org.tzi.use.uml.sys.MObject;
+import org.tzi.use.uml.sys.MSystemState;
+
+/**
+ * Compares the configurations enumerated by the {@link GMultiplicityPropagator}
+ * with all configurations satisfying the multiplicities.
+ */
+public class GMultiplicityPropagatorTest extends TestCase {
+
+	private UseSystemApi systemApi;
+	
+	private MAssociation association;
+	
+	private void createSystem(String multA, String multB) throws UseApiException {
+		UseModelApi modelApi = new UseModelApi("Test");
+		modelApi.createClass("A", false);
+		modelApi.createClass("B", false);
+		association = modelApi.createAssociation("R",
+				"A", "a", multA, MAggregationKind.NONE,
+				"B", "b", multB, MAggregationKind.NONE);
+		
+		systemApi = UseSystemApi.create(modelApi.getModel(), false);
+		systemApi.createObjects("A", "a1", "a2");
+		systemApi.createObjects("B", "b1", "b2", "b3");
+	}
+	
+	private List<List<MObject>> combinations(String[] as, String[] bs) {
+		MSystemState state = systemApi.getSystem().state();
+		List<List<MObject>> result = new ArrayList<List<MObject>>();
+		
+		for (String a : as) {
+			for (String b : bs) {
+				result.add(Arrays.asList(state.objectByName(a), state.objectByName(b)));
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Enumerates all configurations accepted by the propagator.
+	 */
+	private Set<Long> propagated(List<List<MObject>> combinations) {
+		MSystemState state = systemApi.getSystem().state();
+		assertTrue(GMultiplicityPropagator.isApplicable(association, combinations));
+		
+		GMultiplicityPropagator propagator = new GMultiplicityPropagator(association, combinations, state);
+		Set<Long> result = new TreeSet<Long>();
+		long last = -1;
+		long next = propagator.nextConfiguration(0);
+		
+		while (next != GMultiplicityPropagator.NO_CONFIGURATION) {
+			assertTrue("Configurations must be ascending", next > last);
+			result.add(Long.valueOf(next));
+			last = next;
+			next = propagator.nextConfiguration(next + 1);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Checks all configurations by counting the links of each object
+	 * including the links already existing in the system state.
+	 */
+	private Set<Long> bruteForce(List<List<MObject>> combinations) {
+		MSystemState state = systemApi.getSystem().state();
+		MMultiplicity multA = association.associationEnds().get(0).multiplicity();
+		MMultiplicity multB = association.associationEnds().get(1).multiplicity();
+		Set<Long> result = new TreeSet<Long>();
+		
+		for (long config = 0; config < (1L << combinations.size()); ++config) {
+			// number of connected A objects per B object and vice versa
+			Map<MObject, Integer> countA = new HashMap<MObject, Integer>();
+			Map<MObject, Integer> countB = new HashMap<MObject, Integer>();
+			
+			for (int i = 0; i < combinations.size(); ++i) {
+				MObject a = combinations.get(i).get(0);
+				MObject b = combinations.get(i).get(1);
+				int on = (config & (1L << i)) != 0 ? 1 : 0;
+				
+				if (!countB.containsKey(a)) countB.put(a, existingLinks(state, a, 0));
+				if (!countA.containsKey(b)) countA.put(b, existingLinks(state, b, 1));
+				countB.put(a, countB.get(a) + on);
+				countA.put(b, countA.get(b) + on);
+			}
+			
+			boolean valid = true;
+			for (Integer n : countA.values()) valid &= multA.contains(n.intValue());
+			for (Integer n : countB.values()) valid &= multB.contains(n.intValue());
+			
+			if (valid) {
+				result.add(Long.valueOf(config));
+			}
+		}
+		
+		return result;
+	}
+	
+	private int existingLinks(MSystemState state, MObject obj, int end) {
+		return state.getNavigableObjects(obj, association.associationEnds().get(end),
+				association.associationEnds().get(1 - end), null).size();
+	}
+	
+	public void testBounds() throws UseApiException {
+		// each B is linked to exactly one A, an A is linked to at most two Bs
+		createSystem("1", "0..2");
+		List<List<MObject>> combinations = combinations(
+				new String[] {"a1", "a2"}, new String[] {"b1", "b2", "b3"});
+		
+		Set<Long> expected = bruteForce(combinations);
+		Set<Long> actual = propagated(combinations);
+		
+		assertEquals(expected, actual);
+		// 2^3 assignments of the Bs minus the two assigning all Bs to a single A
+		assertEquals(6, actual.size());
+	}
+	
+	public void testLowerBound() throws UseApiException {
+		createSystem("0..*", "2..*");
+		List<List<MObject>> combinations = combinations(
+				new String[] {"a1", "a2"}, new String[] {"b1", "b2", "b3"});
+		
+		Set<Long> actual = propagated(combinations);
+		assertEquals(bruteForce(combinations), actual);
+		
+		// every A is linked to at least two Bs
+		assertFalse(actual.contains(Long.valueOf(0)));
+		assertEquals(16, actual.size());
+	}
+	
+	public void testExistingLinks() throws UseApiException {
+		createSystem("1", "0..2");
+		systemApi.createLink("R", "a1", "b3");
+		
+		// b3 is not tried, but counts for a1
+		List<List<MObject>> combinations = combinations(
+				new String[] {"a1", "a2"}, new String[] {"b1", "b2"});
+		
+		Set<Long> actual = propagated(combinations);
+		assertEquals(bruteForce(combinations), actual);
+		assertEquals(3, actual.size());
+	}
+	
+	public void testMultipleRanges() throws UseApiException {
+		createSystem("0..*", "0,2");
+		List<List<MObject>> combinations = combinations(
+				new String[] {"a1", "a2"}, new String[] {"b1", "b2", "b3"});
+		
+		Set<Long> actual = propagated(combinations);
+		assertEquals(bruteForce(combinations), actual);
+		// none, or two out of three Bs for each A
+		assertEquals(16, actual.size());
+	}
+}
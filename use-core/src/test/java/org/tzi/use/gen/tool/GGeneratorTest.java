@@ -0,0 +1,145 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.gen.tool;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.tzi.use.gen.assl.statics.GInstrCalculatedBarrier;
+import org.tzi.use.gen.assl.statics.GInstruction;
+import org.tzi.use.gen.assl.statics.GProcedure;
+import org.tzi.use.parser.generator.ASSLCompiler;
+import org.tzi.use.parser.use.USECompiler;
+import org.tzi.use.uml.mm.MClassInvariant;
+import org.tzi.use.uml.mm.MModel;
+import org.tzi.use.uml.mm.ModelFactory;
+import org.tzi.use.uml.sys.MSystem;
+import org.tzi.use.util.metrics.Counter;
+import org.tzi.use.util.metrics.Metrics;
+
+/**
+ * Tests the reuse of compiled procedures and calculated barriers
+ * between generator runs.
+ */
+public class GGeneratorTest extends TestCase {
+
+	private static final String SPEC = 
+			"model M\n" +
+			"class A\n" +
+			"attributes\n" +
+			"  x : Integer\n" +
+			"end\n" +
+			"constraints\n" +
+			"context A inv pos: self.x > 0\n";
+	
+	private static final String PROCEDURES = 
+			"procedure gen(n : Integer)\n" +
+			"var as : Sequence(A), k : Integer;\n" +
+			"begin\n" +
+			"  as := CreateN(A, [n]);\n" +
+			"  for a : A in [as] begin\n" +
+			"    [a].x := Try([Sequence{-1, 1, 2}]);\n" +
+			"  end;\n" +
+			"  k := [1];\n" +
+			"end;\n";
+	
+	private MModel fModel;
+	
+	@Override
+	protected void setUp() throws Exception {
+		StringWriter errors = new StringWriter();
+		fModel = USECompiler.compileSpecification(SPEC, "<test>", new PrintWriter(errors), new ModelFactory());
+		assertNotNull(errors.toString(), fModel);
+	}
+	
+	public void testProceduresAreCached() throws IOException {
+		File assl = File.createTempFile("gen", ".assl");
+		try {
+			Files.write(assl.toPath(), PROCEDURES.getBytes(StandardCharsets.UTF_8));
+			
+			GGenerator generator = new GGenerator(new MSystem(fModel));
+			GGeneratorArguments args = GGeneratorArguments.parseCallstring(assl.getPath() + " gen(1)");
+			Counter hits = Metrics.counter("generator.procedures.cached");
+			long before = hits.get();
+			
+			generator.startProcedure(args.getCallString(), args);
+			assertTrue(generator.hasResult());
+			assertEquals(before, hits.get());
+			
+			generator.startProcedure(args.getCallString(), args);
+			assertTrue(generator.hasResult());
+			assertEquals(before + 1, hits.get());
+			
+			// a changed file must be compiled again
+			Files.write(assl.toPath(), (PROCEDURES + "\n").getBytes(StandardCharsets.UTF_8));
+			generator.startProcedure(args.getCallString(), args);
+			assertTrue(generator.hasResult());
+			assertEquals(before + 1, hits.get());
+		} finally {
+			assl.delete();
+		}
+	}
+	
+	public void testBarriersAreMemoized() {
+		List<GProcedure> procedures = ASSLCompiler.compileProcedures(fModel,
+				new ByteArrayInputStream(PROCEDURES.getBytes(StandardCharsets.UTF_8)),
+				"<test>", new PrintWriter(new StringWriter()));
+		assertNotNull(procedures);
+		
+		GProcedure proc = procedures.get(0);
+		List<GInstruction> instructions = proc.instructionList().instructions();
+		int size = instructions.size();
+		
+		GCollectorImpl collector = new GCollectorImpl(false, false);
+		proc.calculateBarriers(collector, fModel);
+		assertEquals(1, collector.getNumCalculatedBarriers());
+		assertEquals(size + 1, instructions.size());
+		GInstruction barrier = instructions.get(size - 1);
+		assertTrue(barrier instanceof GInstrCalculatedBarrier);
+		
+		// same flags, the barrier is only registered again
+		collector = new GCollectorImpl(false, false);
+		proc.calculateBarriers(collector, fModel);
+		assertEquals(1, collector.getNumCalculatedBarriers());
+		assertEquals(size + 1, instructions.size());
+		assertSame(barrier, instructions.get(size - 1));
+		
+		// changed flags require a new calculation
+		MClassInvariant inv = fModel.classInvariants().iterator().next();
+		inv.setNegated(true);
+		collector = new GCollectorImpl(false, false);
+		proc.calculateBarriers(collector, fModel);
+		assertEquals(1, collector.getNumCalculatedBarriers());
+		assertEquals(size + 1, instructions.size());
+		assertNotSame(barrier, instructions.get(size - 1));
+		
+		proc.removeCalculatedBarriers();
+		assertEquals(size, instructions.size());
+		assertFalse(inv.isCheckedByBarrier());
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.gen.tool;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import junit.framework.TestCase;
+
+import org.tzi.use.gen.assl.statics.GInstrBarrier;
+import org.tzi.use.parser.use.USECompiler;
+import org.tzi.use.uml.mm.MModel;
+import org.tzi.use.uml.mm.ModelFactory;
+import org.tzi.use.uml.sys.MSystem;
+
+/**
+ * Tests the concurrent and restarted generator searches.
+ */
+public class GPortfolioSearchTest extends TestCase {
+
+	private static final String SPEC = 
+			"model M\n" +
+			"class A\n" +
+			"attributes\n" +
+			"  x : Integer\n" +
+			"end\n" +
+			"constraints\n" +
+			"context A inv pos: self.x > 0\n";
+	
+	private static final String PROCEDURES = 
+			"procedure gen(n : Integer)\n" +
+			"var as : Sequence(A);\n" +
+			"begin\n" +
+			"  as := CreateN(A, [n]);\n" +
+			"  for a : A in [as] begin\n" +
+			"    [a].x := Try([Sequence{-2, -1, 0, 1}]);\n" +
+			"  end;\n" +
+			"end;\n" +
+			"procedure invalid(n : Integer)\n" +
+			"var as : Sequence(A);\n" +
+			"begin\n" +
+			"  as := CreateN(A, [n]);\n" +
+			"  for a : A in [as] begin\n" +
+			"    [a].x := Try([Sequence{-1, 0}]);\n" +
+			"  end;\n" +
+			"end;\n" +
+			"procedure blocked(n : Integer)\n" +
+			"var as : Sequence(A);\n" +
+			"begin\n" +
+			"  as := CreateN(A, [n]);\n" +
+			"  for a : A in [as] begin\n" +
+			"    [a].x := Try([Sequence{-1, 0}]);\n" +
+			"  end;\n" +
+			"  Barrier([A.allInstances()->forAll(a | a.x < 1)]);\n" +
+			"end;\n";
+	
+	private MSystem fSystem;
+	private File fAssl;
+	
+	@Override
+	protected void setUp() throws Exception {
+		StringWriter errors = new StringWriter();
+		MModel model = USECompiler.compileSpecification(SPEC, "<test>", new PrintWriter(errors), new ModelFactory());
+		assertNotNull(errors.toString(), model);
+		fSystem = new MSystem(model);
+		
+		fAssl = File.createTempFile("gen", ".assl");
+		Files.write(fAssl.toPath(), PROCEDURES.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	@Override
+	protected void tearDown() throws Exception {
+		fAssl.delete();
+	}
+	
+	public void testLuby() {
+		long[] expected = { 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, 1 };
+		
+		for (int i = 0; i < expected.length; ++i) {
+			assertEquals("luby(" + (i + 1) + ")", expected[i], GPortfolioSearch.luby(i + 1));
+		}
+	}
+	
+	public void testPortfolio() throws Exception {
+		GResult result = search("-p 4 " + fAssl.getPath() + " gen(3)");
+		
+		assertTrue(result.collector().validStateFound());
+		assertEquals(6, result.collector().statements().size());
+		// all searches worked on copies of the system
+		assertEquals(0, fSystem.state().allObjects().size());
+		// each search checked at least one state
+		assertTrue(result.collector().numberOfCheckedStates() >= 4);
+	}
+	
+	public void testRestarts() throws Exception {
+		GResult result = search("-rs 1 -r 3 " + fAssl.getPath() + " gen(2)");
+		assertTrue(result.collector().validStateFound());
+		
+		// the limit is shared by all restarts
+		result = search("-rs 1 -l 12 " + fAssl.getPath() + " gen(2)");
+		assertTrue(result.collector().numberOfCheckedStates() <= 12);
+	}
+	
+	public void testNoValidState() throws Exception {
+		// restarted searches stop, when the search space is exhausted
+		GResult result = search("-p 2 -rs 1 " + fAssl.getPath() + " invalid(2)");
+		assertFalse(result.collector().validStateFound());
+		assertTrue(result.collector().numberOfCheckedStates() >= 8);
+	}
+	
+	public void testBarrierStatistics() throws Exception {
+		// all searches explore the whole search space
+		long single = barrierChecks(search("-b " + fAssl.getPath() + " blocked(2)"));
+		long portfolio = barrierChecks(search("-b -p 4 " + fAssl.getPath() + " blocked(2)"));
+		
+		assertTrue(single > 0);
+		assertEquals(4 * single, portfolio);
+	}
+	
+	private long barrierChecks(GResult result) {
+		long checks = 0;
+		for (GInstrBarrier barrier : result.collector().getBarriers()) {
+			checks += barrier.getStatistic().getTotalChecks();
+		}
+		return checks;
+	}
+	
+	private GResult search(String callString) throws IOException, GNoResultException {
+		GGeneratorArguments args = GGeneratorArguments.parseCallstring(callString);
+		assertNotNull(args);
+		
+		GGenerator generator = fSystem.generator();
+		generator.startProcedure(args.getCallString(), args);
+		assertTrue(generator.hasResult());
+		return generator.lastResult();
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.main.server;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+import org.tzi.use.main.server.Protocol.Frame;
+import org.tzi.use.parser.use.USECompiler;
+import org.tzi.use.uml.mm.MModel;
+import org.tzi.use.uml.mm.ModelFactory;
+import org.tzi.use.uml.sys.MSystem;
+
+/**
+ * Tests the {@link UseServer} using loopback clients.
+ */
+public class UseServerTest extends TestCase {
+	
+	private static final String SPEC = 
+			"model M\n" +
+			"class A\n" +
+			"attributes\n" +
+			"  x : Integer\n" +
+			"end\n" +
+			"constraints\n" +
+			"context A inv pos: self.x > 0\n";
+	
+	private MSystem fSystem;
+	private UseServer fServer;
+	private InetSocketAddress fAddress;
+	
+	@Override
+	protected void setUp() throws Exception {
+		StringWriter errors = new StringWriter();
+		MModel model = USECompiler.compileSpecification(SPEC, "<test>", new PrintWriter(errors), new ModelFactory());
+		assertNotNull(errors.toString(), model);
+		
+		fSystem = new MSystem(model);
+		fServer = new UseServer(fSystem, 4);
+		fServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+		fAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), fServer.getPort());
+	}
+	
+	@Override
+	protected void tearDown() throws Exception {
+		fServer.close();
+	}
+	
+	public void testEvaluate() throws IOException {
+		try (UseClient client = new UseClient(fAddress)) {
+			assertEquals("3 : Integer", client.evaluate("1 + 2"));
+			
+			try {
+				client.evaluate("1 +");
+				fail("Syntax error expected");
+			} catch (IOException e) {
+				// expected
+			}
+			
+			assertEquals("0 : Integer", client.evaluate("A.allInstances()->size()"));
+		}
+	}
+	
+	public void testExecuteAndCheck() throws IOException {
+		try (UseClient c1 = new UseClient(fAddress);
+			 UseClient c2 = new UseClient(fAddress)) {
+			c1.execute("create a : A");
+			c1.execute("set a.x := 1");
+			assertTrue(c2.check());
+			assertEquals("1 : Integer", c2.evaluate("A.allInstances()->size()"));
+			
+			c2.execute("set a.x := -1");
+			assertFalse(c1.check());
+			
+			try {
+				c1.execute("set a.y := 1");
+				fail("Unknown attribute expected");
+			} catch (IOException e) {
+				// expected
+			}
+		}
+	}
+	
+	public void testSessionVariables() throws IOException {
+		try (UseClient c1 = new UseClient(fAddress);
+			 UseClient c2 = new UseClient(fAddress)) {
+			c1.execute("v := 5");
+			c2.execute("v := 'c2'");
+			
+			assertEquals("5 : Integer", c1.evaluate("v"));
+			assertEquals("'c2' : String", c2.evaluate("v"));
+			assertNull(fSystem.getVariableEnvironment().lookUp("v"));
+			
+			c1.execute("v := v + 1");
+			assertEquals("6 : Integer", c1.evaluate("v"));
+		}
+	}
+	
+	public void testPipelining() throws IOException {
+		try (UseClient client = new UseClient(fAddress)) {
+			List<Integer> ids = new ArrayList<>();
+			for (int i = 0; i < 100; ++i) {
+				ids.add(client.send(Protocol.EVALUATE, i + " * 2"));
+			}
+			
+			for (int i = 0; i < 100; ++i) {
+				Frame response = client.receive();
+				assertEquals(Protocol.RESULT, response.getType());
+				assertEquals(ids.get(i).intValue(), response.getId());
+				assertEquals((i * 2) + " : Integer", response.getPayload());
+			}
+		}
+	}
+	
+	public void testConcurrentClients() throws Exception {
+		final int numClients = 8;
+		final int numObjects = 20;
+		
+		ExecutorService executor = Executors.newFixedThreadPool(numClients);
+		List<Future<Void>> results = new ArrayList<>();
+		
+		for (int c = 0; c < numClients; ++c) {
+			final int client = c;
+			results.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					try (UseClient uc = new UseClient(fAddress)) {
+						for (int i = 0; i < numObjects; ++i) {
+							uc.execute("o := new A('a" + client + "_" + i + "')");
+							uc.execute("o.x := " + (i + 1));
+							assertEquals((i + 1) + " : Integer", uc.evaluate("o.x"));
+						}
+						uc.check();
+					}
+					return null;
+				}
+			}));
+		}
+		
+		for (Future<Void> f : results) {
+			f.get();
+		}
+		executor.shutdown();
+		
+		assertEquals(numClients * numObjects, fSystem.state().allObjects().size());
+	}
+}
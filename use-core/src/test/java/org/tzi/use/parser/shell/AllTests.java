@@ -41,6 +41,7 @@ public class AllTests {
 		final TestSuite testSuite = new TestSuite("All shell parser tests");
 		testSuite.addTestSuite(ASTConstructionTest.class);
 		testSuite.addTestSuite(StatementGenerationTest.class);
+		testSuite.addTestSuite(ShellScriptReaderTest.class);
 		return testSuite;
    }
 }
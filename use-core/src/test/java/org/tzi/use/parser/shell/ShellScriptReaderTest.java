@@ -0,0 +1,157 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.parser.shell;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import junit.framework.TestCase;
+
+import org.tzi.use.api.UseApiException;
+import org.tzi.use.api.UseModelApi;
+import org.tzi.use.parser.soil.ast.ASTNewObjectStatement;
+import org.tzi.use.uml.ocl.value.IntegerValue;
+import org.tzi.use.uml.sys.MSystem;
+import org.tzi.use.uml.sys.MSystemException;
+import org.tzi.use.uml.sys.soil.MStatement;
+import org.tzi.use.util.NullPrintWriter;
+
+/**
+ * Tests the streaming script reader.
+ */
+public class ShellScriptReaderTest extends TestCase {
+
+	private static final String SCRIPT =
+			"-- comment\n" +
+			"!create a : A\n" +
+			"!set a.x := 1\n" +
+			"check\n" +
+			"\\\n" +
+			"!b := new A\n" +
+			".\n" +
+			"!create\n" +
+			"!!x := a.x + 1\n";
+
+	private ShellScriptReader createReader(String script) {
+		return new ShellScriptReader(new BufferedReader(new StringReader(script)), "test.soil");
+	}
+
+	public void testCommands() throws Exception {
+		try (ShellScriptReader reader = createReader(SCRIPT)) {
+			ShellScriptReader.Command cmd = reader.next();
+			assertFalse(cmd.isStatement());
+			assertEquals("-- comment", cmd.getText());
+
+			cmd = reader.next();
+			assertTrue(cmd.isStatement());
+			assertEquals(2, cmd.getLine());
+			assertTrue(cmd.getStatement() instanceof ASTNewObjectStatement);
+
+			cmd = reader.next();
+			assertNotNull(cmd.getStatement());
+
+			cmd = reader.next();
+			assertFalse(cmd.isStatement());
+			assertEquals("check", cmd.getText());
+
+			cmd = reader.next();
+			assertTrue(cmd.isStatement());
+			assertEquals("!b := new A", cmd.getText());
+			assertEquals(6, cmd.getLine());
+			assertEquals(3, cmd.getSource().split("\\R").length);
+			assertNotNull(cmd.getStatement());
+
+			cmd = reader.next();
+			assertNull(cmd.getStatement());
+			assertTrue(cmd.getErrors().startsWith("<input>:line 1:"));
+
+			cmd = reader.next();
+			assertTrue(cmd.isVerbose());
+			assertNotNull(cmd.getStatement());
+			assertNull(cmd.getErrors());
+
+			assertNull(reader.next());
+			assertNull(reader.next());
+		}
+	}
+
+	public void testExecute() throws Exception {
+		MSystem system = createSystem();
+
+		try (ShellScriptReader reader = createReader(SCRIPT)) {
+			execute(system, reader);
+		}
+
+		assertEquals(2, system.state().numObjects());
+		assertEquals(IntegerValue.valueOf(2), system.getVariableEnvironment().lookUp("x"));
+	}
+
+	public void testLargeScript() throws Exception {
+		StringBuilder script = new StringBuilder();
+		for (int i = 0; i < 5000; ++i) {
+			script.append("!create a").append(i).append(" : A\n");
+			script.append("!set a").append(i).append(".x := ").append(i).append('\n');
+		}
+
+		MSystem system = createSystem();
+		try (ShellScriptReader reader = createReader(script.toString())) {
+			execute(system, reader);
+		}
+
+		assertEquals(5000, system.state().numObjects());
+		assertEquals(IntegerValue.valueOf(4999),
+				system.state().objectByName("a4999").state(system.state()).attributeValue("x"));
+	}
+
+	public void testClose() throws Exception {
+		StringBuilder script = new StringBuilder();
+		for (int i = 0; i < 100000; ++i) {
+			script.append("!create a").append(i).append(" : A\n");
+		}
+
+		ShellScriptReader reader = createReader(script.toString());
+		assertNotNull(reader.next());
+		// must not block, although the queue is full
+		reader.close();
+	}
+
+	private MSystem createSystem() throws UseApiException {
+		UseModelApi model = new UseModelApi("Script");
+		model.createClass("A", false);
+		model.createAttribute("A", "x", "Integer");
+		return new MSystem(model.getModel());
+	}
+
+	private void execute(MSystem system, ShellScriptReader reader)
+			throws IOException, InterruptedException, MSystemException {
+		ShellScriptReader.Command cmd;
+		while ((cmd = reader.next()) != null) {
+			if (cmd.getStatement() == null)
+				continue;
+
+			MStatement statement = ShellCommandCompiler.compileShellCommand(
+					system.model(), system.state(), system.getVariableEnvironment(),
+					cmd.getStatement(), "test.soil", NullPrintWriter.getInstance(), false);
+			assertNotNull(cmd.getText(), statement);
+			system.execute(statement);
+		}
+	}
+}
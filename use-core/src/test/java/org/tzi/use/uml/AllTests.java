@@ -36,6 +36,8 @@ public class AllTests {
         final TestSuite test = new TestSuite( "All uml tests" );
         test.addTest( org.tzi.use.uml.mm.AllTests.suite() );
         test.addTest( org.tzi.use.uml.ocl.expr.AllTests.suite() );
+        test.addTest( org.tzi.use.uml.ocl.expr.compiled.AllTests.suite() );
+        test.addTest( org.tzi.use.uml.ocl.extension.AllTests.suite() );
         test.addTest( org.tzi.use.uml.ocl.type.AllTests.suite() );
         test.addTest( org.tzi.use.uml.ocl.value.AllTests.suite() );
         test.addTest( org.tzi.use.uml.sys.AllTests.suite() );
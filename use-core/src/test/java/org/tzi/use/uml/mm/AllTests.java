@@ -35,6 +35,8 @@ public class AllTests {
     public static Test suite() {
         final TestSuite test = new TestSuite( "All metamodel tests" );
         test.addTestSuite( org.tzi.use.uml.mm.MAssociationClassTest.class );
+        test.addTestSuite( org.tzi.use.uml.mm.MClassifierHierarchyTest.class );
+        test.addTestSuite( org.tzi.use.uml.mm.MClassNavigableEndsTest.class );
         test.addTestSuite( org.tzi.use.uml.mm.MMultiplicityTest.class );
         test.addTestSuite( org.tzi.use.uml.mm.ModelCreationTest.class );
         return test;
@@ -0,0 +1,68 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.mm;
+
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.tzi.use.api.UseApiException;
+import org.tzi.use.api.UseModelApi;
+
+/**
+ * Tests the lookup of navigable association ends by role name.
+ */
+public class MClassNavigableEndsTest extends TestCase {
+
+	public void testNavigableEnds() throws UseApiException {
+		UseModelApi api = new UseModelApi("Navigation");
+		api.createClass("A", false);
+		api.createClass("B", false);
+		api.createClass("C", false);
+		api.createGeneralization("B", "A");
+		api.createAssociation("AC", "A", "a", "*", MAggregationKind.NONE,
+				"C", "c", "*", MAggregationKind.NONE);
+		api.createAssociation("BC", "B", "b", "*", MAggregationKind.NONE,
+				"C", "cb", "*", MAggregationKind.NONE);
+		api.createAssociationClass("Link", false, "A", "la", "*", MAggregationKind.NONE,
+				"C", "lc", "*", MAggregationKind.NONE);
+
+		// a role name must not be used twice in a hierarchy
+		try {
+			api.createAssociation("Conflict", "B", "x", "*", MAggregationKind.NONE,
+					"C", "c", "*", MAggregationKind.NONE);
+			fail("Conflicting role name accepted");
+		} catch (UseApiException e) {
+			// expected
+		}
+
+		MModel model = api.getModel();
+		for (MClass cls : model.classes()) {
+			Map<String, ? extends MNavigableElement> ends = cls.navigableEnds();
+			for (String rolename : new String[] {"a", "b", "c", "cb", "la", "lc", "link", "x"}) {
+				assertSame(cls.name() + "." + rolename, ends.get(rolename), cls.navigableEnd(rolename));
+			}
+		}
+
+		assertNotNull(model.getClass("B").navigableEnd("c"));
+		assertNull(model.getClass("A").navigableEnd("cb"));
+		assertNotNull(model.getClass("Link").navigableEnd("lc"));
+	}
+}
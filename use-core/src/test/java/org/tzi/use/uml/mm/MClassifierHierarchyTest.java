@@ -0,0 +1,85 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.mm;
+
+import junit.framework.TestCase;
+
+import org.tzi.use.api.UseApiException;
+import org.tzi.use.api.UseModelApi;
+import org.tzi.use.uml.ocl.type.TypeFactory;
+
+/**
+ * Tests the precomputed generalization hierarchy used for subtype tests.
+ */
+public class MClassifierHierarchyTest extends TestCase {
+
+	public void testSubtypes() throws UseApiException {
+		UseModelApi api = new UseModelApi("Hierarchy");
+		MClass a = api.createClass("A", true);
+		MClass b = api.createClass("B", false);
+		MClass c = api.createClass("C", false);
+		MClass d = api.createClass("D", false);
+		api.createGeneralization("B", "A");
+		api.createGeneralization("C", "B");
+
+		assertTrue(c.conformsTo(a));
+		assertTrue(c.conformsTo(b));
+		assertTrue(c.conformsTo(c));
+		assertFalse(a.conformsTo(c));
+		assertFalse(d.conformsTo(a));
+		assertTrue(d.conformsTo(TypeFactory.mkOclAny()));
+
+		assertTrue(c.isSubClassOf(a));
+		assertTrue(c.isSubClassOf(c));
+		assertFalse(c.isSubClassOf(c, true));
+		assertFalse(b.isSubClassOf(c));
+
+		assertEquals(2, a.allChildren().size());
+		assertTrue(a.allChildren().contains(c));
+		assertTrue(d.allChildren().isEmpty());
+
+		// the encoding must follow changes of the model
+		api.createGeneralization("D", "C");
+		assertTrue(d.conformsTo(a));
+		assertTrue(d.isSubClassOf(b));
+		assertEquals(3, a.allChildren().size());
+		assertTrue(c.allChildren().contains(d));
+	}
+
+	public void testManyClassifiers() throws UseApiException {
+		// more classifiers than bits in a single word
+		UseModelApi api = new UseModelApi("Chain");
+		api.createClass("C0", false);
+		for (int i = 1; i < 150; ++i) {
+			api.createClass("C" + i, false);
+			api.createGeneralization("C" + i, "C" + (i - 1));
+		}
+
+		MModel model = api.getModel();
+		MClass first = model.getClass("C0");
+		MClass last = model.getClass("C149");
+
+		assertTrue(last.conformsTo(first));
+		assertFalse(first.conformsTo(last));
+		assertTrue(model.getClass("C100").conformsTo(model.getClass("C64")));
+		assertFalse(model.getClass("C63").conformsTo(model.getClass("C64")));
+		assertEquals(149, first.allChildren().size());
+	}
+}
@@ -18,11 +18,17 @@
  */
 package org.tzi.use.uml.mm.statemachines;
 
+import java.util.Collections;
+
 import junit.framework.TestCase;
 
 import org.junit.Test;
+import org.tzi.use.uml.mm.MClass;
 import org.tzi.use.uml.mm.MModel;
+import org.tzi.use.uml.mm.MOperation;
 import org.tzi.use.uml.mm.TestModelUtil;
+import org.tzi.use.uml.mm.commonbehavior.communications.MCallEvent;
+import org.tzi.use.uml.mm.commonbehavior.communications.MTrigger;
 import org.tzi.use.uml.ocl.expr.ExpressionWithValue;
 import org.tzi.use.uml.ocl.value.BooleanValue;
 import org.tzi.use.uml.sys.MSystemException;
@@ -192,4 +198,70 @@ public class TestProtocolStateMachine extends TestCase {
 	public void testTransitionCreation() {
 		
 	}
+	
+	@Test
+	public void testDispatchTable() throws MSystemException {
+		MModel model = TestModelUtil.getInstance().createModelWithOperation();
+		MClass person = model.getClass("Person");
+		MOperation init = person.operation("init", false);
+		MOperation equalsName = person.operation("equalsName", false);
+		
+		MProtocolStateMachine psm = new MProtocolStateMachine("psm_test", null, person);
+		MRegion defaultRegion = psm.getDefaultRegion();
+		
+		MState state1 = new MState("state1");
+		MState state2 = new MState("state2");
+		defaultRegion.addSubvertex(state1);
+		defaultRegion.addSubvertex(state2);
+		
+		MProtocolTransition t1 = new MProtocolTransition(defaultRegion, state1, state2);
+		t1.setTrigger(new MTrigger(new MCallEvent(init)) {});
+		defaultRegion.addTransition(t1);
+		
+		MProtocolTransition t2 = new MProtocolTransition(defaultRegion, state2, state1);
+		t2.setTrigger(new MTrigger(new MCallEvent(init)) {});
+		t2.setGuard(new ExpressionWithValue(BooleanValue.FALSE));
+		defaultRegion.addTransition(t2);
+		
+		assertTrue(psm.handlesOperation(init));
+		assertFalse(psm.handlesOperation(equalsName));
+		
+		assertEquals(Collections.singletonList(t1), psm.getTransitions(state1, init));
+		assertEquals(Collections.singletonList(t2), psm.getTransitions(state2, init));
+		assertTrue(psm.getTransitions(state1, equalsName).isEmpty());
+	}
+	
+	@Test
+	public void testDispatchTableAfterRedefinition() throws MSystemException {
+		MModel model = TestModelUtil.getInstance().createModelWithOperation();
+		MClass person = model.getClass("Person");
+		MOperation init = person.operation("init", false);
+		MOperation equalsName = person.operation("equalsName", false);
+		
+		MProtocolStateMachine psm = new MProtocolStateMachine("psm_test", null, person);
+		MRegion defaultRegion = psm.getDefaultRegion();
+		
+		MState state1 = new MState("state1");
+		MState state2 = new MState("state2");
+		defaultRegion.addSubvertex(state1);
+		defaultRegion.addSubvertex(state2);
+		
+		MProtocolTransition t1 = new MProtocolTransition(defaultRegion, state1, state2);
+		t1.setTrigger(new MTrigger(new MCallEvent(init)) {});
+		defaultRegion.addTransition(t1);
+		
+		// build the tables before the state machine is changed
+		assertFalse(psm.handlesOperation(equalsName));
+		assertTrue(psm.getTransitions(state2, init).isEmpty());
+		
+		MProtocolTransition t2 = new MProtocolTransition(defaultRegion, state2, state1);
+		t2.setTrigger(new MTrigger(new MCallEvent(init)) {});
+		defaultRegion.addTransition(t2);
+		assertEquals(Collections.singletonList(t2), psm.getTransitions(state2, init));
+		
+		t1.setTrigger(new MTrigger(new MCallEvent(equalsName)) {});
+		assertTrue(psm.handlesOperation(equalsName));
+		assertEquals(Collections.singletonList(t1), psm.getTransitions(state1, equalsName));
+		assertTrue(psm.getTransitions(state1, init).isEmpty());
+	}
 }
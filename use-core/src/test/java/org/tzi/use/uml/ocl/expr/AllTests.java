@@ -34,11 +34,14 @@ public class AllTests {
 
     public static Test suite() {
         final TestSuite test = new TestSuite( "All ocl expressions tests" );
+        test.addTestSuite( org.tzi.use.uml.ocl.expr.BatchEvaluatorTest.class );
+        test.addTestSuite( org.tzi.use.uml.ocl.expr.EvalProfilerTest.class );
         test.addTestSuite( org.tzi.use.uml.ocl.expr.EvaluatorTest.class );
         test.addTestSuite( org.tzi.use.uml.ocl.expr.ExpQueryTest.class );
         test.addTestSuite( org.tzi.use.uml.ocl.expr.ExprNavigationTest.class );
         test.addTestSuite( org.tzi.use.uml.ocl.expr.ExpStdOpTest.class );
         test.addTestSuite( org.tzi.use.uml.ocl.expr.NavigationTest.class );
+        test.addTestSuite( org.tzi.use.uml.ocl.expr.VarBindingResolverTest.class );
         return test;
     }
 }
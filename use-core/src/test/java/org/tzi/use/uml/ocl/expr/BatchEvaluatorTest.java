@@ -0,0 +1,184 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.ocl.expr;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.tzi.use.api.UseApiException;
+import org.tzi.use.api.UseModelApi;
+import org.tzi.use.api.UseSystemApi;
+import org.tzi.use.config.Options;
+import org.tzi.use.parser.SemanticException;
+import org.tzi.use.parser.Symtable;
+import org.tzi.use.parser.ocl.OCLCompiler;
+import org.tzi.use.uml.ocl.type.TypeFactory;
+import org.tzi.use.uml.ocl.value.IntegerValue;
+import org.tzi.use.uml.ocl.value.Value;
+import org.tzi.use.uml.ocl.value.VarBindings;
+import org.tzi.use.uml.sys.MSystem;
+
+/**
+ * Tests for the {@link BatchEvaluator}.
+ */
+public class BatchEvaluatorTest extends TestCase {
+
+	private static final String[] EXPRESSIONS = {
+		"A.allInstances()->size()",
+		"A.allInstances()->select(a | a.x > 1)->size()",
+		"A.allInstances()->collect(a | a.x)->sum() + a1.x",
+		"A.allInstances()->forAll(a | a.x > 0)",
+		"A.allInstances()->exists(a | a.y.oclIsUndefined())",
+		"a1.x + a2.x",
+		"a1.x + a2.x > 2",
+		"a1.y + 1"
+	};
+	
+	private UseSystemApi systemApi;
+	
+	private MSystem system;
+	
+	private boolean oldCompileExpressions;
+	
+	protected void setUp() throws UseApiException {
+		oldCompileExpressions = Options.compileExpressions;
+		
+		UseModelApi modelApi = new UseModelApi("Test");
+		modelApi.createClass("A", false);
+		modelApi.createAttribute("A", "x", "Integer");
+		modelApi.createAttribute("A", "y", "Integer");
+		
+		systemApi = UseSystemApi.create(modelApi.getModel(), false);
+		systemApi.createObjects("A", "a1", "a2", "a3");
+		systemApi.setAttributeValue("a1", "x", "1");
+		systemApi.setAttributeValue("a2", "x", "2");
+		systemApi.setAttributeValue("a3", "x", "3");
+		systemApi.setAttributeValue("a3", "y", "3");
+		system = systemApi.getSystem();
+	}
+	
+	protected void tearDown() {
+		Options.compileExpressions = oldCompileExpressions;
+	}
+	
+	private Expression compile(String expText, Symtable vars) throws SemanticException {
+		StringWriter err = new StringWriter();
+		Expression exp;
+		
+		if (vars == null) {
+			exp = OCLCompiler.compileExpression(system.model(), expText, "<junit test>", 
+					new PrintWriter(err), system.varBindings());
+		} else {
+			exp = OCLCompiler.compileExpression(system.model(), expText, "<junit test>", 
+					new PrintWriter(err), vars);
+		}
+		
+		assertNotNull(expText + ": " + err.toString(), exp);
+		return exp;
+	}
+	
+	private List<Expression> compileAll() throws SemanticException {
+		List<Expression> result = new ArrayList<Expression>();
+		for (String expText : EXPRESSIONS) {
+			result.add(compile(expText, null));
+		}
+		return result;
+	}
+	
+	private void assertInterpreted(List<Expression> exprs, List<Value> actual) {
+		assertEquals(exprs.size(), actual.size());
+		
+		for (int i = 0; i < exprs.size(); ++i) {
+			Value expected = new Evaluator().eval(exprs.get(i), system.state(), system.varBindings());
+			assertEquals(exprs.get(i).toString(), expected, actual.get(i));
+		}
+	}
+	
+	public void testCompiled() throws SemanticException {
+		// independent of the option for single expressions
+		Options.compileExpressions = false;
+		List<Expression> exprs = compileAll();
+		BatchEvaluator evaluator = new BatchEvaluator(exprs);
+		
+		// A.allInstances() and a1.x + a2.x are shared at least
+		assertTrue(evaluator.getNumSharedSubexpressions() >= 2);
+		
+		assertInterpreted(exprs, evaluator.eval(system.state(), system.varBindings()));
+		assertInterpreted(exprs, evaluator.eval(system.state(), system.varBindings(), 4));
+	}
+	
+	public void testProfiled() throws SemanticException {
+		List<Expression> exprs = compileAll();
+		BatchEvaluator evaluator = new BatchEvaluator(exprs);
+		EvalProfiler profiler = EvalProfiler.getInstance();
+		
+		profiler.reset();
+		profiler.start();
+		try {
+			assertEquals(0, evaluator.getNumSharedSubexpressions());
+			assertInterpreted(exprs, evaluator.eval(system.state(), system.varBindings(), 4));
+			assertTrue(profiler.getEvaluations() > 0);
+		} finally {
+			profiler.stop();
+			profiler.reset();
+		}
+	}
+	
+	public void testBindingsList() throws SemanticException {
+		Symtable vars = new Symtable();
+		vars.add("n", TypeFactory.mkInteger(), null);
+		List<Expression> exprs = Arrays.asList(
+				compile("A.allInstances()->select(a | a.x >= n)->size()", vars),
+				compile("A.allInstances()->size() + n", vars));
+		
+		List<VarBindings> bindingsList = new ArrayList<VarBindings>();
+		for (int n = 1; n <= 3; ++n) {
+			VarBindings bindings = new VarBindings(system.state());
+			bindings.push("n", IntegerValue.valueOf(n));
+			bindingsList.add(bindings);
+		}
+		
+		List<List<Value>> results = new BatchEvaluator(exprs).eval(system.state(), bindingsList, 3);
+		assertEquals(3, results.size());
+		
+		for (int n = 1; n <= 3; ++n) {
+			List<Value> values = results.get(n - 1);
+			assertEquals(IntegerValue.valueOf(4 - n), values.get(0));
+			assertEquals(IntegerValue.valueOf(3 + n), values.get(1));
+		}
+	}
+	
+	public void testSystemApi() throws UseApiException {
+		List<Value> values = systemApi.evaluate(Arrays.asList("a1.x + a2.x", "A.allInstances()->size()"), 2);
+		assertEquals(Arrays.asList(IntegerValue.valueOf(3), IntegerValue.valueOf(3)), values);
+		
+		try {
+			systemApi.evaluate(Arrays.asList("a1.x +"));
+			fail("Invalid expression accepted");
+		} catch (UseApiException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.ocl.expr;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.tzi.use.parser.ocl.OCLCompiler;
+import org.tzi.use.uml.mm.MModel;
+import org.tzi.use.uml.mm.ModelFactory;
+import org.tzi.use.uml.ocl.value.BooleanValue;
+import org.tzi.use.uml.ocl.value.VarBindings;
+import org.tzi.use.uml.sys.MSystem;
+import org.tzi.use.uml.sys.MSystemState;
+
+/**
+ * Tests the aggregation and the reports of the {@link EvalProfiler}.
+ */
+public class EvalProfilerTest extends TestCase {
+
+	private MModel fModel;
+	private MSystemState fState;
+	private EvalProfiler fProfiler;
+	
+	@Override
+	protected void setUp() throws Exception {
+		fModel = new ModelFactory().createModel("Test");
+		fState = new MSystem(fModel).state();
+		fProfiler = EvalProfiler.getInstance();
+		fProfiler.reset();
+		fProfiler.start();
+	}
+	
+	@Override
+	protected void tearDown() throws Exception {
+		fProfiler.stop();
+		fProfiler.reset();
+	}
+	
+	private Expression compile(String expr) {
+		Expression exp = OCLCompiler.compileExpression(fModel, expr, "<junit test>",
+				new PrintWriter(new StringWriter()), new VarBindings());
+		assertNotNull(expr, exp);
+		return exp;
+	}
+	
+	private EvalProfiler.Entry find(List<EvalProfiler.Entry> entries, Expression exp) {
+		for (EvalProfiler.Entry e : entries) {
+			if (e.getExpression() == exp) return e;
+		}
+		return null;
+	}
+	
+	public void testCounts() {
+		ExpSelect select = (ExpSelect)compile("Set{1,2,3,4}->select(e | e > 2)");
+		Evaluator evaluator = new Evaluator();
+		
+		for (int i = 0; i < 3; ++i) {
+			evaluator.eval(select, fState);
+		}
+		
+		assertEquals(3, fProfiler.getEvaluations());
+		List<EvalProfiler.Entry> entries = fProfiler.getEntries();
+		
+		EvalProfiler.Entry root = find(entries, select);
+		assertNotNull(root);
+		assertEquals(3, root.getCount());
+		assertEquals(3, root.getCollections());
+		assertEquals(6, root.getCollectionElements());
+		assertEquals(2, root.getMaxCollectionSize());
+		assertTrue(root.getTotalTime() >= root.getSelfTime());
+		
+		EvalProfiler.Entry body = find(entries, select.getQueryExpression());
+		assertNotNull(body);
+		assertEquals(12, body.getCount());
+		assertTrue(root.getTotalTime() >= body.getTotalTime());
+	}
+	
+	public void testSourcePositions() {
+		Expression exp = compile("1 + 2 * 3 = 7");
+		assertNotNull(exp.getSourcePosition());
+		assertEquals(BooleanValue.TRUE, new Evaluator().eval(exp, fState));
+		
+		List<EvalProfiler.Entry> positions = fProfiler.getEntriesByPosition();
+		// =, + and *
+		assertEquals(3, positions.size());
+		
+		for (EvalProfiler.Entry e : positions) {
+			assertTrue(e.getPosition(), e.getPosition().startsWith("<junit test>:1:"));
+			assertEquals(1, e.getCount());
+		}
+	}
+	
+	public void testInactive() {
+		fProfiler.stop();
+		new Evaluator().eval(compile("Set{1,2}->size()"), fState);
+		
+		assertEquals(0, fProfiler.getEvaluations());
+		assertTrue(fProfiler.getEntries().isEmpty());
+	}
+	
+	public void testReports() throws Exception {
+		new Evaluator().eval(compile("Sequence{'a\"b'}->includes('c')"), fState);
+		
+		StringWriter report = new StringWriter();
+		fProfiler.printReport(new PrintWriter(report), 5);
+		assertTrue(report.toString(), report.toString().startsWith("Profile of 1 evaluations"));
+		
+		StringWriter json = new StringWriter();
+		fProfiler.writeJSON(json);
+		assertTrue(json.toString(), json.toString().contains("\"evaluations\": 1"));
+		assertTrue(json.toString(), json.toString().contains("a\\\"b"));
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.ocl.expr;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+import org.tzi.use.parser.ocl.OCLCompiler;
+import org.tzi.use.uml.mm.MModel;
+import org.tzi.use.uml.mm.ModelFactory;
+import org.tzi.use.uml.ocl.type.TypeFactory;
+import org.tzi.use.uml.ocl.value.IntegerValue;
+import org.tzi.use.uml.ocl.value.SequenceValue;
+import org.tzi.use.uml.ocl.value.Value;
+import org.tzi.use.uml.ocl.value.VarBindings;
+import org.tzi.use.uml.sys.MSystem;
+import org.tzi.use.uml.sys.MSystemState;
+
+/**
+ * Test resolution of variables to their bindings.
+ */
+public class VarBindingResolverTest extends TestCase {
+
+	private MModel model;
+	private MSystemState state;
+	
+	protected void setUp() {
+		model = new ModelFactory().createModel("Test");
+		state = new MSystem(model).state();
+	}
+	
+	private Value eval(String expText, VarBindings bindings) {
+		StringWriter err = new StringWriter();
+		Expression exp = OCLCompiler.compileExpression(model, expText, "<junit test>", 
+				new PrintWriter(err), bindings);
+		assertNotNull(expText + ": " + err.toString(), exp);
+		return new Evaluator().eval(exp, state, bindings);
+	}
+	
+	public void testDepths() throws ExpInvalidException {
+		ExpVariable x1 = new ExpVariable("x", TypeFactory.mkInteger());
+		ExpVariable y = new ExpVariable("y", TypeFactory.mkInteger());
+		ExpVariable x2 = new ExpVariable("x", TypeFactory.mkInteger());
+		ExpVariable z = new ExpVariable("z", TypeFactory.mkInteger());
+		
+		// let y = 1 in let x = 2 in x + y
+		Expression inner = new ExpLet("x", TypeFactory.mkInteger(), new ExpConstInteger(2), 
+				ExpStdOp.create("+", new Expression[] { x1, y }));
+		new ExpLet("y", TypeFactory.mkInteger(), new ExpConstInteger(1), inner);
+		
+		assertEquals(0, x1.getBindingDepth());
+		assertEquals(1, y.getBindingDepth());
+		
+		// let x = 1 in x + z, z is free
+		new ExpLet("x", TypeFactory.mkInteger(), new ExpConstInteger(1), 
+				ExpStdOp.create("+", new Expression[] { x2, z }));
+		assertEquals(0, x2.getBindingDepth());
+		assertEquals(-1, z.getBindingDepth());
+	}
+	
+	public void testIterate() throws ExpInvalidException {
+		ExpVariable e = new ExpVariable("e", TypeFactory.mkInteger());
+		ExpVariable acc = new ExpVariable("acc", TypeFactory.mkInteger());
+		
+		Expression range = new ExpressionWithValue(new SequenceValue(TypeFactory.mkInteger(), 
+				new Value[] { IntegerValue.valueOf(1), IntegerValue.valueOf(2) }));
+		
+		new ExpIterate(new VarDecl("e", TypeFactory.mkInteger()), 
+				new VarInitializer("acc", TypeFactory.mkInteger(), new ExpConstInteger(0)),
+				range, ExpStdOp.create("+", new Expression[] { acc, e }));
+		
+		assertEquals(1, e.getBindingDepth());
+		assertEquals(0, acc.getBindingDepth());
+	}
+	
+	public void testEvaluation() {
+		VarBindings bindings = new VarBindings();
+		bindings.push("g", IntegerValue.valueOf(100));
+		
+		assertEquals(IntegerValue.valueOf(3), 
+				eval("let x = 1 in let y = 2 in x + y", bindings));
+		assertEquals(IntegerValue.valueOf(2), 
+				eval("let x = 1 in let x = 2 in x", bindings));
+		assertEquals(IntegerValue.valueOf(106), 
+				eval("Sequence{1,2,3}->iterate(e; acc : Integer = g | acc + e)", bindings));
+		assertEquals(IntegerValue.valueOf(12), 
+				eval("let n = 2 in Sequence{1,2,3}->collect(x | Sequence{x}->collect(y | x * n))->sum()", bindings));
+		assertEquals(IntegerValue.valueOf(9), 
+				eval("let n = 1 in Sequence{1,2,3}->select(x | Sequence{1,2,3}->exists(x, y | x + y = n + 5))->size() * 3", bindings));
+		assertEquals(IntegerValue.valueOf(4), 
+				eval("let n = 1 in Set{1}->closure(x | if x < n + 3 then x + n else x endif)->size()", bindings));
+		assertEquals(IntegerValue.valueOf(101), 
+				eval("let g = 1 in g + 100", bindings));
+	}
+}
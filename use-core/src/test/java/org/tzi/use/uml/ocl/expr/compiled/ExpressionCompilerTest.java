@@ -0,0 +1,197 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.ocl.expr.compiled;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+import org.tzi.use.api.UseApiException;
+import org.tzi.use.api.UseModelApi;
+import org.tzi.use.api.UseSystemApi;
+import org.tzi.use.config.Options;
+import org.tzi.use.parser.SemanticException;
+import org.tzi.use.parser.Symtable;
+import org.tzi.use.parser.ocl.OCLCompiler;
+import org.tzi.use.uml.mm.MAttribute;
+import org.tzi.use.uml.mm.MClass;
+import org.tzi.use.uml.ocl.expr.EvalContext;
+import org.tzi.use.uml.ocl.expr.Evaluator;
+import org.tzi.use.uml.ocl.expr.Expression;
+import org.tzi.use.uml.ocl.expr.SimpleEvalContext;
+import org.tzi.use.uml.ocl.value.BooleanValue;
+import org.tzi.use.uml.ocl.value.IntegerValue;
+import org.tzi.use.uml.ocl.value.UndefinedValue;
+import org.tzi.use.uml.ocl.value.Value;
+import org.tzi.use.uml.sys.MSystem;
+
+/**
+ * Compares the results of compiled expressions
+ * with the results of the interpreter.
+ */
+public class ExpressionCompilerTest extends TestCase {
+
+	private static final String[] EXPRESSIONS = {
+		"a1.x + a2.x - a3.x * 2",
+		"a1.y + 1",
+		"a1.x < a2.x and a2.x <= a3.x",
+		"a1.y > 1 or true",
+		"a1.y > 1 and false",
+		"a1.y > 1 implies true",
+		"a1.y > 1 xor true",
+		"not (a1.y > 1)",
+		"a1.x div 0",
+		"if a1.y > 1 then 1 else 2 endif",
+		"if a1.x >= 1 then 'yes' else 'no' endif",
+		"let n = 2 in A.allInstances()->reject(a | a.x < n)->size()",
+		"A.allInstances()->select(a | a.x > 1)->collect(a | a.x * 2)",
+		"A.allInstances()->select(a | a.y > 1)",
+		"A.allInstances()->collect(a | Sequence{a.x, a.y})",
+		"A.allInstances()->asSequence()->collect(a | a.x)",
+		"A.allInstances()->forAll(a | a.x >= 0 implies a.x + 1 > a.x)",
+		"A.allInstances()->exists(a | a.y.oclIsUndefined())",
+		"A.allInstances()->forAll(a1, a2 | a1 <> a2 implies a1.x <> a2.x)",
+		"A.allInstances()->iterate(a; s : Integer = 0 | s + a.x)",
+		"Sequence{1,2,3}->collect(i | A.allInstances()->iterate(a; s : Integer = i | s + a.x))",
+		"Sequence{1,2,3}->select(i | A.allInstances()->exists(a | a.x = i))",
+		"a1.z",
+		"Set{1,2,3}->including(4)->size() + a1.x",
+		"'a'.concat('b').size() + a1.x",
+		"Sequence{1..3}->collect(i | i * a1.x)",
+		"if true then a1.x else a1.y endif",
+		"if oclUndefined(Boolean) then 1 else a1.x endif",
+		"true and a1.y > 1",
+		"false and a1.y > 1",
+		"a1.y > 1 and true",
+		"a1.y > 1 or false",
+		"false or a1.y > 1",
+		"true or a1.y > 1",
+		"true implies a1.y > 1",
+		"false implies a1.y > 1",
+		"true xor a1.y > 1",
+		"a1.y > 1 xor false",
+		"oclUndefined(Boolean) and a1.x > 1",
+		"1 div 0 + a1.x",
+		"A.allInstances()->select(a | a.x > a1.x + a3.x div 2)",
+		"A.allInstances()->collect(a | A.allInstances()->select(b | b.x >= a.x)->size() + a2.x)",
+		"Sequence{1,2,3}->collect(i | Sequence{1,2}->collect(j | A.allInstances()->select(a | a.x >= i)->size() + j))"
+	};
+	
+	private MSystem system;
+	
+	protected void setUp() throws UseApiException, SemanticException {
+		UseModelApi modelApi = new UseModelApi("Test");
+		MClass a = modelApi.createClass("A", false);
+		modelApi.createAttribute("A", "x", "Integer");
+		modelApi.createAttribute("A", "y", "Integer");
+		MAttribute z = modelApi.createAttribute("A", "z", "Integer");
+		
+		Symtable vars = new Symtable();
+		vars.add("self", a, null);
+		z.setDeriveExpression(OCLCompiler.compileExpression(modelApi.getModel(), "self.x * 10", 
+				"<junit test>", new PrintWriter(new StringWriter()), vars));
+		
+		UseSystemApi systemApi = UseSystemApi.create(modelApi.getModel(), false);
+		systemApi.createObjects("A", "a1", "a2", "a3");
+		systemApi.setAttributeValue("a1", "x", "1");
+		systemApi.setAttributeValue("a2", "x", "2");
+		systemApi.setAttributeValue("a3", "x", "3");
+		systemApi.setAttributeValue("a3", "y", "3");
+		system = systemApi.getSystem();
+	}
+	
+	private Expression compile(String expText) {
+		StringWriter err = new StringWriter();
+		Expression exp = OCLCompiler.compileExpression(system.model(), expText, "<junit test>", 
+				new PrintWriter(err), system.varBindings());
+		assertNotNull(expText + ": " + err.toString(), exp);
+		return exp;
+	}
+	
+	private EvalContext createContext() {
+		return new SimpleEvalContext(system.state(), system.state(), system.varBindings());
+	}
+	
+	public void testCompiledEqualsInterpreted() {
+		for (String expText : EXPRESSIONS) {
+			Expression exp = compile(expText);
+			
+			Value expected = exp.eval(createContext());
+			Value actual = ExpressionCompiler.compile(exp).eval(createContext());
+			
+			assertEquals(expText, expected, actual);
+			assertEquals(expText, expected.type(), actual.type());
+		}
+	}
+	
+	public void testConstantFolding() {
+		Expression exp = compile("Set{1,2,3}->including(2)->size() * 2");
+		Node root = ExpressionCompiler.compile(exp).getRoot();
+		assertTrue(root instanceof ConstantNode);
+		assertEquals(IntegerValue.valueOf(6), ((ConstantNode) root).value());
+		
+		// simplified to the attribute access
+		exp = compile("true and (a1.x > 1 or false)");
+		root = ExpressionCompiler.compile(exp).getRoot();
+		assertTrue(root instanceof IntegerBinaryNode);
+		
+		// the right operand is evaluated, if the left one is undefined
+		exp = compile("a1.y > 1 and false");
+		root = ExpressionCompiler.compile(exp).getRoot();
+		assertTrue(root instanceof BooleanBinaryNode);
+	}
+	
+	public void testInvariantSubexpressions() {
+		// a2.x is evaluated once per select, a.x for each element
+		Expression exp = compile("A.allInstances()->select(a | a.x > a2.x)");
+		SelectNode root = (SelectNode) ExpressionCompiler.compile(exp).getRoot();
+		assertEquals(1, root.getCacheSlots().length);
+	}
+	
+	public void testUndefinedArithmetic() {
+		Expression exp = compile("a1.y * 2 + a2.x");
+		assertEquals(UndefinedValue.instance, ExpressionCompiler.compile(exp).eval(createContext()));
+	}
+	
+	public void testUndefinedQuantifierBody() {
+		// the body is undefined for a1 and a2, which counts as false
+		Expression exp = compile("A.allInstances()->forAll(a | a.y > 0)");
+		assertEquals(BooleanValue.FALSE, exp.eval(createContext()));
+		assertEquals(BooleanValue.FALSE, ExpressionCompiler.compile(exp).eval(createContext()));
+		
+		exp = compile("A.allInstances()->exists(a | a.y < 0)");
+		assertEquals(BooleanValue.FALSE, exp.eval(createContext()));
+		assertEquals(BooleanValue.FALSE, ExpressionCompiler.compile(exp).eval(createContext()));
+	}
+	
+	public void testEvaluatorOption() {
+		boolean oldValue = Options.compileExpressions;
+		Options.compileExpressions = true;
+		
+		try {
+			Expression exp = compile("let n = 2 in A.allInstances()->select(a | a.x >= n)->size() + a1.z");
+			assertSame(ExpressionCompiler.getCompiled(exp), ExpressionCompiler.getCompiled(exp));
+			assertEquals(IntegerValue.valueOf(12), new Evaluator().eval(exp, system.state(), system.varBindings()));
+		} finally {
+			Options.compileExpressions = oldValue;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.ocl.extension;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+import org.tzi.use.parser.ocl.OCLCompiler;
+import org.tzi.use.uml.mm.MModel;
+import org.tzi.use.uml.mm.ModelFactory;
+import org.tzi.use.uml.ocl.expr.EvalContext;
+import org.tzi.use.uml.ocl.expr.Evaluator;
+import org.tzi.use.uml.ocl.expr.Expression;
+import org.tzi.use.uml.ocl.expr.operations.OpGeneric;
+import org.tzi.use.uml.ocl.type.Type;
+import org.tzi.use.uml.ocl.type.TypeFactory;
+import org.tzi.use.uml.ocl.value.StringValue;
+import org.tzi.use.uml.ocl.value.Value;
+import org.tzi.use.uml.sys.MSystem;
+
+import com.google.common.collect.Multimap;
+
+/**
+ * Tests the registration of operations implemented in Java.
+ */
+public class OperationProviderTest extends TestCase {
+
+	/**
+	 * Registered as a service in the test resources.
+	 */
+	public static class ReverseProvider implements OperationProvider {
+		@Override
+		public void registerOperations(Multimap<String, OpGeneric> opmap) {
+			OpGeneric.registerOperation(new Op_string_reverse(), opmap);
+		}
+	}
+	
+	/* reverse : String -> String */
+	static class Op_string_reverse extends OpGeneric {
+		@Override
+		public String name() {
+			return "reverse";
+		}
+
+		@Override
+		public int kind() {
+			return OPERATION;
+		}
+
+		@Override
+		public boolean isInfixOrPrefix() {
+			return false;
+		}
+
+		@Override
+		public Type matches(Type[] params) {
+			return params.length == 1 && params[0].isTypeOfString() ? TypeFactory.mkString() : null;
+		}
+
+		@Override
+		public Value eval(EvalContext ctx, Value[] args, Type resultType) {
+			String s = ((StringValue) args[0]).value();
+			return StringValue.valueOf(new StringBuilder(s).reverse().toString());
+		}
+	}
+	
+	private MModel model;
+	
+	private String oldFolder;
+	
+	protected void setUp() {
+		model = new ModelFactory().createModel("Test");
+		// no jars, only the class path
+		oldFolder = ExtensionManager.EXTENSIONS_FOLDER;
+		ExtensionManager.EXTENSIONS_FOLDER = new File("does-not-exist").getAbsolutePath();
+	}
+	
+	protected void tearDown() {
+		ExtensionManager.getInstance().unloadExtensions();
+		ExtensionManager.EXTENSIONS_FOLDER = oldFolder;
+	}
+	
+	private Expression compile(String text) {
+		return OCLCompiler.compileExpression(model, text, "<junit test>", 
+				new PrintWriter(new StringWriter()), new MSystem(model).varBindings());
+	}
+	
+	private void assertReverse() throws Exception {
+		Expression exp = compile("'abc'.reverse().concat('d')");
+		assertNotNull(exp);
+		assertEquals(StringValue.valueOf("cbad"), new Evaluator().eval(exp, new MSystem(model).state()));
+		// undefined arguments are handled like by the standard operations
+		assertTrue(new Evaluator().eval(compile("oclUndefined(String).reverse()"), 
+				new MSystem(model).state()).isUndefined());
+	}
+	
+	public void testAddOperations() throws Exception {
+		assertNull(compile("'abc'.reverse()"));
+		
+		ExtensionManager.getInstance().addOperations(new ReverseProvider());
+		assertReverse();
+		
+		ExtensionManager.getInstance().unloadExtensions();
+		assertNull(compile("'abc'.reverse()"));
+	}
+	
+	public void testServiceLoader() throws Exception {
+		ExtensionManager.getInstance().loadOperationProviders();
+		assertReverse();
+	}
+}
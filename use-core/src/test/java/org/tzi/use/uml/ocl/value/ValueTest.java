@@ -22,6 +22,7 @@ package org.tzi.use.uml.ocl.value;
 import com.gargoylesoftware.base.testing.EqualsTester;
 import junit.framework.TestCase;
 import org.tzi.use.uml.ocl.type.EnumType;
+import org.tzi.use.uml.ocl.type.Type;
 import org.tzi.use.uml.ocl.type.TypeFactory;
 
 import java.util.Arrays;
@@ -46,6 +47,20 @@ public class ValueTest extends TestCase {
         }
     }
 
+    public void testSharedEnumValues() {
+        String[] literals = { "a", "b", "c" };
+        EnumType enm = TypeFactory.mkEnum("E", Arrays.asList(literals));
+        assertSame("EnumValue.valueOf", EnumValue.valueOf(enm, "b"), EnumValue.valueOf(enm, "b"));
+        assertEquals("EnumValue.equals", new EnumValue(enm, "b"), EnumValue.valueOf(enm, "b"));
+        assertFalse("EnumValue.equals", EnumValue.valueOf(enm, "a").equals(EnumValue.valueOf(enm, "b")));
+        try {
+            EnumValue.valueOf(enm, "d");
+            fail("Illegal EnumValue");
+        } catch (IllegalArgumentException ex) {
+            // expected
+        }
+    }
+
     public void testInt() {
         assertEquals("IntegerValue.value", 42, IntegerValue.valueOf(42).value());
         assertEquals(
@@ -91,6 +106,13 @@ public class ValueTest extends TestCase {
                    new StringValue("bar").equals(new StringValue("bar")));
     }
 
+    public void testSharedStringValues() {
+        StringValue bar = StringValue.valueOf("bar");
+        assertSame("StringValue.valueOf", bar, StringValue.valueOf(new String("bar")));
+        assertSame("StringValue.intern", bar, new StringValue("bar").intern());
+        assertFalse("StringValue.equals", bar.equals(StringValue.valueOf("baz")));
+    }
+
     public void testSet() {
         SetValue intSet = new SetValue(TypeFactory.mkInteger());
         assertEquals("SetValue.size", 0, intSet.size());
@@ -172,6 +194,73 @@ public class ValueTest extends TestCase {
         assertEquals("SequenceValue.toString", "Sequence{1,2,3,1}", seq2.toString());
     }
 
+    public void testOrderedSet() {
+        Type intType = TypeFactory.mkInteger();
+        Type osetType = TypeFactory.mkOrderedSet(intType);
+        OrderedSetValue oset = new OrderedSetValue(intType);
+        // enough elements to use the hash index
+        for (int i = 20; i > 0; --i) {
+            oset.add(IntegerValue.valueOf(i));
+            oset.add(IntegerValue.valueOf(i));
+        }
+        assertEquals("OrderedSetValue/duplicates", 20, oset.size());
+        assertEquals("OrderedSetValue.get", IntegerValue.valueOf(20), oset.get(0));
+        assertTrue("OrderedSetValue.includes", oset.includes(IntegerValue.valueOf(5)));
+        assertTrue("OrderedSetValue.includes", oset.includes(new RealValue(5.0)));
+        assertFalse("OrderedSetValue.includes", oset.includes(IntegerValue.valueOf(21)));
+        assertEquals("OrderedSetValue.indexOf", 15, oset.indexOf(IntegerValue.valueOf(5)));
+        assertEquals("OrderedSetValue.indexOf", -1, oset.indexOf(IntegerValue.valueOf(0)));
+
+        OrderedSetValue inserted = oset.insertAt(osetType, IntegerValue.valueOf(1), IntegerValue.valueOf(0));
+        assertEquals("OrderedSetValue.insertAt", 0, inserted.indexOf(IntegerValue.valueOf(0)));
+        assertEquals("OrderedSetValue.insertAt", 16, inserted.indexOf(IntegerValue.valueOf(5)));
+
+        OrderedSetValue excluded = oset.excluding(osetType, IntegerValue.valueOf(20));
+        assertEquals("OrderedSetValue.excluding", 19, excluded.size());
+        assertEquals("OrderedSetValue.excluding", 14, excluded.indexOf(IntegerValue.valueOf(5)));
+
+        OrderedSetValue small = new OrderedSetValue(intType);
+        for (int i = 20; i > 0; --i) {
+            small.add(IntegerValue.valueOf(i));
+        }
+        assertEquals("OrderedSetValue.equals", oset, small);
+        assertEquals("OrderedSetValue.hashCode", oset.hashCode(), small.hashCode());
+        assertFalse("OrderedSetValue.equals", oset.equals(excluded));
+    }
+
+    public void testVarBindings() {
+        VarBindings bindings = new VarBindings();
+        // more bindings than the initial capacity
+        for (int i = 0; i < 20; ++i) {
+            bindings.push("v" + i, IntegerValue.valueOf(i));
+        }
+        bindings.push("v3", IntegerValue.valueOf(42));
+
+        assertEquals("VarBindings.getValue", IntegerValue.valueOf(42), bindings.getValue("v3"));
+        assertEquals("VarBindings.getValue", IntegerValue.valueOf(19), bindings.getValue("v19", 1));
+        // wrong depth is resolved by name
+        assertEquals("VarBindings.getValue", IntegerValue.valueOf(5), bindings.getValue("v5", 0));
+        assertNull("VarBindings.getValue", bindings.getValue("x", 0));
+
+        VarBindings copy = new VarBindings(bindings);
+        bindings.setPeekValue(IntegerValue.valueOf(43));
+        assertEquals("VarBindings.setPeekValue", IntegerValue.valueOf(43), bindings.getValue("v3", 0));
+        assertEquals("VarBindings(VarBindings)", IntegerValue.valueOf(42), copy.getValue("v3", 0));
+
+        bindings.pop();
+        assertEquals("VarBindings.pop", IntegerValue.valueOf(3), bindings.getValue("v3"));
+        bindings.remove("v0");
+        assertNull("VarBindings.remove", bindings.getValue("v0"));
+        assertEquals("VarBindings.remove", IntegerValue.valueOf(1), bindings.getValue("v1", 18));
+
+        int n = 0;
+        for (VarBindings.Entry e : copy) {
+            assertEquals("VarBindings.iterator", n < 20 ? "v" + n : "v3", e.getVarName());
+            ++n;
+        }
+        assertEquals("VarBindings.iterator", 21, n);
+    }
+
     public void testSetEquals() {
         SetValue intSet1 = new SetValue(TypeFactory.mkInteger());
         intSet1.add(IntegerValue.valueOf(1));
@@ -37,6 +37,10 @@ public class AllTests {
         test.addTestSuite( org.tzi.use.uml.sys.DeletionTest.class );
         test.addTestSuite( org.tzi.use.uml.sys.LinkTest.class );
         test.addTestSuite( org.tzi.use.uml.sys.MCmdDestroyObjectsTest.class );
+        test.addTestSuite( org.tzi.use.uml.sys.WholePartHierarchyTest.class );
+        test.addTestSuite( org.tzi.use.uml.sys.SystemEventsTest.class );
+        test.addTestSuite( org.tzi.use.uml.sys.ExpressionFootprintTest.class );
+        test.addTestSuite( org.tzi.use.uml.sys.testsuite.MTestSuiteTest.class );
         test.addTest(org.tzi.use.uml.sys.soil.AllTests.suite());
         return test;
     }
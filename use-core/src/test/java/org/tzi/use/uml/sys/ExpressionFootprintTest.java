@@ -0,0 +1,104 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.sys;
+
+import junit.framework.TestCase;
+
+import org.tzi.use.api.UseApiException;
+import org.tzi.use.api.UseModelApi;
+import org.tzi.use.api.UseSystemApi;
+import org.tzi.use.uml.mm.MAggregationKind;
+import org.tzi.use.util.soil.StateDifference;
+
+/**
+ * Tests the class {@link ExpressionFootprint}.
+ */
+public class ExpressionFootprintTest extends TestCase {
+
+	private UseModelApi model;
+	
+	private UseSystemApi system;
+	
+	@Override
+	protected void setUp() throws Exception {
+		model = new UseModelApi("Footprint");
+		model.createClass("Person", false);
+		model.createClass("Student", false);
+		model.createClass("Company", false);
+		model.createClass("Other", false);
+		model.createGeneralization("Student", "Person");
+		model.createAttribute("Person", "age", "Integer");
+		model.createAttribute("Other", "name", "String");
+		model.createAssociation("Job",
+				"Person", "employee", "*", MAggregationKind.NONE,
+				"Company", "employer", "*", MAggregationKind.NONE);
+		
+		system = UseSystemApi.create(model.getModel(), false);
+	}
+	
+	private ExpressionFootprint footprint(String invName, String context, String body) throws UseApiException {
+		return ExpressionFootprint.of(model.createInvariant(invName, context, body, false));
+	}
+	
+	public void testObjects() throws UseApiException {
+		ExpressionFootprint personInv = footprint("age", "Person", "self.age >= 0");
+		ExpressionFootprint studentInv = footprint("studentAge", "Student", "self.age >= 16");
+		
+		StateDifference diff = new StateDifference();
+		diff.addNewObject(system.createObject("Other", "o"));
+		assertFalse(personInv.isAffectedBy(diff));
+		
+		diff = new StateDifference();
+		diff.addNewObject(system.createObject("Student", "s"));
+		assertTrue(personInv.isAffectedBy(diff));
+		assertTrue(studentInv.isAffectedBy(diff));
+		
+		diff = new StateDifference();
+		diff.addModifiedObject(system.createObject("Person", "p"));
+		assertTrue(personInv.isAffectedBy(diff));
+		assertFalse(studentInv.isAffectedBy(diff));
+	}
+	
+	public void testLinks() throws UseApiException {
+		ExpressionFootprint personInv = footprint("age", "Person", "self.age >= 0");
+		ExpressionFootprint companyInv = footprint("size", "Company", "self.employee->size() < 10");
+		
+		system.createObject("Person", "p");
+		system.createObject("Company", "c");
+		
+		StateDifference diff = new StateDifference();
+		diff.addNewLink(system.createLink("Job", "p", "c"));
+		assertFalse(personInv.isAffectedBy(diff));
+		assertTrue(companyInv.isAffectedBy(diff));
+		assertFalse(companyInv.isUnbounded());
+	}
+	
+	public void testAllInstances() throws UseApiException {
+		ExpressionFootprint otherInv = footprint("unique", "Company", "Other.allInstances()->isUnique(name)");
+		
+		StateDifference diff = new StateDifference();
+		diff.addModifiedObject(system.createObject("Other", "o"));
+		assertTrue(otherInv.isAffectedBy(diff));
+		
+		diff = new StateDifference();
+		diff.addModifiedObject(system.createObject("Person", "p"));
+		assertFalse(otherInv.isAffectedBy(diff));
+	}
+}
@@ -24,11 +24,14 @@ import org.junit.Test;
 import org.tzi.use.api.UseApiException;
 import org.tzi.use.api.UseModelApi;
 import org.tzi.use.api.UseSystemApi;
+import org.tzi.use.uml.mm.MAttribute;
 import org.tzi.use.uml.mm.MClass;
 import org.tzi.use.uml.ocl.expr.Expression;
 import org.tzi.use.uml.ocl.expr.ExpressionWithValue;
 import org.tzi.use.uml.ocl.type.TypeFactory;
+import org.tzi.use.uml.ocl.value.IntegerValue;
 import org.tzi.use.uml.ocl.value.SequenceValue;
+import org.tzi.use.uml.ocl.value.StringValue;
 import org.tzi.use.uml.ocl.value.UndefinedValue;
 import org.tzi.use.uml.sys.soil.MIterationStatement;
 import org.tzi.use.uml.sys.soil.MNewObjectStatement;
@@ -120,6 +123,55 @@ public class MSystemStateTest extends TestCase {
     	
     }
     
+    public void testAttributeSlots() throws UseApiException {
+        UseModelApi api = new UseModelApi("test");
+        MClass a = api.createClass("A", false);
+        MClass b = api.createClass("B", false);
+        api.createGeneralization("B", "A");
+        MAttribute x = api.createAttribute("A", "x", "Integer");
+        MAttribute y = api.createAttribute("B", "y", "String");
+
+        UseSystemApi sys = UseSystemApi.create(api.getModel(), false);
+        MObject a1 = sys.createObjectEx(a, "a1");
+        MObject b1 = sys.createObjectEx(b, "b1");
+        MObject b2 = sys.createObjectEx(b, "b2");
+        sys.setAttributeValue("b1", "x", "1");
+        sys.setAttributeValue("b1", "y", "'one'");
+        sys.setAttributeValue("b2", "x", "2");
+
+        MSystemState state = sys.getSystem().state();
+        assertSame(b1.state(state).attributeLayout(), b2.state(state).attributeLayout());
+        assertEquals(1, a1.state(state).attributeLayout().size());
+        assertEquals(2, b1.state(state).attributeLayout().size());
+
+        assertEquals(IntegerValue.valueOf(1), b1.state(state).attributeValue(x));
+        assertEquals(new StringValue("one"), b1.state(state).attributeValue(y));
+        assertEquals(UndefinedValue.instance, b2.state(state).attributeValue(y));
+        assertEquals(2, b1.state(state).attributeValueMap().size());
+
+        try {
+            a1.state(state).attributeValue(y);
+            fail("Attribute of subclass accessed");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        // new attributes are used by new objects only
+        api.createAttribute("A", "z", "Integer");
+        MObject b3 = sys.createObjectEx(b, "b3");
+        assertEquals(3, b3.state(state).attributeLayout().size());
+        assertEquals(2, b1.state(state).attributeLayout().size());
+        assertEquals(IntegerValue.valueOf(3), sys.evaluate("Set{b1, b2}->collect(x)->sum()"));
+
+        // the same holds for a new generalization
+        MClass c = api.createClass("C", false);
+        MObject c1 = sys.createObjectEx(c, "c1");
+        assertEquals(0, c1.state(state).attributeLayout().size());
+        api.createGeneralization("C", "A");
+        MObject c2 = sys.createObjectEx(c, "c2");
+        assertEquals(2, c2.state(state).attributeLayout().size());
+    }
+
     @Test
     public void testNamesGeneration() throws UseApiException, MSystemException, OperationNotSupportedException {
     	
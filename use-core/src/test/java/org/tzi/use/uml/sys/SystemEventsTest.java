@@ -0,0 +1,119 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.sys;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.tzi.use.api.UseApiException;
+import org.tzi.use.api.UseModelApi;
+import org.tzi.use.api.UseSystemApi;
+import org.tzi.use.uml.mm.MAggregationKind;
+import org.tzi.use.uml.sys.events.AttributeAssignedEvent;
+import org.tzi.use.uml.sys.events.LinkInsertedEvent;
+import org.tzi.use.uml.sys.events.ObjectCreatedEvent;
+import org.tzi.use.uml.sys.events.SystemEventBus;
+import org.tzi.use.uml.sys.events.tags.SystemStructureChangedEvent;
+
+import com.google.common.eventbus.Subscribe;
+
+/**
+ * Tests that system events are only created
+ * if they are subscribed to or recorded.
+ */
+public class SystemEventsTest extends TestCase {
+
+	private static class StructureListener {
+		List<Object> events = new ArrayList<Object>();
+		
+		@Subscribe
+		public void onStructureChanged(SystemStructureChangedEvent e) {
+			events.add(e);
+		}
+	}
+	
+	private static class ObjectListener extends StructureListener {
+		@Subscribe
+		public void onObjectCreated(ObjectCreatedEvent e) {
+			events.add(e);
+		}
+	}
+	
+	private MSystem createSystem(boolean recordEvents) throws UseApiException {
+		UseModelApi model = new UseModelApi("Events");
+		model.createClass("A", false);
+		model.createAttribute("A", "x", "Integer");
+		model.createAssociation("R",
+				"A", "a1", "*", MAggregationKind.NONE,
+				"A", "a2", "*", MAggregationKind.NONE);
+		
+		MSystem system = new MSystem(model.getModel());
+		system.setRecordEvents(recordEvents);
+		return system;
+	}
+	
+	private void changeState(MSystem system) throws UseApiException {
+		UseSystemApi api = UseSystemApi.create(system, true);
+		api.createObjects("A", "a", "b");
+		api.setAttributeValue("a", "x", "1");
+		api.createLink("R", "a", "b");
+	}
+	
+	public void testSubscribedTypes() {
+		SystemEventBus bus = new SystemEventBus("test");
+		assertFalse(bus.hasSubscribers(ObjectCreatedEvent.class));
+		
+		ObjectListener l = new ObjectListener();
+		bus.register(l);
+		assertTrue(bus.hasSubscribers(ObjectCreatedEvent.class));
+		assertTrue(bus.hasSubscribers(LinkInsertedEvent.class));
+		assertFalse(bus.hasSubscribers(AttributeAssignedEvent.class));
+		
+		// registering twice is ignored by the event bus
+		bus.register(l);
+		bus.unregister(l);
+		assertFalse(bus.hasSubscribers(ObjectCreatedEvent.class));
+	}
+	
+	public void testNoEventsWithoutSubscribers() throws UseApiException {
+		MSystem system = createSystem(false);
+		changeState(system);
+		assertTrue(system.getAllEvents().isEmpty());
+	}
+	
+	public void testSubscribedEvents() throws UseApiException {
+		MSystem system = createSystem(false);
+		StructureListener l = new StructureListener();
+		system.getEventBus().register(l);
+		changeState(system);
+		
+		// two objects and one link, but no attribute assignment
+		assertEquals(3, l.events.size());
+		assertTrue(system.getAllEvents().isEmpty());
+	}
+	
+	public void testRecordedEvents() throws UseApiException {
+		MSystem system = createSystem(true);
+		changeState(system);
+		assertEquals(4, system.getAllEvents().size());
+	}
+}
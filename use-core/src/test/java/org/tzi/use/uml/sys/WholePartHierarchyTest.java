@@ -0,0 +1,99 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.sys;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+import org.tzi.use.api.UseApiException;
+import org.tzi.use.api.UseModelApi;
+import org.tzi.use.api.UseSystemApi;
+import org.tzi.use.uml.mm.MAggregationKind;
+
+/**
+ * Tests the incremental detection of shared parts
+ * and cycles in the whole/part hierarchy.
+ */
+public class WholePartHierarchyTest extends TestCase {
+
+	private UseSystemApi createSystem() throws UseApiException {
+		UseModelApi model = new UseModelApi("WholePart");
+		model.createClass("Part", false);
+		model.createAssociation("Contains",
+				"Part", "whole", "0..1", MAggregationKind.COMPOSITION,
+				"Part", "parts", "*", MAggregationKind.NONE);
+		
+		UseSystemApi system = UseSystemApi.create(model.getModel(), false);
+		system.createObjects("Part", "a", "b", "c", "d");
+		return system;
+	}
+	
+	private String checkStructure(UseSystemApi system) {
+		StringWriter out = new StringWriter();
+		system.getSystem().state().checkStructure(new PrintWriter(out, true));
+		return out.toString();
+	}
+	
+	public void testSharedPart() throws UseApiException {
+		UseSystemApi system = createSystem();
+		system.createLink("Contains", "a", "b");
+		system.createLink("Contains", "b", "c");
+		assertTrue(system.checkState());
+		
+		system.createLink("Contains", "d", "c");
+		assertTrue(checkStructure(system).contains("Error: Object `c' is shared by object"));
+		
+		system.deleteLink("Contains", new String[] {"d", "c"});
+		assertTrue(system.checkState());
+	}
+	
+	public void testCycle() throws UseApiException {
+		UseSystemApi system = createSystem();
+		// inserted against the creation order of the objects
+		system.createLink("Contains", "c", "d");
+		system.createLink("Contains", "b", "c");
+		system.createLink("Contains", "a", "b");
+		assertTrue(system.checkState());
+		
+		system.createLink("Contains", "d", "a");
+		assertTrue(checkStructure(system).contains("Error: There is a cycle in the part-whole hierarchy."));
+		
+		// breaking the cycle at another link makes d -> a valid
+		system.deleteLink("Contains", new String[] {"b", "c"});
+		assertFalse(checkStructure(system).contains("cycle"));
+		
+		system.createLink("Contains", "a", "c");
+		assertTrue(checkStructure(system).contains("cycle"));
+		
+		system.deleteLink("Contains", new String[] {"a", "c"});
+		assertFalse(checkStructure(system).contains("cycle"));
+	}
+	
+	public void testReflexiveLink() throws UseApiException {
+		UseSystemApi system = createSystem();
+		system.createLink("Contains", "a", "a");
+		assertTrue(checkStructure(system).contains("Error: Object `a' cannot be a part of itself."));
+		
+		system.deleteLink("Contains", new String[] {"a", "a"});
+		assertTrue(system.checkState());
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.uml.sys.testsuite;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+import org.tzi.use.config.Options;
+import org.tzi.use.parser.testsuite.TestSuiteCompiler;
+import org.tzi.use.uml.mm.MModel;
+import org.tzi.use.uml.mm.TestModelUtil;
+
+/**
+ * Tests the execution of test suites on copies of the setup state.
+ */
+public class MTestSuiteTest extends TestCase {
+
+	private static final String SUITE =
+			"testsuite Suite for model PersonCompany.use\n" +
+			"setup\n" +
+			"  !create p1:Person\n" +
+			"  !create c1:Company\n" +
+			"end\n" +
+			"testcase first\n" +
+			"  !create p2:Person\n" +
+			"  assert valid Person.allInstances()->size() = 2\n" +
+			"end\n" +
+			"testcase second\n" +
+			"  !create p2:Person\n" +
+			"  beginVariation\n" +
+			"    !create p3:Person\n" +
+			"    assert valid Person.allInstances()->size() = 3\n" +
+			"  endVariation\n" +
+			"  assert valid Person.allInstances()->size() = 2\n" +
+			"end\n" +
+			"testcase failing\n" +
+			"  assert valid Person.allInstances()->size() = 2\n" +
+			"end\n" +
+			"testcase last\n" +
+			"  assert valid Company.allInstances()->size() = 1\n" +
+			"end\n";
+
+	private static final String WRITING_SUITE =
+			"testsuite Writing for model PersonCompany.use\n" +
+			"setup\n" +
+			"  !create p1:Person\n" +
+			"end\n" +
+			"testcase first\n" +
+			"  !WriteLine('first')\n" +
+			"  !WriteLine('first')\n" +
+			"end\n" +
+			"testcase second\n" +
+			"  !WriteLine('second')\n" +
+			"end\n" +
+			"testcase third\n" +
+			"  !Write('third')\n" +
+			"end\n";
+
+	private String run(int numThreads, StringWriter timings) {
+		return run(SUITE, numThreads, timings);
+	}
+
+	private String run(String suiteText, int numThreads, StringWriter timings) {
+		MModel model = TestModelUtil.getInstance().createModelWithClasses();
+		MTestSuite suite = TestSuiteCompiler.compileTestSuite(suiteText, "suite", new PrintWriter(new StringWriter()), model);
+		assertNotNull(suite);
+
+		int oldThreads = Options.TESTSUITE_NUMTHREADS;
+		Options.TESTSUITE_NUMTHREADS = numThreads;
+
+		try {
+			StringWriter out = new StringWriter();
+			suite.run(new PrintWriter(out), new PrintWriter(timings));
+			return out.toString();
+		} finally {
+			Options.TESTSUITE_NUMTHREADS = oldThreads;
+		}
+	}
+
+	public void testSequential() {
+		StringWriter timings = new StringWriter();
+		String output = run(1, timings);
+
+		assertTrue(output.contains("Executing test 1/4 `first'... success"));
+		assertTrue(output.contains("Executing test 2/4 `second'... success"));
+		assertTrue(output.contains("Executing test 3/4 `failing'... failure"));
+		assertTrue(output.contains("Executing test 4/4 `last'... success"));
+		assertTrue(output.contains("### 1 FAILURE ###"));
+
+		String[] lines = timings.toString().split("\\R");
+		// header, 4 tests and 5 assertions
+		assertEquals(10, lines.length);
+		assertTrue(lines[1].startsWith("test\t1\tfirst\tOK\t"));
+	}
+
+	public void testParallel() {
+		assertEquals(run(1, new StringWriter()), run(3, new StringWriter()));
+	}
+
+	public void testOutputInTestCaseOrder() {
+		PrintStream oldOut = System.out;
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		String report;
+
+		try {
+			System.setOut(new PrintStream(buffer, true));
+			report = run(WRITING_SUITE, 3, new StringWriter());
+		} finally {
+			System.setOut(oldOut);
+		}
+
+		assertTrue(report.contains("### OK ###"));
+
+		StringBuilder expected = new StringBuilder();
+		expected.append("first").append(System.lineSeparator());
+		expected.append("first").append(System.lineSeparator());
+		expected.append("second").append(System.lineSeparator());
+		expected.append("third");
+		assertEquals(expected.toString(), buffer.toString());
+	}
+}
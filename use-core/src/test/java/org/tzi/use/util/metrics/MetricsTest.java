@@ -0,0 +1,114 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2004 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.util.metrics;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import junit.framework.TestCase;
+
+import org.tzi.use.TestSystem;
+import org.tzi.use.uml.ocl.value.IntegerValue;
+import org.tzi.use.uml.sys.MSystem;
+import org.tzi.use.uml.sys.soil.MVariableAssignmentStatement;
+
+/**
+ * Tests the metrics registry and the instrumentation of the system.
+ */
+public class MetricsTest extends TestCase {
+
+	public void testHistogram() {
+		Histogram h = new Histogram();
+		assertEquals(0, h.getPercentile(50));
+		
+		for (int i = 1; i <= 100; ++i) {
+			h.record(i);
+		}
+		
+		assertEquals(100, h.getCount());
+		assertEquals(5050, h.getSum());
+		assertEquals(100, h.getMax());
+		assertEquals(50.5, h.getMean(), 0.001);
+		
+		// bucket bounds are powers of two
+		assertEquals(63, h.getPercentile(50));
+		assertEquals(100, h.getPercentile(99));
+		
+		h.reset();
+		assertEquals(0, h.getCount());
+		assertEquals(0, h.getMax());
+	}
+	
+	public void testRegistry() {
+		Counter c = Metrics.counter("test.counter");
+		assertSame(c, Metrics.counter("test.counter"));
+		
+		c.add(3);
+		c.inc();
+		Metrics.gauge("test.gauge").set(7);
+		Metrics.histogram("test.time").record(2000000);
+		
+		assertEquals(Long.valueOf(4), Metrics.getCounterValues().get("test.counter"));
+		assertEquals(Long.valueOf(7), Metrics.getGaugeValues().get("test.gauge"));
+		assertTrue(Metrics.getHistogramSummaries().get("test.time").startsWith("count=1 "));
+		
+		StringWriter report = new StringWriter();
+		Metrics.printReport(new PrintWriter(report));
+		assertTrue(report.toString(), report.toString().contains("test.counter"));
+		
+		Metrics.reset();
+		assertEquals(0, c.get());
+	}
+	
+	public void testStatementExecution() throws Exception {
+		MSystem system = new TestSystem().getSystem();
+		Counter executed = Metrics.counter("statement.executed");
+		long before = executed.get();
+		
+		system.execute(new MVariableAssignmentStatement("metricsTest", IntegerValue.valueOf(1)));
+		
+		assertEquals(before + 1, executed.get());
+		assertEquals(system.numEvaluatedStatements(), Metrics.gauge("undo.journal.size").get());
+		
+		system.undoLastStatement();
+		assertEquals(system.numEvaluatedStatements(), Metrics.gauge("undo.journal.size").get());
+	}
+	
+	public void testMBean() throws Exception {
+		Metrics.registerMBean();
+		Metrics.registerMBean();
+		Metrics.counter("test.mbean").inc();
+		
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(Metrics.MBEAN_NAME);
+		assertTrue(server.isRegistered(name));
+		
+		TabularData counters = (TabularData)server.getAttribute(name, "Counters");
+		assertTrue(counters.containsKey(new Object[] { "test.mbean" }));
+		
+		String report = (String)server.getAttribute(name, "Report");
+		assertTrue(report, report.contains("test.mbean"));
+	}
+}
@@ -49,7 +49,8 @@ public class AllLayoutTypes<N extends Layoutable> {
         HierarchicalUpsideDown,
         HorizontalRightToLeft,
         LandscapeSwimlane,
-        PortraitSwimlane
+        PortraitSwimlane,
+        ForceDirected
     }
 
     public AllLayoutTypes(DirectedGraph<N, ?> g,
@@ -150,6 +151,21 @@ public class AllLayoutTypes<N extends Layoutable> {
         SwimlaneLayout(LayoutType.PortraitSwimlane);
     }
 
+    /**
+     * Runs the {@link SpringLayout} until the nodes are at rest
+     * or <code>timeBudget</code> milliseconds are used up.
+     * In contrast to the other layouts, this one does not
+     * require a hierarchy and scales to large object graphs.
+     */
+    public void ForceDirectedLayout(int edgeLength, long timeBudget) {
+        SpringLayout<N> springLayout = new SpringLayout<N>(fGraph, fWidth, fHeight, fMarginX, fMarginY);
+        springLayout.setEdgeLen(edgeLength);
+        springLayout.setTimeBudget(timeBudget);
+        do {
+            springLayout.layout();
+        } while (!springLayout.isFinished() && !Thread.currentThread().isInterrupted());
+    }
+
     private void layout(LayoutType layoutType) {
         MakeAllParametersEmpty();
         SetRootNodes();
@@ -19,8 +19,16 @@
 
 package org.tzi.use.gui.graphlayout;
 
-import java.util.Iterator;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 import org.tzi.use.graph.DirectedGraph;
 import org.tzi.use.gui.views.diagrams.Layoutable;
@@ -28,10 +36,28 @@ import org.tzi.use.gui.views.diagrams.Layoutable;
 /**
  * A spring embedder layout algorithm. See, e.g. G. Di Battista et
  * al.: "Graph Drawing", pp. 303, Prentice Hall, 1999.
+ * <p>
+ * For larger graphs the repulsive forces are approximated
+ * by a Barnes-Hut quadtree (J. Barnes and P. Hut: "A hierarchical O(N log N)
+ * force-calculation algorithm", Nature 324, 1986) and the forces
+ * of the nodes are calculated in parallel.
+ * A layout is finished, if the nodes are at rest or
+ * the time budget is used up.
+ * </p>
  *
  * @author      Mark Richters
  */
 public class SpringLayout<N extends Layoutable> {
+	/** up to this number of nodes the repulsive forces are calculated exactly **/
+	private static final int EXACT_THRESHOLD = 100;
+	/** from this number of nodes on the forces are calculated in parallel **/
+	private static final int PARALLEL_THRESHOLD = 500;
+	/** the layout is at rest, if no node moves more than this distance **/
+	private static final double MIN_MOVEMENT = 0.1;
+	
+	private static final double K1 = 1;
+	private static final double K2 = 10000;
+	
 	/** the graph to be layouted **/
 	protected DirectedGraph<N, ?> fGraph;
 	/** maximum width of layout **/
@@ -47,6 +73,23 @@ public class SpringLayout<N extends Layoutable> {
     protected double[] fXn;
     protected double[] fYn;
 
+    /** current positions of the nodes **/
+    private double[] fX;
+    private double[] fY;
+    /** indexes of the source nodes of each node **/
+    private int[][] fSources;
+    /** modification count of the graph <code>fSources</code> was calculated for **/
+    private int fSourcesModCount;
+    
+    /** opening criterion of the quadtree (cell width / distance) **/
+    private double fTheta = 0.6;
+    private QuadTree fTree;
+    
+    /** time budget in milliseconds, <code>0</code> means unlimited **/
+    private long fTimeBudget = 0;
+    private long fStartTime = 0;
+    private boolean fAtRest = false;
+    
     /**
      * Constructs a new SpringLayouter.
      * 
@@ -67,6 +110,8 @@ public class SpringLayout<N extends Layoutable> {
         fNodes = fGraph.getNodes();
         fXn = new double[fNodes.size()];
         fYn = new double[fNodes.size()];
+        fX = new double[fNodes.size()];
+        fY = new double[fNodes.size()];
     }
 
     /**
@@ -76,69 +121,126 @@ public class SpringLayout<N extends Layoutable> {
         fEdgeLen = len;
     }
 
+    /**
+     * Sets the time in milliseconds calls to {@link #layout()}
+     * may use until the layout is finished.
+     * The time is measured from the first call to <code>layout()</code>
+     * after construction or after {@link #resetTimeBudget()}.
+     * @param millis The time budget or <code>0</code> for no limit.
+     */
+    public void setTimeBudget(long millis) {
+    	fTimeBudget = millis;
+    }
+    
+    /**
+     * Restarts the time budget, e.g., after the user moved nodes.
+     */
+    public void resetTimeBudget() {
+    	fStartTime = 0;
+    	fAtRest = false;
+    }
+    
+    /**
+     * <code>true</code>, if the nodes came to rest or
+     * the time budget is used up.
+     */
+    public boolean isFinished() {
+    	return fAtRest || (fTimeBudget > 0 && fStartTime > 0
+    			&& System.currentTimeMillis() - fStartTime >= fTimeBudget);
+    }
+    
+    /**
+     * Sets the opening criterion of the quadtree.
+     * <code>0</code> calculates the repulsive forces exactly.
+     */
+    void setTheta(double theta) {
+    	fTheta = theta;
+    }
+    
+    /**
+     * Places the given nodes at the center of their already placed
+     * neighbors (plus a small random offset), instead of letting them
+     * travel from an arbitrary position through the whole layout.
+     * Nodes without placed neighbors keep their position.
+     * 
+     * @param unplaced The nodes without a sensible position. Nodes which are not part of the layout are ignored.
+     */
+    public void placeNodes(Collection<? extends N> unplaced) {
+    	Set<N> open = new HashSet<N>(unplaced);
+    	open.retainAll(fNodes);
+    	boolean progress = true;
+    	
+    	// newly placed nodes can be neighbors of other unplaced ones
+    	while (!open.isEmpty() && progress) {
+    		progress = false;
+    		
+    		for (N v : new ArrayList<N>(open)) {
+    			double x = 0;
+    			double y = 0;
+    			int placed = 0;
+    			
+    			Set<N> neighbors = new HashSet<N>(fGraph.sourceNodeSet(v));
+    			neighbors.addAll(fGraph.targetNodeSet(v));
+    			for (N u : neighbors) {
+    				if (u == v || open.contains(u))
+    					continue;
+    				Point2D p = u.getCenter();
+    				x += p.getX();
+    				y += p.getY();
+    				++placed;
+    			}
+    			
+    			if (placed > 0) {
+    				double angle = Math.random() * 2 * Math.PI;
+    				double radius = fEdgeLen / 2;
+    				v.setCenter(x / placed + radius * Math.cos(angle), y / placed + radius * Math.sin(angle));
+    				open.remove(v);
+    				progress = true;
+    			}
+    		}
+    	}
+    	
+    	resetTimeBudget();
+    }
+    
     /**
      * Calculates a layout. This method may be called repeatedly for
      * refining the layout if the graph does not change between calls.
      */
     public void layout() {
         final int N = fNodes.size();
-        final double k1 = 1;
-        final double k2 = 10000;
-
+        if (N == 0)
+        	return;
+        
+        if (fStartTime == 0)
+        	fStartTime = System.currentTimeMillis();
+        
+        for (int i = 0; i < N; i++) {
+        	Point2D p = fNodes.get(i).getCenter();
+        	fX[i] = p.getX();
+        	fY[i] = p.getY();
+        }
+        
+        int modCount = fGraph.getModificationCount();
+        if (fSources == null || fSourcesModCount != modCount) {
+        	calculateSources();
+        	fSourcesModCount = modCount;
+        }
+        
+        fTree = null;
+        if (N > EXACT_THRESHOLD && fTheta > 0) {
+        	fTree = new QuadTree(fX, fY);
+        }
+        
+        IntStream nodes = IntStream.range(0, N);
+        if (N >= PARALLEL_THRESHOLD)
+        	nodes = nodes.parallel();
+        nodes.forEach(this::calculatePosition);
+        
+        // for determining the center of the graph
         double xc = 0.0;
         double yc = 0.0;
         for (int i = 0; i < N; i++) {
-            N v = fNodes.get(i);
-            
-            double xv = v.getCenter().getX();
-            double yv = v.getCenter().getY();
-
-            // spring force
-            Iterator<N> uIter = fGraph.sourceNodeSet(v).iterator();
-            double sumfx1 = 0.0;
-            double sumfy1 = 0.0;
-            while (uIter.hasNext() ) {
-                N u = uIter.next();
-                
-                double xu = u.getCenter().getX();
-                double yu = u.getCenter().getY();
-                double dx = xv - xu;
-                double dy = yv - yu;
-                double d = Math.sqrt(dx * dx + dy * dy);
-                d = (d == 0) ? .0001 : d;
-                double c = k1 * (d - fEdgeLen) / d;
-                sumfx1 += c * dx;
-                sumfy1 += c * dy;
-            }
-
-       
-            // electrical force
-
-            uIter = fGraph.iterator();
-            double sumfx2 = 0.0;
-            double sumfy2 = 0.0;
-            while (uIter.hasNext() ) {
-                N u = uIter.next();
-                if (u == v )
-                    continue;
-
-                double xu = u.getCenter().getX();
-                double yu = u.getCenter().getY();
-                double dx = xv - xu;
-                double dy = yv - yu;
-                double d = dx * dx + dy * dy;
-                if (d > 0 ) {
-                    double c = k2 / (d * Math.sqrt(d));
-                    sumfx2 += c * dx;
-                    sumfy2 += c * dy;
-                }
-            }
-
-            // store new positions
-            fXn[i] = xv - Math.max(-5, Math.min(5, sumfx1 - sumfx2));
-            fYn[i] = yv - Math.max(-5, Math.min(5, sumfy1 - sumfy2));
-
-            // for determining the center of the graph
             xc += fXn[i];
             yc += fYn[i];
         }
@@ -152,6 +254,7 @@ public class SpringLayout<N extends Layoutable> {
         dy = Math.max(-2.5, Math.min(2.5, dy));
 
         // set new positions
+        double maxMovement = 0;
         for (int i = 0; i < N; i++) {
             N v = fNodes.get(i);
             double halfWidth = v.getWidth() / 2;
@@ -162,7 +265,245 @@ public class SpringLayout<N extends Layoutable> {
             double x = Math.max(fMarginX + halfWidth,  Math.min(fWidth - fMarginX - halfWidth, fXn[i] + dx));
             double y = Math.max(fMarginY + halfHeight, Math.min(fHeight - fMarginY - halfHeight, fYn[i] + dy));
             v.setCenter(x, y);
+            
+            maxMovement = Math.max(maxMovement, Math.max(Math.abs(x - fX[i]), Math.abs(y - fY[i])));
         }
+        
+        fAtRest = maxMovement < MIN_MOVEMENT;
     }
-}
+    
+    private void calculateSources() {
+    	Map<N, Integer> index = new HashMap<N, Integer>();
+    	for (int i = 0; i < fNodes.size(); i++) {
+    		index.put(fNodes.get(i), Integer.valueOf(i));
+    	}
+    	
+    	fSources = new int[fNodes.size()][];
+    	for (int i = 0; i < fNodes.size(); i++) {
+    		Set<N> sources = fGraph.sourceNodeSet(fNodes.get(i));
+    		int[] indexes = new int[sources.size()];
+    		int k = 0;
+    		for (N u : sources) {
+    			Integer j = index.get(u);
+    			if (j != null)
+    				indexes[k++] = j.intValue();
+    		}
+    		fSources[i] = k == indexes.length ? indexes : Arrays.copyOf(indexes, k);
+    	}
+    }
+    
+    /**
+     * Calculates the new position of node <code>i</code>
+     * from the current positions.
+     */
+    private void calculatePosition(int i) {
+    	double xv = fX[i];
+        double yv = fY[i];
+
+        // spring force
+        double sumfx1 = 0.0;
+        double sumfy1 = 0.0;
+        for (int u : fSources[i]) {
+            double dx = xv - fX[u];
+            double dy = yv - fY[u];
+            double d = Math.sqrt(dx * dx + dy * dy);
+            d = (d == 0) ? .0001 : d;
+            double c = K1 * (d - fEdgeLen) / d;
+            sumfx1 += c * dx;
+            sumfy1 += c * dy;
+        }
+
+        // electrical force
+        double sumfx2 = 0.0;
+        double sumfy2 = 0.0;
+        
+        if (fTree != null) {
+        	double[] f = fTree.force(xv, yv, fTheta);
+        	sumfx2 = f[0];
+        	sumfy2 = f[1];
+        } else {
+        	for (int u = 0; u < fX.length; u++) {
+	            if (u == i)
+	                continue;
+	
+	            double dx = xv - fX[u];
+	            double dy = yv - fY[u];
+	            double d = dx * dx + dy * dy;
+	            if (d > 0) {
+	                double c = K2 / (d * Math.sqrt(d));
+	                sumfx2 += c * dx;
+	                sumfy2 += c * dy;
+	            }
+        	}
+        }
 
+        // store new positions
+        fXn[i] = xv - Math.max(-5, Math.min(5, sumfx1 - sumfx2));
+        fYn[i] = yv - Math.max(-5, Math.min(5, sumfy1 - sumfy2));
+    }
+    
+    /**
+     * A quadtree over the node positions storing the
+     * number of nodes and their center of mass in each cell.
+     * Cells are stored in arrays to keep the construction
+     * cheap for large graphs.
+     */
+    private static final class QuadTree {
+    	/** Nodes at (almost) the same position are not separated below this depth **/
+    	private static final int MAX_DEPTH = 48;
+    	private static final int EMPTY = -1;
+    	private static final int INNER = -2;
+    	
+    	private int size = 0;
+    	/** node of a leaf cell or EMPTY / INNER **/
+    	private int[] node;
+    	/** indexes of the four child cells, -1 if none **/
+    	private int[] children;
+    	private double[] x0;
+    	private double[] y0;
+    	private double[] width;
+    	private double[] mass;
+    	private double[] sumX;
+    	private double[] sumY;
+    	
+    	QuadTree(double[] x, double[] y) {
+    		int capacity = 2 * x.length + 1;
+    		node = new int[capacity];
+    		children = new int[4 * capacity];
+    		x0 = new double[capacity];
+    		y0 = new double[capacity];
+    		width = new double[capacity];
+    		mass = new double[capacity];
+    		sumX = new double[capacity];
+    		sumY = new double[capacity];
+    		
+    		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+    		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+    		for (int i = 0; i < x.length; i++) {
+    			minX = Math.min(minX, x[i]);
+    			minY = Math.min(minY, y[i]);
+    			maxX = Math.max(maxX, x[i]);
+    			maxY = Math.max(maxY, y[i]);
+    		}
+    		
+    		newCell(minX, minY, Math.max(1, Math.max(maxX - minX, maxY - minY)) * 1.0001);
+    		for (int i = 0; i < x.length; i++) {
+    			insert(i, x[i], y[i]);
+    		}
+    	}
+    	
+    	private int newCell(double x, double y, double w) {
+    		if (size == node.length) {
+    			int capacity = 2 * size;
+    			node = Arrays.copyOf(node, capacity);
+    			children = Arrays.copyOf(children, 4 * capacity);
+    			x0 = Arrays.copyOf(x0, capacity);
+    			y0 = Arrays.copyOf(y0, capacity);
+    			width = Arrays.copyOf(width, capacity);
+    			mass = Arrays.copyOf(mass, capacity);
+    			sumX = Arrays.copyOf(sumX, capacity);
+    			sumY = Arrays.copyOf(sumY, capacity);
+    		}
+    		
+    		int c = size++;
+    		node[c] = EMPTY;
+    		Arrays.fill(children, 4 * c, 4 * c + 4, -1);
+    		x0[c] = x;
+    		y0[c] = y;
+    		width[c] = w;
+    		mass[c] = 0;
+    		sumX[c] = 0;
+    		sumY[c] = 0;
+    		return c;
+    	}
+    	
+    	private int child(int c, double x, double y) {
+    		double half = width[c] / 2;
+    		int q = (x >= x0[c] + half ? 1 : 0) + (y >= y0[c] + half ? 2 : 0);
+    		int child = children[4 * c + q];
+    		
+    		if (child == -1) {
+    			child = newCell(x0[c] + ((q & 1) == 0 ? 0 : half), y0[c] + ((q & 2) == 0 ? 0 : half), half);
+    			children[4 * c + q] = child;
+    		}
+    		
+    		return child;
+    	}
+    	
+    	private void insert(int i, double x, double y) {
+    		int c = 0;
+    		for (int depth = 0; ; depth++) {
+    			if (node[c] == EMPTY) {
+    				node[c] = i;
+    				mass[c] = 1;
+    				sumX[c] = x;
+    				sumY[c] = y;
+    				return;
+    			}
+    			
+    			if (node[c] >= 0) {
+    				if (depth >= MAX_DEPTH) {
+    					// keep coincident nodes in one leaf
+    					mass[c] += 1;
+    					sumX[c] += x;
+    					sumY[c] += y;
+    					return;
+    				}
+    				
+    				// move the node of the leaf into a child
+    				double ox = sumX[c] / mass[c];
+    				double oy = sumY[c] / mass[c];
+    				int oc = child(c, ox, oy);
+    				node[oc] = node[c];
+    				mass[oc] = mass[c];
+    				sumX[oc] = sumX[c];
+    				sumY[oc] = sumY[c];
+    				node[c] = INNER;
+    			}
+    			
+    			mass[c] += 1;
+    			sumX[c] += x;
+    			sumY[c] += y;
+    			c = child(c, x, y);
+    		}
+    	}
+    	
+    	/**
+    	 * Approximates the sum of the repulsive forces at <code>(x, y)</code>.
+    	 * A cell is treated as a single mass if its width divided by the distance
+    	 * to its center of mass is smaller than <code>theta</code>.
+    	 */
+    	double[] force(double x, double y, double theta) {
+    		double fx = 0;
+    		double fy = 0;
+    		double theta2 = theta * theta;
+    		
+    		int[] stack = new int[4 * (MAX_DEPTH + 2)];
+    		int top = 0;
+    		stack[top++] = 0;
+    		
+    		while (top > 0) {
+    			int c = stack[--top];
+    			double dx = x - sumX[c] / mass[c];
+    			double dy = y - sumY[c] / mass[c];
+    			double d = dx * dx + dy * dy;
+    			
+    			if (node[c] != INNER || width[c] * width[c] < theta2 * d) {
+    				if (d > 0) {
+    					double f = K2 * mass[c] / (d * Math.sqrt(d));
+    					fx += f * dx;
+    					fy += f * dy;
+    				}
+    			} else {
+    				for (int q = 0; q < 4; q++) {
+    					int child = children[4 * c + q];
+    					if (child != -1 && mass[child] > 0)
+    						stack[top++] = child;
+    				}
+    			}
+    		}
+    		
+    		return new double[] { fx, fy };
+    	}
+    }
+}
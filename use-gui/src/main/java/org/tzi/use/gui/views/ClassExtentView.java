@@ -30,6 +30,7 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -38,20 +39,27 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
 import javax.swing.JCheckBoxMenuItem;
+import javax.swing.JLabel;
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
+import javax.swing.JTextField;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.table.AbstractTableModel;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumn;
@@ -61,12 +69,16 @@ import org.tzi.use.config.Options;
 import org.tzi.use.gui.main.MainWindow;
 import org.tzi.use.gui.util.PopupListener;
 import org.tzi.use.gui.views.evalbrowser.ExprEvalBrowser;
+import org.tzi.use.parser.SemanticException;
+import org.tzi.use.parser.Symtable;
+import org.tzi.use.parser.ocl.OCLCompiler;
 import org.tzi.use.uml.mm.MAttribute;
 import org.tzi.use.uml.mm.MClass;
 import org.tzi.use.uml.mm.MClassInvariant;
 import org.tzi.use.uml.ocl.expr.Evaluator;
 import org.tzi.use.uml.ocl.expr.Expression;
 import org.tzi.use.uml.ocl.expr.MultiplicityViolationException;
+import org.tzi.use.uml.ocl.value.BooleanValue;
 import org.tzi.use.uml.ocl.value.ObjectValue;
 import org.tzi.use.uml.ocl.value.SetValue;
 import org.tzi.use.uml.ocl.value.Value;
@@ -74,6 +86,7 @@ import org.tzi.use.uml.ocl.value.VarBindings;
 import org.tzi.use.uml.sys.MObject;
 import org.tzi.use.uml.sys.MObjectState;
 import org.tzi.use.uml.sys.MSystem;
+import org.tzi.use.uml.sys.MSystemState;
 import org.tzi.use.uml.sys.events.AttributeAssignedEvent;
 import org.tzi.use.uml.sys.events.ClassInvariantChangedEvent;
 import org.tzi.use.uml.sys.events.ClassInvariantsLoadedEvent;
@@ -87,6 +100,8 @@ import com.google.common.eventbus.Subscribe;
 /**
  * A view showing all objects of a class, their properties (attributes), and
  * results of invariants.
+ * The objects can be sorted by clicking on a column header and
+ * filtered by an OCL expression. Both is calculated in the background.
  * 
  * @author Mark Richters
  */
@@ -107,6 +122,28 @@ public class ClassExtentView extends JPanel implements View, ActionListener {
 
     private TableModel fTableModel;
 
+    private JTextField fFilterField;
+
+    private JLabel fStatusLabel;
+
+    /** Calculates the rows in the background, if not <code>null</code> */
+    private RowWorker fRowWorker;
+
+    /** Incremented on each change of an object of the displayed class, to detect outdated results of {@link RowWorker} */
+    private int fExtentVersion = 0;
+
+    /** Incremented on each recalculation of the rows, to detect outdated results of {@link RowUpdateWorker} */
+    private int fRowsVersion = 0;
+
+    /** Objects whose rows must be placed by the next {@link RowUpdateWorker} */
+    private Set<MObject> fPendingObjects = new LinkedHashSet<MObject>();
+
+    /** Places the rows of changed objects in the background, if not <code>null</code> */
+    private RowUpdateWorker fUpdateWorker;
+
+    /** If <code>true</code>, the column widths are adjusted after the next calculation of the rows */
+    private boolean fFitWidth = true;
+
     public ClassExtentView(MainWindow parent, MSystem system) {
         super(new BorderLayout());
 
@@ -176,7 +213,27 @@ public class ClassExtentView extends JPanel implements View, ActionListener {
         fTable.setPreferredScrollableViewportSize(new Dimension(250, 70));
         fTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         fTablePane = new JScrollPane(fTable);
-        fitWidth();
+        fTable.getTableHeader().setToolTipText("Click to sort by this column");
+        fTable.getTableHeader().addMouseListener(new MouseAdapter() {
+        	@Override
+        	public void mouseClicked(MouseEvent e) {
+        		if (SwingUtilities.isLeftMouseButton(e))
+        			sortBy(fTable.convertColumnIndexToModel(fTable.columnAtPoint(e.getPoint())));
+        	}
+        });
+
+        // filter by an OCL expression
+        JPanel filterPanel = new JPanel(new BorderLayout());
+        fFilterField = new JTextField();
+        fFilterField.setToolTipText("Boolean OCL expression using self, e.g., self.age > 18. Press enter to apply.");
+        fFilterField.addActionListener(new ActionListener() {
+        	public void actionPerformed(ActionEvent e) {
+        		applyFilter();
+        	}
+        });
+        filterPanel.add(new JLabel("Filter: "), BorderLayout.WEST);
+        filterPanel.add(fFilterField, BorderLayout.CENTER);
+        fStatusLabel = new JLabel();
 
         // create the popup menu for options
         fPopupMenu = new JPopupMenu();
@@ -212,9 +269,18 @@ public class ClassExtentView extends JPanel implements View, ActionListener {
         fTablePane.addMouseListener(new PopupListener(fPopupMenu));
 
         // layout panel
+        add(filterPanel, BorderLayout.NORTH);
         add(fTablePane, BorderLayout.CENTER);
+        add(fStatusLabel, BorderLayout.SOUTH);
+        
+        refreshRows();
     }
 
+    /**
+     * Maximum number of rows considered to calculate the column widths.
+     */
+    private static final int FIT_WIDTH_ROWS = 100;
+
     void fitWidth() {
 
         TableColumnModel colModel = fTable.getColumnModel();
@@ -232,7 +298,7 @@ public class ClassExtentView extends JPanel implements View, ActionListener {
                     .getHeaderValue(), false, false, 0, 0);
             width = comp.getPreferredSize().width;
 
-            for (int r = 0; r < fTable.getRowCount(); r++) {
+            for (int r = 0; r < Math.min(fTable.getRowCount(), FIT_WIDTH_ROWS); r++) {
                 renderer = fTable.getCellRenderer(r, i);
                 comp = renderer.getTableCellRendererComponent(fTable, fTable
                         .getValueAt(r, i), false, false, r, i);
@@ -255,13 +321,10 @@ public class ClassExtentView extends JPanel implements View, ActionListener {
             return;
 
         fClass = fSystem.model().getClass(name);
-        fTableModel.initStructure();
-        fTableModel.initModel();
-        if (fShowInvResults)
-            fTableModel.updateInvariants();
-        fTableModel.fireTableStructureChanged();
-        fTableModel.fireTableDataChanged();
-        fitWidth();
+        fTableModel.fFilter = null;
+        fFilterField.setText("");
+        fTableModel.setObjects(Collections.<MObject>emptyList(), null);
+        updateStructure();
         // TableColumn column = null;
         // for (int i = fTableModel.getColumnCount() - 1; i >= 0; i--) {
         // column = fTable.getColumnModel().getColumn(i);
@@ -275,35 +338,64 @@ public class ClassExtentView extends JPanel implements View, ActionListener {
     private static final Icon fNotAvailIcon = new ImageIcon(Options.getIconPath("InvNotAvail.gif").toString());
 
     /**
-     * The table model.
+     * Maximum number of rows whose attribute values are cached.
+     */
+    private static final int ROW_CACHE_SIZE = 1000;
+
+    /**
+     * The table model. Only the objects of the rows are kept,
+     * the attribute values are fetched when a row is shown.
+     * Changes of the state are applied row by row. 
      */
     class TableModel extends AbstractTableModel {
         private ArrayList<String> fColumnNames;
 
+		/** The (filtered) objects in the current sort order */
 		private ArrayList<MObject> fObjects;
 
+		/** Row index of each object, rebuilt on demand if <code>null</code> */
+		private Map<MObject, Integer> fRowIndex = null;
+
+		/**
+		 * Values of the sort column, captured when the rows were calculated.
+		 * <code>null</code>, if the rows are sorted by name.
+		 */
+		private Map<MObject, Value> fSortKeys = null;
+
         private MAttribute[] fAttributes;
 
         private MClassInvariant[] fClassInvariants;
 
+        /** Attribute values of recently shown rows */
         private Map<MObject, String[]> fObjectValueStrMap;
 
         private Map<MClassInvariant, Set<MObject>> fInvBadObjects;
 
-        // need to cache all data because getValueAt is called often.
+        /** The column to sort by. Column <code>0</code> sorts by object name. */
+        private int fSortColumn = 0;
+
+        private boolean fSortAscending = true;
+
+        /** Objects must fulfill this expression (with <code>self</code> bound to the object), if not <code>null</code> */
+        private Expression fFilter = null;
 
         TableModel() {
             fObjects = new ArrayList<MObject>();
             fColumnNames = new ArrayList<String>();
-            fObjectValueStrMap = new HashMap<MObject, String[]>();
+            fObjectValueStrMap = new LinkedHashMap<MObject, String[]>(16, 0.75f, true) {
+            	@Override
+            	protected boolean removeEldestEntry(Map.Entry<MObject, String[]> eldest) {
+            		return size() > ROW_CACHE_SIZE;
+            	}
+            };
             fInvBadObjects = new HashMap<MClassInvariant, Set<MObject>>();
             initStructure();
-            initModel();
         }
 
         void initStructure() {
             fColumnNames.clear();
             fInvBadObjects.clear();
+            fObjectValueStrMap.clear();
             if (fClass == null)
                 return;
 
@@ -314,6 +406,9 @@ public class ClassExtentView extends JPanel implements View, ActionListener {
             System.arraycopy(attributes.toArray(), 0, fAttributes, 0, n);
             Arrays.sort(fAttributes);
 
+            if (fSortColumn > fAttributes.length)
+            	fSortColumn = 0;
+            
             // set columns
             fColumnNames.add(fClass.name());
             for (int i = 0; i < fAttributes.length; i++)
@@ -331,21 +426,36 @@ public class ClassExtentView extends JPanel implements View, ActionListener {
             }
         }
 
-        void initModel() {
-            // initialize object list
-            fObjects.clear();
-            fObjectValueStrMap.clear();
-            if (fClass == null)
-                return;
+        void setObjects(List<MObject> objects, Map<MObject, Value> sortKeys) {
+        	fObjects = new ArrayList<MObject>(objects);
+        	fSortKeys = sortKeys;
+        	fRowIndex = null;
+        	fObjectValueStrMap.clear();
+        }
 
-            // get attribute values for all objects
-            for (MObject obj : fSystem.state().objectsOfClass(fClass)) {
-                addObject(obj);
-            }
-            
-            sortRows();
+        /**
+         * The attribute of the sort column or <code>null</code>,
+         * if the rows are sorted by name.
+         */
+        MAttribute sortAttribute() {
+        	return fSortColumn == 0 ? null : fAttributes[fSortColumn - 1];
         }
 
+        /**
+         * Returns the row of <code>obj</code> or <code>-1</code>,
+         * if the object is not shown.
+         */
+        int indexOf(MObject obj) {
+        	if (fRowIndex == null) {
+        		fRowIndex = new HashMap<MObject, Integer>();
+        		for (int i = 0; i < fObjects.size(); i++)
+        			fRowIndex.put(fObjects.get(i), i);
+        	}
+
+        	Integer index = fRowIndex.get(obj);
+        	return index == null ? -1 : index;
+        }
+        
         void updateInvariants() {
             if (!fSystem.state().checkStructure(
                     new PrintWriter(new NullWriter()))) {
@@ -446,8 +556,7 @@ public class ClassExtentView extends JPanel implements View, ActionListener {
             if (col == 0)
                 return obj.name();
             else if (col <= fAttributes.length) {
-                String[] values = fObjectValueStrMap.get(obj);
-                return values[col - 1];
+                return getValues(obj)[col - 1];
             } else {
                 MClassInvariant inv = fClassInvariants[col - fAttributes.length - 1];
                 Set<MObject> badObjects = fInvBadObjects.get(inv);
@@ -463,46 +572,406 @@ public class ClassExtentView extends JPanel implements View, ActionListener {
         }
 
         /**
-         * Adds a row for an object to the table.
+         * Returns the attribute values of <code>obj</code> as strings.
+         * The values are fetched from the system state, if the row
+         * was not shown recently.
+         */
+        private String[] getValues(MObject obj) {
+        	String[] values = fObjectValueStrMap.get(obj);
+        	
+        	if (values == null) {
+        		values = new String[fAttributes.length];
+        		if (obj.exists(fSystem.state())) {
+        			MObjectState objState = obj.state(fSystem.state());
+        			for (int i = 0; i < fAttributes.length; i++)
+        				values[i] = objState.attributeValue(fAttributes[i]).toString();
+        		} else {
+        			Arrays.fill(values, "");
+        		}
+        		fObjectValueStrMap.put(obj, values);
+        	}
+        	
+        	return values;
+        }
+        
+        /**
+         * Adds a row for an object at its position in the sort order.
+         * <code>sortKey</code> is the value of the sort column
+         * (<code>null</code>, if the rows are sorted by name).
          */
-        void addObject(MObject obj) {
-            fObjects.add(obj);
-            updateObject(obj);
+        void insertObject(MObject obj, Value sortKey) {
+        	if (fSortKeys != null)
+        		fSortKeys.put(obj, sortKey);
+        	
+        	int index = Collections.binarySearch(fObjects, obj, comparator(fSortKeys, fSortAscending));
+        	if (index < 0)
+        		index = -(index + 1);
+        	
+            fObjects.add(index, obj);
+            if (fRowIndex != null && index == fObjects.size() - 1)
+            	fRowIndex.put(obj, index);
+            else
+            	fRowIndex = null;
+            
+            fireTableRowsInserted(index, index);
         }
 
         /**
-         * Updates the row for the given object.
+         * Updates the shown values of the given object.
          */
         void updateObject(MObject obj) {
-            MObjectState objState = obj.state(fSystem.state());
-            String[] values = new String[fAttributes.length];
-            for (int i = 0; i < fAttributes.length; i++)
-                values[i] = objState.attributeValue(fAttributes[i]).toString();
-
-            fObjectValueStrMap.put(obj, values);
+        	fObjectValueStrMap.remove(obj);
+        	
+        	int index = indexOf(obj);
+        	if (index >= 0)
+        		fireTableRowsUpdated(index, index);
         }
 
         /**
          * Removes a row for an object from the table.
          */
         void removeObject(MObject obj) {
-            fObjects.remove(obj);
-            fObjectValueStrMap.remove(obj);
+        	int index = indexOf(obj);
+        	fObjectValueStrMap.remove(obj);
+        	
+        	if (index >= 0) {
+        		fObjects.remove(index);
+        		if (index == fObjects.size())
+        			fRowIndex.remove(obj);
+        		else
+        			fRowIndex = null;
+        		
+        		if (fSortKeys != null)
+        			fSortKeys.remove(obj);
+        		
+        		fireTableRowsDeleted(index, index);
+        	}
         }
 
-        void sortRows() {
-            Collections.sort(fObjects, new Comparator<MObject>() {
-                public int compare(MObject o1, MObject o2) {
-                    return o1.toString().compareTo(o2.toString());
-                }
-            });
+        /**
+         * Compares objects by the captured values of the sort column.
+         * Objects with equal values are ordered by their name.
+         * If <code>sortKeys</code> is <code>null</code>, objects are
+         * compared by their name only.
+         */
+        Comparator<MObject> comparator(final Map<MObject, Value> sortKeys, boolean ascending) {
+        	Comparator<MObject> byName = new Comparator<MObject>() {
+        		public int compare(MObject o1, MObject o2) {
+        			return o1.toString().compareTo(o2.toString());
+        		}
+        	};
+        	Comparator<MObject> result = byName;
+        	
+        	if (sortKeys != null) {
+        		result = new Comparator<MObject>() {
+        			public int compare(MObject o1, MObject o2) {
+        				Value v1 = sortKeys.get(o1);
+        				Value v2 = sortKeys.get(o2);
+        				if (v1 == null || v2 == null)
+        					return v1 == v2 ? 0 : (v1 == null ? -1 : 1);
+        				return v1.compareTo(v2);
+        			}
+        		};
+        		result = result.thenComparing(byName);
+        	}
+        	
+        	return ascending ? result : result.reversed();
+        }
+        
+        /**
+         * The value of <code>attribute</code> of <code>obj</code>
+         * or <code>null</code>, if the object does not exist (anymore).
+         */
+        Value attributeValue(MObject obj, MAttribute attribute) {
+        	MSystemState state = fSystem.state();
+        	if (!obj.exists(state))
+        		return null;
+        	
+        	MObjectState objState = obj.state(state);
+        	return objState == null ? null : objState.attributeValue(attribute);
+        }
+        
+        /**
+         * <code>true</code>, if <code>obj</code> fulfills the filter
+         * expression, i. e., the expression is evaluated to <code>true</code>.
+         */
+        boolean accept(Expression filter, MObject obj) {
+        	if (filter == null)
+        		return true;
+        	
+        	VarBindings bindings = new VarBindings(fSystem.state());
+        	bindings.push("self", obj.value());
+        	
+        	try {
+        		Value v = new Evaluator().eval(filter, fSystem.state(), bindings);
+        		return v.isDefined() && ((BooleanValue)v).isTrue();
+        	} catch (MultiplicityViolationException e) {
+        		return false;
+        	}
         }
-
     }
 
+    /**
+     * Calculates the rows of the table (filter and sort order)
+     * of the selected class in the background.
+     */
+    private class RowWorker extends SwingWorker<List<MObject>, Void> {
+    	private final MClass cls;
+    	private final Expression filter;
+    	private final MAttribute sortAttribute;
+    	private final boolean sortAscending;
+    	private final int extentVersion;
+    	
+    	/** The captured values of the sort column, set by {@link #doInBackground()} */
+    	private Map<MObject, Value> sortKeys;
+    	
+    	RowWorker() {
+    		this.cls = fClass;
+    		this.filter = fTableModel.fFilter;
+    		this.sortAttribute = fTableModel.sortAttribute();
+    		this.sortAscending = fTableModel.fSortAscending;
+    		this.extentVersion = fExtentVersion;
+    	}
+
+		@Override
+		protected List<MObject> doInBackground() throws Exception {
+			List<MObject> result = new ArrayList<MObject>();
+			if (cls == null)
+				return result;
+			
+			Map<MObject, Value> keys = sortAttribute == null ? null : new HashMap<MObject, Value>();
+			
+			for (MObject obj : fSystem.state().objectsOfClass(cls)) {
+				if (isCancelled())
+					return null;
+				
+				if (fTableModel.accept(filter, obj)) {
+					result.add(obj);
+					if (keys != null)
+						keys.put(obj, fTableModel.attributeValue(obj, sortAttribute));
+				}
+			}
+			
+			Collections.sort(result, fTableModel.comparator(keys, sortAscending));
+			sortKeys = keys;
+			return result;
+		}
+    	
+		@Override
+		protected void done() {
+			if (isCancelled() || fRowWorker != this)
+				return;
+			
+			fRowWorker = null;
+			
+			// changes while calculating need a new run
+			if (extentVersion != fExtentVersion) {
+				refreshRows();
+				return;
+			}
+			
+			try {
+				// get() makes the captured sort keys visible to this thread
+				List<MObject> objects = get();
+				fTableModel.setObjects(objects, sortKeys);
+			} catch (InterruptedException e) {
+				return;
+			} catch (ExecutionException e) {
+				fTableModel.setObjects(Collections.<MObject>emptyList(), null);
+				fStatusLabel.setText("Error: " + e.getCause().getMessage());
+				fTableModel.fireTableDataChanged();
+				return;
+			}
+			
+			fTableModel.fireTableDataChanged();
+			updateStatus();
+			
+			if (fFitWidth) {
+				fFitWidth = false;
+				fitWidth();
+			}
+		}
+    }
+    
+    /**
+     * Evaluates the filter and the sort column for changed objects
+     * in the background and places their rows accordingly.
+     */
+    private class RowUpdateWorker extends SwingWorker<Map<MObject, Value>, Void> {
+    	private final List<MObject> objects;
+    	private final Expression filter;
+    	private final MAttribute sortAttribute;
+    	private final int rowsVersion;
+    	
+    	RowUpdateWorker() {
+    		this.objects = new ArrayList<MObject>(fPendingObjects);
+    		this.filter = fTableModel.fFilter;
+    		this.sortAttribute = fTableModel.sortAttribute();
+    		this.rowsVersion = fRowsVersion;
+    		fPendingObjects.clear();
+    	}
+    	
+    	/**
+    	 * Returns the accepted objects mapped to their value of the sort column.
+    	 */
+		@Override
+		protected Map<MObject, Value> doInBackground() throws Exception {
+			Map<MObject, Value> result = new HashMap<MObject, Value>();
+			MSystemState state = fSystem.state();
+			
+			for (MObject obj : objects) {
+				if (isCancelled())
+					return null;
+				
+				if (obj.exists(state) && fTableModel.accept(filter, obj))
+					result.put(obj, sortAttribute == null ? null : fTableModel.attributeValue(obj, sortAttribute));
+			}
+			
+			return result;
+		}
+		
+		@Override
+		protected void done() {
+			if (isCancelled() || fUpdateWorker != this)
+				return;
+			
+			fUpdateWorker = null;
+			
+			// the rows were recalculated in the meantime
+			if (rowsVersion == fRowsVersion) {
+				Map<MObject, Value> accepted;
+				try {
+					accepted = get();
+				} catch (InterruptedException e) {
+					return;
+				} catch (ExecutionException e) {
+					refreshRows();
+					return;
+				}
+				
+				for (MObject obj : objects) {
+					fTableModel.removeObject(obj);
+					if (accepted.containsKey(obj) && obj.exists(fSystem.state()))
+						fTableModel.insertObject(obj, accepted.get(obj));
+				}
+				
+				updateStatus();
+			}
+			
+			if (!fPendingObjects.isEmpty()) {
+				fUpdateWorker = new RowUpdateWorker();
+				fUpdateWorker.execute();
+			}
+		}
+    }
+    
+    /**
+     * Recalculates the rows of the table in the background.
+     */
+    private void refreshRows() {
+    	if (fRowWorker != null)
+    		fRowWorker.cancel(true);
+    	
+    	if (fUpdateWorker != null) {
+    		fUpdateWorker.cancel(true);
+    		fUpdateWorker = null;
+    	}
+    	
+    	fPendingObjects.clear();
+    	++fRowsVersion;
+    	
+    	fStatusLabel.setText("Working...");
+    	fRowWorker = new RowWorker();
+    	fRowWorker.execute();
+    }
+    
+    /**
+     * Inserts, moves or removes the row of a new or changed object.
+     * If the rows are filtered or sorted by an attribute, the row
+     * is placed after evaluating the object in the background.
+     */
+    private void placeObject(MObject obj) {
+    	// a running calculation is repeated, because the extent changed
+    	if (fRowWorker != null)
+    		return;
+    	
+    	// the position of a row sorted by name never changes
+    	if (fTableModel.fFilter == null && fTableModel.fSortColumn == 0) {
+    		if (fTableModel.indexOf(obj) < 0 && obj.exists(fSystem.state()))
+    			fTableModel.insertObject(obj, null);
+    		updateStatus();
+    		return;
+    	}
+    	
+    	fPendingObjects.add(obj);
+    	if (fUpdateWorker == null) {
+    		fUpdateWorker = new RowUpdateWorker();
+    		fUpdateWorker.execute();
+    	}
+    }
+    
+    private void updateStatus() {
+    	if (fRowWorker != null)
+    		return;
+    	
+    	if (fTableModel.fFilter == null)
+    		fStatusLabel.setText(fTableModel.getRowCount() + " objects");
+    	else
+    		fStatusLabel.setText(fTableModel.getRowCount() + " objects match the filter");
+    }
+    
+    /**
+     * Sorts the rows by the given column.
+     * Selecting the current sort column again reverses the order.
+     */
+    private void sortBy(int col) {
+    	if (col < 0 || col > fTableModel.fAttributes.length)
+    		return;
+    	
+    	if (fTableModel.fSortColumn == col) {
+    		fTableModel.fSortAscending = !fTableModel.fSortAscending;
+    	} else {
+    		fTableModel.fSortColumn = col;
+    		fTableModel.fSortAscending = true;
+    	}
+    	
+    	refreshRows();
+    }
+    
+    /**
+     * Compiles the filter expression and recalculates the rows. 
+     * An empty text removes the filter.
+     */
+    private void applyFilter() {
+    	String text = fFilterField.getText().trim();
+    	Expression filter = null;
+    	
+    	if (!text.isEmpty() && fClass != null) {
+    		StringWriter msg = new StringWriter();
+    		Symtable vars = new Symtable();
+    		try {
+    			vars.add("self", fClass, null);
+    		} catch (SemanticException e) {
+    			// not possible in an empty table 
+    		}
+    		
+    		filter = OCLCompiler.compileExpression(fSystem.model(), text, "filter", new PrintWriter(msg), vars);
+    		
+    		if (filter == null) {
+    			fStatusLabel.setText(msg.toString().trim());
+    			return;
+    		} else if (!filter.type().isTypeOfBoolean()) {
+    			fStatusLabel.setText("The filter must be a boolean expression.");
+    			return;
+    		}
+    	}
+    	
+    	fTableModel.fFilter = filter;
+    	refreshRows();
+    }
+    
     private void updateStructure(){
     	fTableModel.initStructure();
-        fTableModel.initModel();
         if (fShowInvResults) {
             fTableModel.updateInvariants();
             fTable.setToolTipText("Double click on the symbols of the invariants to open evaluation browser");
@@ -510,54 +979,91 @@ public class ClassExtentView extends JPanel implements View, ActionListener {
         	fTable.setToolTipText(null);
         }
         fTableModel.fireTableStructureChanged();
-        fTableModel.fireTableDataChanged();
-        fitWidth();
+        fFitWidth = true;
+        refreshRows();
     }
     
     private void update() {
-        if (fShowInvResults)
+        if (fShowInvResults) {
             fTableModel.updateInvariants();
+            fTableModel.fireTableDataChanged();
+        }
         
-        fTableModel.fireTableDataChanged();
+        updateStatus();
     }
     
     @Subscribe
-    public void onObjectCreated(ObjectCreatedEvent e) {
-    	if (e.getCreatedObject().cls().equals(fClass)) {
-            fTableModel.addObject(e.getCreatedObject());
-    	}
-    	
-    	fTableModel.sortRows();
-    	update();
+    public void onObjectCreated(final ObjectCreatedEvent e) {
+    	SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				if (e.getCreatedObject().cls().equals(fClass)) {
+					++fExtentVersion;
+		            placeObject(e.getCreatedObject());
+		    	}
+				update();
+			}
+		});
     }
     
     @Subscribe
-    public void onObjectDestroyed(ObjectDestroyedEvent e) {
-    	if (e.getDestroyedObject().cls().equals(fClass)) {
-            fTableModel.removeObject(e.getDestroyedObject());
-    	}
-    	update();
+    public void onObjectDestroyed(final ObjectDestroyedEvent e) {
+    	SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				if (e.getDestroyedObject().cls().equals(fClass)) {
+					++fExtentVersion;
+		            fPendingObjects.remove(e.getDestroyedObject());
+		            fTableModel.removeObject(e.getDestroyedObject());
+		    	}
+		    	update();
+			}
+		});
     }
     
     @Subscribe
-    public void onAttributeAssignment(AttributeAssignedEvent e) {
-    	if (e.getObject().cls().equals(fClass))
-            fTableModel.updateObject(e.getObject());
+    public void onAttributeAssignment(final AttributeAssignedEvent e) {
+    	SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				if (e.getObject().cls().equals(fClass)) {
+					++fExtentVersion;
+		            fTableModel.updateObject(e.getObject());
+		            if (fTableModel.fFilter != null || fTableModel.fSortColumn != 0)
+		            	placeObject(e.getObject());
+				}
+			}
+		});
     }
     
     @Subscribe
     public void onClassInvariantsLoaded(ClassInvariantsLoadedEvent e){
-    	updateStructure();
+    	SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				updateStructure();
+			}
+		});
     }
     
     @Subscribe
     public void onClassInvariantsUnloaded(ClassInvariantsUnloadedEvent e){
-    	updateStructure();
+    	SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				updateStructure();
+			}
+		});
     }
     
     @Subscribe
     public void onClassInvariantStateChange(ClassInvariantChangedEvent e){
-    	update();
+    	SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				update();
+			}
+		});
     }
     
     /**
@@ -565,5 +1071,9 @@ public class ClassExtentView extends JPanel implements View, ActionListener {
      */
     public void detachModel() {
         fSystem.getEventBus().unregister(this);
+        if (fRowWorker != null)
+        	fRowWorker.cancel(true);
+        if (fUpdateWorker != null)
+        	fUpdateWorker.cancel(true);
     }
 }
\ No newline at end of file
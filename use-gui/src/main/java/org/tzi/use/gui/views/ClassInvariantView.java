@@ -24,6 +24,8 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.Cursor;
 import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.awt.event.MouseAdapter;
@@ -35,7 +37,6 @@ import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import javax.swing.JCheckBoxMenuItem;
@@ -46,7 +47,9 @@ import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import javax.swing.table.AbstractTableModel;
@@ -60,23 +63,37 @@ import org.tzi.use.gui.main.ViewFrame;
 import org.tzi.use.gui.views.evalbrowser.ExprEvalBrowser;
 import org.tzi.use.uml.mm.MClassInvariant;
 import org.tzi.use.uml.mm.MModel;
+import org.tzi.use.uml.ocl.expr.EvaluationPool;
 import org.tzi.use.uml.ocl.expr.Evaluator;
 import org.tzi.use.uml.ocl.expr.Expression;
 import org.tzi.use.uml.ocl.expr.MultiplicityViolationException;
 import org.tzi.use.uml.ocl.value.BooleanValue;
 import org.tzi.use.uml.ocl.value.Value;
+import org.tzi.use.uml.sys.ExpressionFootprint;
 import org.tzi.use.uml.sys.MSystem;
 import org.tzi.use.uml.sys.MSystemState;
+import org.tzi.use.uml.sys.events.AttributeAssignedEvent;
 import org.tzi.use.uml.sys.events.ClassInvariantChangedEvent;
 import org.tzi.use.uml.sys.events.ClassInvariantsLoadedEvent;
 import org.tzi.use.uml.sys.events.ClassInvariantsUnloadedEvent;
+import org.tzi.use.uml.sys.events.LinkDeletedEvent;
+import org.tzi.use.uml.sys.events.LinkInsertedEvent;
+import org.tzi.use.uml.sys.events.ObjectCreatedEvent;
+import org.tzi.use.uml.sys.events.ObjectDestroyedEvent;
 import org.tzi.use.uml.sys.events.tags.SystemStateChangedEvent;
 import org.tzi.use.util.NullWriter;
+import org.tzi.use.util.soil.StateDifference;
 
 import com.google.common.eventbus.Subscribe;
 
 /**
  * A table showing invariants and their results.
+ * <p>
+ * State changes are collected until no further change
+ * happened for {@link #UPDATE_DELAY} milliseconds. Afterwards, only the
+ * invariants whose {@link ExpressionFootprint footprint} is affected by the
+ * collected changes are evaluated again using the {@link EvaluationPool}.
+ * </p>
  * 
  * @author Mark Richters
  * @author Frank Hilken
@@ -88,6 +105,7 @@ public class ClassInvariantView extends JPanel implements View {
 		public final int index;
 		public final Value result;
 		public final String message;
+		/** evaluation time in nanoseconds **/
 		public final long duration;
 		
 		public EvalResult(int index, Value result, String message, long duration) {
@@ -112,11 +130,27 @@ public class ClassInvariantView extends JPanel implements View {
     private int fSelectedRow = -1;
     private boolean fOpenEvalBrowserEnabled = false;
     private boolean showFlags = false;
-    private boolean showDuration = false;
+    private boolean showDuration = true;
     
     private InvWorker worker = null;
 
-    private ExecutorService executor = Executors.newFixedThreadPool(Options.EVAL_NUMTHREADS);
+    private ExecutorService executor = EvaluationPool.getExecutor();
+    
+    /** Milliseconds without state changes before the invariants are evaluated **/
+    private static final int UPDATE_DELAY = 100;
+    
+    private final Timer fUpdateTimer;
+    
+    private ExpressionFootprint[] fFootprints = new ExpressionFootprint[0];
+    
+    /** Invariants which need to be evaluated again **/
+    private boolean[] fDirty = new boolean[0];
+    
+    /** State changes since the last update (guarded by fUpdateTimer) **/
+    private StateDifference fPendingChanges = new StateDifference();
+    
+    /** <code>true</code> if a change not covered by fPendingChanges happened (guarded by fUpdateTimer) **/
+    private boolean fPendingFullUpdate = false;
     
     private ViewFrame fViewFrame;
     public void setViewFrame(ViewFrame vf) {
@@ -199,7 +233,7 @@ public class ClassInvariantView extends JPanel implements View {
         		}
             } else if( col == 5){
             	// duration
-            	return evalRes != null ? evalRes.duration + " " : null;
+            	return evalRes != null ? String.format("%.2f ", evalRes.duration / 1e6) : null;
             } else {
             	return null;
             }
@@ -271,6 +305,15 @@ public class ClassInvariantView extends JPanel implements View {
     public ClassInvariantView(final MainWindow parent, MSystem system) {
         fSystem = system;
         fModel = fSystem.model();
+        
+        fUpdateTimer = new Timer(UPDATE_DELAY, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				update();
+			}
+		});
+        fUpdateTimer.setRepeats(false);
+        
         fSystem.getEventBus().register(this);
 
         JPopupMenu popupMenu = createPopupMenu();
@@ -440,6 +483,13 @@ public class ClassInvariantView extends JPanel implements View {
 		fValues = new EvalResult[n];
 		clearValues();
 		
+		fFootprints = new ExpressionFootprint[n];
+		fDirty = new boolean[n];
+		for (int i = 0; i < n; i++) {
+			fFootprints[i] = ExpressionFootprint.of(fClassInvariants[i]);
+			fDirty[i] = true;
+		}
+		
 		fProgressBar.setMinimum(0);
 		fProgressBar.setMaximum(n);
 	}
@@ -460,33 +510,96 @@ public class ClassInvariantView extends JPanel implements View {
 
     @Subscribe
     public void onClassInvariantLoading(ClassInvariantsLoadedEvent ev){
-    	init();
-    	update();
+    	reinit();
     }
     
    	@Subscribe
     public void onClassInvariantUnloading(ClassInvariantsUnloadedEvent ev){
-   		init();
-   		update();
+   		reinit();
+   	}
+   	
+   	/**
+   	 * Rebuilds the invariant arrays on the event dispatch thread,
+   	 * where they are read by the update timer.
+   	 */
+   	private void reinit() {
+   		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				init();
+				fUpdateTimer.restart();
+			}
+		});
    	}
    	
     @Subscribe
-    public void onClassInvariantStateChange(ClassInvariantChangedEvent ev){
-    	update();
+    public void onClassInvariantStateChange(final ClassInvariantChangedEvent ev){
+    	SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+		    	int index = Arrays.asList(fClassInvariants).indexOf(ev.getInvariant());
+		    	if (index >= 0) {
+		    		fDirty[index] = true;
+		    	}
+		    	fUpdateTimer.restart();
+			}
+		});
     }
     
     /**
-	 * Listen to any event that changes the system state to update all
-	 * invariants.
+	 * Listen to any event that changes the system state to collect
+	 * the changes for the next update.
 	 */
     @Subscribe
     public void onSystemStateChanged(SystemStateChangedEvent e) {
-    	update();
+    	synchronized (fUpdateTimer) {
+	    	if (e instanceof ObjectCreatedEvent) {
+	    		fPendingChanges.addNewObject(((ObjectCreatedEvent)e).getCreatedObject());
+	    	} else if (e instanceof ObjectDestroyedEvent) {
+	    		fPendingChanges.addDeletedObject(((ObjectDestroyedEvent)e).getDestroyedObject());
+	    	} else if (e instanceof AttributeAssignedEvent) {
+	    		fPendingChanges.addModifiedObject(((AttributeAssignedEvent)e).getObject());
+	    	} else if (e instanceof LinkInsertedEvent) {
+	    		fPendingChanges.addNewLink(((LinkInsertedEvent)e).getLink());
+	    	} else if (e instanceof LinkDeletedEvent) {
+	    		fPendingChanges.addDeletedLink(((LinkDeletedEvent)e).getLink());
+	    	} else {
+	    		fPendingFullUpdate = true;
+	    	}
+    	}
+    	
+    	fUpdateTimer.restart();
     }
     
-    private synchronized void update() { 
+    /**
+     * Marks the invariants affected by the collected state changes
+     * and starts a new evaluation of all marked invariants.
+     * Must be called on the event dispatch thread.
+     */
+    private void update() {
+    	fUpdateTimer.stop();
+    	
+    	StateDifference changes;
+    	boolean fullUpdate;
+    	synchronized (fUpdateTimer) {
+    		changes = fPendingChanges;
+    		fullUpdate = fPendingFullUpdate;
+    		fPendingChanges = new StateDifference();
+    		fPendingFullUpdate = false;
+    	}
+    	
+    	if (fullUpdate || !changes.isEmpty()) {
+	    	for (int i = 0; i < fClassInvariants.length; i++) {
+	    		if (fullUpdate || fFootprints[i].isAffectedBy(changes)) {
+	    			fDirty[i] = true;
+	    		}
+	    	}
+    	}
+    	
     	setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
     	
+    	// results of a running evaluation are dropped,
+    	// the invariants stay marked 
     	if (worker != null) {
     		if(!worker.isDone()) {	
     			worker.cancel(false);
@@ -557,41 +670,45 @@ public class ClassInvariantView extends JPanel implements View {
     @Override
 	public void detachModel() {
         fSystem.getEventBus().unregister(this);
+        fUpdateTimer.stop();
         if(!worker.isDone()){
         	worker.cancel(false);
         }
-        executor.shutdown();
     }
     
-    private class InvWorker extends SwingWorker<Void,Integer> {
+    private class InvWorker extends SwingWorker<Void,EvalResult> {
 
     	private String labelText;
     	
-    	int numFailures = 0;
     	int progress = 0;
     	int progressEnd = 0;
     	long duration = 0;
     	boolean structureOK = true;
     	
-    	// determines if the MultiplicityViolation Label should be shown
-    	boolean violationLabel = false; 
-    	
     	MSystemState systemState;
     	
-    	protected synchronized int incrementProgress() {
-    		return ++progress;
-    	}
+    	/** the invariants the indexes of the results refer to **/
+    	final MClassInvariant[] invariants;
+    	
+    	/** indexes of the invariants to evaluate **/
+    	final List<Integer> toEvaluate = new ArrayList<Integer>();
     	
     	public InvWorker() { 
     		systemState = fSystem.state();
+    		invariants = fClassInvariants;
+    		
+    		for (int i = 0; i < invariants.length; i++) {
+    			if (fDirty[i] && invariants[i].isActive()) {
+    				toEvaluate.add(i);
+    			}
+    		}
     	}
     	
 		@Override
 		protected Void doInBackground() throws Exception {
 			long start = System.currentTimeMillis();
 
-			progressEnd = fClassInvariants.length;
-			clearValues();
+			progressEnd = toEvaluate.size();
         
 			// check invariants
 			if (Options.EVAL_NUMTHREADS > 1)
@@ -599,42 +716,20 @@ public class ClassInvariantView extends JPanel implements View {
 			else
 				labelText = "Working...";
 
-			publish(0);
-
             List<Future<EvalResult>> futures = new ArrayList<Future<EvalResult>>();
             ExecutorCompletionService<EvalResult> ecs = new ExecutorCompletionService<EvalResult>(executor);
             
-            for (int i = 0; i < fClassInvariants.length; i++) {
-            	if(!fClassInvariants[i].isActive()){
-            		continue;
-            	}
-        		MyEvaluatorCallable cb = new MyEvaluatorCallable(systemState, i, fClassInvariants[i]);
+            for (int i : toEvaluate) {
+        		MyEvaluatorCallable cb = new MyEvaluatorCallable(systemState, i, invariants[i]);
         		futures.add(ecs.submit(cb));
             }
             
-            for (int i = 0; i < fClassInvariants.length && !isCancelled(); i++) {
-            	if(!fClassInvariants[i].isActive()){
-            		continue;
-            	}
+            for (int i = 0; i < futures.size() && !isCancelled(); i++) {
                 try {
                 	EvalResult res = ecs.take().get();
-                    fValues[res.index] = res;
-                    publish(incrementProgress());
-                    
-                    boolean ok = false;
-                    // if v == null it is not considered as a failure, rather it is
-                    // a MultiplicityViolation and it is skipped as failure count
-                    boolean skip = false;
-                    if (res.result != null) {
-                        ok = res.result.isDefined() && ((BooleanValue)res.result).isTrue();
-                    } else {
-                        violationLabel = true;
-                        skip = true;
-                    }
-
-                    if (!skip && !ok)
-                        numFailures++;
-                    
+                	if (res != null) {
+                		publish(res);
+                	}
                 } catch (InterruptedException ex) {
                 	break;
                 }
@@ -644,21 +739,34 @@ public class ClassInvariantView extends JPanel implements View {
             	f.cancel(true);
             }
 
-            structureOK = systemState.checkStructure(new PrintWriter(new NullWriter()), false);
+            if (!isCancelled()) {
+            	structureOK = systemState.checkStructure(new PrintWriter(new NullWriter()), false);
+            }
             
             duration = System.currentTimeMillis() - start;
             return null;
         }
 
+		/**
+		 * Results are stored on the event dispatch thread, so that results
+		 * of a cancelled worker do not overwrite the marks of a later update.
+		 */
 		@Override
-		protected void process(List<Integer> chunks) {
-			int lastProgress = chunks.get(chunks.size() - 1);
+		protected void process(List<EvalResult> chunks) {
+			if (isCancelled() || invariants != fClassInvariants)
+				return;
+			
+			for (EvalResult res : chunks) {
+				fValues[res.index] = res;
+				fDirty[res.index] = false;
+			}
+			progress += chunks.size();
 			
 			fLabel.setForeground(Color.black);
 			fLabel.setText(labelText);
 			
 			fProgressBar.setMaximum(progressEnd);
-			fProgressBar.setValue(lastProgress);
+			fProgressBar.setValue(progress);
 			fMyTableModel.fireTableDataChanged();
 
 			repaint();
@@ -666,23 +774,30 @@ public class ClassInvariantView extends JPanel implements View {
 
 		@Override
 		protected void done() {
+			if (isCancelled())
+				return;
+			
 			setOpenEvalBrowserEnabled(true);
 
-			String text;
+			int numFailures = 0;
+			// determines if the MultiplicityViolation Label should be shown
+			boolean violationLabel = false;
 			
-            // show summary of results
-            if (numFailures == 0) {
-                if (violationLabel) {
-                    fLabel.setForeground(Color.red);
-                    text = "Model inherent constraints violated (see Log for details).";
-                } else {
-                    fLabel.setForeground(Color.black);
-                    text = "Constrs. OK.";
-                }
-            } else {
-                fLabel.setForeground(Color.red);
-                text = numFailures + " constraint" + ((numFailures > 1) ? "s" : "") + " failed.";
-            }
+			for (int i = 0; i < fClassInvariants.length; i++) {
+				EvalResult res = fValues[i];
+				if (!fClassInvariants[i].isActive() || res == null)
+					continue;
+				
+				// if v == null it is not considered as a failure, rather it is
+				// a MultiplicityViolation and it is skipped as failure count
+				if (res.result == null) {
+					violationLabel = true;
+				} else if (!(res.result.isDefined() && ((BooleanValue)res.result).isTrue())) {
+					numFailures++;
+				}
+			}
+			
+			String text;
             
             if(numFailures == 0 && structureOK && !violationLabel){
             	fLabel.setForeground(Color.black);
@@ -699,7 +814,7 @@ public class ClassInvariantView extends JPanel implements View {
             	text = text + " Inherent cnstrs. " + (structureOK?"OK":"failed") + ".";
             }
             
-            text = text + String.format(" (%,dms)", duration);
+            text = text + String.format(" (%,dms, %d evaluated)", duration, progressEnd);
             
             fLabel.setText(text);
             fProgressBar.setMaximum(1);
@@ -727,7 +842,7 @@ public class ClassInvariantView extends JPanel implements View {
 				Evaluator eval = new Evaluator();
 				Value v = null;
 				String message = null;
-				long start = System.currentTimeMillis();
+				long start = System.nanoTime();
 				
 				try {
 					v = eval.eval(inv.flaggedExpression(), state);
@@ -735,7 +850,7 @@ public class ClassInvariantView extends JPanel implements View {
 					message = e.getMessage();
 				}
 				
-				return new EvalResult(index, v, message, System.currentTimeMillis() - start);
+				return new EvalResult(index, v, message, System.nanoTime() - start);
 			}
 	    }
     }
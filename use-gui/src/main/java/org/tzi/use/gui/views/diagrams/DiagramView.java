@@ -39,6 +39,7 @@ import org.tzi.use.gui.views.diagrams.elements.edges.EdgeBase;
 import org.tzi.use.gui.views.diagrams.event.ActionLoadLayout;
 import org.tzi.use.gui.views.diagrams.event.ActionSaveLayout;
 import org.tzi.use.gui.views.diagrams.util.Direction;
+import org.tzi.use.gui.views.diagrams.util.SpatialIndex;
 import org.tzi.use.gui.views.diagrams.waypoints.WayPoint;
 import org.tzi.use.util.Log;
 import org.w3c.dom.Document;
@@ -55,6 +56,7 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.print.PageFormat;
 import java.awt.print.Printable;
@@ -99,6 +101,23 @@ public abstract class DiagramView extends JPanel
 
     protected volatile AllLayoutTypes<PlaceableNode> fAllLayoutTypes;
 
+    /**
+     * Nodes added at an arbitrary position while auto layout is active.
+     * They are placed near their neighbors when the next layouter is created.
+     */
+    protected final Set<PlaceableNode> fUnplacedNodes = Collections.synchronizedSet(new LinkedHashSet<PlaceableNode>());
+
+    /**
+     * Time in milliseconds the auto layout runs after a change
+     * if the nodes do not come to rest earlier.
+     */
+    private static final long AUTO_LAYOUT_TIME_BUDGET = 30000;
+
+    /**
+     * Time in milliseconds the force directed layout may use.
+     */
+    private static final long FORCE_DIRECTED_TIME_BUDGET = 5000;
+
     protected ActionLoadLayout fActionLoadLayout;
     protected ActionSaveLayout fActionSaveLayout;
     protected Action fActionSelectAllNodes;
@@ -125,6 +144,35 @@ public abstract class DiagramView extends JPanel
      */
     private boolean hasUserDefinedLayout = false;
 
+    /**
+     * Space added around the bounds of nodes and edges for hit tests
+     * and for culling, e.g., for resize nodes and arrow heads.
+     */
+    private static final double ELEMENT_MARGIN = 10;
+
+    /**
+     * Visible nodes in drawing order by their bounds
+     */
+    private final SpatialIndex<PlaceableNode> fNodeIndex = new SpatialIndex<PlaceableNode>(128);
+
+    /**
+     * Visible edges in drawing order by their bounding box
+     */
+    private final SpatialIndex<EdgeBase> fEdgeIndex = new SpatialIndex<EdgeBase>(128);
+
+    /**
+     * If <code>false</code>, the spatial indexes are
+     * rebuilt on the next search for nodes or edges.
+     */
+    private boolean fIndexValid = false;
+
+    /**
+     * The {@link PlaceableNode#getGeometryVersion() geometry version}
+     * and the modification count of the graph the indexes were built for.
+     */
+    private long fIndexGeometryVersion;
+    private int fIndexGraphVersion;
+
     public DiagramView(DiagramOptions opt, PrintWriter log) {
         fOpt = opt;
         fGraph = new DiagramGraph();
@@ -239,11 +287,13 @@ public abstract class DiagramView extends JPanel
      */
     public void invalidateContent(boolean repaint) {
         fGraph.invalidate();
+        invalidateIndex();
         if (repaint) this.repaint();
     }
 
     public void invalidateNode(PlaceableNode n) {
         fGraph.invalidateNode(n);
+        invalidateIndex();
         for (EdgeBase e : fGraph.allEdges(n)) {
             fGraph.invalidateEdge(e);
         }
@@ -256,8 +306,9 @@ public abstract class DiagramView extends JPanel
      */
     public void drawDiagram(Graphics g) {
         synchronized (fGraph) {
-
             Graphics2D g2d = (Graphics2D) g;
+            // only elements inside of the clip are drawn
+            Rectangle clip = g2d.getClipBounds();
 
             if (fOpt.isDoAntiAliasing()) {
                 Map<?, ?> hints = (Map<?, ?>) Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
@@ -315,13 +366,23 @@ public abstract class DiagramView extends JPanel
             }
             fGraph.clearInvalidated();
 
+            // visible elements are counted to notice hidden or shown elements
+            int indexedEdges = 0;
+            int indexedNodes = 0;
+
             // draw edges
             // they need to be drawn first otherwise the association will
             // be drawn above the nodes
             Iterator<EdgeBase> edgeIterator = fGraph.edgeIterator();
             while (edgeIterator.hasNext()) {
                 EdgeBase e = edgeIterator.next();
-                e.draw(g2d);
+                Rectangle2D bounds = e.getBoundingBox();
+                if (isInClip(bounds, clip)) {
+                    e.draw(g2d);
+                }
+                if (bounds != null && e.isVisible()) {
+                    ++indexedEdges;
+                }
             }
 
             double maxX = 0;
@@ -331,7 +392,12 @@ public abstract class DiagramView extends JPanel
             Iterator<PlaceableNode> nodeIterator = fGraph.iterator();
             while (nodeIterator.hasNext()) {
                 PlaceableNode n = nodeIterator.next();
-                n.draw(g2d);
+                if (isInClip(n.getBoundsWithRelatedNodes(), clip)) {
+                    n.draw(g2d);
+                }
+                if (n.isVisible()) {
+                    ++indexedNodes;
+                }
                 maxX = Math.max(maxX, n.getX() + n.getWidth());
                 maxY = Math.max(maxY, n.getY() + n.getHeight());
             }
@@ -343,7 +409,9 @@ public abstract class DiagramView extends JPanel
                 maxX = Math.max(maxX, eastNode.getX() + eastNode.getWidth());
                 PlaceableNode southNode = e.getWayPointMostTo(Direction.SOUTH);
                 maxY = Math.max(maxY, southNode.getY() + southNode.getHeight());
-                e.drawProperties(g2d);
+                if (isInClip(e.getBoundingBox(), clip)) {
+                    e.drawProperties(g2d);
+                }
 
                 for (EdgeProperty ep : e.getProperties()) {
                     //TODO refactor hidden/visible management on PlaceableNode (EdgeProperty)
@@ -355,6 +423,10 @@ public abstract class DiagramView extends JPanel
                 }
             }
 
+            if (indexedNodes != fNodeIndex.size() || indexedEdges != fEdgeIndex.size()) {
+                invalidateIndex();
+            }
+
             Dimension newDimension = new Dimension((int) maxX + 5, (int) maxY + 5);
             if (!newDimension.equals(this.getPreferredSize())) {
                 this.setPreferredSize(newDimension);
@@ -363,6 +435,71 @@ public abstract class DiagramView extends JPanel
         }
     }
 
+    /**
+     * <code>true</code>, if an element with the given bounds
+     * needs to be drawn into the clip area.
+     * Elements without bounds and drawings without a clip are always drawn.
+     */
+    private static boolean isInClip(Rectangle2D bounds, Rectangle clip) {
+        if (bounds == null || clip == null)
+            return true;
+
+        return bounds.getMaxX() + ELEMENT_MARGIN >= clip.getMinX()
+                && bounds.getMinX() - ELEMENT_MARGIN <= clip.getMaxX()
+                && bounds.getMaxY() + ELEMENT_MARGIN >= clip.getMinY()
+                && bounds.getMinY() - ELEMENT_MARGIN <= clip.getMaxY();
+    }
+
+    /**
+     * Marks the spatial indexes used to find nodes and edges as outdated.
+     * Moved or resized nodes and added or removed elements are noticed
+     * automatically. Must be called, if the visibility of elements
+     * changes without redrawing the diagram.
+     */
+    protected void invalidateIndex() {
+        fIndexValid = false;
+    }
+
+    /**
+     * Rebuilds the spatial indexes, if they are outdated.
+     * Must be called while holding the lock of the graph.
+     */
+    private void validateIndex() {
+        long geometryVersion = PlaceableNode.getGeometryVersion();
+        int graphVersion = fGraph.getModificationCount();
+
+        if (fIndexValid && fIndexGeometryVersion == geometryVersion
+                && fIndexGraphVersion == graphVersion)
+            return;
+
+        fNodeIndex.clear();
+        fEdgeIndex.clear();
+
+        Iterator<EdgeBase> eIter = fGraph.getVisibleEdgesIterator();
+        while (eIter.hasNext()) {
+            EdgeBase e = eIter.next();
+            Rectangle2D bounds = e.getBoundingBox();
+            if (bounds != null) {
+                fEdgeIndex.add(e, withMargin(bounds));
+            }
+        }
+
+        Iterator<PlaceableNode> nIter = fGraph.getVisibleNodesIterator();
+        while (nIter.hasNext()) {
+            PlaceableNode n = nIter.next();
+            fNodeIndex.add(n, withMargin(n.getBoundsWithRelatedNodes()));
+        }
+
+        fIndexValid = true;
+        fIndexGeometryVersion = geometryVersion;
+        fIndexGraphVersion = graphVersion;
+    }
+
+    private static Rectangle2D withMargin(Rectangle2D bounds) {
+        return new Rectangle2D.Double(bounds.getX() - ELEMENT_MARGIN, bounds.getY() - ELEMENT_MARGIN,
+                bounds.getWidth() + 2 * ELEMENT_MARGIN, bounds.getHeight() + 2 * ELEMENT_MARGIN);
+    }
+
     /**
      * @param g
      */
@@ -481,12 +618,13 @@ public abstract class DiagramView extends JPanel
      * @param y Y-coordinate.
      */
     public EdgeBase findEdge(int x, int y) {
-        Iterator<EdgeBase> it = fGraph.getVisibleEdgesIterator();
+        synchronized (fGraph) {
+            validateIndex();
 
-        while (it.hasNext()) {
-            EdgeBase e = it.next();
-            if (e.occupies(x, y)) {
-                return e;
+            for (EdgeBase e : fEdgeIndex.query(x, y)) {
+                if (e.occupies(x, y)) {
+                    return e;
+                }
             }
         }
 
@@ -525,12 +663,10 @@ public abstract class DiagramView extends JPanel
         PlaceableNode res = null;
 
         synchronized (fGraph) {
-            // Find possible edge property that occupies the clicked position
-            Iterator<EdgeBase> eIter = fGraph.getVisibleEdgesIterator();
-
-            while (eIter.hasNext()) {
-                EdgeBase e = eIter.next();
+            validateIndex();
 
+            // Find possible edge property that occupies the clicked position
+            for (EdgeBase e : fEdgeIndex.query(x, y)) {
                 res = e.findNode(x, y);
 
                 if (res != null) {
@@ -538,10 +674,7 @@ public abstract class DiagramView extends JPanel
                 }
             }
 
-            Iterator<PlaceableNode> nIter = fGraph.getVisibleNodesIterator();
-
-            while (nIter.hasNext()) {
-                PlaceableNode n = nIter.next();
+            for (PlaceableNode n : fNodeIndex.query(x, y)) {
                 if (!n.isInitialized()) continue;
 
                 if (n.occupies(x, y)) {
@@ -563,9 +696,9 @@ public abstract class DiagramView extends JPanel
         Set<PlaceableNode> res = new HashSet<PlaceableNode>();
 
         synchronized (fGraph) {
-            Iterator<PlaceableNode> nIter = fGraph.getVisibleNodesIterator();
-            while (nIter.hasNext()) {
-                PlaceableNode n = nIter.next();
+            validateIndex();
+
+            for (PlaceableNode n : fNodeIndex.query(r)) {
                 if (!n.isInitialized()) continue;
 
                 if (r.contains(n.getBounds())) {
@@ -728,6 +861,10 @@ public abstract class DiagramView extends JPanel
      */
     public void startLayoutThread() {
         if (fOpt.isDoAutoLayout()) {
+            // nodes may have been moved by the user
+            org.tzi.use.gui.graphlayout.SpringLayout<PlaceableNode> layouter = fLayouter;
+            if (layouter != null)
+                layouter.resetTimeBudget();
             fLayoutThread = new LayoutThread();
             fLayoutThread.doLayout = true;
             fLayoutThread.start();
@@ -740,7 +877,8 @@ public abstract class DiagramView extends JPanel
         HierarchicalUpsideDown,
         HorizontalRightToLeft,
         LandscapeSwimlane,
-        PortraitSwimlane
+        PortraitSwimlane,
+        ForceDirected
     }
 
     public void startLayoutFormatThread(LayoutType layoutType, int horizontalSpacing, int verticalSpacing, boolean isPutAssociationsOnRelationsEnabled) {
@@ -769,6 +907,9 @@ public abstract class DiagramView extends JPanel
             case PortraitSwimlane:
                 fLayoutThread.doPortraitSwimlaneLayout = true;
                 break;
+            case ForceDirected:
+                fLayoutThread.doForceDirectedLayout = true;
+                break;
         }
         fLayoutThread.start();
     }
@@ -786,6 +927,14 @@ public abstract class DiagramView extends JPanel
                 return;
             fLayouter = new SpringLayout<PlaceableNode>(fGraph, w, h, 20, 20);
             fLayouter.setEdgeLen(150);
+            fLayouter.setTimeBudget(AUTO_LAYOUT_TIME_BUDGET);
+
+            synchronized (fUnplacedNodes) {
+                fLayouter.placeNodes(fUnplacedNodes);
+                fUnplacedNodes.clear();
+            }
+        } else if (fLayouter.isFinished()) {
+            return;
         }
         fLayouter.layout();
         repaint();
@@ -890,6 +1039,21 @@ public abstract class DiagramView extends JPanel
         repaint();
     }
 
+    protected synchronized void ForceDirectedLayout(int edgeLength) {
+        if (fLayouter == null) {
+            int w = getWidth();
+            int h = getHeight();
+            if (w == 0 || h == 0)
+                return;
+            if(DiagramView.this.getHiddenData() != null)
+                fAllLayoutTypes = new AllLayoutTypes<PlaceableNode>(fGraph,DiagramView.this.getHiddenData().getNodes(), w, h, 20, 20);
+            else
+                fAllLayoutTypes = new AllLayoutTypes<PlaceableNode>(fGraph,new HashSet<>(), w, h, 20, 20);
+        }
+        fAllLayoutTypes.ForceDirectedLayout(edgeLength, FORCE_DIRECTED_TIME_BUDGET);
+        repaint();
+    }
+
     class LayoutThread extends Thread {
         public boolean doLayout = true;
         public boolean doHierarchicalLayout = false;
@@ -898,6 +1062,7 @@ public abstract class DiagramView extends JPanel
         public boolean doHorizontalRightToLeftLayout = false;
         public boolean doLandscapeSwimlaneLayout = false;
         public boolean doPortraitSwimlaneLayout = false;
+        public boolean doForceDirectedLayout = false;
         public int horizontalSpacing = 120;
         public int verticalSpacing = 120;
         public boolean isPutAssociationsOnRelationsEnabled = true;
@@ -925,6 +1090,9 @@ public abstract class DiagramView extends JPanel
                 }else if (doPortraitSwimlaneLayout) {
                     PortraitSwimlaneLayout(horizontalSpacing, verticalSpacing, isPutAssociationsOnRelationsEnabled);
                     doPortraitSwimlaneLayout = false;
+                } else if (doForceDirectedLayout) {
+                    ForceDirectedLayout(horizontalSpacing);
+                    doForceDirectedLayout = false;
                 }
                 try {
                     Thread.sleep(25);
@@ -1656,6 +1824,14 @@ public abstract class DiagramView extends JPanel
             }
         });
 
+        final JMenuItem forceDirectedLayout = new JMenuItem("Force directed layout");
+        forceDirectedLayout.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                startLayoutFormatThread(LayoutType.ForceDirected, 150, 150, false);
+            }
+        });
+
         layouts.add(hierarchicalLayout);
         layouts.add(hierarchicalUpsideDownLayout);
         layouts.addSeparator();
@@ -1664,6 +1840,8 @@ public abstract class DiagramView extends JPanel
         layouts.addSeparator();
         layouts.add(landscapeSwimlaneLayout);
         layouts.add(portraitSwimlaneLayout);
+        layouts.addSeparator();
+        layouts.add(forceDirectedLayout);
 
         popupMenu.addSeparator();
         popupMenu.add(cbAutoLayout);
@@ -219,6 +219,14 @@ public class DiamondNode extends PlaceableNode {
 		}
 	}
 	
+	@Override
+	public Rectangle2D getBoundsWithRelatedNodes() {
+		if (fAssocName == null)
+			return super.getBoundsWithRelatedNodes();
+		
+		return super.getBoundsWithRelatedNodes().createUnion(fAssocName.getBounds());
+	}
+	
 	@Override
 	public PlaceableNode getRelatedNode(double x, double y) {
 		if (fAssocName != null && fAssocName.occupies(x, y))
@@ -34,6 +34,7 @@ import java.awt.geom.Rectangle2D;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.swing.event.EventListenerList;
 
@@ -72,6 +73,11 @@ public abstract class PlaceableNode implements Layoutable, Selectable {
      * Position and size of the node
      */
 	private final Rectangle2D.Double bounds = new Rectangle2D.Double(0,0,0,0);
+	
+	/**
+	 * Incremented whenever the position or the size of any node changes.
+	 */
+	private static final AtomicLong geometryVersion = new AtomicLong();
     
     /**
      * The unselected back color of this node
@@ -407,6 +413,7 @@ public abstract class PlaceableNode implements Layoutable, Selectable {
     	bounds.height = MathUtil.max(getRequiredHeight(), getMinHeight(), height);
     	    	
     	if (!FloatUtil.equals(oldBounds.getHeight(), bounds.getHeight()) || !FloatUtil.equals(oldBounds.getWidth(), bounds.getWidth())) {
+    		geometryVersion.incrementAndGet();
     		this.updatePosition();
     		fireBoundsChanged(oldBounds, getBounds());
     	}
@@ -549,9 +556,19 @@ public abstract class PlaceableNode implements Layoutable, Selectable {
         	
     	bounds.x = x;
         bounds.y = y;
+        geometryVersion.incrementAndGet();
         
     	firePositionChanged(deltaX, deltaY);
     }
+    
+    /**
+     * Returns a counter which changes whenever a node
+     * (including way points and edge properties) is moved or resized.
+     * Can be used to validate information derived from the node bounds.
+     */
+    public static long getGeometryVersion() {
+    	return geometryVersion.get();
+    }
 
     
     /**
@@ -736,6 +753,15 @@ public abstract class PlaceableNode implements Layoutable, Selectable {
     	return bounds;
     }
     
+    /**
+     * Returns the area occupied by this node and its related nodes,
+     * e.g., a name node that can be moved away from this node.
+     * See {@link #getRelatedNode(double, double)}.
+     */
+    public Rectangle2D getBoundsWithRelatedNodes() {
+    	return getBounds();
+    }
+    
     public Area getArea() {
     	return new Area(getBounds());
     }
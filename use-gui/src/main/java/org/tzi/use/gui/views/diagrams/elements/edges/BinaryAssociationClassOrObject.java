@@ -20,6 +20,7 @@
 package org.tzi.use.gui.views.diagrams.elements.edges;
 
 import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
 import java.util.Map;
 
 import org.tzi.use.gui.util.PersistHelper;
@@ -129,6 +130,17 @@ public class BinaryAssociationClassOrObject extends BinaryAssociationOrLinkEdge
     }
     
     
+	@Override
+	public Rectangle2D getBoundingBox() {
+		Rectangle2D result = super.getBoundingBox();
+		if (result != null) {
+			// the dashed line to the class or object node
+			result.add(connectionWayPoint.getBounds());
+			result.add(fAssociationClassOrObjectNode.getBounds());
+		}
+		return result;
+	}
+	
 	@Override
 	public void collectChildNodes(Map<String, PlaceableNode> allNodes) {
 		super.collectChildNodes(allNodes);
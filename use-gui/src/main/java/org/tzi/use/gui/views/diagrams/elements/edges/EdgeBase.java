@@ -498,6 +498,33 @@ public abstract class EdgeBase extends DirectedEdgeBase<PlaceableNode> implement
     	// be fast enough for drawing.
     	return this.edgeProperties.values(); 
     }
+
+    /**
+     * Returns the smallest rectangle containing all way points and
+     * properties of this edge, or <code>null</code> if the edge is not initialized.
+     * Used to find the edges at a position without testing each line segment.
+     */
+    public Rectangle2D getBoundingBox() {
+    	if (!isInitialized()) return null;
+    	
+    	Rectangle2D result = null;
+    	
+    	for (WayPoint wp : fWayPoints) {
+    		if (result == null)
+    			result = (Rectangle2D)wp.getBounds().clone();
+    		else
+    			result.add(wp.getBounds());
+    	}
+    	
+    	for (EdgeProperty p : getProperties()) {
+    		if (result == null)
+    			result = (Rectangle2D)p.getBounds().clone();
+    		else
+    			result.add(p.getBounds());
+    	}
+    	
+    	return result;
+    }
     
     public final Multimap<PropertyOwner, EdgeProperty> getPropertiesGrouped() {
     	return this.edgeProperties;
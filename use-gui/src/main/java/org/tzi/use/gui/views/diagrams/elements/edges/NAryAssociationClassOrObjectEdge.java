@@ -20,6 +20,7 @@
 package org.tzi.use.gui.views.diagrams.elements.edges;
 
 import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
 
 import org.tzi.use.gui.views.diagrams.DiagramView;
 import org.tzi.use.gui.views.diagrams.elements.DiamondNode;
@@ -118,6 +119,17 @@ public class NAryAssociationClassOrObjectEdge extends EdgeBase implements Associ
         fDiamondNode.draw( g );
     }
     
+	@Override
+	public Rectangle2D getBoundingBox() {
+		Rectangle2D result = super.getBoundingBox();
+		if (result != null) {
+			// the dashed line to the class or object node
+			result.add(fDiamondNode.getBounds());
+			result.add(fAssociationClassOrLinkObjectNode.getBounds());
+		}
+		return result;
+	}
+	
 	@Override
 	public boolean isLink() {
 		return isLink;
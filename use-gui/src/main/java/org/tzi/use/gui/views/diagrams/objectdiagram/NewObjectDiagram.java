@@ -454,6 +454,8 @@ public class NewObjectDiagram extends DiagramViewWithObjectNode implements Highl
 		} else {
 			n.setPosition(nextNodePosition);
 			getRandomNextPosition();
+			if (isDoAutoLayout())
+				fUnplacedNodes.add(n);
 		}
 
 		fGraph.add(n);
@@ -699,6 +701,8 @@ public class NewObjectDiagram extends DiagramViewWithObjectNode implements Highl
 		DiamondNode node = new DiamondNode(link, fOpt, linkedObjectNodes);
 		node.setPosition(nextNodePosition);
 		fGraph.add(node);
+		if (isDoAutoLayout())
+			fUnplacedNodes.add(node);
 
 		// connected to an "object link"
 		if (link instanceof MLinkObject) {
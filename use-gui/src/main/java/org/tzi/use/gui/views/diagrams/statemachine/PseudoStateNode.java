@@ -76,6 +76,11 @@ public class PseudoStateNode extends VertexNode {
 		nameNode.doCalculateSize(g);
 	}
 
+	@Override
+	public Rectangle2D getBoundsWithRelatedNodes() {
+		return super.getBoundsWithRelatedNodes().createUnion(nameNode.getBounds());
+	}
+
 	@Override
 	public PlaceableNode getRelatedNode(double x, double y) {
 		if (nameNode.occupies(x, y)) {
@@ -0,0 +1,219 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.gui.views.diagrams.util;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A uniform grid over the bounds of diagram elements
+ * to find the elements at a position or inside an area
+ * without testing all elements of a diagram.
+ * <p>
+ * Query results are returned in the order the elements were added,
+ * i.e., in the drawing order if the elements are added while iterating
+ * the diagram graph.
+ * </p>
+ * 
+ * @param <T> The type of the indexed elements
+ */
+public class SpatialIndex<T> {
+
+	/**
+	 * Elements covering more cells are not stored in the grid,
+	 * but tested on every query.
+	 */
+	private static final int MAX_CELLS_PER_ELEMENT = 256;
+
+	private final double cellSize;
+
+	private final List<T> elements = new ArrayList<T>();
+
+	private final List<Rectangle2D> bounds = new ArrayList<Rectangle2D>();
+
+	/**
+	 * Cell (x and y packed into a long) -> indexes of the elements
+	 */
+	private final Map<Long, List<Integer>> cells = new HashMap<Long, List<Integer>>();
+
+	/**
+	 * Indexes of large elements
+	 */
+	private final List<Integer> large = new ArrayList<Integer>();
+
+	/**
+	 * Creates an empty index with the given cell size.
+	 * @param cellSize The width and height of a grid cell.
+	 */
+	public SpatialIndex(double cellSize) {
+		this.cellSize = cellSize;
+	}
+
+	/**
+	 * Removes all elements.
+	 */
+	public void clear() {
+		elements.clear();
+		bounds.clear();
+		cells.clear();
+		large.clear();
+	}
+
+	/**
+	 * The number of indexed elements.
+	 */
+	public int size() {
+		return elements.size();
+	}
+
+	/**
+	 * Adds <code>element</code> with the given bounds.
+	 * The bounds are copied.
+	 */
+	public void add(T element, Rectangle2D elementBounds) {
+		Integer index = Integer.valueOf(elements.size());
+		elements.add(element);
+		bounds.add((Rectangle2D)elementBounds.clone());
+
+		int minX = cell(elementBounds.getMinX());
+		int maxX = cell(elementBounds.getMaxX());
+		int minY = cell(elementBounds.getMinY());
+		int maxY = cell(elementBounds.getMaxY());
+
+		if ((long)(maxX - minX + 1) * (maxY - minY + 1) > MAX_CELLS_PER_ELEMENT) {
+			large.add(index);
+			return;
+		}
+
+		for (int x = minX; x <= maxX; ++x) {
+			for (int y = minY; y <= maxY; ++y) {
+				Long key = key(x, y);
+				List<Integer> cell = cells.get(key);
+				if (cell == null) {
+					cell = new ArrayList<Integer>(4);
+					cells.put(key, cell);
+				}
+				cell.add(index);
+			}
+		}
+	}
+
+	/**
+	 * Returns the elements whose bounds contain the point (x, y).
+	 */
+	public List<T> query(double x, double y) {
+		List<T> result = new ArrayList<T>();
+		List<Integer> cell = cells.get(key(cell(x), cell(y)));
+		
+		if (large.isEmpty()) {
+			// elements of a cell are already ordered
+			if (cell != null) {
+				for (Integer i : cell) {
+					if (bounds.get(i.intValue()).contains(x, y))
+						result.add(elements.get(i.intValue()));
+				}
+			}
+			return result;
+		}
+		
+		BitSet hits = new BitSet(elements.size());
+		if (cell != null) {
+			for (Integer i : cell) {
+				if (bounds.get(i.intValue()).contains(x, y))
+					hits.set(i.intValue());
+			}
+		}
+		for (Integer i : large) {
+			if (bounds.get(i.intValue()).contains(x, y))
+				hits.set(i.intValue());
+		}
+
+		return collect(hits);
+	}
+
+	/**
+	 * Returns the elements whose bounds intersect <code>area</code>.
+	 */
+	public List<T> query(Rectangle2D area) {
+		BitSet hits = new BitSet(elements.size());
+		int minX = cell(area.getMinX());
+		int maxX = cell(area.getMaxX());
+		int minY = cell(area.getMinY());
+		int maxY = cell(area.getMaxY());
+
+		if ((long)(maxX - minX + 1) * (maxY - minY + 1) > cells.size()) {
+			// cheaper to test all elements
+			for (int i = 0; i < bounds.size(); ++i) {
+				if (intersects(bounds.get(i), area))
+					hits.set(i);
+			}
+			return collect(hits);
+		}
+
+		for (int x = minX; x <= maxX; ++x) {
+			for (int y = minY; y <= maxY; ++y) {
+				List<Integer> cell = cells.get(key(x, y));
+				if (cell == null)
+					continue;
+
+				for (Integer i : cell) {
+					if (intersects(bounds.get(i.intValue()), area))
+						hits.set(i.intValue());
+				}
+			}
+		}
+
+		for (Integer i : large) {
+			if (intersects(bounds.get(i.intValue()), area))
+				hits.set(i.intValue());
+		}
+
+		return collect(hits);
+	}
+
+	/**
+	 * Like {@link Rectangle2D#intersects(Rectangle2D)}, but
+	 * also <code>true</code> for empty bounds inside the area.
+	 */
+	private static boolean intersects(Rectangle2D b, Rectangle2D area) {
+		return b.getMaxX() >= area.getMinX() && b.getMinX() <= area.getMaxX()
+				&& b.getMaxY() >= area.getMinY() && b.getMinY() <= area.getMaxY();
+	}
+
+	private List<T> collect(BitSet hits) {
+		List<T> result = new ArrayList<T>(hits.cardinality());
+		for (int i = hits.nextSetBit(0); i >= 0; i = hits.nextSetBit(i + 1)) {
+			result.add(elements.get(i));
+		}
+		return result;
+	}
+
+	private int cell(double coordinate) {
+		return (int)Math.floor(coordinate / cellSize);
+	}
+
+	private static Long key(int x, int y) {
+		return Long.valueOf(((long)x << 32) | (y & 0xFFFFFFFFL));
+	}
+}
@@ -22,6 +22,7 @@ package org.tzi.use.main;
 import org.tzi.use.config.Options;
 import org.tzi.use.gui.main.MainWindow;
 import org.tzi.use.main.runtime.IRuntime;
+import org.tzi.use.main.server.UseServer;
 import org.tzi.use.main.shell.Shell;
 import org.tzi.use.parser.use.USECompiler;
 import org.tzi.use.uml.mm.MMPrintVisitor;
@@ -32,6 +33,7 @@ import org.tzi.use.uml.ocl.extension.ExtensionManager;
 import org.tzi.use.uml.sys.MSystem;
 import org.tzi.use.util.Log;
 import org.tzi.use.util.USEWriter;
+import org.tzi.use.util.metrics.Metrics;
 
 import javax.swing.*;
 import javax.swing.plaf.FontUIResource;
@@ -42,6 +44,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.net.InetSocketAddress;
 import java.lang.reflect.Method;
 import java.nio.file.Path;
 
@@ -72,6 +75,8 @@ public final class Main {
 			initGUIdefaults();
 		}
 
+		Metrics.registerMBean();
+
 		Session session = new Session();
 		IRuntime pluginRuntime = null;
 		MModel model = null;
@@ -79,6 +84,7 @@ public final class Main {
 
 		if (!Options.disableExtensions) {
 			ExtensionManager.EXTENSIONS_FOLDER = Options.homeDir + "/oclextensions";
+			ExtensionManager.getInstance().loadOperationProviders();
 			ExtensionManager.getInstance().loadExtensions();
 		}
 		
@@ -112,6 +118,9 @@ public final class Main {
 			}
 		}
 
+		// the diagrams of the GUI show the history of events
+		Options.recordEvents = Options.doGUI;
+
 		// compile spec if filename given as argument
 		if (Options.specFilename != null) {
 			try (FileInputStream specStream = new FileInputStream(Options.specFilename)){
@@ -155,6 +164,11 @@ public final class Main {
 		}
 		session.setSystem(system);
 
+		if (Options.serverPort >= 0) {
+			runServer(system);
+			return;
+		}
+
 		if (Options.doGUI) {
 			if (pluginRuntime == null) {
 				Log.debug("Starting gui without plugin runtime!");
@@ -178,6 +192,28 @@ public final class Main {
 			// ignored
 		}
 	}
+
+	/**
+	 * Serves the system to network clients until the process is stopped.
+	 */
+	private static void runServer(MSystem system) {
+		if (system == null) {
+			Log.error("A specification file is required to start the server.");
+			System.exit(1);
+		}
+
+		UseServer server = new UseServer(system);
+		try {
+			server.start(new InetSocketAddress(Options.serverPort));
+			Log.println("Serving `" + system.model().name() + "' on port " + server.getPort() + ".");
+			server.join();
+		} catch (IOException e) {
+			Log.error("Can't bind or listen on port " + Options.serverPort + ": " + e.getMessage());
+			System.exit(1);
+		} catch (InterruptedException e) {
+			// exit
+		}
+	}
 }
 
 /**
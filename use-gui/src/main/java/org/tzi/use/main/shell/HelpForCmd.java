@@ -246,6 +246,10 @@ public class HelpForCmd {
 			printDetailedHelpByKey("help.plugins");
 		} else if (cmd.startsWith("delay")) {
 			printDetailedHelpByKey("help.delay");
+		} else if (cmd.startsWith("stats")) {
+			printDetailedHelpByKey("help.stats");
+		} else if (cmd.startsWith("profile")) {
+			printDetailedHelpByKey("help.profile");
 		} else if (cmd.startsWith("coverage")) {
 			printDetailedHelpByKey("help.info.coverage");
         } else
@@ -292,6 +296,8 @@ public class HelpForCmd {
         printOneLineHelpByKey("help.info.prog");
         printOneLineHelpByKey("help.info.vars");
         printOneLineHelpByKey("help.info.coverage");
+        printOneLineHelpByKey("help.profile");
+        printOneLineHelpByKey("help.stats");
         printHeader("Constraint commands");
         printOneLineHelpByKey("help.constraints.load");
         printOneLineHelpByKey("help.constraints.unload");
@@ -28,11 +28,13 @@ import org.tzi.use.main.runtime.IRuntime;
 import org.tzi.use.main.shell.runtime.IPluginShellExtensionPoint;
 import org.tzi.use.parser.ocl.OCLCompiler;
 import org.tzi.use.parser.shell.ShellCommandCompiler;
+import org.tzi.use.parser.shell.ShellScriptReader;
 import org.tzi.use.parser.testsuite.TestSuiteCompiler;
 import org.tzi.use.parser.use.USECompiler;
 import org.tzi.use.runtime.model.PluginModel;
 import org.tzi.use.runtime.shell.impl.PluginShellCmdFactory.PluginShellCmdContainer;
 import org.tzi.use.uml.mm.*;
+import org.tzi.use.uml.ocl.expr.EvalProfiler;
 import org.tzi.use.uml.ocl.expr.Evaluator;
 import org.tzi.use.uml.ocl.expr.Expression;
 import org.tzi.use.uml.ocl.expr.MultiplicityViolationException;
@@ -50,6 +52,7 @@ import org.tzi.use.uml.sys.soil.MExitOperationStatement;
 import org.tzi.use.uml.sys.soil.MStatement;
 import org.tzi.use.uml.sys.testsuite.MTestSuite;
 import org.tzi.use.util.*;
+import org.tzi.use.util.metrics.Metrics;
 import org.tzi.use.util.input.LineInput;
 import org.tzi.use.util.input.Readline;
 import org.tzi.use.util.input.SocketReadline;
@@ -59,6 +62,7 @@ import java.io.*;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.text.NumberFormat;
 import java.util.*;
@@ -111,6 +115,18 @@ public final class Shell implements Runnable, PPCHandler {
 	 */
 	private Readline fReadline = null;
 
+	/**
+	 * The command file currently executed by {@link #cmdRead(String, boolean)}
+	 * or <code>null</code>.
+	 */
+	private ShellScriptReader fScript = null;
+
+	/**
+	 * The prompt used to echo the commands of {@link #fScript}
+	 * or <code>null</code>, if they are not echoed.
+	 */
+	private String fScriptPrompt = null;
+
 	private static Shell fShell = null;
 
 	private IPluginShellExtensionPoint shellExtensionPoint;
@@ -181,6 +197,12 @@ public final class Shell implements Runnable, PPCHandler {
 		if (Options.cmdFilename != null) {
 			// Include filename in "" to be able to handle spaces
 			cmdOpen("\"" + new File(Options.cmdFilename).getAbsolutePath() + "\"");
+
+			// command files are executed directly by cmdRead
+			if (Options.quiet && !fReadlineStack.hasReadline()) {
+				processLineSafely("check");
+				cmdExit();
+			}
 		} else {
 			Log.verbose("Enter `help' for a list of available commands.");
 
@@ -301,24 +323,31 @@ public final class Shell implements Runnable, PPCHandler {
 		} catch (NoSystemException ex) {
 			Log.error("No System available. Please load a model before executing this command.");
 		} catch (Exception ex) {
-			System.err.println();
-			String nl = Options.LINE_SEPARATOR;
-			System.err
-			.println("INTERNAL ERROR: An unexpected exception occured. This happened most probably"
-					+ nl
-					+ "due to an error in the program. The program will try to continue, but may"
-					+ nl
-					+ "not be able to recover from the error. Please send a bug report to"
-					+ nl
-					+ Options.SUPPORT_MAIL
-					+ nl
-					+ "with a description of your last input and include the following output:");
-			System.err.println("Program version: " + Options.RELEASE_VERSION);
-			System.err.print("Stack trace: ");
-			ex.printStackTrace(System.err);
+			reportInternalError(ex);
 		}
 	}
 
+	/**
+	 * Reports an unexpected exception while processing a command.
+	 */
+	private void reportInternalError(Exception ex) {
+		System.err.println();
+		String nl = Options.LINE_SEPARATOR;
+		System.err
+		.println("INTERNAL ERROR: An unexpected exception occured. This happened most probably"
+				+ nl
+				+ "due to an error in the program. The program will try to continue, but may"
+				+ nl
+				+ "not be able to recover from the error. Please send a bug report to"
+				+ nl
+				+ Options.SUPPORT_MAIL
+				+ nl
+				+ "with a description of your last input and include the following output:");
+		System.err.println("Program version: " + Options.RELEASE_VERSION);
+		System.err.print("Stack trace: ");
+		ex.printStackTrace(System.err);
+	}
+
 	/**
 	 * Method is called out of the GUI to exit the command line. <br>
 	 *
@@ -335,21 +364,20 @@ public final class Shell implements Runnable, PPCHandler {
 	}
 
 	/**
-	 * Analyses a line of input and calls the method implementing a command.
+	 * Waits for the time set by the <code>delay</code> command.
 	 */
-	private void processLine(String line) throws NoSystemException {
-
+	private void waitDelay() {
 		if (delay > 0) {
 			try {
 				Thread.sleep(delay);
 			} catch (InterruptedException e) {}
 		}
+	}
 
-		line = (line == null ? "" : line.trim());
-		if (line.length() == 0 || line.startsWith("//") || line.startsWith("--")) {
-			return;
-		}
-
+	/**
+	 * Waits for the user to continue, if step mode is on.
+	 */
+	private void waitForStep() {
 		if (fStepMode) {
 			Log.println("[step mode: `return' continues, "
 					+ "`escape' followed by `return' exits step mode.]");
@@ -360,6 +388,21 @@ public final class Shell implements Runnable, PPCHandler {
 				}
 			} catch (IOException ex) { }
 		}
+	}
+
+	/**
+	 * Analyses a line of input and calls the method implementing a command.
+	 */
+	private void processLine(String line) throws NoSystemException {
+
+		waitDelay();
+
+		line = (line == null ? "" : line.trim());
+		if (line.length() == 0 || line.startsWith("//") || line.startsWith("--")) {
+			return;
+		}
+
+		waitForStep();
 
 		if (line.startsWith("help") || line.endsWith("--help")) {
 			cmdHelp(line);
@@ -441,6 +484,10 @@ public final class Shell implements Runnable, PPCHandler {
 			cmdReloadExtensions();
 		} else if (line.startsWith("coverage")) {
 			cmdCoverage(line);
+		} else if (line.equals("stats") || line.startsWith("stats ")) {
+			cmdStats(line);
+		} else if (line.equals("profile") || line.startsWith("profile ")) {
+			cmdProfile(line);
 		} else if (line.startsWith("plugins")) {
 			cmdShowPlugins();
 		} else if (line.startsWith("delay")) {
@@ -616,6 +663,46 @@ public final class Shell implements Runnable, PPCHandler {
 				new PrintWriter(System.err),
 				verbose);
 
+		executeStatement(system, statement);
+	}
+
+	/**
+	 * Compiles and executes a statement parsed by a {@link ShellScriptReader}.
+	 *
+	 * @param command The parsed statement.
+	 * @throws NoSystemException
+	 */
+	private void cmdExec(ShellScriptReader.Command command) throws NoSystemException {
+		waitDelay();
+		waitForStep();
+
+		if (command.getStatement() == null) {
+			if (command.getErrors() != null) {
+				System.err.print(command.getErrors());
+			} else {
+				Log.error("ERROR: Statement expected.");
+			}
+			return;
+		}
+
+		MSystem system = system();
+		MStatement statement = ShellCommandCompiler.compileShellCommand(
+				system.model(),
+				system.state(),
+				system.getVariableEnvironment(),
+				command.getStatement(),
+				ShellScriptReader.STATEMENT_INPUT_NAME,
+				new PrintWriter(System.err),
+				command.isVerbose());
+
+		executeStatement(system, statement);
+	}
+
+	/**
+	 * Executes a compiled statement and reports errors to the shell.
+	 * Nothing is done, if <code>statement</code> is <code>null</code>.
+	 */
+	private void executeStatement(MSystem system, MStatement statement) {
 		if (statement == null) {
 			return;
 		}
@@ -1276,8 +1363,16 @@ public final class Shell implements Runnable, PPCHandler {
 		if (testSuite != null) {
 			PrintWriter output = new PrintWriter(Log.out());
 			Log.println(testSuite.getStats());
-			// create system
-			testSuite.run(output);
+			
+			if (Options.testSuiteTimingsFile == null) {
+				testSuite.run(output);
+			} else {
+				try (PrintWriter timings = new PrintWriter(Files.newBufferedWriter(Options.testSuiteTimingsFile))) {
+					testSuite.run(output, timings);
+				} catch (IOException e) {
+					Log.error("Error writing test timings to " + StringUtil.inQuotes(Options.testSuiteTimingsFile) + ": " + e.getMessage());
+				}
+			}
 		}
 
 		setFileClosed();
@@ -1377,32 +1472,79 @@ public final class Shell implements Runnable, PPCHandler {
 
 	/**
 	 * Reads a file with commands and processes them.
+	 * <p>
+	 * The file is read and parsed in the background by a {@link ShellScriptReader},
+	 * while the commands are executed in order by the calling thread.
+	 * </p>
 	 */
-	@SuppressWarnings("resource")
 	public void cmdRead(String filename, boolean doEcho) {
 		filename = getFilenameToOpen(filename);
-		
-		try {
-			Reader r = getReaderFromInputStream(new BufferedInputStream(new FileInputStream(filename)));
-			BufferedReader reader = new BufferedReader(r);
-
-			// read from file, echo each line as it is read
-			Readline fReadline;
-
-			if (Options.quiet || !doEcho) {
-				fReadline = LineInput.getStreamReadline(reader, false, "");
-			} else {
-				fReadline = LineInput.getStreamReadline(reader, true, getRelativeFileNameOfCurrentFile() + "> ");
+		ShellScriptReader outerScript = fScript;
+		String outerPrompt = fScriptPrompt;
+
+		try (ShellScriptReader script = new ShellScriptReader(
+				new BufferedReader(getReaderFromInputStream(new BufferedInputStream(new FileInputStream(filename)))),
+				filename)) {
+
+			fScript = script;
+			fScriptPrompt = !Options.quiet && doEcho ? getRelativeFileNameOfCurrentFile() + "> " : null;
+
+			ShellScriptReader.Command command;
+			while ((command = readScriptCommand()) != null) {
+				Log.resetOutputFlag();
+
+				if (command.isStatement()) {
+					try {
+						cmdExec(command);
+					} catch (NoSystemException ex) {
+						Log.error("No System available. Please load a model before executing this command.");
+					} catch (Exception ex) {
+						reportInternalError(ex);
+					}
+				} else {
+					processLineSafely(command.getText());
+				}
 			}
-			fReadlineStack.push(fReadline);
-
 		} catch (FileNotFoundException e) {
 			Log.error("File `" + filename + "' not found.");
 		} catch (IOException e) {
 			Log.error("IO error accessing file " + StringUtil.inQuotes(filename) + ":" + e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			fScript = outerScript;
+			fScriptPrompt = outerPrompt;
+			setFileClosed();
 		}
 	}
 
+	/**
+	 * Reads the next command of the current command file and echoes it
+	 * like a line read from the console.
+	 * At the end of the file, an empty prompt is echoed.
+	 *
+	 * @return The next command or <code>null</code> at the end of the file.
+	 */
+	private ShellScriptReader.Command readScriptCommand() throws IOException, InterruptedException {
+		ShellScriptReader.Command command = fScript.next();
+
+		if (fScriptPrompt == null) {
+			if (command != null) {
+				USEWriter.getInstance().protocol(command.getText());
+			}
+		} else if (command == null) {
+			USEWriter.getInstance().getOut().print(fScriptPrompt);
+			System.out.println();
+		} else {
+			for (String line : command.getSource().split("\\R", -1)) {
+				USEWriter.getInstance().getOut().print(fScriptPrompt);
+				System.out.println(line);
+			}
+		}
+
+		return command;
+	}
+
 	/**
 	 * Resets system to empty state.
 	 */
@@ -1412,6 +1554,7 @@ public final class Shell implements Runnable, PPCHandler {
 
 	private void cmdReloadExtensions() {
 		ExtensionManager.getInstance().unloadExtensions();
+		ExtensionManager.getInstance().loadOperationProviders();
 		ExtensionManager.getInstance().loadExtensions();
 	}
 
@@ -1423,6 +1566,70 @@ public final class Shell implements Runnable, PPCHandler {
 		Log.println("Step mode turned on.");
 	}
 
+	/**
+	 * Prints the collected metrics of the core engine
+	 * or resets them (<code>stats reset</code>).
+	 */
+	private void cmdStats(String line) {
+		String arg = line.substring("stats".length()).trim();
+
+		if (arg.isEmpty()) {
+			Metrics.printReport(new PrintWriter(Log.out()));
+		} else if (arg.equals("reset")) {
+			Metrics.reset();
+			Log.println("Metrics reset.");
+		} else {
+			Log.error("Unknown argument " + StringUtil.inQuotes(arg) + ". Please use stats [reset].");
+		}
+	}
+
+	/**
+	 * Controls the evaluation profiler.
+	 * <p>Syntax: profile [on|off|reset|report [n]|json &lt;file&gt;]</p>
+	 * Without arguments the ten hottest expressions are reported.
+	 */
+	private void cmdProfile(String line) {
+		String[] parts = line.trim().split("\\s+");
+		EvalProfiler profiler = EvalProfiler.getInstance();
+		String subCmd = parts.length > 1 ? parts[1] : "report";
+
+		if (subCmd.equals("on")) {
+			profiler.start();
+			Log.println("Profiling turned on. Compiled evaluation is disabled while profiling.");
+		} else if (subCmd.equals("off")) {
+			profiler.stop();
+			Log.println("Profiling turned off.");
+		} else if (subCmd.equals("reset")) {
+			profiler.reset();
+			Log.println("Profiling results discarded.");
+		} else if (subCmd.equals("report")) {
+			int topN = 10;
+			if (parts.length > 2) {
+				try {
+					topN = Integer.parseInt(parts[2]);
+				} catch (NumberFormatException e) {
+					Log.error("Invalid number " + StringUtil.inQuotes(parts[2]) + ".");
+					return;
+				}
+			}
+			profiler.printReport(new PrintWriter(Log.out()), topN);
+		} else if (subCmd.equals("json")) {
+			if (parts.length != 3) {
+				Log.error("Missing file name. Please use profile json <file>.");
+				return;
+			}
+			try (Writer out = new BufferedWriter(new FileWriter(parts[2]))) {
+				profiler.writeJSON(out);
+				Log.println("Wrote profile to " + StringUtil.inQuotes(parts[2]) + ".");
+			} catch (IOException e) {
+				Log.error("Could not write profile: " + e.getMessage());
+			}
+		} else {
+			Log.error("Unknown argument " + StringUtil.inQuotes(subCmd)
+					+ ". Please use profile [on|off|reset|report [n]|json <file>].");
+		}
+	}
+
 	private void cmdSetDelay(String line) {
 		String[] parts = line.split("\\s");
 		delay = 0;
@@ -1846,7 +2053,22 @@ public final class Shell implements Runnable, PPCHandler {
 		String input;
 		do {
 
-			input = fReadline.readline(PROMPT);
+			// answers are read from the command file, if one is executed
+			if (fScript != null) {
+				ShellScriptReader.Command command;
+				try {
+					command = readScriptCommand();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				input = command == null ? null : command.getText();
+			} else if (fReadline != null) {
+				input = fReadline.readline(PROMPT);
+			} else {
+				input = null;
+			}
+
 			if (input == null) {
 				return;
 			}
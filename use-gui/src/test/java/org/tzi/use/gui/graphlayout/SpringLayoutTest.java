@@ -0,0 +1,199 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+
+package org.tzi.use.gui.graphlayout;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.tzi.use.graph.DirectedEdgeBase;
+import org.tzi.use.graph.DirectedGraph;
+import org.tzi.use.graph.DirectedGraphBase;
+import org.tzi.use.gui.views.diagrams.Layoutable;
+
+/**
+ * Tests the class SpringLayout
+ *
+ */
+public class SpringLayoutTest extends TestCase {
+
+	private static class Node implements Layoutable {
+		double x;
+		double y;
+		
+		Node(double x, double y) {
+			this.x = x;
+			this.y = y;
+		}
+		
+		@Override
+		public Point2D getCenter() {
+			return new Point2D.Double(x, y);
+		}
+
+		@Override
+		public double getHeight() {
+			return 10;
+		}
+
+		@Override
+		public double getWidth() {
+			return 10;
+		}
+
+		@Override
+		public void setCenter(double x, double y) {
+			this.x = x;
+			this.y = y;
+		}
+	}
+	
+	private DirectedGraph<Node, DirectedEdgeBase<Node>> createGraph(int numNodes, long seed) {
+		DirectedGraph<Node, DirectedEdgeBase<Node>> g = new DirectedGraphBase<Node, DirectedEdgeBase<Node>>();
+		Random rnd = new Random(seed);
+		List<Node> nodes = new ArrayList<Node>();
+		
+		for (int i = 0; i < numNodes; i++) {
+			Node n = new Node(rnd.nextDouble() * 4000, rnd.nextDouble() * 4000);
+			nodes.add(n);
+			g.add(n);
+			if (i > 0) {
+				g.addEdge(new DirectedEdgeBase<Node>(nodes.get(rnd.nextInt(i)), n));
+			}
+		}
+		
+		return g;
+	}
+	
+	public void testApproximation() {
+		DirectedGraph<Node, DirectedEdgeBase<Node>> exact = createGraph(1000, 42);
+		DirectedGraph<Node, DirectedEdgeBase<Node>> approximated = createGraph(1000, 42);
+		
+		SpringLayout<Node> exactLayout = new SpringLayout<Node>(exact, 4000, 4000, 20, 20);
+		exactLayout.setTheta(0);
+		SpringLayout<Node> approximatedLayout = new SpringLayout<Node>(approximated, 4000, 4000, 20, 20);
+		
+		for (int i = 0; i < 10; i++) {
+			exactLayout.layout();
+			approximatedLayout.layout();
+		}
+		
+		List<Node> exactNodes = exact.getNodes();
+		List<Node> approximatedNodes = approximated.getNodes();
+		Collections.sort(exactNodes, (a, b) -> Double.compare(a.x + a.y * 4000, b.x + b.y * 4000));
+		Collections.sort(approximatedNodes, (a, b) -> Double.compare(a.x + a.y * 4000, b.x + b.y * 4000));
+		
+		double deviation = 0;
+		for (int i = 0; i < exactNodes.size(); i++) {
+			deviation += exactNodes.get(i).getCenter().distance(approximatedNodes.get(i).getCenter());
+		}
+		
+		assertTrue("Average deviation: " + deviation / exactNodes.size(), deviation / exactNodes.size() < 1);
+	}
+	
+	public void testFinished() {
+		DirectedGraph<Node, DirectedEdgeBase<Node>> g = createGraph(10, 1);
+		SpringLayout<Node> layout = new SpringLayout<Node>(g, 800, 800, 20, 20);
+		
+		int iterations = 0;
+		while (!layout.isFinished() && iterations < 10000) {
+			layout.layout();
+			++iterations;
+		}
+		assertTrue(layout.isFinished());
+		
+		layout.resetTimeBudget();
+		assertFalse(layout.isFinished());
+		
+		layout.setTimeBudget(1);
+		layout.layout();
+		try {
+			Thread.sleep(5);
+		} catch (InterruptedException e) { }
+		assertTrue(layout.isFinished());
+	}
+	
+	public void testChangedEdges() {
+		DirectedGraph<Node, DirectedEdgeBase<Node>> g = new DirectedGraphBase<Node, DirectedEdgeBase<Node>>();
+		Node a = new Node(100, 100);
+		Node b = new Node(600, 100);
+		Node c = new Node(100, 600);
+		g.add(a);
+		g.add(b);
+		g.add(c);
+		DirectedEdgeBase<Node> ab = new DirectedEdgeBase<Node>(a, b);
+		g.addEdge(ab);
+		
+		SpringLayout<Node> layout = new SpringLayout<Node>(g, 800, 800, 20, 20);
+		layout.layout();
+		
+		// same number of edges, but different springs
+		g.removeEdge(ab);
+		g.addEdge(new DirectedEdgeBase<Node>(a, c));
+		
+		DirectedGraph<Node, DirectedEdgeBase<Node>> expected = new DirectedGraphBase<Node, DirectedEdgeBase<Node>>();
+		Node a2 = new Node(a.x, a.y);
+		Node b2 = new Node(b.x, b.y);
+		Node c2 = new Node(c.x, c.y);
+		expected.add(a2);
+		expected.add(b2);
+		expected.add(c2);
+		expected.addEdge(new DirectedEdgeBase<Node>(a2, c2));
+		
+		layout.layout();
+		new SpringLayout<Node>(expected, 800, 800, 20, 20).layout();
+		
+		assertEquals(a2.getCenter(), a.getCenter());
+		assertEquals(b2.getCenter(), b.getCenter());
+		assertEquals(c2.getCenter(), c.getCenter());
+	}
+	
+	public void testPlaceNodes() {
+		DirectedGraph<Node, DirectedEdgeBase<Node>> g = new DirectedGraphBase<Node, DirectedEdgeBase<Node>>();
+		Node a = new Node(100, 100);
+		Node b = new Node(300, 100);
+		Node c = new Node(2000, 2000);
+		Node d = new Node(2000, 2000);
+		Node e = new Node(2000, 2000);
+		g.add(a);
+		g.add(b);
+		g.add(c);
+		g.add(d);
+		g.add(e);
+		g.addEdge(new DirectedEdgeBase<Node>(a, c));
+		g.addEdge(new DirectedEdgeBase<Node>(c, b));
+		g.addEdge(new DirectedEdgeBase<Node>(c, d));
+		
+		SpringLayout<Node> layout = new SpringLayout<Node>(g, 4000, 4000, 20, 20);
+		layout.setEdgeLen(100);
+		layout.placeNodes(List.of(c, d, e));
+		
+		// between a and b with an offset of half the edge length
+		assertEquals(50, c.getCenter().distance(200, 100), 0.0001);
+		// placed after its neighbor c
+		assertEquals(50, d.getCenter().distance(c.getCenter()), 0.0001);
+		// no placed neighbors
+		assertEquals(new Point2D.Double(2000, 2000), e.getCenter());
+	}
+}
@@ -52,7 +52,9 @@ public class CreationTimeRecorderTest extends TestCase {
             MModel model = TestModelUtil.getInstance()
                     .createModelWithClassAndAssocClass();
             
-            UseSystemApi api = UseSystemApi.create(model, true);
+            MSystem system = new MSystem(model);
+            system.setRecordEvents(true);
+            UseSystemApi api = UseSystemApi.create(system, true);
             
             // creation of an object (p1) of the class Person
             api.createObjects("Person", "p1");
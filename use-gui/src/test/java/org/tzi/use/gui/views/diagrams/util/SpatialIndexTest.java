@@ -0,0 +1,84 @@
+/*
+ * USE - UML based specification environment
+ * Copyright (C) 1999-2010 Mark Richters, University of Bremen
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.tzi.use.gui.views.diagrams.util;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the class SpatialIndex
+ *
+ */
+public class SpatialIndexTest extends TestCase {
+	
+	public void testOrder() {
+		SpatialIndex<String> index = new SpatialIndex<String>(10);
+		index.add("a", new Rectangle2D.Double(0, 0, 50, 50));
+		index.add("b", new Rectangle2D.Double(20, 20, 10, 10));
+		index.add("c", new Rectangle2D.Double(25, 25, 100, 100));
+		// spans more than the maximum number of cells
+		index.add("d", new Rectangle2D.Double(-1000, -1000, 2000, 2000));
+		
+		assertEquals(Arrays.asList("a", "b", "c", "d"), index.query(26, 26));
+		assertEquals(Arrays.asList("a", "d"), index.query(5, 5));
+		assertEquals(Arrays.asList("d"), index.query(-5, -5));
+		assertEquals(Arrays.asList("a", "b", "c", "d"), index.query(new Rectangle2D.Double(29, 29, 30, 30)));
+		assertEquals(Arrays.asList("c", "d"), index.query(new Rectangle2D.Double(60, 60, 10, 10)));
+	}
+	
+	public void testAgainstLinearSearch() {
+		Random rnd = new Random(42);
+		SpatialIndex<Integer> index = new SpatialIndex<Integer>(64);
+		List<Rectangle2D> bounds = new ArrayList<Rectangle2D>();
+		
+		for (int i = 0; i < 500; ++i) {
+			Rectangle2D r = new Rectangle2D.Double(rnd.nextInt(2000) - 200, rnd.nextInt(2000) - 200, rnd.nextInt(300), rnd.nextInt(300));
+			bounds.add(r);
+			index.add(Integer.valueOf(i), r);
+		}
+		
+		for (int i = 0; i < 200; ++i) {
+			double x = rnd.nextInt(2200) - 200;
+			double y = rnd.nextInt(2200) - 200;
+			
+			List<Integer> expected = new ArrayList<Integer>();
+			for (int j = 0; j < bounds.size(); ++j) {
+				if (bounds.get(j).contains(x, y))
+					expected.add(Integer.valueOf(j));
+			}
+			assertEquals(expected, index.query(x, y));
+			
+			Rectangle2D area = new Rectangle2D.Double(x, y, rnd.nextInt(500), rnd.nextInt(500));
+			expected.clear();
+			for (int j = 0; j < bounds.size(); ++j) {
+				Rectangle2D b = bounds.get(j);
+				// touching bounds are found, too
+				if (b.getMaxX() >= area.getMinX() && b.getMinX() <= area.getMaxX()
+						&& b.getMaxY() >= area.getMinY() && b.getMinY() <= area.getMaxY())
+					expected.add(Integer.valueOf(j));
+			}
+			assertEquals(expected, index.query(area));
+		}
+	}
+}